@@ -1,12 +1,21 @@
-import autocomplete.Autocomplete;
-import autocomplete.TreeSetAutocomplete;
+import autocomplete.WeightedAutocomplete;
 import graphs.AStarGraph;
 import graphs.Edge;
+import graphs.EdgeConsumer;
+import graphs.EdgePoint;
+import graphs.Graph;
+import graphs.shortestpaths.ContractionHierarchy;
+import graphs.shortestpaths.NearestTargets;
+import graphs.shortestpaths.StopPolicy;
 import org.locationtech.spatial4j.context.SpatialContext;
 import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Rectangle;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
+import spatial.GreatCircle;
+import spatial.HilbertRTree;
+import spatial.KdTree;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
@@ -15,22 +24,80 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.zip.GZIPInputStream;
 
 /**
- * {@link AStarGraph} of places as {@link Point} vertices and streets edges weighted by physical distance.
+ * {@link AStarGraph} of places as {@link Point} vertices and streets edges weighted by physical distance. Streets are
+ * stored in a compact {@link StreetGraph}; the {@link Point} view is materialized on demand.
  *
  * @see AStarGraph
  * @see MapServer
  */
 public class MapGraph implements AStarGraph<Point> {
+    /**
+     * OSM highway types that represent streets in this graph.
+     */
+    private static final Set<String> ALLOWED_HIGHWAY_TYPES = Set.of(
+            "motorway",
+            "trunk",
+            "primary",
+            "secondary",
+            "tertiary",
+            "unclassified",
+            "residential",
+            "living_street",
+            "motorway_link",
+            "trunk_link",
+            "primary_link",
+            "secondary_link",
+            "tertiary_link"
+    );
+    /**
+     * Number of nearest places ranked for each place returned by {@link #getPlaces(Point, int)}, which leaves room for
+     * more important places slightly farther away and for names with several nearby locations.
+     */
+    private static final int PLACE_CANDIDATES = 8;
     private final String osmPath;
     private final String placesPath;
     private final SpatialContext context;
-    private final Map<Point, Set<Edge<Point>>> neighbors;
+    /**
+     * The fingerprint of the source data files, or null until a snapshot or hierarchy is read or written.
+     */
+    private Long fingerprint;
+    private final StreetGraph streets;
+    private final StreetGraph reverse;
+    private final KdTree vertexIndex;
+    /**
+     * The start and end vertex ids of each street segment in {@link #edgeIndex}, with one segment for each pair of
+     * vertices joined by an edge in either direction.
+     */
+    private final int[] edgeFrom;
+    private final int[] edgeTo;
+    private final HilbertRTree edgeIndex;
     private final Map<String, List<Point>> locations;
-    private final Autocomplete autocomplete;
+    /**
+     * The vertex id in {@link #streets} closest to each location, in the same order as {@link #locations}.
+     */
+    private final Map<String, int[]> locationIds;
+    /**
+     * A k-d tree over the locations with each name, identifying each location by its index in {@link #locations}.
+     */
+    private final Map<String, KdTree> locationIndex;
+    /**
+     * The name of each location in {@link #placeIndex}, with one entry for each location of each name.
+     */
+    private final String[] placeNames;
+    private final Point[] places;
+    /**
+     * The ranking weight of each location in {@link #placeIndex}, which grows with the importance of its name.
+     */
+    private final double[] placeWeights;
+    private final KdTree placeIndex;
+    private final WeightedAutocomplete autocomplete;
     private final Map<CharSequence, Integer> importance;
 
     /**
@@ -44,43 +111,190 @@ public class MapGraph implements AStarGraph<Point> {
      */
     public MapGraph(String osmPath, String placesPath, SpatialContext context)
             throws ParserConfigurationException, SAXException, IOException {
+        this(osmPath, placesPath, null, context);
+    }
+
+    /**
+     * Constructs a new street map graph from a {@link MapSnapshot} if a valid one exists at the snapshot path, or else
+     * from the path to an OSM file and a places TSV. After parsing the OSM file, writes a new snapshot so that the next
+     * construction can skip parsing.
+     *
+     * @param osmPath      The path to a gzipped OSM (XML) file.
+     * @param placesPath   The path to a gzipped TSV file representing places and importance.
+     * @param snapshotPath The file path to a snapshot of this graph, or null to always parse the OSM file.
+     * @throws ParserConfigurationException if a parser cannot be created.
+     * @throws SAXException                 for SAX errors.
+     * @throws IOException                  if a file is not found or if the file is not gzipped.
+     */
+    public MapGraph(String osmPath, String placesPath, String snapshotPath, SpatialContext context)
+            throws ParserConfigurationException, SAXException, IOException {
         this.osmPath = osmPath;
         this.placesPath = placesPath;
         this.context = context;
 
-        // Parse the OpenStreetMap (OSM) data using the SAXParser XML tree walker.
-        neighbors = new HashMap<>();
-        Handler handler = new Handler(Set.of(
-                "motorway",
-                "trunk",
-                "primary",
-                "secondary",
-                "tertiary",
-                "unclassified",
-                "residential",
-                "living_street",
-                "motorway_link",
-                "trunk_link",
-                "primary_link",
-                "secondary_link",
-                "tertiary_link"
-        ));
-        SAXParser saxParser = SAXParserFactory.newInstance().newSAXParser();
-        saxParser.parse(new GZIPInputStream(fileStream(osmPath)), handler);
-
-        // Add reachable locations to the Autocomplete engine.
-        locations = handler.byName;
-        autocomplete = new TreeSetAutocomplete();
+        MapSnapshot snapshot = null;
+        if (snapshotPath != null) {
+            try {
+                snapshot = MapSnapshot.read(Path.of(snapshotPath), fingerprint(), context);
+            } catch (IOException e) {
+                // Missing, stale, or corrupt snapshot: fall back to parsing the OSM data.
+            }
+        }
+
+        if (snapshot != null) {
+            streets = snapshot.streets;
+            locations = snapshot.locations;
+            importance = snapshot.importance;
+        } else {
+            // Parse the OpenStreetMap (OSM) data using the SAXParser XML tree walker.
+            Handler handler = new Handler(ALLOWED_HIGHWAY_TYPES);
+            SAXParser saxParser = SAXParserFactory.newInstance().newSAXParser();
+            saxParser.parse(new GZIPInputStream(fileStream(osmPath)), handler);
+            streets = StreetGraph.of(handler.neighbors, context);
+            locations = handler.byName;
+
+            // Parse the place-importance data.
+            importance = new HashMap<>();
+            try (Scanner input = new Scanner(new GZIPInputStream(fileStream(placesPath)))) {
+                while (input.hasNextLine()) {
+                    Scanner line = new Scanner(input.nextLine()).useDelimiter("\t");
+                    importance.put(line.next(), line.nextInt());
+                }
+            }
+
+            if (snapshotPath != null) {
+                try {
+                    new MapSnapshot(streets, locations, importance).write(Path.of(snapshotPath), fingerprint());
+                } catch (IOException e) {
+                    // Snapshots are only an optimization: the next construction will parse the OSM data again.
+                }
+            }
+        }
+
+        // Reverse every street for searches that run backward from the goal.
+        reverse = streets.reverse();
+
+        // Index street vertices for snapping arbitrary points to the graph.
+        vertexIndex = new KdTree(streets.vertexCount(), streets::lat, streets::lon);
+
+        // Index street segments for snapping points partway along the streets, bulk-loaded in one pass.
+        int[][] segments = segments(streets);
+        edgeFrom = segments[0];
+        edgeTo = segments[1];
+        edgeIndex = new HilbertRTree(
+                edgeFrom.length, i -> streets.lat(edgeFrom[i]), i -> streets.lon(edgeFrom[i]),
+                i -> streets.lat(edgeTo[i]), i -> streets.lon(edgeTo[i])
+        );
+
+        // Snap every location to the streets once rather than on every search for the nearest locations by road.
+        // Index the locations with each name so that map markers are chosen without sorting every location.
+        locationIds = new HashMap<>(locations.size());
+        locationIndex = new HashMap<>(locations.size());
+        for (Map.Entry<String, List<Point>> entry : locations.entrySet()) {
+            List<Point> points = entry.getValue();
+            int[] ids = new int[points.size()];
+            for (int i = 0; i < ids.length; i += 1) {
+                ids[i] = closestId(points.get(i));
+            }
+            locationIds.put(entry.getKey(), ids);
+            locationIndex.put(entry.getKey(), new KdTree(
+                    points.size(), i -> points.get(i).getLat(), i -> points.get(i).getLon()
+            ));
+        }
+
+        // Index every named location together for finding the places near a point.
+        int count = 0;
+        for (List<Point> points : locations.values()) {
+            count += points.size();
+        }
+        placeNames = new String[count];
+        places = new Point[count];
+        placeWeights = new double[count];
+        int place = 0;
+        for (Map.Entry<String, List<Point>> entry : locations.entrySet()) {
+            double weight = 1 + Math.log1p(Math.max(0, importance.getOrDefault(entry.getKey(), 0)));
+            for (Point point : entry.getValue()) {
+                placeNames[place] = entry.getKey();
+                places[place] = point;
+                placeWeights[place] = weight;
+                place += 1;
+            }
+        }
+        placeIndex = new KdTree(count, i -> places[i].getLat(), i -> places[i].getLon());
+
+        // Add reachable locations to the Autocomplete engine, weighted by importance.
+        autocomplete = new WeightedAutocomplete(name -> importance.getOrDefault(name, 0));
         autocomplete.addAll(locations.keySet());
+    }
+
+    /**
+     * Returns the start and end vertex ids of each street segment: every edge except self-loops and the reverse
+     * direction of each two-way street, which covers the same ground.
+     */
+    private static int[][] segments(StreetGraph streets) {
+        int[][] result = {new int[streets.vertexCount()], new int[streets.vertexCount()]};
+        int[] size = {0};
+        for (int v = 0; v < streets.vertexCount(); v += 1) {
+            streets.forEachNeighbor(v, (from, to, weight) -> {
+                if (from == to || from > to && hasEdge(streets, to, from)) {
+                    return;
+                }
+                if (size[0] == result[0].length) {
+                    result[0] = Arrays.copyOf(result[0], 2 * size[0]);
+                    result[1] = Arrays.copyOf(result[1], 2 * size[0]);
+                }
+                result[0][size[0]] = from;
+                result[1][size[0]] = to;
+                size[0] += 1;
+            });
+        }
+        return new int[][]{Arrays.copyOf(result[0], size[0]), Arrays.copyOf(result[1], size[0])};
+    }
 
-        // Parse the place-importance data.
-        importance = new HashMap<>();
-        try (Scanner input = new Scanner(new GZIPInputStream(fileStream(placesPath)))) {
-            while (input.hasNextLine()) {
-                Scanner line = new Scanner(input.nextLine()).useDelimiter("\t");
-                importance.put(line.next(), line.nextInt());
+    /**
+     * Returns true if the streets have an edge from and to the given vertices.
+     */
+    private static boolean hasEdge(StreetGraph streets, int from, int to) {
+        boolean[] found = {false};
+        streets.forEachNeighbor(from, (v, w, weight) -> found[0] |= w == to);
+        return found[0];
+    }
+
+    /**
+     * Returns the fingerprint of the source data files, computing it on first use: only reading or writing a snapshot
+     * or hierarchy needs it, and computing it opens a connection to each file.
+     *
+     * @return the fingerprint of the source data files.
+     * @throws IOException if a file is not found.
+     */
+    private long fingerprint() throws IOException {
+        if (fingerprint == null) {
+            fingerprint = fingerprint(osmPath, placesPath);
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Returns a fingerprint of the source data files so that snapshots built from different data can be rejected. The
+     * fingerprint combines the snapshot format version, the paths, and the size and modification time of each file.
+     *
+     * @param osmPath    The path to a gzipped OSM (XML) file.
+     * @param placesPath The path to a gzipped TSV file representing places and importance.
+     * @return a fingerprint of the source data files.
+     * @throws IOException if a file is not found.
+     */
+    private static long fingerprint(String osmPath, String placesPath) throws IOException {
+        long result = Objects.hash(MapSnapshot.VERSION, osmPath, placesPath, ALLOWED_HIGHWAY_TYPES);
+        for (String path : List.of(osmPath, placesPath)) {
+            URL resource = Thread.currentThread().getContextClassLoader().getResource(path);
+            if (resource == null) {
+                throw new FileNotFoundException(path);
             }
+            URLConnection connection = resource.openConnection();
+            result = 31 * result + connection.getContentLengthLong();
+            result = 31 * result + connection.getLastModified();
         }
+        return result;
     }
 
     /**
@@ -94,6 +308,99 @@ public class MapGraph implements AStarGraph<Point> {
         return Thread.currentThread().getContextClassLoader().getResourceAsStream(path);
     }
 
+    /**
+     * Returns a {@link ContractionHierarchy} over the streets of this graph, read from the given path if a hierarchy
+     * built from the same data exists there, or else built from scratch and written to the path for later startups.
+     *
+     * @param hierarchyPath the file path to the hierarchy.
+     * @return a contraction hierarchy over the streets of this graph.
+     */
+    public ContractionHierarchy contractionHierarchy(String hierarchyPath) {
+        try {
+            return ContractionHierarchy.read(Path.of(hierarchyPath), fingerprint());
+        } catch (IOException e) {
+            // Missing, stale, or corrupt hierarchy: fall back to preprocessing the streets.
+        }
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(streets);
+        try {
+            hierarchy.write(Path.of(hierarchyPath), fingerprint());
+        } catch (IOException e) {
+            // Hierarchies are only an optimization: the next startup will preprocess the streets again.
+        }
+        return hierarchy;
+    }
+
+    /**
+     * Returns the street locations for the given vertex ids of {@link #streets()}.
+     *
+     * @param ids the vertex ids.
+     * @return the street locations for the given vertex ids.
+     */
+    public List<Point> points(int[] ids) {
+        List<Point> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(streets.point(id));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the vertex ids in {@link #streets()} for the given street locations.
+     *
+     * @param points the street locations.
+     * @return the vertex ids for the given street locations, with -1 for locations that are not vertices.
+     */
+    public int[] ids(List<Point> points) {
+        int[] result = new int[points.size()];
+        int i = 0;
+        for (Point point : points) {
+            result[i] = streets.id(point);
+            i += 1;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the vertex id in {@link #streets()} of the location closest to the given target location.
+     *
+     * @param target the target location.
+     * @return the vertex id of the location closest to the target.
+     */
+    public int closestId(Point target) {
+        return vertexIndex.nearest(target.getLat(), target.getLon());
+    }
+
+    /**
+     * Returns the point on the street segment closest to the given target location, such as where a click on a map
+     * meets the street it falls on. Unlike {@link #closestId(Point)}, the point is not limited to intersections and
+     * other street vertices, which may be far along a long, straight street. Queries an R-tree over every street
+     * segment, so the cost grows with the logarithm of the number of segments.
+     *
+     * @param target the target location.
+     * @return the point on the street segment closest to the target.
+     */
+    public EdgePoint snapToEdge(Point target) {
+        int segment = edgeIndex.nearest(target.getLat(), target.getLon());
+        if (segment < 0) {
+            // Streets without segments can still have a vertex to snap to.
+            return EdgePoint.at(closestId(target));
+        }
+        double fraction = edgeIndex.fraction(segment, target.getLat(), target.getLon());
+        return new EdgePoint(edgeFrom[segment], edgeTo[segment], fraction);
+    }
+
+    /**
+     * Returns the location of the given point partway along a street segment.
+     *
+     * @param point the point partway along a street segment.
+     * @return the location of the point.
+     */
+    public Point point(EdgePoint point) {
+        double lat = streets.lat(point.from) + point.fraction * (streets.lat(point.to) - streets.lat(point.from));
+        double lon = streets.lon(point.from) + point.fraction * (streets.lon(point.to) - streets.lon(point.from));
+        return context.getShapeFactory().pointLatLon(lat, lon);
+    }
+
     /**
      * Returns the location closest to the given target location.
      *
@@ -101,41 +408,180 @@ public class MapGraph implements AStarGraph<Point> {
      * @return the id of the location closest to the target.
      */
     public Point closest(Point target) {
-        return Collections.min(neighbors.keySet(), Comparator.comparingDouble(
-                location -> context.calcDistance(target, location)
-        ));
+        return streets.point(closestId(target));
     }
 
     /**
-     * Return the names of all locations that prefix-match the query string.
+     * Returns the k locations closest to the given target location, ordered from closest to farthest.
      *
-     * @param prefix prefix string that could be any case with or without punctuation.
+     * @param target the target location.
+     * @param k      the maximum number of locations to return.
+     * @return the k locations closest to the target, ordered from closest to farthest.
+     */
+    public List<Point> closest(Point target, int k) {
+        return points(vertexIndex.nearest(target.getLat(), target.getLon(), k));
+    }
+
+    /**
+     * Return the names of the most important locations that prefix-match the query string, ordered from most to least
+     * important.
+     *
+     * @param prefix     prefix string that could be any case with or without punctuation.
+     * @param maxMatches the maximum number of names to return.
      * @return a list of full names of locations matching the prefix.
      */
-    public List<CharSequence> getLocationsByPrefix(String prefix) {
-        List<CharSequence> result = autocomplete.allMatches(prefix);
-        result.sort(Comparator.comparingInt(importance::get));
-        return result;
+    public List<CharSequence> getLocationsByPrefix(String prefix, int maxMatches) {
+        return autocomplete.topMatches(prefix, maxMatches);
     }
 
     /**
-     * Return all locations that match a valid location name.
+     * Returns the names of all locations that searches can match.
+     *
+     * @return an unmodifiable view of the names of all locations.
+     */
+    public Set<String> getLocationNames() {
+        return Collections.unmodifiableSet(locations.keySet());
+    }
+
+    /**
+     * Return all locations that match a valid location name, ordered from closest to farthest from the center.
      *
      * @param locationName a full name of a valid location.
+     * @param center       the location to order by distance from.
      * @return a list of locations whose name matches the location name.
      */
     public List<Point> getLocations(String locationName, Point center) {
-        if (locationName == null || !locations.containsKey(locationName)) {
+        return getLocations(locationName, center, getLocations(locationName).size(), null);
+    }
+
+    /**
+     * Returns the k locations matching a valid location name that are inside the viewport and closest to the center,
+     * ordered from closest to farthest, such as the markers to draw on a map. Queries the k-d tree over the locations
+     * with the name rather than sorting every location.
+     *
+     * @param locationName a full name of a valid location.
+     * @param center       the location to order by distance from.
+     * @param k            the maximum number of locations to return.
+     * @param viewport     the bounds of the visible area, or null to consider every location.
+     * @return the k locations inside the viewport closest to the center.
+     * @throws IllegalArgumentException if k is negative.
+     */
+    public List<Point> getLocations(String locationName, Point center, int k, Rectangle viewport) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+        KdTree index = locationName == null ? null : locationIndex.get(locationName);
+        if (index == null) {
             return List.of();
         }
-        List<Point> result = new ArrayList<>(locations.get(locationName));
-        result.sort(Comparator.comparingDouble(location -> context.calcDistance(center, location)));
+        int[] nearest;
+        if (viewport == null) {
+            nearest = index.nearest(center.getLat(), center.getLon(), k);
+        } else {
+            nearest = index.nearest(center.getLat(), center.getLon(), k,
+                    viewport.getMinY(), viewport.getMinX(), viewport.getMaxY(), viewport.getMaxX());
+        }
+        List<Point> points = locations.get(locationName);
+        List<Point> result = new ArrayList<>(nearest.length);
+        for (int i : nearest) {
+            result.add(points.get(i));
+        }
         return result;
     }
 
+    /**
+     * Returns up to k distinct names of places near the target, each with its location nearest to the target, such as
+     * labels for a point clicked on a map. Places are ranked by their distance divided by one plus the logarithm of
+     * one plus the importance of their name, so a well-known place can outrank a slightly closer obscure one. Only the
+     * nearest few places are ranked, found with a k-d tree over every named location, so the cost depends on k rather
+     * than on the number of places.
+     *
+     * @param target the location to find places near.
+     * @param k      the maximum number of places to return.
+     * @return the names and locations of the places near the target, ordered from highest to lowest rank.
+     */
+    public List<Map.Entry<String, Point>> getPlaces(Point target, int k) {
+        if (k <= 0) {
+            return List.of();
+        }
+        int[] nearest = placeIndex.nearest(target.getLat(), target.getLon(), k * PLACE_CANDIDATES);
+        double[] scores = new double[nearest.length];
+        Integer[] order = new Integer[nearest.length];
+        for (int i = 0; i < nearest.length; i += 1) {
+            Point place = places[nearest[i]];
+            double distance = GreatCircle.distance(target.getLat(), target.getLon(), place.getLat(), place.getLon());
+            scores[i] = distance / placeWeights[nearest[i]];
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> scores[i]));
+        Map<String, Point> result = new LinkedHashMap<>();
+        for (int i = 0; i < order.length && result.size() < k; i += 1) {
+            int place = nearest[order[i]];
+            result.putIfAbsent(placeNames[place], places[place]);
+        }
+        List<Map.Entry<String, Point>> entries = new ArrayList<>(result.size());
+        for (Map.Entry<String, Point> entry : result.entrySet()) {
+            entries.add(Map.entry(entry.getKey(), entry.getValue()));
+        }
+        return entries;
+    }
+
+    /**
+     * Returns all locations that match a valid location name, in the order that {@link #nearestLocations} refers to
+     * them by index.
+     *
+     * @param locationName a full name of a valid location.
+     * @return an unmodifiable list of locations whose name matches the location name.
+     */
+    public List<Point> getLocations(String locationName) {
+        if (locationName == null || !locations.containsKey(locationName)) {
+            return List.of();
+        }
+        return Collections.unmodifiableList(locations.get(locationName));
+    }
+
+    /**
+     * Returns the k locations matching a valid location name that are nearest by shortest path distance along the
+     * streets from the given vertex, found by a single Dijkstra search that stops once they are settled. Locations are
+     * referred to by their index in {@link #getLocations(String)} and measured from their closest street vertex.
+     *
+     * @param locationName a full name of a valid location.
+     * @param startId      the vertex id in {@link #streets()} to measure from.
+     * @param k            the maximum number of locations to return.
+     * @param policy       the policy deciding when to give up the search.
+     * @return the nearest locations whose name matches the location name.
+     */
+    public NearestTargets nearestLocations(String locationName, int startId, int k, StopPolicy policy) {
+        int[] ids = locationName == null ? null : locationIds.get(locationName);
+        return new NearestTargets(streets, startId, ids == null ? new int[0] : ids, k, policy);
+    }
+
+    /**
+     * Returns the compressed sparse row representation of this graph for clients that work with int vertex ids.
+     *
+     * @return the compressed sparse row representation of this graph.
+     */
+    public StreetGraph streets() {
+        return streets;
+    }
+
+    /**
+     * Returns a view of this graph with every street reversed, for searches that run backward from the goal.
+     *
+     * @return a view of this graph with every street reversed.
+     */
+    public Graph<Point> reverse() {
+        return reverse;
+    }
+
     @Override
     public List<Edge<Point>> neighbors(Point v) {
-        return new ArrayList<>(neighbors.getOrDefault(v, Set.of()));
+        return streets.neighbors(v);
+    }
+
+    @Override
+    public void forEachNeighbor(Point v, EdgeConsumer<Point> action) {
+        streets.forEachNeighbor(v, action);
     }
 
     @Override
@@ -152,21 +598,12 @@ public class MapGraph implements AStarGraph<Point> {
                 '}';
     }
 
-    /**
-     * Adds an edge to this graph if it doesn't already exist, using distance as the weight.
-     */
-    private void addEdge(Point from, Point to) {
-        if (!neighbors.containsKey(from)) {
-            neighbors.put(from, new HashSet<>());
-        }
-        neighbors.get(from).add(new Edge<>(from, to, estimatedDistance(from, to)));
-    }
-
     /**
      * Parses OSM XML files to construct a StreetMapGraph.
      */
     private class Handler extends DefaultHandler {
         private final Set<String> allowedHighwayTypes;
+        private final Map<Point, Set<Edge<Point>>> neighbors;
         private final Map<Long, Point> byId;
         private final Map<String, List<Point>> byName;
         private String state;
@@ -178,6 +615,7 @@ public class MapGraph implements AStarGraph<Point> {
 
         Handler(Set<String> allowedHighwayTypes) {
             this.allowedHighwayTypes = allowedHighwayTypes;
+            this.neighbors = new HashMap<>();
             this.byId = new HashMap<>();
             this.byName = new HashMap<>();
             reset();
@@ -195,6 +633,16 @@ public class MapGraph implements AStarGraph<Point> {
             path = new ArrayDeque<>();
         }
 
+        /**
+         * Adds an edge to the parsed streets if it doesn't already exist, using distance as the weight.
+         */
+        private void addEdge(Point from, Point to) {
+            if (!neighbors.containsKey(from)) {
+                neighbors.put(from, new HashSet<>());
+            }
+            neighbors.get(from).add(new Edge<>(from, to, estimatedDistance(from, to)));
+        }
+
         /**
          * Called at the beginning of an element.
          *
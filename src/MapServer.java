@@ -1,18 +1,63 @@
-import graphs.shortestpaths.AStarSolver;
+import cache.CacheStats;
+import cache.LruCache;
+import cache.RemoteImageCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphs.AStarGraph;
+import graphs.EdgePoint;
+import graphs.IntAStarGraph;
+import graphs.shortestpaths.BidirectionalAStarSolver;
+import graphs.shortestpaths.ContractionHierarchy;
+import graphs.shortestpaths.DistanceMatrix;
+import graphs.shortestpaths.IntAStarSolver;
+import graphs.shortestpaths.Isochrone;
+import graphs.shortestpaths.Landmarks;
+import graphs.shortestpaths.NearestTargets;
+import graphs.shortestpaths.SearchStats;
+import graphs.shortestpaths.StopPolicy;
 import io.javalin.Javalin;
+import io.javalin.http.BadRequestResponse;
+import io.javalin.http.Context;
+import io.javalin.http.ServiceUnavailableResponse;
 import io.javalin.validation.JavalinValidation;
 import io.javalin.validation.Validator;
+import org.eclipse.jetty.server.Server;
 import org.locationtech.spatial4j.context.SpatialContext;
+import org.locationtech.spatial4j.distance.DistanceUtils;
 import org.locationtech.spatial4j.shape.Point;
+import org.locationtech.spatial4j.shape.Rectangle;
+import server.ImageEncoder;
+import server.LatencyHistogram;
+import server.Metrics;
+import server.PrefixAnswers;
+import server.ThreadPools;
+import spatial.GreatCircle;
+import spatial.Polylines;
 
-import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
-import java.net.MalformedURLException;
-import java.net.URL;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -34,10 +79,133 @@ public class MapServer {
      * The place-importance TSV data file path from OpenStreetMap.
      */
     private static final String PLACES_PATH = "places.tsv.gz";
+    /**
+     * The file path for the {@link MapGraph} snapshot, written after the first startup and read on later startups.
+     */
+    private static final String SNAPSHOT_PATH = "seattle.snapshot";
+    /**
+     * The file path for the {@link ContractionHierarchy} over the streets, written after the first startup that routes
+     * with contraction hierarchies and read on later startups.
+     */
+    private static final String HIERARCHY_PATH = "seattle.ch";
+    /**
+     * Default route search algorithm: "astar" for A* search, "bidirectional" for bidirectional A* search, or "ch" for
+     * contraction hierarchies.
+     */
+    private static final String ROUTER = "astar";
+    /**
+     * Default threads for running request handlers: "platform" for a bounded pool of platform threads, or "virtual"
+     * for a virtual thread per request, which requires JDK 21 or newer.
+     */
+    private static final String THREADS = "platform";
+    /**
+     * Maximum number of platform threads for accepting connections and, unless using virtual threads, for running
+     * request handlers.
+     */
+    private static final int MAX_REQUEST_THREADS = 250;
+    /**
+     * Maximum number of route searches waiting for each compute thread before new searches are rejected.
+     */
+    private static final int COMPUTE_QUEUE_PER_THREAD = 16;
+    /**
+     * Default number of milliseconds after a route request arrives that its search is abandoned.
+     */
+    private static final int ROUTE_TIMEOUT_MILLIS = 5000;
+    /**
+     * Additional milliseconds to wait for a search to notice its deadline before the request stops waiting for it.
+     */
+    private static final int ROUTE_TIMEOUT_GRACE_MILLIS = 250;
+    /**
+     * Maximum number of routes in one {@code /routes} batch.
+     */
+    private static final int MAX_BATCH_ROUTES = 1000;
+    /**
+     * Maximum number of batch routes waiting for a worker before new batches are rejected.
+     */
+    private static final int MAX_QUEUED_BATCH_ROUTES = 4 * MAX_BATCH_ROUTES;
+    /**
+     * Maximum number of sources and, separately, of targets in one {@code /matrix} request.
+     */
+    private static final int MAX_MATRIX_POINTS = 500;
+    /**
+     * Number of milliseconds after a batch or distance matrix request arrives that its unfinished searches are
+     * abandoned.
+     */
+    private static final int BATCH_TIMEOUT_MILLIS = 60_000;
+    /**
+     * Number of seconds that clients turned away by an overloaded or timed out route search should wait before
+     * retrying.
+     */
+    private static final int RETRY_AFTER_SECONDS = 1;
+    /**
+     * Default number of landmarks for the A* heuristic, or 0 to use only straight-line distance.
+     */
+    private static final int LANDMARKS = 8;
+    /**
+     * Maximum number of routes kept in the route cache.
+     */
+    private static final int ROUTE_CACHE_SIZE = 10_000;
+    /**
+     * Maximum total size in bytes of the routes kept in the route cache.
+     */
+    private static final long ROUTE_CACHE_BYTES = 32L << 20;
+    /**
+     * Maximum number of isochrones kept in the isochrone cache.
+     */
+    private static final int ISOCHRONE_CACHE_SIZE = 1000;
+    /**
+     * Maximum total size in bytes of the street lines kept in the isochrone cache.
+     */
+    private static final long ISOCHRONE_CACHE_BYTES = 32L << 20;
+    /**
+     * Largest distance budget in meters of an {@code /isochrone} request.
+     */
+    private static final int MAX_ISOCHRONE_METERS = 10_000;
+    /**
+     * Number of seconds clients may reuse a route returned by {@code /route}.
+     */
+    private static final int ROUTE_MAX_AGE = 3600;
+    /**
+     * Maximum number of base map images kept in memory.
+     */
+    private static final int IMAGE_CACHE_SIZE = 256;
+    /**
+     * Maximum total size in bytes of the decoded base map images kept in memory.
+     */
+    private static final long IMAGE_CACHE_BYTES = 256L << 20;
+    /**
+     * Maximum time to wait for the map image API to connect and again to respond.
+     */
+    private static final Duration IMAGE_TIMEOUT = Duration.ofSeconds(10);
+    /**
+     * Maximum number of location markers drawn on a map image, which keeps the map image API URL short.
+     */
+    private static final int MAX_MARKERS = 100;
+    /**
+     * Default number of locations returned by {@code /nearest}.
+     */
+    private static final int NEAREST_LOCATIONS = 5;
+    /**
+     * Maximum number of locations returned by {@code /nearest}.
+     */
+    private static final int MAX_NEAREST_LOCATIONS = 50;
+    /**
+     * Default number of places returned by {@code /reverse}.
+     */
+    private static final int REVERSE_PLACES = 5;
+    /**
+     * Maximum number of places returned by {@code /reverse}.
+     */
+    private static final int MAX_REVERSE_PLACES = 20;
     /**
      * Maximum number of autocomplete search results.
      */
     private static final int MAX_MATCHES = 10;
+    /**
+     * Default length of the longest search prefixes whose results are precomputed at startup, or 0 to search on every
+     * request.
+     */
+    private static final int SEARCH_PREFIX_LENGTH = 3;
     /**
      * The longitudinal distance per pixel when the map is centered on Seattle.
      */
@@ -46,13 +214,66 @@ public class MapServer {
      * The latitudinal distance per pixel when the map is centered on Seattle.
      */
     private static final double SEATTLE_ROOT_LATDPP = 0.23689728184;
+    /**
+     * Name of the histograms of time spent in each phase of a request handler.
+     */
+    private static final String PHASE_SECONDS = "huskymaps_phase_seconds";
 
     public static void main(String[] args) throws Exception {
         SpatialContext context = SpatialContext.GEO;
-        MapGraph map = new MapGraph(OSM_DB_PATH, PLACES_PATH, context);
+        MapGraph map = new MapGraph(OSM_DB_PATH, PLACES_PATH, SNAPSHOT_PATH, context);
+        String algorithm = router();
+        ContractionHierarchy hierarchy = "ch".equals(algorithm)
+                ? map.contractionHierarchy(HIERARCHY_PATH)
+                : null;
+        Landmarks landmarks = hierarchy == null && landmarks() > 0
+                ? Landmarks.select(map.streets(), landmarks())
+                : null;
+        AStarGraph<Point> router = landmarks != null ? landmarks.heuristic(map, map.streets()::id) : map;
+        IntAStarGraph streets = landmarks != null ? landmarks.heuristic(map.streets()) : map.streets();
+        Metrics metrics = new Metrics();
+        int processors = Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor compute = ThreadPools.computePool(
+                "route", processors, COMPUTE_QUEUE_PER_THREAD * processors
+        );
+        metrics.gauge("huskymaps_compute_queue_length", "Route searches waiting for a compute thread.",
+                () -> compute.getQueue().size());
+        RouteFinder routes = new RouteFinder(
+                map, algorithm, hierarchy, router, streets, compute, Duration.ofMillis(routeTimeoutMillis()), metrics
+        );
+        ForkJoinPool batches = ThreadPools.batchPool("batch", processors);
+        RemoteImageCache images = new RemoteImageCache(
+                IMAGE_CACHE_SIZE, IMAGE_CACHE_BYTES, imageCacheDirectory(), IMAGE_TIMEOUT
+        );
+        register(metrics, "image", images::stats);
+        metrics.counter("huskymaps_image_fetches_total", "Base map images fetched from the map image API.",
+                images::fetches);
+        // The first keystrokes of a search match the most names, so answer them from a precomputed table.
+        PrefixAnswers searches = PrefixAnswers.build(
+                map.getLocationNames(), searchPrefixLength(), prefix -> map.getLocationsByPrefix(prefix, MAX_MATCHES)
+        );
+        boolean virtual = "virtual".equals(threads());
         Javalin app = Javalin.create(config -> {
             config.spaRoot.addFile("/", "index.html");
+            config.jetty.server(() -> new Server(ThreadPools.requestPool(virtual, MAX_REQUEST_THREADS)));
+            config.requestLogger.http((ctx, millis) -> {
+                String route;
+                try {
+                    route = ctx.endpointHandlerPath();
+                } catch (IllegalStateException e) {
+                    // Static files and unknown paths have no endpoint handler.
+                    route = "unmatched";
+                }
+                metrics.histogram("huskymaps_request_seconds", "Time to handle and respond to each request.",
+                        "route", route).record((long) (millis * 1_000_000));
+                metrics.counter("huskymaps_requests_total", "Requests handled by route and status code.",
+                        "route", route, "status", Integer.toString(ctx.statusCode())).increment();
+            });
         }).start(port());
+        app.get("/metrics", ctx -> {
+            ctx.contentType("text/plain; version=0.0.4; charset=utf-8");
+            ctx.result(metrics.scrape());
+        });
         app.get("/map/{lon},{lat},{zoom}/{width}x{height}", ctx -> {
             double lon = ctx.pathParamAsClass("lon", Double.class).get();
             double lat = ctx.pathParamAsClass("lat", Double.class).get();
@@ -60,27 +281,38 @@ public class MapServer {
             int width = ctx.pathParamAsClass("width", Integer.class).get();
             int height = ctx.pathParamAsClass("height", Integer.class).get();
             Point center = context.getShapeFactory().pointLatLon(lat, lon);
-            List<Point> locations = map.getLocations(ctx.queryParam("term"), center);
-            BufferedImage image = ImageIO.read(url(center, zoom, width, height, locations));
+            long start = System.nanoTime();
+            // Only mark the locations inside the image, preferring those closest to the center.
+            double lonDPP = SEATTLE_ROOT_LONDPP / Math.pow(2, zoom);
+            double latDPP = SEATTLE_ROOT_LATDPP / Math.pow(2, zoom);
+            Rectangle viewport = context.getShapeFactory().rect(
+                    Math.max(-180, lon - width / 2.0 * lonDPP), Math.min(180, lon + width / 2.0 * lonDPP),
+                    Math.max(-90, lat - height / 2.0 * latDPP), Math.min(90, lat + height / 2.0 * latDPP)
+            );
+            List<Point> locations = map.getLocations(ctx.queryParam("term"), center, MAX_MARKERS, viewport);
+            phase(metrics, "map", "markers").recordSince(start);
+            start = System.nanoTime();
+            BufferedImage image = images.get(url(center, zoom, width, height, locations));
+            phase(metrics, "map", "fetch").recordSince(start);
             Validator<Double> startLon = ctx.queryParamAsClass("startLon", Double.class);
             Validator<Double> startLat = ctx.queryParamAsClass("startLat", Double.class);
             Validator<Double> goalLon = ctx.queryParamAsClass("goalLon", Double.class);
             Validator<Double> goalLat = ctx.queryParamAsClass("goalLat", Double.class);
             if (JavalinValidation.collectErrors(startLon, startLat, goalLon, goalLat).isEmpty()) {
-                // Overlay route if the route start and goal are defined.
-                Point start = context.getShapeFactory().pointLatLon(startLat.get(), startLon.get());
+                // Overlay route if the route start and goal are defined. Clients that draw the route themselves
+                // should request it from /route instead so that the base image stays the same as the route changes.
+                Point origin = context.getShapeFactory().pointLatLon(startLat.get(), startLon.get());
                 Point goal = context.getShapeFactory().pointLatLon(goalLat.get(), goalLon.get());
-                List<Point> route = new AStarSolver<>(map, map.closest(start), map.closest(goal)).solution();
+                start = System.nanoTime();
+                Search route = routes.path(ctx, origin, goal);
+                phase(metrics, "map", "route").recordSince(start);
+                start = System.nanoTime();
                 // Convert route to xPoints and yPoints for Graphics2D.drawPolyline
-                double lonDPP = SEATTLE_ROOT_LONDPP / Math.pow(2, zoom);
-                double latDPP = SEATTLE_ROOT_LATDPP / Math.pow(2, zoom);
-                int[] xPoints = new int[route.size()];
-                int[] yPoints = new int[route.size()];
-                int i = 0;
-                for (Point location : route) {
-                    xPoints[i] = (int) ((location.getLon() - center.getLon()) * (1 / lonDPP)) + (width / 2);
-                    yPoints[i] = (int) ((center.getLat() - location.getLat()) * (1 / latDPP)) + (height / 2);
-                    i += 1;
+                int[] xPoints = new int[route.lats.length];
+                int[] yPoints = new int[route.lats.length];
+                for (int i = 0; i < route.lats.length; i += 1) {
+                    xPoints[i] = (int) ((route.lons[i] - center.getLon()) * (1 / lonDPP)) + (width / 2);
+                    yPoints[i] = (int) ((center.getLat() - route.lats[i]) * (1 / latDPP)) + (height / 2);
                 }
                 Graphics2D g2d = image.createGraphics();
                 // Draw route outline
@@ -93,21 +325,316 @@ public class MapServer {
                 g2d.setStroke(new BasicStroke(5.0f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
                 g2d.drawPolyline(xPoints, yPoints, xPoints.length);
                 g2d.dispose();
+                phase(metrics, "map", "draw").recordSince(start);
+            }
+            ImageEncoder encoder;
+            try {
+                encoder = ImageEncoder.of(
+                        ctx.queryParamAsClass("format", String.class).getOrDefault("png"),
+                        ctx.queryParamAsClass("compression", Integer.class).allowNullable().get()
+                );
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestResponse(e.getMessage());
+            }
+            // Encode straight into the response rather than buffering the image and then its Base64 text.
+            start = System.nanoTime();
+            if ("binary".equals(ctx.queryParam("encoding"))) {
+                ctx.contentType(encoder.contentType());
+                encoder.write(image, ctx.outputStream());
+            } else {
+                ctx.contentType("text/plain");
+                ctx.header("X-Image-Type", encoder.contentType());
+                OutputStream base64 = Base64.getEncoder().wrap(ctx.outputStream());
+                encoder.write(image, base64);
+                // Closing writes the final Base64 padding.
+                base64.close();
+            }
+            phase(metrics, "map", "encode").recordSince(start);
+        });
+        app.get("/route", ctx -> {
+            Point start = context.getShapeFactory().pointLatLon(
+                    ctx.queryParamAsClass("startLat", Double.class).get(),
+                    ctx.queryParamAsClass("startLon", Double.class).get()
+            );
+            Point goal = context.getShapeFactory().pointLatLon(
+                    ctx.queryParamAsClass("goalLat", Double.class).get(),
+                    ctx.queryParamAsClass("goalLon", Double.class).get()
+            );
+            String format = format(ctx);
+            long begin = System.nanoTime();
+            Search route = routes.path(ctx, start, goal);
+            phase(metrics, "route", "route").recordSince(begin);
+            begin = System.nanoTime();
+            double[] lats = route.lats;
+            double[] lons = route.lons;
+            Integer zoom = ctx.queryParamAsClass("zoom", Integer.class).allowNullable().get();
+            int[] kept = Polylines.simplify(
+                    lats, lons, tolerance(zoom, SEATTLE_ROOT_LATDPP), tolerance(zoom, SEATTLE_ROOT_LONDPP)
+            );
+            phase(metrics, "route", "simplify").recordSince(begin);
+            ctx.header("Cache-Control", "public, max-age=" + ROUTE_MAX_AGE);
+            if ("geojson".equals(format)) {
+                List<double[]> coordinates = new ArrayList<>(kept.length);
+                for (int i : kept) {
+                    coordinates.add(new double[]{lons[i], lats[i]});
+                }
+                ctx.contentType("application/geo+json");
+                ctx.json(Map.of(
+                        "type", "Feature",
+                        "geometry", Map.of("type", "LineString", "coordinates", coordinates),
+                        "properties", Map.of()
+                ));
+            } else {
+                ctx.json(Map.of("polyline", Polylines.encode(lats, lons, kept)));
+            }
+        });
+        app.get("/isochrone", ctx -> {
+            Point center = context.getShapeFactory().pointLatLon(
+                    ctx.queryParamAsClass("lat", Double.class).get(),
+                    ctx.queryParamAsClass("lon", Double.class).get()
+            );
+            int meters = ctx.queryParamAsClass("meters", Integer.class)
+                    .check(budget -> budget > 0 && budget <= MAX_ISOCHRONE_METERS,
+                            "Must be between 1 and " + MAX_ISOCHRONE_METERS)
+                    .get();
+            String format = format(ctx);
+            long begin = System.nanoTime();
+            double[][][] lines = routes.isochrone(ctx, center, meters);
+            phase(metrics, "isochrone", "search").recordSince(begin);
+            begin = System.nanoTime();
+            Integer zoom = ctx.queryParamAsClass("zoom", Integer.class).allowNullable().get();
+            double latTolerance = tolerance(zoom, SEATTLE_ROOT_LATDPP);
+            double lonTolerance = tolerance(zoom, SEATTLE_ROOT_LONDPP);
+            int[][] kept = new int[lines.length][];
+            for (int i = 0; i < lines.length; i += 1) {
+                kept[i] = Polylines.simplify(lines[i][0], lines[i][1], latTolerance, lonTolerance);
+            }
+            phase(metrics, "isochrone", "simplify").recordSince(begin);
+            ctx.header("Cache-Control", "public, max-age=" + ROUTE_MAX_AGE);
+            if ("geojson".equals(format)) {
+                List<List<double[]>> coordinates = new ArrayList<>(lines.length);
+                for (int i = 0; i < lines.length; i += 1) {
+                    List<double[]> line = new ArrayList<>(kept[i].length);
+                    for (int j : kept[i]) {
+                        line.add(new double[]{lines[i][1][j], lines[i][0][j]});
+                    }
+                    coordinates.add(line);
+                }
+                ctx.contentType("application/geo+json");
+                ctx.json(Map.of(
+                        "type", "Feature",
+                        "geometry", Map.of("type", "MultiLineString", "coordinates", coordinates),
+                        "properties", Map.of("meters", meters)
+                ));
+            } else {
+                List<String> polylines = new ArrayList<>(lines.length);
+                for (int i = 0; i < lines.length; i += 1) {
+                    polylines.add(Polylines.encode(lines[i][0], lines[i][1], kept[i]));
+                }
+                ctx.json(Map.of("polylines", polylines));
+            }
+        });
+        app.post("/routes", ctx -> {
+            double[][] pairs = ctx.bodyValidator(double[][].class)
+                    .check(batch -> batch.length <= MAX_BATCH_ROUTES, "At most " + MAX_BATCH_ROUTES + " routes")
+                    .check(batch -> Arrays.stream(batch).allMatch(pair -> pair != null && pair.length == 4),
+                            "Each route must be [startLat, startLon, goalLat, goalLon]")
+                    .get();
+            routes.batch(ctx, pairs, batches);
+        });
+        app.post("/matrix", ctx -> {
+            MatrixRequest request = ctx.bodyValidator(MatrixRequest.class)
+                    .check(body -> body.sources != null, "Missing sources")
+                    // Every check runs even if an earlier one fails, so the later checks also allow missing sources.
+                    .check(body -> (body.sources == null || body.sources.length <= MAX_MATRIX_POINTS)
+                                    && (body.targets == null || body.targets.length <= MAX_MATRIX_POINTS),
+                            "At most " + MAX_MATRIX_POINTS + " sources and " + MAX_MATRIX_POINTS + " targets")
+                    .check(body -> (body.sources == null || isLatLon(body.sources))
+                                    && (body.targets == null || isLatLon(body.targets)),
+                            "Each point must be [lat, lon]")
+                    .get();
+            if (batches.getQueuedSubmissionCount() + request.sources.length > MAX_QUEUED_BATCH_ROUTES) {
+                throw unavailable(ctx, "Too many searches in progress");
+            }
+            long start = System.nanoTime();
+            int[] sources = snap(map, request.sources);
+            // Without targets, compute distances between every pair of sources.
+            int[] targets = request.targets == null ? sources : snap(map, request.targets);
+            phase(metrics, "matrix", "snap").recordSince(start);
+            start = System.nanoTime();
+            DistanceMatrix matrix = new DistanceMatrix(
+                    map.streets(), sources, targets,
+                    StopPolicy.timeout(Duration.ofMillis(BATCH_TIMEOUT_MILLIS)).or(StopPolicy.interrupted()), batches
+            );
+            phase(metrics, "matrix", "search").recordSince(start);
+            if (!matrix.isComplete()) {
+                throw unavailable(ctx, "Distance matrix did not finish within " + BATCH_TIMEOUT_MILLIS + " ms");
+            }
+            // Report distances in meters, with null for unreachable targets since JSON has no infinity.
+            double[][] distances = matrix.distances();
+            Double[][] meters = new Double[sources.length][targets.length];
+            for (int i = 0; i < sources.length; i += 1) {
+                for (int j = 0; j < targets.length; j += 1) {
+                    double distance = distances[i][j] * DistanceUtils.DEG_TO_KM * 1000;
+                    meters[i][j] = Double.isInfinite(distance) ? null : Math.round(distance * 10) / 10.0;
+                }
+            }
+            ctx.header("X-Search-Stats", "settled=" + matrix.settled());
+            ctx.json(meters);
+        });
+        app.get("/nearest", ctx -> {
+            Point start = context.getShapeFactory().pointLatLon(
+                    ctx.queryParamAsClass("lat", Double.class).get(),
+                    ctx.queryParamAsClass("lon", Double.class).get()
+            );
+            int k = ctx.queryParamAsClass("k", Integer.class)
+                    .check(count -> count > 0 && count <= MAX_NEAREST_LOCATIONS,
+                            "Must be between 1 and " + MAX_NEAREST_LOCATIONS)
+                    .getOrDefault(NEAREST_LOCATIONS);
+            long begin = System.nanoTime();
+            List<Map<String, Object>> nearest = routes.nearest(ctx, ctx.queryParam("term"), start, k);
+            phase(metrics, "nearest", "search").recordSince(begin);
+            ctx.json(nearest);
+        });
+        app.get("/reverse", ctx -> {
+            Point target = context.getShapeFactory().pointLatLon(
+                    ctx.queryParamAsClass("lat", Double.class).get(),
+                    ctx.queryParamAsClass("lon", Double.class).get()
+            );
+            int k = ctx.queryParamAsClass("k", Integer.class)
+                    .check(count -> count > 0 && count <= MAX_REVERSE_PLACES,
+                            "Must be between 1 and " + MAX_REVERSE_PLACES)
+                    .getOrDefault(REVERSE_PLACES);
+            // Answered on the request thread: a k-d tree query is cheaper than handing off to the compute pool.
+            long begin = System.nanoTime();
+            List<Map.Entry<String, Point>> places = map.getPlaces(target, k);
+            List<Map<String, Object>> result = new ArrayList<>(places.size());
+            for (Map.Entry<String, Point> place : places) {
+                Point location = place.getValue();
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("name", place.getKey());
+                item.put("lat", location.getLat());
+                item.put("lon", location.getLon());
+                double distance = GreatCircle.distance(
+                        target.getLat(), target.getLon(), location.getLat(), location.getLon()
+                ) * DistanceUtils.DEG_TO_KM * 1000;
+                item.put("distance", Math.round(distance * 10) / 10.0);
+                result.add(item);
             }
-            ByteArrayOutputStream os = new ByteArrayOutputStream();
-            ImageIO.write(image, "png", os);
-            ctx.result(Base64.getEncoder().encode(os.toByteArray()));
+            phase(metrics, "reverse", "lookup").recordSince(begin);
+            ctx.json(result);
         });
         app.get("/search", ctx -> {
-            List<CharSequence> result = map.getLocationsByPrefix(ctx.queryParam("term"));
-            if (result.size() > MAX_MATCHES) {
-                ctx.json(result.subList(0, MAX_MATCHES));
+            String term = ctx.queryParam("term");
+            long start = System.nanoTime();
+            byte[] answer = searches.get(term);
+            if (answer != null) {
+                phase(metrics, "search", "precomputed").recordSince(start);
+                ctx.contentType("application/json");
+                ctx.result(answer);
             } else {
-                ctx.json(result);
+                List<CharSequence> matches = map.getLocationsByPrefix(term, MAX_MATCHES);
+                phase(metrics, "search", "search").recordSince(start);
+                ctx.json(matches);
             }
         });
     }
 
+    /**
+     * Returns the histogram of time spent in the phase of the request handler.
+     *
+     * @param metrics the metrics registry.
+     * @param handler the name of the request handler.
+     * @param phase   the name of the phase.
+     * @return the histogram of time spent in the phase of the request handler.
+     */
+    private static LatencyHistogram phase(Metrics metrics, String handler, String phase) {
+        return metrics.histogram(PHASE_SECONDS, "Time spent in each phase of a request handler.",
+                "handler", handler, "phase", phase);
+    }
+
+    /**
+     * Returns the requested geometry format, either an encoded polyline (the default) or GeoJSON.
+     *
+     * @param ctx the context of the request.
+     * @return the requested geometry format.
+     * @throws BadRequestResponse if the format is unknown.
+     */
+    private static String format(Context ctx) {
+        String format = ctx.queryParamAsClass("format", String.class).getOrDefault("polyline");
+        if (!"polyline".equals(format) && !"geojson".equals(format)) {
+            throw new BadRequestResponse("Unknown format: " + format);
+        }
+        return format;
+    }
+
+    /**
+     * Returns the tolerance in degrees for simplifying a shape drawn at the zoom level: half a pixel, so that dropped
+     * points would not move the drawn shape, or without a zoom level, the precision of an encoded polyline.
+     *
+     * @param zoom              the zoom level, or null if unknown.
+     * @param rootDegreesPerPix the degrees per pixel along the same axis at zoom level 0.
+     * @return the tolerance in degrees along the axis.
+     */
+    private static double tolerance(Integer zoom, double rootDegreesPerPix) {
+        return zoom == null ? 1e-6 : rootDegreesPerPix / Math.pow(2, zoom) / 2;
+    }
+
+    /**
+     * Returns true if every point is a pair of latitude and longitude.
+     *
+     * @param points the points to check.
+     * @return true if every point is a pair of latitude and longitude.
+     */
+    private static boolean isLatLon(double[][] points) {
+        return Arrays.stream(points).allMatch(point -> point != null && point.length == 2);
+    }
+
+    /**
+     * Returns the ids of the street locations closest to each coordinate.
+     *
+     * @param map         the map graph.
+     * @param coordinates the latitude and longitude of each location.
+     * @return the ids of the street locations closest to each coordinate.
+     */
+    private static int[] snap(MapGraph map, double[][] coordinates) {
+        int[] result = new int[coordinates.length];
+        for (int i = 0; i < coordinates.length; i += 1) {
+            result[i] = map.closestId(SpatialContext.GEO.getShapeFactory().pointLatLon(
+                    coordinates[i][0], coordinates[i][1]
+            ));
+        }
+        return result;
+    }
+
+    /**
+     * Returns a 503 response asking the client to retry shortly.
+     *
+     * @param ctx     the context of the request.
+     * @param message the reason the request could not be served.
+     * @return a 503 response asking the client to retry shortly.
+     */
+    private static ServiceUnavailableResponse unavailable(Context ctx, String message) {
+        ctx.header("Retry-After", Integer.toString(RETRY_AFTER_SECONDS));
+        return new ServiceUnavailableResponse(message);
+    }
+
+    /**
+     * Registers counters for the hits, misses and evictions of the cache.
+     *
+     * @param metrics the metrics registry.
+     * @param cache   the name of the cache.
+     * @param stats   the supplier of the current cache statistics.
+     */
+    private static void register(Metrics metrics, String cache, Supplier<CacheStats> stats) {
+        metrics.counter("huskymaps_cache_hits_total", "Cache lookups that found a value.",
+                () -> stats.get().hits(), "cache", cache);
+        metrics.counter("huskymaps_cache_misses_total", "Cache lookups that found no value.",
+                () -> stats.get().misses(), "cache", cache);
+        metrics.counter("huskymaps_cache_evictions_total", "Cache entries removed to stay within the bounds.",
+                () -> stats.get().evictions(), "cache", cache);
+    }
+
     /**
      * Returns the port for communicating with the server.
      *
@@ -121,6 +648,84 @@ public class MapServer {
         return PORT;
     }
 
+    /**
+     * Returns the route search algorithm.
+     *
+     * @return the route search algorithm.
+     */
+    private static String router() {
+        String router = System.getenv("ROUTER");
+        if (router != null) {
+            return router;
+        }
+        return ROUTER;
+    }
+
+    /**
+     * Returns the threads for running request handlers.
+     *
+     * @return the threads for running request handlers.
+     */
+    private static String threads() {
+        String threads = System.getenv("THREADS");
+        if (threads != null) {
+            return threads;
+        }
+        return THREADS;
+    }
+
+    /**
+     * Returns the number of milliseconds after a route request arrives that its search is abandoned.
+     *
+     * @return the number of milliseconds after a route request arrives that its search is abandoned.
+     */
+    private static int routeTimeoutMillis() {
+        String timeout = System.getenv("ROUTE_TIMEOUT_MILLIS");
+        if (timeout != null) {
+            return Integer.parseInt(timeout);
+        }
+        return ROUTE_TIMEOUT_MILLIS;
+    }
+
+    /**
+     * Returns the length of the longest search prefixes whose results are precomputed.
+     *
+     * @return the length of the longest search prefixes whose results are precomputed.
+     */
+    private static int searchPrefixLength() {
+        String length = System.getenv("SEARCH_PREFIX_LENGTH");
+        if (length != null) {
+            return Integer.parseInt(length);
+        }
+        return SEARCH_PREFIX_LENGTH;
+    }
+
+    /**
+     * Returns the number of landmarks for the A* heuristic.
+     *
+     * @return the number of landmarks for the A* heuristic.
+     */
+    private static int landmarks() {
+        String landmarks = System.getenv("LANDMARKS");
+        if (landmarks != null) {
+            return Integer.parseInt(landmarks);
+        }
+        return LANDMARKS;
+    }
+
+    /**
+     * Returns the directory for downloaded base map images, or null to keep them only in memory.
+     *
+     * @return the directory for downloaded base map images, or null to keep them only in memory.
+     */
+    private static Path imageCacheDirectory() {
+        String directory = System.getenv("IMAGE_CACHE_DIR");
+        if (directory != null) {
+            return Path.of(directory);
+        }
+        return null;
+    }
+
     /**
      * Return the API URL for retrieving the map image.
      *
@@ -129,10 +734,8 @@ public class MapServer {
      * @param height    the height of the window.
      * @param locations the list of locations (or null).
      * @return the URL for retrieving the map image.
-     * @throws MalformedURLException if the URL is invalid.
      */
-    private static URL url(Point center, int zoom, int width, int height, List<Point> locations)
-            throws MalformedURLException {
+    private static URI url(Point center, int zoom, int width, int height, List<Point> locations) {
         String markers = "";
         if (locations != null && !locations.isEmpty()) {
             markers = locations.stream().map(location -> String.format(
@@ -140,7 +743,7 @@ public class MapServer {
             )).collect(Collectors.joining(","));
             markers += "/";
         }
-        return new URL(String.format(
+        return URI.create(String.format(
                 "https://api.mapbox.com/"
                         // {username}/{style_id} and {overlay} (must include trailing slash)
                         + "styles/v1/%s/%s/static/%s"
@@ -156,4 +759,455 @@ public class MapServer {
                 System.getenv("TOKEN")
         ));
     }
+
+    /**
+     * Finds routes between the street locations closest to a start and a goal with the configured search algorithm,
+     * caching the street vertices along each route by the street segments of its start and goal: panning and zooming
+     * re-request the same route with every map image, and nearby clicks on the same streets share one search.
+     * <p>
+     * Searches run on a bounded compute pool, which admits at most a fixed number of running and waiting searches and
+     * turns away the rest. Each request also has a deadline: a search still waiting for a thread at its deadline is
+     * skipped, and a running search checks the deadline after settling each vertex and stops once it has passed or
+     * the waiting request gives up, so a few pathological requests cannot hold every compute thread.
+     */
+    private static class RouteFinder {
+        private final MapGraph map;
+        private final String algorithm;
+        private final ContractionHierarchy hierarchy;
+        private final AStarGraph<Point> router;
+        private final IntAStarGraph streets;
+        /**
+         * Street vertices along routes, keyed by the segments of the snapped start and goal, which are street vertices
+         * unless searching with A*.
+         */
+        private final RouteCache cache;
+        /**
+         * Latitudes and longitudes of the lines along the streets within each isochrone, keyed by snapped center vertex
+         * and budget in meters.
+         */
+        private final LruCache<Long, double[][][]> isochrones;
+        /**
+         * Bounded pool for running searches, separate from the threads waiting on I/O.
+         */
+        private final ThreadPoolExecutor compute;
+        private final Duration timeout;
+        private final LatencyHistogram snapTime;
+        private final LatencyHistogram queueTime;
+        private final LatencyHistogram searchTime;
+        private final LatencyHistogram isochroneTime;
+        private final LatencyHistogram nearestTime;
+        private final LongAdder rejected;
+        private final LongAdder expired;
+        private final ObjectMapper json;
+
+        RouteFinder(MapGraph map, String algorithm, ContractionHierarchy hierarchy, AStarGraph<Point> router,
+                    IntAStarGraph streets, ThreadPoolExecutor compute, Duration timeout, Metrics metrics) {
+            this.map = map;
+            this.algorithm = algorithm;
+            this.hierarchy = hierarchy;
+            this.router = router;
+            this.streets = streets;
+            this.cache = new RouteCache(ROUTE_CACHE_SIZE, ROUTE_CACHE_BYTES);
+            this.isochrones = new LruCache<>(ISOCHRONE_CACHE_SIZE, ISOCHRONE_CACHE_BYTES, lines -> {
+                long bytes = 16;
+                for (double[][] line : lines) {
+                    bytes += 48 + 16L * line[0].length;
+                }
+                return bytes;
+            });
+            this.compute = compute;
+            this.timeout = timeout;
+            this.snapTime = phase(metrics, "router", "snap");
+            this.queueTime = phase(metrics, "router", "queue");
+            this.searchTime = phase(metrics, "router", "search");
+            this.isochroneTime = phase(metrics, "router", "isochrone");
+            this.nearestTime = phase(metrics, "router", "nearest");
+            register(metrics, "route", cache::stats);
+            register(metrics, "isochrone", isochrones::stats);
+            String help = "Route searches turned away because the compute pool was full or the deadline passed.";
+            this.rejected = metrics.counter("huskymaps_route_rejections_total", help, "reason", "saturated");
+            this.expired = metrics.counter("huskymaps_route_rejections_total", help, "reason", "deadline");
+            this.json = new ObjectMapper();
+        }
+
+        /**
+         * Returns the shortest route between the points on the streets closest to the start and the goal, reporting
+         * whether the route came from the cache and any search effort in response headers. Searches run on the
+         * compute pool while the request thread waits.
+         *
+         * @param ctx   the context of the request.
+         * @param start the start location.
+         * @param goal  the goal location.
+         * @return the shortest route from the start to the goal.
+         * @throws ServiceUnavailableResponse if the compute pool is saturated or the search passed its deadline.
+         * @throws InterruptedException       if the request thread is interrupted while waiting for the search.
+         */
+        Search path(Context ctx, Point start, Point goal) throws InterruptedException {
+            long begin = System.nanoTime();
+            long deadline = begin + timeout.toNanos();
+            EdgePoint from = snapToStreets(start);
+            EdgePoint to = snapToStreets(goal);
+            snapTime.recordSince(begin);
+            RouteCache.Route cached = cache.get(map.streets(), from, to);
+            if (cached != null) {
+                ctx.header("X-Route-Cache", "hit");
+                return route(from, to, cached.path, cached.distance, null, false);
+            }
+            Search search = compute(ctx, deadline, searchTime, () -> search(
+                    from, to, StopPolicy.deadline(deadline).or(StopPolicy.interrupted())
+            ));
+            if (search == null || search.expired) {
+                expired.increment();
+                throw unavailable(ctx, "Route search did not finish within " + timeout.toMillis() + " ms");
+            }
+            cache.put(from, to, search.path, search.distance);
+            ctx.header("X-Route-Cache", "miss");
+            if (search.stats != null) {
+                ctx.header("X-Search-Stats", search.stats);
+            }
+            return search;
+        }
+
+        /**
+         * Returns the point on the streets to route from or to the location: partway along the closest street segment
+         * for A* search, or the closest street vertex for the other algorithms, which only search between vertices.
+         */
+        private EdgePoint snapToStreets(Point location) {
+            if (hierarchy == null && !"bidirectional".equals(algorithm)) {
+                return map.snapToEdge(location);
+            }
+            return EdgePoint.at(map.closestId(location));
+        }
+
+        /**
+         * Returns the streets within the distance budget of the street location closest to the center as lines, each an
+         * array of latitudes and an array of longitudes, reporting whether they came from the cache in a response
+         * header. Streets are cut off where the budget runs out, so the lines trace exactly the reachable part of the
+         * street network. The bounded search runs on the compute pool while the request thread waits.
+         *
+         * @param ctx    the context of the request.
+         * @param center the center location.
+         * @param meters the distance budget in meters along the streets.
+         * @return the latitudes and longitudes of each line along the streets within the budget.
+         * @throws ServiceUnavailableResponse if the compute pool is saturated or the search passed its deadline.
+         * @throws InterruptedException       if the request thread is interrupted while waiting for the search.
+         */
+        double[][][] isochrone(Context ctx, Point center, int meters) throws InterruptedException {
+            long begin = System.nanoTime();
+            long deadline = begin + timeout.toNanos();
+            int centerId = map.closestId(center);
+            snapTime.recordSince(begin);
+            long key = ((long) centerId << 32) | meters;
+            double[][][] lines = isochrones.get(key);
+            if (lines != null) {
+                ctx.header("X-Isochrone-Cache", "hit");
+                return lines;
+            }
+            lines = compute(ctx, deadline, isochroneTime, () -> {
+                // Edge weights are in degrees of great-circle arc.
+                Isochrone isochrone = new Isochrone(
+                        map.streets(), centerId, meters / (DistanceUtils.DEG_TO_KM * 1000),
+                        StopPolicy.deadline(deadline).or(StopPolicy.interrupted())
+                );
+                return isochrone.isComplete() ? reachable(isochrone) : null;
+            });
+            if (lines == null) {
+                expired.increment();
+                throw unavailable(ctx, "Isochrone search did not finish within " + timeout.toMillis() + " ms");
+            }
+            isochrones.put(key, lines);
+            ctx.header("X-Isochrone-Cache", "miss");
+            return lines;
+        }
+
+        /**
+         * Returns the k locations matching the name that are nearest by road to the street location closest to the
+         * start, ordered from nearest to farthest, each with its latitude, longitude and distance in meters along the
+         * streets. Locations unreachable from the start are left out. The search runs on the compute pool while the
+         * request thread waits.
+         *
+         * @param ctx   the context of the request.
+         * @param name  a full name of a valid location.
+         * @param start the location to measure from.
+         * @param k     the maximum number of locations to return.
+         * @return the nearest locations matching the name, ordered from nearest to farthest.
+         * @throws ServiceUnavailableResponse if the compute pool is saturated or the search passed its deadline.
+         * @throws InterruptedException       if the request thread is interrupted while waiting for the search.
+         */
+        List<Map<String, Object>> nearest(Context ctx, String name, Point start, int k) throws InterruptedException {
+            List<Point> locations = map.getLocations(name);
+            if (locations.isEmpty()) {
+                return List.of();
+            }
+            long begin = System.nanoTime();
+            long deadline = begin + timeout.toNanos();
+            int startId = map.closestId(start);
+            snapTime.recordSince(begin);
+            NearestTargets nearest = compute(ctx, deadline, nearestTime, () -> map.nearestLocations(
+                    name, startId, k, StopPolicy.deadline(deadline).or(StopPolicy.interrupted())
+            ));
+            if (nearest == null || !nearest.isComplete()) {
+                expired.increment();
+                throw unavailable(ctx, "Nearest location search did not finish within " + timeout.toMillis() + " ms");
+            }
+            ctx.header("X-Search-Stats", nearest.stats().toString());
+            int[] indices = nearest.nearest();
+            double[] distances = nearest.distances();
+            List<Map<String, Object>> result = new ArrayList<>(indices.length);
+            for (int i = 0; i < indices.length; i += 1) {
+                Point location = locations.get(indices[i]);
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("lat", location.getLat());
+                item.put("lon", location.getLon());
+                // Distances are in degrees of great-circle arc.
+                item.put("distance", Math.round(distances[i] * DistanceUtils.DEG_TO_KM * 10_000) / 10.0);
+                result.add(item);
+            }
+            return result;
+        }
+
+        /**
+         * Returns the latitudes and longitudes of the lines along the streets within the isochrone.
+         */
+        private double[][][] reachable(Isochrone isochrone) {
+            List<EdgePoint[]> lines = isochrone.lines(map.streets());
+            double[][][] result = new double[lines.size()][][];
+            for (int i = 0; i < result.length; i += 1) {
+                EdgePoint[] line = lines.get(i);
+                result[i] = new double[2][line.length];
+                for (int j = 0; j < line.length; j += 1) {
+                    Point point = map.point(line[j]);
+                    result[i][0][j] = point.getLat();
+                    result[i][1][j] = point.getLon();
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Returns the result of the task run on the compute pool while the request thread waits, or null if the task
+         * did not finish by the deadline. A task still waiting for a compute thread at the deadline is skipped, and a
+         * running task is interrupted once the grace period after the deadline has passed.
+         */
+        private <T> T compute(Context ctx, long deadline, LatencyHistogram time, Supplier<T> task)
+                throws InterruptedException {
+            Future<T> future;
+            try {
+                long submitted = System.nanoTime();
+                future = compute.submit(() -> {
+                    queueTime.recordSince(submitted);
+                    if (System.nanoTime() - deadline >= 0) {
+                        // The request has given up or is about to, so nobody will read the result.
+                        return null;
+                    }
+                    long start = System.nanoTime();
+                    T result = task.get();
+                    time.recordSince(start);
+                    return result;
+                });
+            } catch (RejectedExecutionException e) {
+                rejected.increment();
+                throw unavailable(ctx, "Too many searches in progress");
+            }
+            try {
+                long wait = deadline - System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ROUTE_TIMEOUT_GRACE_MILLIS);
+                return future.get(wait, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // Interrupting the compute thread stops the search at its next settled vertex.
+                future.cancel(true);
+                return null;
+            } catch (InterruptedException e) {
+                future.cancel(true);
+                throw e;
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        /**
+         * Finds the routes between each pair of start and goal coordinates in parallel on the pool, and streams each
+         * route to the response as a line of JSON as soon as it is found. Each line has the index of the pair in the
+         * batch and either the route distance in meters (null if the goal is unreachable) and its encoded polyline,
+         * or an error. Unfinished routes are abandoned once the batch deadline passes or the client disconnects.
+         *
+         * @param ctx   the context of the request.
+         * @param pairs the start latitude, start longitude, goal latitude and goal longitude of each route.
+         * @param pool  the pool for searching for routes.
+         * @throws ServiceUnavailableResponse if the pool already has too many routes waiting.
+         * @throws IOException                if the response cannot be written.
+         * @throws InterruptedException       if the request thread is interrupted while waiting for a route.
+         */
+        void batch(Context ctx, double[][] pairs, ForkJoinPool pool) throws IOException, InterruptedException {
+            if (pool.getQueuedSubmissionCount() + pairs.length > MAX_QUEUED_BATCH_ROUTES) {
+                rejected.increment();
+                throw unavailable(ctx, "Too many batch routes in progress");
+            }
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BATCH_TIMEOUT_MILLIS);
+            AtomicBoolean cancelled = new AtomicBoolean();
+            StopPolicy abandon = StopPolicy.deadline(deadline).or((stats, distance, goal) -> cancelled.get());
+            CompletionService<Map<String, Object>> completed = new ExecutorCompletionService<>(pool);
+            for (int i = 0; i < pairs.length; i += 1) {
+                int index = i;
+                completed.submit(() -> batchRoute(index, pairs[index], abandon));
+            }
+            ctx.contentType("application/x-ndjson");
+            // Write to the servlet stream directly: the compressing stream from ctx.outputStream() ignores flushes.
+            OutputStream out = ctx.res().getOutputStream();
+            try {
+                for (int i = 0; i < pairs.length; i += 1) {
+                    Map<String, Object> line;
+                    try {
+                        line = completed.take().get();
+                    } catch (ExecutionException e) {
+                        throw new IllegalStateException(e.getCause());
+                    }
+                    out.write(json.writeValueAsBytes(line));
+                    out.write('\n');
+                    out.flush();
+                }
+            } finally {
+                // Routes not yet written are no longer needed if writing failed or the request thread was interrupted.
+                cancelled.set(true);
+            }
+        }
+
+        /**
+         * Returns the JSON line for one route of a batch, searching on the current thread unless the route is cached.
+         */
+        private Map<String, Object> batchRoute(int index, double[] pair, StopPolicy abandon) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("index", index);
+            long begin = System.nanoTime();
+            EdgePoint from = snapToStreets(SpatialContext.GEO.getShapeFactory().pointLatLon(pair[0], pair[1]));
+            EdgePoint to = snapToStreets(SpatialContext.GEO.getShapeFactory().pointLatLon(pair[2], pair[3]));
+            snapTime.recordSince(begin);
+            RouteCache.Route cached = cache.get(map.streets(), from, to);
+            Search route;
+            if (cached != null) {
+                route = route(from, to, cached.path, cached.distance, null, false);
+            } else {
+                long searchStart = System.nanoTime();
+                route = search(from, to, abandon);
+                searchTime.recordSince(searchStart);
+                if (route.expired) {
+                    expired.increment();
+                    result.put("error", "Route search did not finish before the batch deadline");
+                    return result;
+                }
+                cache.put(from, to, route.path, route.distance);
+            }
+            // Distances are in degrees of great-circle arc.
+            double distance = route.distance * DistanceUtils.DEG_TO_KM * 1000;
+            result.put("distance", Double.isInfinite(distance) ? null : Math.round(distance * 10) / 10.0);
+            // Drop only points that would not change the encoded polyline.
+            double[] lats = route.lats;
+            double[] lons = route.lons;
+            result.put("polyline", Polylines.encode(lats, lons, Polylines.simplify(lats, lons, 1e-6, 1e-6)));
+            return result;
+        }
+
+        /**
+         * Returns the result of searching for the shortest path with the configured search algorithm on the current
+         * thread, stopping early once the abandon policy is met. Contraction hierarchy queries settle few enough
+         * vertices that they always run to completion.
+         */
+        private Search search(EdgePoint start, EdgePoint goal, StopPolicy abandon) {
+            if (hierarchy != null) {
+                return route(start, goal, hierarchy.path(start.from, goal.from), null, false);
+            } else if ("bidirectional".equals(algorithm)) {
+                BidirectionalAStarSolver<Point> solver = new BidirectionalAStarSolver<>(
+                        router, map.reverse(), map.streets().point(start.from), map.streets().point(goal.from), abandon
+                );
+                SearchStats stats = solver.stats();
+                boolean abandoned = expired(solver.isSolved(), abandon, stats);
+                return route(start, goal, map.ids(solver.solution()), stats.toString(), abandoned);
+            }
+            IntAStarSolver solver = new IntAStarSolver(streets, start, goal, abandon);
+            SearchStats stats = solver.stats();
+            boolean abandoned = expired(solver.isSolved(), abandon, stats);
+            return route(start, goal, solver.solution(), solver.distance(), stats.toString(), abandoned);
+        }
+
+        /**
+         * Returns the route along the path between street vertices, which reaches the goal only if it starts at the
+         * start.
+         */
+        private Search route(EdgePoint start, EdgePoint goal, int[] path, String stats, boolean expired) {
+            double distance = path[0] == start.from ? map.streets().length(path) : Double.POSITIVE_INFINITY;
+            return route(start, goal, path, distance, stats, expired);
+        }
+
+        /**
+         * Returns the route from the start through the vertices on the path to the goal, where the start and goal may
+         * lie partway along street segments, or only the goal if it is unreachable.
+         */
+        private Search route(EdgePoint start, EdgePoint goal, int[] path, double distance, String stats,
+                             boolean expired) {
+            List<Point> points = new ArrayList<>(path.length + 2);
+            if (distance < Double.POSITIVE_INFINITY) {
+                points.add(map.point(start));
+                points.addAll(map.points(path));
+            }
+            points.add(map.point(goal));
+            double[] lats = new double[points.size()];
+            double[] lons = new double[points.size()];
+            int size = 0;
+            for (Point point : points) {
+                // Start and goal points at a street vertex would repeat the vertex.
+                if (size == 0 || point.getLat() != lats[size - 1] || point.getLon() != lons[size - 1]) {
+                    lats[size] = point.getLat();
+                    lons[size] = point.getLon();
+                    size += 1;
+                }
+            }
+            return new Search(
+                    path, Arrays.copyOf(lats, size), Arrays.copyOf(lons, size), distance, stats, expired
+            );
+        }
+
+        /**
+         * Returns true if an unsolved search was stopped by the abandon policy rather than by running out of reachable
+         * vertices.
+         */
+        private static boolean expired(boolean solved, StopPolicy abandon, SearchStats stats) {
+            return !solved && abandon.shouldStop(stats, 0, false);
+        }
+    }
+
+    /**
+     * Body of a {@code /matrix} request: the latitude and longitude of each source and, optionally, of each target.
+     */
+    private static class MatrixRequest {
+        public double[][] sources;
+        public double[][] targets;
+    }
+
+    /**
+     * The street vertices and the latitudes and longitudes along a shortest route, its length in degrees of
+     * great-circle arc or infinity if the goal is unreachable, and a description of the effort spent finding it, or
+     * null if not measured.
+     */
+    private static class Search {
+        private final int[] path;
+        private final double[] lats;
+        private final double[] lons;
+        private final double distance;
+        private final String stats;
+        /**
+         * True if the search stopped at its deadline before finding the shortest path.
+         */
+        private final boolean expired;
+
+        Search(int[] path, double[] lats, double[] lons, double distance, String stats, boolean expired) {
+            this.path = path;
+            this.lats = lats;
+            this.lons = lons;
+            this.distance = distance;
+            this.stats = stats;
+            this.expired = expired;
+        }
+    }
 }
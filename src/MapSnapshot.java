@@ -0,0 +1,160 @@
+import cache.ChecksummedFile;
+import org.locationtech.spatial4j.context.SpatialContext;
+import org.locationtech.spatial4j.shape.Point;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Compact binary snapshot of a built {@link MapGraph}: the {@link StreetGraph} arrays, the {@code locations} name
+ * index, and place importance values. Snapshots are stored as a {@link ChecksummedFile}, which is read through a
+ * memory-mapped file so that the server can skip parsing the OSM XML at startup. Snapshots with a different
+ * {@link #VERSION} or source data fingerprint, or whose checksum does not match, are rejected.
+ *
+ * @see MapGraph
+ * @see ChecksummedFile
+ */
+class MapSnapshot {
+    /**
+     * Magic number identifying snapshot files ("HMAP").
+     */
+    private static final int MAGIC = 0x484D4150;
+    /**
+     * Format version. Increment whenever the payload layout changes.
+     */
+    static final int VERSION = 2;
+
+    /**
+     * The street graph of vertices and edges.
+     */
+    final StreetGraph streets;
+    /**
+     * Locations associated with each place name.
+     */
+    final Map<String, List<Point>> locations;
+    /**
+     * Importance value for each place name.
+     */
+    final Map<CharSequence, Integer> importance;
+
+    /**
+     * Constructs a snapshot of the given map data.
+     *
+     * @param streets    the street graph of vertices and edges.
+     * @param locations  locations associated with each place name.
+     * @param importance importance value for each place name.
+     */
+    MapSnapshot(StreetGraph streets, Map<String, List<Point>> locations, Map<CharSequence, Integer> importance) {
+        this.streets = streets;
+        this.locations = locations;
+        this.importance = importance;
+    }
+
+    /**
+     * Reads a snapshot from the given path by memory-mapping the file.
+     *
+     * @param path        the path to the snapshot file.
+     * @param fingerprint the expected fingerprint of the source data files.
+     * @param context     the spatial context for constructing points.
+     * @return the snapshot stored at the given path.
+     * @throws IOException if the file cannot be read, or if the snapshot is stale or corrupt.
+     */
+    static MapSnapshot read(Path path, long fingerprint, SpatialContext context) throws IOException {
+        return ChecksummedFile.read(path, MAGIC, VERSION, fingerprint, buffer -> decode(buffer, context));
+    }
+
+    /**
+     * Writes this snapshot to the given path. The file is written to a temporary file first and then moved into place
+     * so that concurrent readers never observe a partially-written snapshot.
+     *
+     * @param path        the path to the snapshot file.
+     * @param fingerprint the fingerprint of the source data files.
+     * @throws IOException if the file cannot be written.
+     */
+    void write(Path path, long fingerprint) throws IOException {
+        ChecksummedFile.write(path, MAGIC, VERSION, fingerprint, this::encode);
+    }
+
+    /**
+     * Writes the payload for this snapshot to the output stream. The street graph is stored as its primitive arrays so
+     * that reading is a sequence of bulk copies out of the mapped file.
+     *
+     * @param out the destination output stream.
+     * @throws IOException if an I/O error occurs.
+     */
+    private void encode(DataOutputStream out) throws IOException {
+        streets.write(out);
+
+        out.writeInt(locations.size());
+        for (Map.Entry<String, List<Point>> entry : locations.entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (Point location : entry.getValue()) {
+                writePoint(out, location);
+            }
+        }
+
+        out.writeInt(importance.size());
+        for (Map.Entry<CharSequence, Integer> entry : importance.entrySet()) {
+            writeString(out, entry.getKey().toString());
+            out.writeInt(entry.getValue());
+        }
+    }
+
+    /**
+     * Decodes the payload in the remaining bytes of the buffer.
+     *
+     * @param buffer  the buffer positioned at the start of the payload.
+     * @param context the spatial context for constructing points.
+     * @return the decoded snapshot.
+     */
+    private static MapSnapshot decode(ByteBuffer buffer, SpatialContext context) {
+        StreetGraph streets = StreetGraph.read(buffer, context);
+
+        int numNames = buffer.getInt();
+        Map<String, List<Point>> locations = new HashMap<>();
+        for (int i = 0; i < numNames; i += 1) {
+            String name = readString(buffer);
+            int count = buffer.getInt();
+            List<Point> points = new ArrayList<>(count);
+            for (int j = 0; j < count; j += 1) {
+                points.add(readPoint(buffer, context));
+            }
+            locations.put(name, points);
+        }
+
+        int numImportance = buffer.getInt();
+        Map<CharSequence, Integer> importance = new HashMap<>();
+        for (int i = 0; i < numImportance; i += 1) {
+            importance.put(readString(buffer), buffer.getInt());
+        }
+        return new MapSnapshot(streets, locations, importance);
+    }
+
+    private static void writePoint(DataOutputStream out, Point point) throws IOException {
+        out.writeDouble(point.getLat());
+        out.writeDouble(point.getLon());
+    }
+
+    private static Point readPoint(ByteBuffer buffer, SpatialContext context) {
+        double lat = buffer.getDouble();
+        double lon = buffer.getDouble();
+        return context.getShapeFactory().pointLatLon(lat, lon);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,259 @@
+import cache.CacheStats;
+import cache.LruCache;
+import graphs.EdgePoint;
+import graphs.IntGraph;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of the street vertices along shortest routes, keyed by the street segments that the start and the goal lie on
+ * rather than by how far along them: two clicks a few pixels apart snap to different fractions of the same segments,
+ * so keying by the exact locations would almost never hit. Each lookup reuses the cached vertices and adds the partial
+ * segments from the start and to the goal for the locations actually requested.
+ * <p>
+ * A cached route is only reused if it is still a shortest route between the requested locations. Moving a location
+ * along its segment changes the cost of reaching each end of the segment, which can make a route through the other
+ * end, or directly along a shared segment, shorter. The cached search proved its route no longer than any route
+ * through the other ends for its own locations, which bounds how short the paths between the other ends can be; the
+ * cached route, or the direct route along a shared segment, is returned only if it is no longer than these bounds for
+ * the requested locations. Otherwise the lookup misses and a fresh search runs, so a hit is always as short as a fresh
+ * search.
+ *
+ * @see MapServer
+ */
+class RouteCache {
+    /**
+     * Relative tolerance for comparing route lengths summed in different orders.
+     */
+    private static final double EPSILON = 1e-9;
+    private final LruCache<List<Integer>, Entry> cache;
+    /**
+     * Lookups that found an entry for the segments but could not reuse it for the requested locations.
+     */
+    private final LongAdder rejected;
+
+    /**
+     * Constructs an empty cache holding at most the given number of routes and total estimated bytes.
+     *
+     * @param maxSize  the maximum number of routes.
+     * @param maxBytes the maximum total estimated size in bytes of the routes.
+     */
+    RouteCache(int maxSize, long maxBytes) {
+        this.cache = new LruCache<>(maxSize, maxBytes, entry -> 48L + 4L * entry.path.length);
+        this.rejected = new LongAdder();
+    }
+
+    /**
+     * Returns a shortest route between the locations on the graph known from the cache, or null if there is none:
+     * either no search between their segments is cached, the cached vertices cannot be joined to the locations, such as
+     * when a location moved past the other on a one-way segment, or the locations moved far enough along their
+     * segments that a route through other segment ends might be shorter. A cached unreachable goal is only reused for
+     * exactly the same locations, since a location at the end of a one-way segment can reach more of the graph than
+     * one partway along it.
+     *
+     * @param graph the graph that the cached route was found in.
+     * @param start the start location.
+     * @param goal  the goal location.
+     * @return a shortest route between the locations, or null if the cache does not know one.
+     */
+    Route get(IntGraph graph, EdgePoint start, EdgePoint goal) {
+        Entry entry = cache.get(key(start, goal));
+        if (entry == null) {
+            return null;
+        }
+        if (!entry.found) {
+            if (entry.start.equals(start) && entry.goal.equals(goal)) {
+                return new Route(entry.path, Double.POSITIVE_INFINITY);
+            }
+        } else {
+            Route route = reuse(graph, entry, start, goal);
+            if (route != null) {
+                return route;
+            }
+        }
+        rejected.increment();
+        return null;
+    }
+
+    /**
+     * Caches the route found between the locations, replacing any route between the same segments.
+     *
+     * @param start    the start location.
+     * @param goal     the goal location.
+     * @param path     the street vertices passed from the start to the goal.
+     * @param distance the length of the route, or infinity if the goal is unreachable.
+     */
+    void put(EdgePoint start, EdgePoint goal, int[] path, double distance) {
+        cache.put(key(start, goal), new Entry(start, goal, path, distance));
+    }
+
+    /**
+     * Returns the hits, misses and evictions of this cache, counting entries that could not be reused as misses.
+     *
+     * @return the hits, misses and evictions of this cache.
+     */
+    CacheStats stats() {
+        CacheStats stats = cache.stats();
+        long unusable = rejected.sum();
+        return new CacheStats(stats.hits() - unusable, stats.misses() + unusable, stats.evictions());
+    }
+
+    /**
+     * Returns the key of the segments that the locations lie on.
+     */
+    private static List<Integer> key(EdgePoint start, EdgePoint goal) {
+        return List.of(start.from, start.to, goal.from, goal.to);
+    }
+
+    /**
+     * Returns the shortest route between the locations known from the entry found for their segments, or null if the
+     * entry cannot show that any route it knows is a shortest one. The entry's search proved that its distance was no
+     * longer than leaving its start by any end, following a shortest path to any goal end, and reaching its goal, so
+     * the shortest path between each pair of ends is at least the entry's distance less the costs of joining the
+     * entry's locations to those ends, and never negative. Routes between the requested locations through each pair of
+     * ends are at least that long plus the costs of joining the requested locations to the ends.
+     */
+    private static Route reuse(IntGraph graph, Entry entry, EdgePoint start, EdgePoint goal) {
+        double[] leaveBefore = leave(graph, entry.start);
+        double[] arriveBefore = arrive(graph, entry.goal);
+        double[] leaveAfter = leave(graph, start);
+        double[] arriveAfter = arrive(graph, goal);
+        double bound = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < leaveAfter.length; i += 1) {
+            for (int j = 0; j < arriveAfter.length; j += 1) {
+                // Ends that the cached locations could not reach leave only the bound of zero.
+                double between = Math.max(0, entry.distance - leaveBefore[i] - arriveBefore[j]);
+                bound = Math.min(bound, leaveAfter[i] + between + arriveAfter[j]);
+            }
+        }
+        Route route = new Route(entry.path, distance(graph, start, entry.path, goal));
+        if (entry.path.length > 0 && sameSegment(start, goal)) {
+            double direct = distance(graph, start, new int[0], goal);
+            if (direct < route.distance) {
+                route = new Route(new int[0], direct);
+            }
+        }
+        // Allow for rounding, since the cached distance was summed in a different order.
+        if (route.distance < Double.POSITIVE_INFINITY && route.distance <= bound + EPSILON * bound) {
+            return route;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the costs of leaving the location for the end and the start of its segment.
+     */
+    private static double[] leave(IntGraph graph, EdgePoint location) {
+        return new double[]{
+                partial(graph, location.from, location.to, 1 - location.fraction),
+                partial(graph, location.to, location.from, location.fraction)
+        };
+    }
+
+    /**
+     * Returns the costs of reaching the location from the end and the start of its segment.
+     */
+    private static double[] arrive(IntGraph graph, EdgePoint location) {
+        return new double[]{
+                partial(graph, location.to, location.from, 1 - location.fraction),
+                partial(graph, location.from, location.to, location.fraction)
+        };
+    }
+
+    /**
+     * Returns true if the locations lie on the same segment in either direction.
+     */
+    private static boolean sameSegment(EdgePoint start, EdgePoint goal) {
+        return goal.from == start.from && goal.to == start.to || goal.from == start.to && goal.to == start.from;
+    }
+
+    /**
+     * Returns the length of the route from the start through the vertices on the path to the goal, or infinity if
+     * the path does not join the locations. An empty path runs directly along the segment shared by both locations.
+     */
+    private static double distance(IntGraph graph, EdgePoint start, int[] path, EdgePoint goal) {
+        if (path.length == 0) {
+            // Locations on opposite directions of the same segment are compared in the direction of the start.
+            double fraction = goal.from == start.from ? goal.fraction : 1 - goal.fraction;
+            return fraction >= start.fraction
+                    ? partial(graph, start.from, start.to, fraction - start.fraction)
+                    : partial(graph, start.to, start.from, start.fraction - fraction);
+        }
+        double result;
+        if (path[0] == start.from) {
+            result = partial(graph, start.to, start.from, start.fraction);
+        } else if (path[0] == start.to) {
+            result = partial(graph, start.from, start.to, 1 - start.fraction);
+        } else {
+            return Double.POSITIVE_INFINITY;
+        }
+        for (int i = 0; i + 1 < path.length; i += 1) {
+            result += partial(graph, path[i], path[i + 1], 1);
+        }
+        int last = path[path.length - 1];
+        if (last == goal.from) {
+            result += partial(graph, goal.from, goal.to, goal.fraction);
+        } else if (last == goal.to) {
+            result += partial(graph, goal.to, goal.from, 1 - goal.fraction);
+        } else {
+            return Double.POSITIVE_INFINITY;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the weight of the given fraction of the lightest edge from and to the given vertices, which is 0 for no
+     * part of an edge and infinity if there is no such edge.
+     */
+    private static double partial(IntGraph graph, int from, int to, double fraction) {
+        if (fraction == 0) {
+            return 0;
+        }
+        double[] weight = {Double.POSITIVE_INFINITY};
+        graph.forEachNeighbor(from, (v, w, edgeWeight) -> {
+            if (w == to) {
+                weight[0] = Math.min(weight[0], edgeWeight);
+            }
+        });
+        return fraction * weight[0];
+    }
+
+    /**
+     * The street vertices along a cached route and its length between the requested locations.
+     */
+    static class Route {
+        /**
+         * The street vertices passed from the start to the goal.
+         */
+        final int[] path;
+        /**
+         * The length of the route, or infinity if the goal is unreachable.
+         */
+        final double distance;
+
+        Route(int[] path, double distance) {
+            this.path = path;
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * The street vertices found by one search, the locations it searched between, and the length of its route.
+     */
+    private static class Entry {
+        private final EdgePoint start;
+        private final EdgePoint goal;
+        private final int[] path;
+        private final double distance;
+        private final boolean found;
+
+        Entry(EdgePoint start, EdgePoint goal, int[] path, double distance) {
+            this.start = start;
+            this.goal = goal;
+            this.path = path;
+            this.distance = distance;
+            this.found = distance < Double.POSITIVE_INFINITY;
+        }
+    }
+}
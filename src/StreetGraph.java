@@ -0,0 +1,316 @@
+import graphs.AStarGraph;
+import graphs.Edge;
+import graphs.EdgeConsumer;
+import graphs.IntAStarGraph;
+import graphs.IntEdgeConsumer;
+import org.locationtech.spatial4j.context.SpatialContext;
+import org.locationtech.spatial4j.shape.Point;
+import spatial.GreatCircle;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Compressed sparse row (CSR) graph of street intersections. Vertices are assigned dense int ids in (latitude,
+ * longitude) order, and coordinates, edge offsets, edge targets, and edge weights are stored in primitive arrays: about
+ * 20 bytes per vertex plus 8 bytes per directed edge. {@link Point} vertices are only created on demand for clients of
+ * the {@link AStarGraph} view.
+ *
+ * @see MapGraph
+ * @see IntAStarGraph
+ */
+public class StreetGraph implements AStarGraph<Point>, IntAStarGraph {
+    private final SpatialContext context;
+    /**
+     * The latitude of each vertex, in nondecreasing order.
+     */
+    private final double[] lat;
+    /**
+     * The longitude of each vertex, in nondecreasing order among vertices with the same latitude.
+     */
+    private final double[] lon;
+    /**
+     * The outgoing edges of vertex {@code v} are stored at indices {@code offsets[v]} (inclusive) through
+     * {@code offsets[v + 1]} (exclusive) of {@link #targets} and {@link #weights}.
+     */
+    private final int[] offsets;
+    /**
+     * The destination vertex of each edge.
+     */
+    private final int[] targets;
+    /**
+     * The weight of each edge, rounded up to the nearest float so that the distance heuristic remains admissible.
+     */
+    private final float[] weights;
+
+    private StreetGraph(SpatialContext context, double[] lat, double[] lon, int[] offsets, int[] targets,
+                        float[] weights) {
+        this.context = context;
+        this.lat = lat;
+        this.lon = lon;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    /**
+     * Returns a new street graph with the same vertices and edges as the given adjacency map.
+     *
+     * @param neighbors adjacency of each vertex to its outgoing edges.
+     * @param context   the spatial context for constructing points.
+     * @return a new street graph with the same vertices and edges as the given adjacency map.
+     */
+    public static StreetGraph of(Map<Point, Set<Edge<Point>>> neighbors, SpatialContext context) {
+        Set<Point> vertices = new HashSet<>(neighbors.keySet());
+        for (Set<Edge<Point>> edges : neighbors.values()) {
+            for (Edge<Point> e : edges) {
+                vertices.add(e.to);
+            }
+        }
+        Point[] sorted = vertices.toArray(new Point[0]);
+        Arrays.sort(sorted, Comparator.comparingDouble(Point::getLat).thenComparingDouble(Point::getLon));
+        Map<Point, Integer> ids = new HashMap<>(2 * sorted.length);
+        double[] lat = new double[sorted.length];
+        double[] lon = new double[sorted.length];
+        for (int i = 0; i < sorted.length; i += 1) {
+            ids.put(sorted[i], i);
+            lat[i] = sorted[i].getLat();
+            lon[i] = sorted[i].getLon();
+        }
+
+        int[] offsets = new int[sorted.length + 1];
+        for (int i = 0; i < sorted.length; i += 1) {
+            offsets[i + 1] = offsets[i] + neighbors.getOrDefault(sorted[i], Set.of()).size();
+        }
+        int[] targets = new int[offsets[sorted.length]];
+        float[] weights = new float[offsets[sorted.length]];
+        for (int i = 0; i < sorted.length; i += 1) {
+            int index = offsets[i];
+            for (Edge<Point> e : neighbors.getOrDefault(sorted[i], Set.of())) {
+                targets[index] = ids.get(e.to);
+                float weight = (float) e.weight;
+                weights[index] = weight < e.weight ? Math.nextUp(weight) : weight;
+                index += 1;
+            }
+        }
+        return new StreetGraph(context, lat, lon, offsets, targets, weights);
+    }
+
+    /**
+     * Reads a street graph from the buffer in the format written by {@link #write(DataOutputStream)}.
+     *
+     * @param buffer  the buffer positioned at the start of the street graph.
+     * @param context the spatial context for constructing points.
+     * @return the street graph stored in the buffer.
+     */
+    static StreetGraph read(ByteBuffer buffer, SpatialContext context) {
+        int n = buffer.getInt();
+        int m = buffer.getInt();
+        double[] lat = new double[n];
+        buffer.asDoubleBuffer().get(lat);
+        buffer.position(buffer.position() + Double.BYTES * n);
+        double[] lon = new double[n];
+        buffer.asDoubleBuffer().get(lon);
+        buffer.position(buffer.position() + Double.BYTES * n);
+        int[] offsets = new int[n + 1];
+        buffer.asIntBuffer().get(offsets);
+        buffer.position(buffer.position() + Integer.BYTES * (n + 1));
+        int[] targets = new int[m];
+        buffer.asIntBuffer().get(targets);
+        buffer.position(buffer.position() + Integer.BYTES * m);
+        float[] weights = new float[m];
+        buffer.asFloatBuffer().get(weights);
+        buffer.position(buffer.position() + Float.BYTES * m);
+        if (offsets[0] != 0 || offsets[n] != m) {
+            throw new IllegalStateException("Inconsistent edge offsets");
+        }
+        return new StreetGraph(context, lat, lon, offsets, targets, weights);
+    }
+
+    /**
+     * Writes this street graph to the output stream as a sequence of primitive arrays.
+     *
+     * @param out the destination output stream.
+     * @throws IOException if an I/O error occurs.
+     */
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(vertexCount());
+        out.writeInt(targets.length);
+        for (double value : lat) {
+            out.writeDouble(value);
+        }
+        for (double value : lon) {
+            out.writeDouble(value);
+        }
+        for (int value : offsets) {
+            out.writeInt(value);
+        }
+        for (int value : targets) {
+            out.writeInt(value);
+        }
+        for (float value : weights) {
+            out.writeFloat(value);
+        }
+    }
+
+    /**
+     * Returns a new street graph with the same vertices as this graph and every edge reversed. The reverse graph
+     * shares the coordinate arrays of this graph.
+     *
+     * @return a new street graph with the same vertices as this graph and every edge reversed.
+     */
+    public StreetGraph reverse() {
+        int n = vertexCount();
+        int[] reverseOffsets = new int[n + 1];
+        for (int target : targets) {
+            reverseOffsets[target + 1] += 1;
+        }
+        for (int v = 0; v < n; v += 1) {
+            reverseOffsets[v + 1] += reverseOffsets[v];
+        }
+        int[] reverseTargets = new int[targets.length];
+        float[] reverseWeights = new float[weights.length];
+        int[] next = Arrays.copyOf(reverseOffsets, n);
+        for (int v = 0; v < n; v += 1) {
+            for (int i = offsets[v]; i < offsets[v + 1]; i += 1) {
+                int index = next[targets[i]];
+                reverseTargets[index] = v;
+                reverseWeights[index] = weights[i];
+                next[targets[i]] += 1;
+            }
+        }
+        return new StreetGraph(context, lat, lon, reverseOffsets, reverseTargets, reverseWeights);
+    }
+
+    @Override
+    public int vertexCount() {
+        return lat.length;
+    }
+
+    /**
+     * Returns the id of the given vertex, or -1 if the point is not a vertex in this graph.
+     *
+     * @param vertex the point of interest.
+     * @return the id of the given vertex, or -1 if the point is not a vertex in this graph.
+     */
+    public int id(Point vertex) {
+        double targetLat = vertex.getLat();
+        double targetLon = vertex.getLon();
+        int low = 0;
+        int high = lat.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = Double.compare(lat[mid], targetLat);
+            if (cmp == 0) {
+                cmp = Double.compare(lon[mid], targetLon);
+            }
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the point for the given vertex id.
+     *
+     * @param id the id of the vertex.
+     * @return the point for the given vertex id.
+     */
+    public Point point(int id) {
+        return context.getShapeFactory().pointLatLon(lat[id], lon[id]);
+    }
+
+    /**
+     * Returns the latitude of the given vertex id.
+     *
+     * @param id the id of the vertex.
+     * @return the latitude of the given vertex id.
+     */
+    public double lat(int id) {
+        return lat[id];
+    }
+
+    /**
+     * Returns the longitude of the given vertex id.
+     *
+     * @param id the id of the vertex.
+     * @return the longitude of the given vertex id.
+     */
+    public double lon(int id) {
+        return lon[id];
+    }
+
+    /**
+     * Returns the total weight of the lightest edges between consecutive vertices of the path, or infinity if some
+     * consecutive pair is not joined by an edge.
+     *
+     * @param path the vertex ids along the path.
+     * @return the total weight of the path.
+     */
+    public double length(int[] path) {
+        double result = 0;
+        for (int i = 0; i + 1 < path.length; i += 1) {
+            result += weight(path[i], path[i + 1]);
+        }
+        return result;
+    }
+
+    @Override
+    public double weight(int from, int to) {
+        double lightest = Double.POSITIVE_INFINITY;
+        for (int i = offsets[from]; i < offsets[from + 1]; i += 1) {
+            if (targets[i] == to) {
+                lightest = Math.min(lightest, weights[i]);
+            }
+        }
+        return lightest;
+    }
+
+    @Override
+    public void forEachNeighbor(int vertex, IntEdgeConsumer action) {
+        for (int i = offsets[vertex]; i < offsets[vertex + 1]; i += 1) {
+            action.accept(vertex, targets[i], weights[i]);
+        }
+    }
+
+    @Override
+    public double estimatedDistance(int start, int end) {
+        return GreatCircle.distance(lat[start], lon[start], lat[end], lon[end]);
+    }
+
+    @Override
+    public List<Edge<Point>> neighbors(Point vertex) {
+        int id = id(vertex);
+        if (id < 0) {
+            return List.of();
+        }
+        List<Edge<Point>> result = new ArrayList<>(offsets[id + 1] - offsets[id]);
+        for (int i = offsets[id]; i < offsets[id + 1]; i += 1) {
+            result.add(new Edge<>(vertex, point(targets[i]), weights[i]));
+        }
+        return result;
+    }
+
+    @Override
+    public void forEachNeighbor(Point vertex, EdgeConsumer<Point> action) {
+        int id = id(vertex);
+        if (id < 0) {
+            return;
+        }
+        for (int i = offsets[id]; i < offsets[id + 1]; i += 1) {
+            action.accept(vertex, point(targets[i]), weights[i]);
+        }
+    }
+
+    @Override
+    public double estimatedDistance(Point start, Point end) {
+        return context.calcDistance(start, end);
+    }
+}
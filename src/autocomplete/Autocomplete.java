@@ -10,6 +10,7 @@ import java.util.List;
  * @see SequentialSearchAutocomplete
  * @see BinarySearchAutocomplete
  * @see TernarySearchTreeAutocomplete
+ * @see WeightedAutocomplete
  */
 public interface Autocomplete {
     /**
@@ -0,0 +1,184 @@
+package autocomplete;
+
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+/**
+ * Weighted sorted array implementation of the {@link Autocomplete} interface. In addition to {@link #allMatches}, can
+ * return only the highest-weighted terms matching a prefix without materializing every match: the matching terms form
+ * a contiguous range of the sorted array, and a sparse table answers "which term in this range has the maximum weight"
+ * in constant time, so the top k matches are found by repeatedly splitting ranges around their maximum.
+ *
+ * @see Autocomplete
+ * @see BinarySearchAutocomplete
+ */
+public class WeightedAutocomplete implements Autocomplete {
+    /**
+     * Function assigning a weight to each added term.
+     */
+    private final ToIntFunction<CharSequence> weight;
+    /**
+     * Added autocompletion terms in sorted order without duplicates.
+     */
+    private CharSequence[] terms;
+    /**
+     * The weight of each term in {@link #terms}.
+     */
+    private int[] weights;
+    /**
+     * {@code table[j][i]} is the index of the highest-weighted term in the range {@code [i, i + 2^j)}.
+     */
+    private int[][] table;
+
+    /**
+     * Constructs an empty instance that weights terms with the given function.
+     *
+     * @param weight function assigning a weight to each added term; higher weights are more important.
+     */
+    public WeightedAutocomplete(ToIntFunction<CharSequence> weight) {
+        this.weight = weight;
+        this.terms = new CharSequence[0];
+        this.weights = new int[0];
+        this.table = new int[0][];
+    }
+
+    @Override
+    public void addAll(Collection<? extends CharSequence> terms) {
+        List<CharSequence> all = new ArrayList<>(this.terms.length + terms.size());
+        all.addAll(Arrays.asList(this.terms));
+        all.addAll(terms);
+        all.sort(CharSequence::compare);
+        List<CharSequence> distinct = new ArrayList<>(all.size());
+        for (CharSequence term : all) {
+            if (distinct.isEmpty() || CharSequence.compare(distinct.get(distinct.size() - 1), term) != 0) {
+                distinct.add(term);
+            }
+        }
+        this.terms = distinct.toArray(new CharSequence[0]);
+        this.weights = new int[this.terms.length];
+        for (int i = 0; i < this.terms.length; i += 1) {
+            this.weights[i] = weight.applyAsInt(this.terms[i]);
+        }
+        buildTable();
+    }
+
+    @Override
+    public List<CharSequence> allMatches(CharSequence prefix) {
+        if (prefix == null || prefix.length() == 0) {
+            return new ArrayList<>();
+        }
+        int low = lowerBound(prefix);
+        int high = prefixEnd(prefix, low);
+        return new ArrayList<>(Arrays.asList(terms).subList(low, high));
+    }
+
+    /**
+     * Returns the k highest-weighted autocompletion terms that match the given prefix, ordered from highest to lowest
+     * weight. Terms with equal weights are ordered lexicographically.
+     *
+     * @param prefix search query.
+     * @param k      the maximum number of terms to return.
+     * @return the k highest-weighted terms that match the given prefix.
+     */
+    public List<CharSequence> topMatches(CharSequence prefix, int k) {
+        List<CharSequence> result = new ArrayList<>(Math.max(0, Math.min(k, 16)));
+        if (prefix == null || prefix.length() == 0 || k <= 0) {
+            return result;
+        }
+        int low = lowerBound(prefix);
+        int high = prefixEnd(prefix, low);
+        if (low >= high) {
+            return result;
+        }
+        // Each candidate is a range [low, high) represented by the index of its highest-weighted term.
+        PriorityQueue<int[]> candidates = new PriorityQueue<>(
+                Comparator.<int[]>comparingInt(range -> -weights[range[2]]).thenComparingInt(range -> range[2])
+        );
+        candidates.add(new int[]{low, high, argmax(low, high)});
+        while (result.size() < k && !candidates.isEmpty()) {
+            int[] range = candidates.remove();
+            int best = range[2];
+            result.add(terms[best]);
+            if (range[0] < best) {
+                candidates.add(new int[]{range[0], best, argmax(range[0], best)});
+            }
+            if (best + 1 < range[1]) {
+                candidates.add(new int[]{best + 1, range[1], argmax(best + 1, range[1])});
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the index of the first term that is not less than the given prefix.
+     */
+    private int lowerBound(CharSequence prefix) {
+        int low = 0;
+        int high = terms.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (CharSequence.compare(terms[mid], prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the index after the last term matching the given prefix, searching from the given lower bound.
+     */
+    private int prefixEnd(CharSequence prefix, int from) {
+        int low = from;
+        int high = terms.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Autocomplete.isPrefixOf(prefix, terms[mid])) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the index of the highest-weighted term in the nonempty range {@code [low, high)}, preferring the earlier
+     * index when weights are equal.
+     */
+    private int argmax(int low, int high) {
+        int level = 31 - Integer.numberOfLeadingZeros(high - low);
+        return better(table[level][low], table[level][high - (1 << level)]);
+    }
+
+    private int better(int i, int j) {
+        if (weights[i] != weights[j]) {
+            return weights[i] > weights[j] ? i : j;
+        }
+        return Math.min(i, j);
+    }
+
+    /**
+     * Rebuilds the sparse table for range-maximum queries over the weights.
+     */
+    private void buildTable() {
+        int n = terms.length;
+        int levels = n == 0 ? 0 : 32 - Integer.numberOfLeadingZeros(n);
+        table = new int[levels][];
+        if (levels == 0) {
+            return;
+        }
+        table[0] = new int[n];
+        for (int i = 0; i < n; i += 1) {
+            table[0][i] = i;
+        }
+        for (int j = 1; j < levels; j += 1) {
+            int half = 1 << (j - 1);
+            table[j] = new int[n - (1 << j) + 1];
+            for (int i = 0; i < table[j].length; i += 1) {
+                table[j][i] = better(table[j - 1][i], table[j - 1][i + half]);
+            }
+        }
+    }
+}
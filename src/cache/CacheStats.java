@@ -0,0 +1,67 @@
+package cache;
+
+/**
+ * Snapshot of the counters describing how well a cache has served its lookups.
+ *
+ * @see LruCache
+ */
+public class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+
+    /**
+     * Constructs a snapshot with the given counts.
+     *
+     * @param hits      the number of lookups that found a value.
+     * @param misses    the number of lookups that found no value.
+     * @param evictions the number of entries removed to stay within the bounds.
+     */
+    public CacheStats(long hits, long misses, long evictions) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    /**
+     * Returns the number of lookups that found a value.
+     *
+     * @return the number of hits.
+     */
+    public long hits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that found no value.
+     *
+     * @return the number of misses.
+     */
+    public long misses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of entries removed to stay within the bounds.
+     *
+     * @return the number of evictions.
+     */
+    public long evictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the fraction of lookups that found a value, or 0 if there have been no lookups.
+     *
+     * @return the fraction of lookups that found a value.
+     */
+    public double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "hits=" + hits + ", misses=" + misses + ", evictions=" + evictions;
+    }
+}
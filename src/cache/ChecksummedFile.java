@@ -0,0 +1,130 @@
+package cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * Binary file format for data precomputed from source files, such as map snapshots and contraction hierarchies, that
+ * can be rebuilt whenever the file is missing or unusable. Each file begins with a fixed-size header: a magic number
+ * identifying the kind of file, the format version, a fingerprint of the source data, the payload length, and a CRC-32
+ * checksum of the payload. Files are read through a memory-mapped {@link FileChannel} and rejected with an
+ * {@link IOException} if any header field does not match or the payload is truncated or corrupt, so that callers can
+ * fall back to rebuilding the data.
+ */
+public class ChecksummedFile {
+    /**
+     * Size of the header in bytes: magic, version, fingerprint, payload length, and checksum.
+     */
+    public static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 8;
+
+    private ChecksummedFile() {
+    }
+
+    /**
+     * Reads the file at the given path by memory-mapping it, checking its header and checksum, and returns the result
+     * of decoding its payload.
+     *
+     * @param path        the path to the file.
+     * @param magic       the magic number identifying the kind of file.
+     * @param version     the expected format version.
+     * @param fingerprint the expected fingerprint of the source data.
+     * @param decoder     the function decoding the payload from a buffer positioned at its start.
+     * @param <T>         the type of the decoded data.
+     * @return the decoded payload of the file.
+     * @throws IOException if the file cannot be read, has a different magic number, version or fingerprint, or its
+     *                     payload is truncated, corrupt, or cannot be decoded.
+     */
+    public static <T> T read(Path path, int magic, int version, long fingerprint, Function<ByteBuffer, T> decoder)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException("Truncated header: " + path);
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != magic) {
+                throw new IOException("Unexpected kind of file: " + path);
+            } else if (buffer.getInt() != version) {
+                throw new IOException("Unsupported version: " + path);
+            } else if (buffer.getLong() != fingerprint) {
+                throw new IOException("Stale file: " + path);
+            }
+            long length = buffer.getLong();
+            long checksum = buffer.getLong();
+            if (length != channel.size() - HEADER_BYTES) {
+                throw new IOException("Truncated payload: " + path);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate());
+            if (crc.getValue() != checksum) {
+                throw new IOException("Corrupt payload: " + path);
+            }
+            try {
+                return decoder.apply(buffer);
+            } catch (RuntimeException e) {
+                throw new IOException("Malformed payload: " + path, e);
+            }
+        }
+    }
+
+    /**
+     * Writes a file with the given header and payload to the given path. The file is written to a temporary file
+     * first and then moved into place so that concurrent readers never observe a partially-written file.
+     *
+     * @param path        the path to the file.
+     * @param magic       the magic number identifying the kind of file.
+     * @param version     the format version.
+     * @param fingerprint the fingerprint of the source data.
+     * @param payload     the writer of the payload.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(Path path, int magic, int version, long fingerprint, PayloadWriter payload)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        payload.write(out);
+        out.flush();
+        byte[] body = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(magic).putInt(version).putLong(fingerprint).putLong(body.length).putLong(crc.getValue());
+        header.flip();
+
+        Path absolute = path.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(body);
+            while (header.hasRemaining() || buffer.hasRemaining()) {
+                channel.write(new ByteBuffer[]{header, buffer});
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes the payload of a file.
+     */
+    @FunctionalInterface
+    public interface PayloadWriter {
+        /**
+         * Writes the payload to the output stream.
+         *
+         * @param out the destination output stream.
+         * @throws IOException if an I/O error occurs.
+         */
+        void write(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,215 @@
+package cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Thread-safe cache bounded by both its number of entries and the total weight of its values, evicting the least
+ * recently used entries first.
+ * <p>
+ * Entries are spread across independently locked stripes by key hash so that concurrent lookups for different keys
+ * rarely contend. Each stripe is an access-ordered {@link LinkedHashMap} holding an equal share of the bounds, so
+ * eviction is least recently used within each stripe rather than across the whole cache.
+ *
+ * @param <K> the type of keys.
+ * @param <V> the type of values.
+ * @see CacheStats
+ */
+public class LruCache<K, V> {
+    private final Stripe<K, V>[] stripes;
+    private final ToLongFunction<? super V> weigher;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+
+    /**
+     * Constructs an empty cache where every value weighs 1, so the cache is bounded only by its number of entries.
+     *
+     * @param maxSize the maximum number of entries.
+     * @throws IllegalArgumentException if maxSize is not positive.
+     */
+    public LruCache(int maxSize) {
+        this(maxSize, maxSize, value -> 1);
+    }
+
+    /**
+     * Constructs an empty cache bounded by both the number of entries and the total weight of its values.
+     *
+     * @param maxSize   the maximum number of entries.
+     * @param maxWeight the maximum total weight of all values.
+     * @param weigher   function returning the non-negative weight of each value, such as its size in bytes.
+     * @throws IllegalArgumentException if maxSize or maxWeight is not positive.
+     */
+    public LruCache(int maxSize, long maxWeight, ToLongFunction<? super V> weigher) {
+        this(Runtime.getRuntime().availableProcessors() * 4, maxSize, maxWeight, weigher);
+    }
+
+    /**
+     * Constructs an empty cache split into at most the given number of stripes.
+     *
+     * @param maxStripes the maximum number of independently locked stripes.
+     * @param maxSize    the maximum number of entries.
+     * @param maxWeight  the maximum total weight of all values.
+     * @param weigher    function returning the non-negative weight of each value.
+     * @throws IllegalArgumentException if maxSize or maxWeight is not positive.
+     */
+    @SuppressWarnings("unchecked")
+    LruCache(int maxStripes, int maxSize, long maxWeight, ToLongFunction<? super V> weigher) {
+        if (maxSize <= 0 || maxWeight <= 0) {
+            throw new IllegalArgumentException("Cache bounds must be positive: " + maxSize + ", " + maxWeight);
+        }
+        // Use a power of two no larger than the bounds so that every stripe can hold at least one entry.
+        int count = Integer.highestOneBit(Math.max(1, maxStripes));
+        while (count > 1 && (count > maxSize || count > maxWeight)) {
+            count /= 2;
+        }
+        this.stripes = (Stripe<K, V>[]) new Stripe<?, ?>[count];
+        for (int i = 0; i < count; i += 1) {
+            // Spread any remainder over the first stripes so that the shares add up to the bounds.
+            int size = maxSize / count + (i < maxSize % count ? 1 : 0);
+            long weight = maxWeight / count + (i < maxWeight % count ? 1 : 0);
+            stripes[i] = new Stripe<>(size, weight);
+        }
+        this.weigher = weigher;
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.evictions = new LongAdder();
+    }
+
+    /**
+     * Returns the value for the key and marks it as most recently used, or null if the key is not in the cache.
+     *
+     * @param key the key to look up.
+     * @return the value for the key, or null if the key is not in the cache.
+     */
+    public V get(K key) {
+        Stripe<K, V> stripe = stripe(key);
+        V value;
+        synchronized (stripe) {
+            value = stripe.map.get(key);
+        }
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Associates the value with the key, replacing any previous value, and then evicts least recently used entries
+     * until the cache is within its bounds. A value heavier than a stripe's share of the maximum weight is not stored.
+     *
+     * @param key   the key to store.
+     * @param value the value to store.
+     * @throws NullPointerException if the key or value is null.
+     */
+    public void put(K key, V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException("Cache keys and values must not be null");
+        }
+        long weight = weigher.applyAsLong(value);
+        Stripe<K, V> stripe = stripe(key);
+        long evicted = 0;
+        synchronized (stripe) {
+            V old = stripe.map.remove(key);
+            if (old != null) {
+                stripe.weight -= weigher.applyAsLong(old);
+            }
+            if (weight > stripe.maxWeight) {
+                return;
+            }
+            stripe.map.put(key, value);
+            stripe.weight += weight;
+            Iterator<Map.Entry<K, V>> eldest = stripe.map.entrySet().iterator();
+            while (stripe.map.size() > stripe.maxSize || stripe.weight > stripe.maxWeight) {
+                stripe.weight -= weigher.applyAsLong(eldest.next().getValue());
+                eldest.remove();
+                evicted += 1;
+            }
+        }
+        if (evicted > 0) {
+            evictions.add(evicted);
+        }
+    }
+
+    /**
+     * Removes every entry from the cache.
+     */
+    public void clear() {
+        for (Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.map.clear();
+                stripe.weight = 0;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of entries in the cache.
+     *
+     * @return the number of entries in the cache.
+     */
+    public int size() {
+        int result = 0;
+        for (Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                result += stripe.map.size();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the total weight of the values in the cache.
+     *
+     * @return the total weight of the values in the cache.
+     */
+    public long weight() {
+        long result = 0;
+        for (Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                result += stripe.weight;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a snapshot of the hit, miss, and eviction counts since the cache was constructed.
+     *
+     * @return a snapshot of the cache counters.
+     */
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    /**
+     * Returns the stripe responsible for the key.
+     */
+    private Stripe<K, V> stripe(K key) {
+        int h = key.hashCode();
+        // Mix the high bits into the low bits, which select the stripe.
+        h ^= (h >>> 16);
+        return stripes[h & (stripes.length - 1)];
+    }
+
+    /**
+     * Access-ordered map holding one share of the cache's entries, guarded by its own monitor.
+     */
+    private static class Stripe<K, V> {
+        private final LinkedHashMap<K, V> map;
+        private final int maxSize;
+        private final long maxWeight;
+        private long weight;
+
+        Stripe(int maxSize, long maxWeight) {
+            this.map = new LinkedHashMap<>(16, 0.75f, true);
+            this.maxSize = maxSize;
+            this.maxWeight = maxWeight;
+        }
+    }
+}
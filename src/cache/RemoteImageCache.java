@@ -0,0 +1,243 @@
+package cache;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of images fetched over HTTP, such as static map images. Looks up each image in three tiers: an in-memory
+ * {@link LruCache} of decoded images, an optional directory of previously downloaded image files, and finally the
+ * remote server. Concurrent requests for the same image while it is being loaded share a single load, so a burst of
+ * identical requests triggers only one upstream fetch.
+ * <p>
+ * Callers receive their own copy of each image, so drawing on a returned image does not affect the cache.
+ *
+ * @see LruCache
+ */
+public class RemoteImageCache {
+    private final HttpClient client;
+    private final Duration timeout;
+    private final LruCache<String, BufferedImage> memory;
+    /**
+     * Directory holding downloaded image files, or null to keep images only in memory.
+     */
+    private final Path directory;
+    /**
+     * Loads in progress by URI, removed as soon as each load completes.
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<BufferedImage>> loading;
+    private final LongAdder fetches;
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param maxImages the maximum number of images kept in memory.
+     * @param maxBytes  the maximum total size in bytes of the decoded images kept in memory.
+     * @param directory the directory for downloaded image files, or null to keep images only in memory.
+     * @param timeout   the maximum time to wait for a connection and again for each response.
+     * @throws IOException if the directory cannot be created.
+     */
+    public RemoteImageCache(int maxImages, long maxBytes, Path directory, Duration timeout) throws IOException {
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.timeout = timeout;
+        this.memory = new LruCache<>(maxImages, maxBytes, image -> 4L * image.getWidth() * image.getHeight());
+        this.directory = directory;
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        this.loading = new ConcurrentHashMap<>();
+        this.fetches = new LongAdder();
+    }
+
+    /**
+     * Returns a copy of the image at the URI, waiting for it to be loaded if it is not in memory.
+     *
+     * @param uri the location of the image.
+     * @return a copy of the image at the URI.
+     * @throws IOException if the image could not be fetched or decoded.
+     */
+    public BufferedImage get(URI uri) throws IOException {
+        try {
+            return copy(load(uri).get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading " + uri, e);
+        } catch (ExecutionException e) {
+            throw asIOException(e.getCause());
+        }
+    }
+
+    /**
+     * Returns a future completing with a copy of the image at the URI, without blocking the calling thread on I/O.
+     *
+     * @param uri the location of the image.
+     * @return a future completing with a copy of the image at the URI.
+     */
+    public CompletableFuture<BufferedImage> getAsync(URI uri) {
+        return load(uri).thenApply(RemoteImageCache::copy);
+    }
+
+    /**
+     * Returns the number of requests sent to remote servers.
+     *
+     * @return the number of requests sent to remote servers.
+     */
+    public long fetches() {
+        return fetches.sum();
+    }
+
+    /**
+     * Returns a snapshot of the counters for the in-memory tier.
+     *
+     * @return a snapshot of the counters for the in-memory tier.
+     */
+    public CacheStats stats() {
+        return memory.stats();
+    }
+
+    /**
+     * Returns a future completing with the shared cached image at the URI, starting a load unless the image is in
+     * memory or already loading.
+     */
+    private CompletableFuture<BufferedImage> load(URI uri) {
+        String key = uri.toString();
+        BufferedImage image = memory.get(key);
+        if (image != null) {
+            return CompletableFuture.completedFuture(image);
+        }
+        CompletableFuture<BufferedImage> created = new CompletableFuture<>();
+        CompletableFuture<BufferedImage> existing = loading.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+        loadFromDiskOrRemote(uri, key).whenComplete((result, error) -> {
+            if (result != null) {
+                memory.put(key, result);
+            }
+            // Remove only after caching so that later requests find the image in memory.
+            loading.remove(key);
+            if (error != null) {
+                created.completeExceptionally(error);
+            } else {
+                created.complete(result);
+            }
+        });
+        return created;
+    }
+
+    /**
+     * Returns a future completing with the image decoded from its downloaded file if there is one, or else fetched
+     * from the remote server and then saved to a file.
+     */
+    private CompletableFuture<BufferedImage> loadFromDiskOrRemote(URI uri, String key) {
+        Path file = directory == null ? null : directory.resolve(fileName(key));
+        if (file != null && Files.isRegularFile(file)) {
+            try {
+                return CompletableFuture.completedFuture(decode(Files.readAllBytes(file), uri));
+            } catch (IOException e) {
+                // Unreadable or corrupt file: fall through and fetch the image again.
+            }
+        }
+        fetches.increment();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(timeout).GET().build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).thenApply(response -> {
+            try {
+                if (response.statusCode() != 200) {
+                    throw new IOException("Unexpected status " + response.statusCode() + " from " + uri.getHost());
+                }
+                BufferedImage image = decode(response.body(), uri);
+                if (file != null) {
+                    save(file, response.body());
+                }
+                return image;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Returns the image decoded from the bytes.
+     */
+    private static BufferedImage decode(byte[] bytes, URI uri) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes));
+        if (image == null) {
+            throw new IOException("Unrecognized image format from " + uri.getHost());
+        }
+        return image;
+    }
+
+    /**
+     * Writes the bytes to the file, replacing it atomically so that readers never see a partial file.
+     */
+    private static void save(Path file, byte[] bytes) {
+        try {
+            Path temp = Files.createTempFile(file.getParent(), "image", ".tmp");
+            Files.write(temp, bytes);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Downloaded files are only an optimization: the image will be fetched again next time.
+        }
+    }
+
+    /**
+     * Returns the file name for the key. Hashing keeps names short and keeps access tokens in the URI off the disk.
+     */
+    private static String fileName(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder result = new StringBuilder(digest.length * 2 + 4);
+            for (byte b : digest) {
+                result.append(Character.forDigit((b >> 4) & 0xF, 16));
+                result.append(Character.forDigit(b & 0xF, 16));
+            }
+            return result.append(".img").toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required to be supported", e);
+        }
+    }
+
+    /**
+     * Returns a copy of the image that can be modified without affecting the original.
+     */
+    private static BufferedImage copy(BufferedImage image) {
+        ColorModel model = image.getColorModel();
+        return new BufferedImage(model, image.copyData(null), model.isAlphaPremultiplied(), null);
+    }
+
+    /**
+     * Returns the cause as an {@link IOException}, unwrapping the exceptions used to carry it through futures.
+     */
+    private static IOException asIOException(Throwable cause) {
+        while ((cause instanceof CompletionException || cause instanceof UncheckedIOException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        return new IOException(cause);
+    }
+}
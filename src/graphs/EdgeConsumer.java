@@ -0,0 +1,20 @@
+package graphs;
+
+/**
+ * Action performed on each outgoing edge of a vertex in a {@link Graph}, receiving the edge as its endpoints and a
+ * primitive weight rather than as an {@link Edge} object.
+ *
+ * @param <V> the type of vertices.
+ * @see Graph#forEachNeighbor(Object, EdgeConsumer)
+ */
+@FunctionalInterface
+public interface EdgeConsumer<V> {
+    /**
+     * Performs this action on the given edge.
+     *
+     * @param from   the originating vertex.
+     * @param to     the destination vertex.
+     * @param weight the weight of the edge.
+     */
+    void accept(V from, V to, double weight);
+}
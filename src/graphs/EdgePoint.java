@@ -0,0 +1,70 @@
+package graphs;
+
+/**
+ * Location partway along an edge of an {@link IntGraph}, such as where a street segment passes closest to a point on
+ * a map. A vertex is represented as the location at the start of an edge from the vertex to itself.
+ *
+ * @see IntGraph
+ */
+public class EdgePoint {
+    /**
+     * The id of the vertex at the start of the edge.
+     */
+    public final int from;
+    /**
+     * The id of the vertex at the end of the edge.
+     */
+    public final int to;
+    /**
+     * The fraction of the way along the edge from its start, between 0 and 1.
+     */
+    public final double fraction;
+
+    /**
+     * Constructs a location the given fraction of the way along the edge from and to the given vertices.
+     *
+     * @param from     the id of the vertex at the start of the edge.
+     * @param to       the id of the vertex at the end of the edge.
+     * @param fraction the fraction of the way along the edge from its start.
+     * @throws IllegalArgumentException if the fraction is not between 0 and 1.
+     */
+    public EdgePoint(int from, int to, double fraction) {
+        if (!(fraction >= 0 && fraction <= 1)) {
+            throw new IllegalArgumentException("Fraction must be between 0 and 1: " + fraction);
+        }
+        this.from = from;
+        this.to = to;
+        this.fraction = fraction;
+    }
+
+    /**
+     * Returns the location of the given vertex.
+     *
+     * @param vertex the id of the vertex.
+     * @return the location of the vertex.
+     */
+    public static EdgePoint at(int vertex) {
+        return new EdgePoint(vertex, vertex, 0);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        } else if (!(o instanceof EdgePoint)) {
+            return false;
+        }
+        EdgePoint other = (EdgePoint) o;
+        return from == other.from && to == other.to && Double.compare(fraction, other.fraction) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * from + to) + Double.hashCode(fraction);
+    }
+
+    @Override
+    public String toString() {
+        return "EdgePoint{" + from + "->" + to + " at " + fraction + "}";
+    }
+}
@@ -9,6 +9,7 @@ import java.util.List;
  *
  * @param <V> the type of vertices.
  * @see Edge
+ * @see EdgeConsumer
  * @see ShortestPathSolver
  * @see AStarGraph
  */
@@ -23,5 +24,17 @@ public interface Graph<V> {
      */
     List<Edge<V>> neighbors(V vertex);
 
-
+    /**
+     * Performs the given action on each outgoing edge from the given vertex. Implementations that can enumerate edges
+     * without materializing a list of {@link Edge} objects should override this method; by default, it iterates over
+     * {@link #neighbors(Object)}.
+     *
+     * @param vertex the node of interest.
+     * @param action the action to perform on each outgoing edge.
+     */
+    default void forEachNeighbor(V vertex, EdgeConsumer<V> action) {
+        for (Edge<V> e : neighbors(vertex)) {
+            action.accept(e.from, e.to, e.weight);
+        }
+    }
 }
@@ -0,0 +1,18 @@
+package graphs;
+
+/**
+ * {@link IntGraph} with a heuristic function to estimate distances between vertices.
+ *
+ * @see IntGraph
+ * @see AStarGraph
+ */
+public interface IntAStarGraph extends IntGraph {
+    /**
+     * Returns an estimated distance from start to end.
+     *
+     * @param start the id of the beginning vertex.
+     * @param end   the id of the destination vertex.
+     * @return an estimated distance from start to end.
+     */
+    double estimatedDistance(int start, int end);
+}
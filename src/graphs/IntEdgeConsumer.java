@@ -0,0 +1,19 @@
+package graphs;
+
+/**
+ * Action performed on each outgoing edge of a vertex in an {@link IntGraph}, receiving the edge as primitive values
+ * rather than as an {@link Edge} object.
+ *
+ * @see IntGraph
+ */
+@FunctionalInterface
+public interface IntEdgeConsumer {
+    /**
+     * Performs this action on the given edge.
+     *
+     * @param from   the originating vertex id.
+     * @param to     the destination vertex id.
+     * @param weight the weight of the edge.
+     */
+    void accept(int from, int to, double weight);
+}
@@ -0,0 +1,45 @@
+package graphs;
+
+/**
+ * Directed, edge-weighted graph whose vertices are identified by dense int ids from 0 (inclusive) to
+ * {@link #vertexCount()} (exclusive). Enables solvers to store per-vertex state in primitive arrays.
+ *
+ * @see IntEdgeConsumer
+ * @see IntAStarGraph
+ * @see Graph
+ */
+public interface IntGraph {
+    /**
+     * Returns the number of vertices in this graph.
+     *
+     * @return the number of vertices in this graph.
+     */
+    int vertexCount();
+
+    /**
+     * Performs the given action on each outgoing edge from the given vertex.
+     *
+     * @param vertex the id of the vertex of interest.
+     * @param action the action to perform on each outgoing edge.
+     */
+    void forEachNeighbor(int vertex, IntEdgeConsumer action);
+
+    /**
+     * Returns the weight of the lightest edge from and to the given vertices, or infinity if there is no such edge.
+     * Implementations that can scan the edges out of a vertex directly should override this method; by default, it
+     * iterates over {@link #forEachNeighbor(int, IntEdgeConsumer)}.
+     *
+     * @param from the id of the vertex at the start of the edge.
+     * @param to   the id of the vertex at the end of the edge.
+     * @return the weight of the lightest edge from and to the given vertices.
+     */
+    default double weight(int from, int to) {
+        double[] lightest = {Double.POSITIVE_INFINITY};
+        forEachNeighbor(from, (v, w, weight) -> {
+            if (w == to) {
+                lightest[0] = Math.min(lightest[0], weight);
+            }
+        });
+        return lightest[0];
+    }
+}
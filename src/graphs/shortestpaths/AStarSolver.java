@@ -1,7 +1,7 @@
 package graphs.shortestpaths;
 
 import graphs.AStarGraph;
-import graphs.Edge;
+import graphs.EdgeConsumer;
 import minpq.DoubleMapMinPQ;
 import minpq.ExtrinsicMinPQ;
 
@@ -12,51 +12,81 @@ import java.util.*;
  *
  * @param <V> the type of vertices.
  * @see AStarGraph
+ * @see StopPolicy
  */
 public class AStarSolver<V> {
-    private final Map<V, Edge<V>> edgeTo;
+    /**
+     * The vertex preceding each reached vertex on its shortest path, or null for the start.
+     */
+    private final Map<V, V> edgeTo;
     private final Map<V, Double> distTo;
     private final V start;
     private final V goal;
+    private final SearchStats stats;
+    private boolean solved;
 
     /**
-     * Constructs a new instance by executing A* search on the graph from the start to the goal.
+     * Constructs a new instance by executing A* search on the graph from the start until the goal is settled.
      *
      * @param graph the input graph.
      * @param start the start vertex.
      * @param goal  the goal vertex.
      */
     public AStarSolver(AStarGraph<V> graph, V start, V goal) {
+        this(graph, start, goal, StopPolicy.goalSettled());
+    }
+
+    /**
+     * Constructs a new instance by executing A* search on the graph from the start until the stop policy is met or
+     * every reachable vertex is settled.
+     *
+     * @param graph  the input graph.
+     * @param start  the start vertex.
+     * @param goal   the goal vertex.
+     * @param policy the policy deciding when to stop the search.
+     */
+    public AStarSolver(AStarGraph<V> graph, V start, V goal, StopPolicy policy) {
         this.edgeTo = new HashMap<>();
         this.distTo = new HashMap<>();
         this.start = start;
         this.goal = goal;
+        this.stats = new SearchStats();
         ExtrinsicMinPQ<V> pq = new DoubleMapMinPQ<>();
         pq.add(start, 0.0);
+        stats.pqOperation();
         edgeTo.put(start, null);
         distTo.put(start, 0.0);
+        EdgeConsumer<V> relax = (from, to, weight) -> {
+            stats.relax();
+            double oldDist = distTo.getOrDefault(to, Double.POSITIVE_INFINITY);
+            double newDist = distTo.get(from) + weight;
+            if (newDist < oldDist) {
+                edgeTo.put(to, from);
+                distTo.put(to, newDist);
+                double priority = newDist + graph.estimatedDistance(to, goal);
+                if (pq.contains(to)) {
+                    pq.changePriority(to, priority);
+                } else {
+                    pq.add(to, priority);
+                }
+                stats.pqOperation();
+            }
+        };
         while (!pq.isEmpty()) {
             V from = pq.removeMin();
-            for (Edge<V> e : graph.neighbors(from)) {
-                V to = e.to;
-                double oldDist = distTo.getOrDefault(to, Double.POSITIVE_INFINITY);
-                double newDist = distTo.get(from) + e.weight;
-                if (newDist < oldDist) {
-                    edgeTo.put(to, e);
-                    distTo.put(to, newDist);
-                    double priority = newDist + graph.estimatedDistance(to, goal);
-                    if (pq.contains(to)) {
-                        pq.changePriority(to, priority);
-                    } else {
-                        pq.add(to, priority);
-                    }
-                }
+            stats.settle();
+            boolean isGoal = Objects.equals(from, goal);
+            solved |= isGoal;
+            if (policy.shouldStop(stats, distTo.get(from), isGoal)) {
+                break;
             }
+            graph.forEachNeighbor(from, relax);
         }
     }
 
     /**
-     * Returns the single-pair shortest path from the stored start to the stored goal.
+     * Returns the single-pair shortest path from the stored start to the stored goal. If the search stopped before
+     * settling the goal, returns the best path found so far, or a list containing only the goal if none was found.
      *
      * @return a list of vertices representing the shortest path.
      */
@@ -65,10 +95,28 @@ public class AStarSolver<V> {
         V curr = goal;
         path.add(curr);
         while (edgeTo.get(curr) != null) {
-            curr = edgeTo.get(curr).from;
+            curr = edgeTo.get(curr);
             path.add(curr);
         }
         Collections.reverse(path);
         return path;
     }
+
+    /**
+     * Returns true if the search settled the goal, in which case {@link #solution()} is a shortest path.
+     *
+     * @return true if the search settled the goal.
+     */
+    public boolean isSolved() {
+        return solved;
+    }
+
+    /**
+     * Returns the effort spent by the search.
+     *
+     * @return the effort spent by the search.
+     */
+    public SearchStats stats() {
+        return stats;
+    }
 }
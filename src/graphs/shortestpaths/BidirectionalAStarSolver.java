@@ -0,0 +1,207 @@
+package graphs.shortestpaths;
+
+import graphs.AStarGraph;
+import graphs.EdgeConsumer;
+import graphs.Graph;
+import minpq.DoubleMapMinPQ;
+import minpq.ExtrinsicMinPQ;
+
+import java.util.*;
+
+/**
+ * Bidirectional A* search implementation for single-pair shortest paths in an {@link AStarGraph}. Searches forward
+ * from the start on the graph and backward from the goal on a reverse view of the graph, alternating between the two
+ * searches until they meet.
+ * <p>
+ * Both searches use the average potential {@code p(v) = (h(v, goal) - h(start, v)) / 2}, the forward search with
+ * {@code p} and the backward search with {@code -p}. Because the two potentials sum to zero, both searches see the
+ * same reduced edge weights, so the search can stop as soon as the sum of the two minimum priorities reaches the length
+ * of the best path found so far.
+ *
+ * @param <V> the type of vertices.
+ * @see AStarSolver
+ * @see AStarGraph
+ */
+public class BidirectionalAStarSolver<V> {
+    /**
+     * For each vertex reached by the forward search, the preceding vertex on the path from the start.
+     */
+    private final Map<V, V> forwardEdgeTo;
+    private final Map<V, Double> forwardDistTo;
+    /**
+     * For each vertex reached by the backward search, the following vertex on the path to the goal.
+     */
+    private final Map<V, V> backwardEdgeTo;
+    private final Map<V, Double> backwardDistTo;
+    private final AStarGraph<V> graph;
+    private final V start;
+    private final V goal;
+    private final SearchStats stats;
+    private V meeting;
+    private double best;
+    private boolean stopped;
+
+    /**
+     * Constructs a new instance by executing bidirectional A* search from the start and the goal until the shortest
+     * path is found or every vertex reachable in either direction is settled.
+     *
+     * @param graph   the input graph.
+     * @param reverse the input graph with every edge reversed.
+     * @param start   the start vertex.
+     * @param goal    the goal vertex.
+     */
+    public BidirectionalAStarSolver(AStarGraph<V> graph, Graph<V> reverse, V start, V goal) {
+        this(graph, reverse, start, goal, StopPolicy.exhaustive());
+    }
+
+    /**
+     * Constructs a new instance by executing bidirectional A* search from the start and the goal until the shortest
+     * path is found, the stop policy is met, or every vertex reachable in either direction is settled. The policy is
+     * consulted after each vertex settled in either direction, with the distance of that vertex from its own end of
+     * the search, and never with the goal flag set.
+     *
+     * @param graph   the input graph.
+     * @param reverse the input graph with every edge reversed.
+     * @param start   the start vertex.
+     * @param goal    the goal vertex.
+     * @param policy  the policy deciding when to give up the search.
+     */
+    public BidirectionalAStarSolver(AStarGraph<V> graph, Graph<V> reverse, V start, V goal, StopPolicy policy) {
+        this.forwardEdgeTo = new HashMap<>();
+        this.forwardDistTo = new HashMap<>();
+        this.backwardEdgeTo = new HashMap<>();
+        this.backwardDistTo = new HashMap<>();
+        this.graph = graph;
+        this.start = start;
+        this.goal = goal;
+        this.stats = new SearchStats();
+        this.best = Double.POSITIVE_INFINITY;
+
+        ExtrinsicMinPQ<V> forward = new DoubleMapMinPQ<>();
+        ExtrinsicMinPQ<V> backward = new DoubleMapMinPQ<>();
+        forward.add(start, potential(start));
+        backward.add(goal, -potential(goal));
+        stats.pqOperation();
+        stats.pqOperation();
+        forwardEdgeTo.put(start, null);
+        forwardDistTo.put(start, 0.0);
+        backwardEdgeTo.put(goal, null);
+        backwardDistTo.put(goal, 0.0);
+        if (Objects.equals(start, goal)) {
+            meeting = start;
+            best = 0.0;
+        }
+        EdgeConsumer<V> relaxForward = relax(forward, forwardEdgeTo, forwardDistTo, backwardDistTo, 1);
+        EdgeConsumer<V> relaxBackward = relax(backward, backwardEdgeTo, backwardDistTo, forwardDistTo, -1);
+        while (!forward.isEmpty() && !backward.isEmpty()) {
+            V forwardMin = forward.peekMin();
+            V backwardMin = backward.peekMin();
+            double forwardKey = forwardDistTo.get(forwardMin) + potential(forwardMin);
+            double backwardKey = backwardDistTo.get(backwardMin) - potential(backwardMin);
+            if (forwardKey + backwardKey >= best) {
+                break;
+            }
+            // Expand the direction with fewer queued vertices to balance the work between the two searches.
+            if (forward.size() <= backward.size()) {
+                V from = forward.removeMin();
+                stats.settle();
+                if (policy.shouldStop(stats, forwardDistTo.get(from), false)) {
+                    stopped = true;
+                    break;
+                }
+                graph.forEachNeighbor(from, relaxForward);
+            } else {
+                V from = backward.removeMin();
+                stats.settle();
+                if (policy.shouldStop(stats, backwardDistTo.get(from), false)) {
+                    stopped = true;
+                    break;
+                }
+                reverse.forEachNeighbor(from, relaxBackward);
+            }
+        }
+    }
+
+    /**
+     * Returns an action that relaxes edges in one direction, updating the best path whenever an edge reaches a vertex
+     * already reached by the other direction.
+     *
+     * @param sign 1 for the forward search and -1 for the backward search.
+     */
+    private EdgeConsumer<V> relax(ExtrinsicMinPQ<V> pq, Map<V, V> edgeTo, Map<V, Double> distTo,
+                                  Map<V, Double> otherDistTo, int sign) {
+        return (from, to, weight) -> {
+            stats.relax();
+            double oldDist = distTo.getOrDefault(to, Double.POSITIVE_INFINITY);
+            double newDist = distTo.get(from) + weight;
+            if (newDist < oldDist) {
+                edgeTo.put(to, from);
+                distTo.put(to, newDist);
+                double priority = newDist + sign * potential(to);
+                if (pq.contains(to)) {
+                    pq.changePriority(to, priority);
+                } else {
+                    pq.add(to, priority);
+                }
+                stats.pqOperation();
+                Double otherDist = otherDistTo.get(to);
+                if (otherDist != null && newDist + otherDist < best) {
+                    best = newDist + otherDist;
+                    meeting = to;
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns the forward potential of the vertex: the average of the estimated distance to the goal and the negated
+     * estimated distance from the start.
+     */
+    private double potential(V vertex) {
+        return (graph.estimatedDistance(vertex, goal) - graph.estimatedDistance(start, vertex)) / 2;
+    }
+
+    /**
+     * Returns the single-pair shortest path from the stored start to the stored goal, or a list containing only the
+     * goal if the goal is unreachable. If the stop policy ended the search early, returns the best path found so far.
+     *
+     * @return a list of vertices representing the shortest path.
+     */
+    public List<V> solution() {
+        if (meeting == null) {
+            return new ArrayList<>(List.of(goal));
+        }
+        List<V> path = new ArrayList<>();
+        V curr = meeting;
+        path.add(curr);
+        while (forwardEdgeTo.get(curr) != null) {
+            curr = forwardEdgeTo.get(curr);
+            path.add(curr);
+        }
+        Collections.reverse(path);
+        curr = meeting;
+        while (backwardEdgeTo.get(curr) != null) {
+            curr = backwardEdgeTo.get(curr);
+            path.add(curr);
+        }
+        return path;
+    }
+
+    /**
+     * Returns true if the search found a shortest path from the start to the goal before any stop policy ended it.
+     *
+     * @return true if the search found a shortest path from the start to the goal.
+     */
+    public boolean isSolved() {
+        return meeting != null && !stopped;
+    }
+
+    /**
+     * Returns the effort spent by the search.
+     *
+     * @return the effort spent by the search.
+     */
+    public SearchStats stats() {
+        return stats;
+    }
+}
@@ -0,0 +1,580 @@
+package graphs.shortestpaths;
+
+import cache.ChecksummedFile;
+import graphs.IntGraph;
+import minpq.IndexedIntMinPQ;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * Contraction hierarchies (CH) for fast single-pair shortest paths queries on a static {@link IntGraph}.
+ * <p>
+ * Preprocessing contracts vertices one at a time in order of importance, adding a shortcut edge between two neighbors
+ * of the contracted vertex whenever the path through it is the only shortest path between them. Queries then run a
+ * bidirectional Dijkstra search that only relaxes edges toward more important vertices, which settles a few hundred
+ * vertices on a street network instead of a large fraction of the graph. Shortcuts remember the vertex they bypass so
+ * that query results can be unpacked into paths in the original graph.
+ *
+ * @see IntGraph
+ * @see DijkstraSolver
+ */
+public class ContractionHierarchy {
+    /**
+     * Magic number identifying hierarchy files ("HMCH").
+     */
+    private static final int MAGIC = 0x484D4348;
+    /**
+     * Format version. Increment whenever the payload layout changes.
+     */
+    private static final int VERSION = 1;
+    /**
+     * Maximum number of vertices settled by each witness search during preprocessing. Smaller limits make
+     * preprocessing faster but may add unnecessary shortcuts.
+     */
+    private static final int WITNESS_SETTLE_LIMIT = 200;
+    /**
+     * Marks an edge from the original graph rather than a shortcut.
+     */
+    private static final int NO_MIDDLE = -1;
+
+    /**
+     * Upward edges: for each vertex, edges to more important vertices.
+     */
+    private final Adjacency up;
+    /**
+     * Downward edges stored in reverse: for each vertex, edges from more important vertices to it.
+     */
+    private final Adjacency down;
+    /**
+     * Search state for queries on each thread.
+     */
+    private final ThreadLocal<Query> queries;
+
+    private ContractionHierarchy(Adjacency up, Adjacency down) {
+        this.up = up;
+        this.down = down;
+        this.queries = ThreadLocal.withInitial(Query::new);
+    }
+
+    /**
+     * Returns a new contraction hierarchy for the given graph.
+     *
+     * @param graph the input graph.
+     * @return a new contraction hierarchy for the given graph.
+     */
+    public static ContractionHierarchy build(IntGraph graph) {
+        return new Contractor(graph).contract();
+    }
+
+    /**
+     * Returns the number of vertices in the hierarchy.
+     *
+     * @return the number of vertices in the hierarchy.
+     */
+    public int vertexCount() {
+        return up.offsets.length - 1;
+    }
+
+    /**
+     * Returns the shortest distance from the start to the goal, or infinity if the goal is unreachable.
+     *
+     * @param start the id of the start vertex.
+     * @param goal  the id of the goal vertex.
+     * @return the shortest distance from the start to the goal.
+     */
+    public double distance(int start, int goal) {
+        return queries.get().run(start, goal);
+    }
+
+    /**
+     * Returns the vertex ids on the shortest path from the start to the goal, or an array containing only the goal if
+     * the goal is unreachable.
+     *
+     * @param start the id of the start vertex.
+     * @param goal  the id of the goal vertex.
+     * @return the vertex ids on the shortest path from the start to the goal.
+     */
+    public int[] path(int start, int goal) {
+        Query query = queries.get();
+        if (Double.isInfinite(query.run(start, goal))) {
+            return new int[]{goal};
+        }
+        return query.unpack(start, goal);
+    }
+
+    /**
+     * Returns the shortest path from the start to the goal as a list of vertices, or a list containing only the goal if
+     * the goal is unreachable.
+     *
+     * @param start  the id of the start vertex.
+     * @param goal   the id of the goal vertex.
+     * @param vertex function returning the vertex for each id.
+     * @param <V>    the type of vertices.
+     * @return a list of vertices representing the shortest path.
+     */
+    public <V> List<V> solution(int start, int goal, IntFunction<V> vertex) {
+        int[] path = path(start, goal);
+        List<V> result = new ArrayList<>(path.length);
+        for (int id : path) {
+            result.add(vertex.apply(id));
+        }
+        return result;
+    }
+
+    /**
+     * Reads a hierarchy from the given path by memory-mapping the file, which is stored as a {@link ChecksummedFile}.
+     *
+     * @param path        the path to the hierarchy file.
+     * @param fingerprint the expected fingerprint of the graph the hierarchy was built from.
+     * @return the hierarchy stored at the given path.
+     * @throws IOException if the file cannot be read, or if the hierarchy is stale or corrupt.
+     */
+    public static ContractionHierarchy read(Path path, long fingerprint) throws IOException {
+        return ChecksummedFile.read(path, MAGIC, VERSION, fingerprint, buffer -> {
+            Adjacency up = Adjacency.read(buffer);
+            Adjacency down = Adjacency.read(buffer);
+            return new ContractionHierarchy(up, down);
+        });
+    }
+
+    /**
+     * Writes this hierarchy to the given path. The file is written to a temporary file first and then moved into place
+     * so that concurrent readers never observe a partially-written hierarchy.
+     *
+     * @param path        the path to the hierarchy file.
+     * @param fingerprint the fingerprint of the graph this hierarchy was built from.
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(Path path, long fingerprint) throws IOException {
+        ChecksummedFile.write(path, MAGIC, VERSION, fingerprint, out -> {
+            up.write(out);
+            down.write(out);
+        });
+    }
+
+    /**
+     * Compressed sparse row adjacency of edges with weights and, for shortcuts, the bypassed middle vertex.
+     */
+    private static class Adjacency {
+        private final int[] offsets;
+        private final int[] targets;
+        private final double[] weights;
+        private final int[] middles;
+
+        Adjacency(int[] offsets, int[] targets, double[] weights, int[] middles) {
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+            this.middles = middles;
+        }
+
+        /**
+         * Returns the index of the edge between the vertex and the target, or -1 if there is no such edge.
+         */
+        int find(int vertex, int target) {
+            for (int i = offsets[vertex]; i < offsets[vertex + 1]; i += 1) {
+                if (targets[i] == target) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        static Adjacency of(List<List<Arc>> arcs, boolean reverse) {
+            int n = arcs.size();
+            int[] offsets = new int[n + 1];
+            for (int v = 0; v < n; v += 1) {
+                offsets[v + 1] = offsets[v] + arcs.get(v).size();
+            }
+            int m = offsets[n];
+            int[] targets = new int[m];
+            double[] weights = new double[m];
+            int[] middles = new int[m];
+            for (int v = 0; v < n; v += 1) {
+                int i = offsets[v];
+                for (Arc arc : arcs.get(v)) {
+                    targets[i] = reverse ? arc.from : arc.to;
+                    weights[i] = arc.weight;
+                    middles[i] = arc.middle;
+                    i += 1;
+                }
+            }
+            return new Adjacency(offsets, targets, weights, middles);
+        }
+
+        static Adjacency read(ByteBuffer buffer) {
+            int n = buffer.getInt();
+            int m = buffer.getInt();
+            int[] offsets = new int[n + 1];
+            buffer.asIntBuffer().get(offsets);
+            buffer.position(buffer.position() + Integer.BYTES * (n + 1));
+            int[] targets = new int[m];
+            buffer.asIntBuffer().get(targets);
+            buffer.position(buffer.position() + Integer.BYTES * m);
+            double[] weights = new double[m];
+            buffer.asDoubleBuffer().get(weights);
+            buffer.position(buffer.position() + Double.BYTES * m);
+            int[] middles = new int[m];
+            buffer.asIntBuffer().get(middles);
+            buffer.position(buffer.position() + Integer.BYTES * m);
+            if (offsets[0] != 0 || offsets[n] != m) {
+                throw new IllegalStateException("Inconsistent edge offsets");
+            }
+            return new Adjacency(offsets, targets, weights, middles);
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(offsets.length - 1);
+            out.writeInt(targets.length);
+            for (int value : offsets) {
+                out.writeInt(value);
+            }
+            for (int value : targets) {
+                out.writeInt(value);
+            }
+            for (double value : weights) {
+                out.writeDouble(value);
+            }
+            for (int value : middles) {
+                out.writeInt(value);
+            }
+        }
+    }
+
+    /**
+     * Bidirectional upward search state, reused across queries on the same thread. Arrays are reset in constant time
+     * by advancing the epoch rather than by clearing them.
+     */
+    private class Query {
+        private final double[][] dist;
+        private final int[][] parent;
+        private final int[][] parentEdge;
+        private final int[][] stamp;
+        private final IndexedIntMinPQ[] pq;
+        private int epoch;
+        private int meeting;
+
+        Query() {
+            int n = vertexCount();
+            dist = new double[2][n];
+            parent = new int[2][n];
+            parentEdge = new int[2][n];
+            stamp = new int[2][n];
+            pq = new IndexedIntMinPQ[]{new IndexedIntMinPQ(n), new IndexedIntMinPQ(n)};
+        }
+
+        private double dist(int side, int v) {
+            return stamp[side][v] == epoch ? dist[side][v] : Double.POSITIVE_INFINITY;
+        }
+
+        private void reach(int side, int v, double d, int from, int edge) {
+            stamp[side][v] = epoch;
+            dist[side][v] = d;
+            parent[side][v] = from;
+            parentEdge[side][v] = edge;
+            pq[side].addOrChangePriority(v, d);
+        }
+
+        /**
+         * Runs the bidirectional search and returns the shortest distance, recording the meeting vertex.
+         */
+        double run(int start, int goal) {
+            epoch += 1;
+            pq[0].clear();
+            pq[1].clear();
+            reach(0, start, 0, -1, -1);
+            reach(1, goal, 0, -1, -1);
+            double best = Double.POSITIVE_INFINITY;
+            meeting = -1;
+            while (true) {
+                boolean forward = !pq[0].isEmpty() && pq[0].peekMinPriority() < best;
+                boolean backward = !pq[1].isEmpty() && pq[1].peekMinPriority() < best;
+                if (!forward && !backward) {
+                    return best;
+                }
+                // Alternate by expanding the side with the smaller key.
+                int side = forward && (!backward || pq[0].peekMinPriority() <= pq[1].peekMinPriority()) ? 0 : 1;
+                Adjacency edges = side == 0 ? up : down;
+                int v = pq[side].removeMin();
+                double d = dist[side][v];
+                double other = dist(1 - side, v);
+                if (d + other < best) {
+                    best = d + other;
+                    meeting = v;
+                }
+                for (int i = edges.offsets[v]; i < edges.offsets[v + 1]; i += 1) {
+                    int to = edges.targets[i];
+                    double newDist = d + edges.weights[i];
+                    if (newDist < dist(side, to)) {
+                        reach(side, to, newDist, v, i);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns the unpacked path for the most recent successful search.
+         */
+        int[] unpack(int start, int goal) {
+            List<Integer> result = new ArrayList<>();
+            result.add(start);
+            // Forward half: collect the upward edges from the meeting vertex back to the start.
+            Deque<Integer> forwardEdges = new ArrayDeque<>();
+            for (int v = meeting; v != start; v = parent[0][v]) {
+                forwardEdges.push(parentEdge[0][v]);
+            }
+            int from = start;
+            for (int edge : forwardEdges) {
+                int to = up.targets[edge];
+                unpackEdge(from, to, up.middles[edge], result);
+                from = to;
+            }
+            // Backward half: follow the reversed downward edges from the meeting vertex to the goal.
+            for (int v = meeting; v != goal; v = parent[1][v]) {
+                int edge = parentEdge[1][v];
+                int to = parent[1][v];
+                unpackEdge(v, to, down.middles[edge], result);
+            }
+            int[] path = new int[result.size()];
+            for (int i = 0; i < path.length; i += 1) {
+                path[i] = result.get(i);
+            }
+            return path;
+        }
+
+        /**
+         * Appends the vertices after {@code from} on the original-graph path represented by the edge from {@code from}
+         * to {@code to} that bypasses the given middle vertex.
+         */
+        private void unpackEdge(int from, int to, int middle, List<Integer> result) {
+            Deque<int[]> stack = new ArrayDeque<>();
+            stack.push(new int[]{from, to, middle});
+            while (!stack.isEmpty()) {
+                int[] edge = stack.pop();
+                if (edge[2] == NO_MIDDLE) {
+                    result.add(edge[1]);
+                } else {
+                    // The middle vertex is less important than both endpoints, so the first half is a downward edge
+                    // into the middle and the second half is an upward edge out of it.
+                    int c = edge[2];
+                    int second = up.find(c, edge[1]);
+                    int first = down.find(c, edge[0]);
+                    stack.push(new int[]{c, edge[1], up.middles[second]});
+                    stack.push(new int[]{edge[0], c, down.middles[first]});
+                }
+            }
+        }
+    }
+
+    /**
+     * Directed edge during preprocessing, shared between the outgoing list of its source and the incoming list of its
+     * destination so that shortcut updates are visible from both ends.
+     */
+    private static class Arc {
+        private final int from;
+        private final int to;
+        private double weight;
+        private int middle;
+
+        Arc(int from, int to, double weight, int middle) {
+            this.from = from;
+            this.to = to;
+            this.weight = weight;
+            this.middle = middle;
+        }
+    }
+
+    /**
+     * Preprocessing state for contracting every vertex of a graph.
+     */
+    private static class Contractor {
+        private final int n;
+        private final List<List<Arc>> out;
+        private final List<List<Arc>> in;
+        private final List<List<Arc>> upward;
+        private final List<List<Arc>> downward;
+        private final boolean[] contracted;
+        private final int[] contractedNeighbors;
+        /**
+         * Witness search state, reset by advancing the epoch.
+         */
+        private final double[] witnessDist;
+        private final int[] witnessStamp;
+        private final int[] targetStamp;
+        private final IndexedIntMinPQ witnessPQ;
+        private int witnessEpoch;
+
+        Contractor(IntGraph graph) {
+            n = graph.vertexCount();
+            out = new ArrayList<>(n);
+            in = new ArrayList<>(n);
+            upward = new ArrayList<>(n);
+            downward = new ArrayList<>(n);
+            for (int v = 0; v < n; v += 1) {
+                out.add(new ArrayList<>(4));
+                in.add(new ArrayList<>(4));
+                upward.add(new ArrayList<>(0));
+                downward.add(new ArrayList<>(0));
+            }
+            for (int v = 0; v < n; v += 1) {
+                graph.forEachNeighbor(v, (from, to, weight) -> {
+                    if (from != to) {
+                        addArc(from, to, weight, NO_MIDDLE);
+                    }
+                });
+            }
+            contracted = new boolean[n];
+            contractedNeighbors = new int[n];
+            witnessDist = new double[n];
+            witnessStamp = new int[n];
+            targetStamp = new int[n];
+            witnessPQ = new IndexedIntMinPQ(n);
+        }
+
+        ContractionHierarchy contract() {
+            IndexedIntMinPQ order = new IndexedIntMinPQ(n);
+            for (int v = 0; v < n; v += 1) {
+                order.add(v, priority(v));
+            }
+            while (!order.isEmpty()) {
+                int v = order.removeMin();
+                // Lazy update: priorities of remaining vertices change as their neighbors are contracted.
+                double priority = priority(v);
+                if (!order.isEmpty() && priority > order.peekMinPriority()) {
+                    order.add(v, priority);
+                    continue;
+                }
+                contract(v);
+            }
+            return new ContractionHierarchy(Adjacency.of(upward, false), Adjacency.of(downward, true));
+        }
+
+        /**
+         * Returns the contraction priority of the vertex: the edge difference plus the number of contracted neighbors,
+         * which spreads contraction uniformly across the graph.
+         */
+        private double priority(int v) {
+            int shortcuts = shortcuts(v, false);
+            return shortcuts - out.get(v).size() - in.get(v).size() + contractedNeighbors[v];
+        }
+
+        private void contract(int v) {
+            shortcuts(v, true);
+            contracted[v] = true;
+            // Every remaining neighbor will be contracted later, so it is more important than this vertex.
+            for (Arc arc : out.get(v)) {
+                upward.get(v).add(arc);
+                in.get(arc.to).remove(arc);
+                contractedNeighbors[arc.to] += 1;
+            }
+            for (Arc arc : in.get(v)) {
+                downward.get(v).add(arc);
+                out.get(arc.from).remove(arc);
+                contractedNeighbors[arc.from] += 1;
+            }
+            out.set(v, List.of());
+            in.set(v, List.of());
+        }
+
+        /**
+         * Returns the number of shortcuts needed to contract the vertex, adding them if requested.
+         */
+        private int shortcuts(int v, boolean add) {
+            int count = 0;
+            List<Arc> outgoingArcs = List.copyOf(out.get(v));
+            for (Arc incoming : List.copyOf(in.get(v))) {
+                int u = incoming.from;
+                // Only paths no longer than the longest path through v can be witnesses.
+                witnessEpoch += 1;
+                double maxDist = 0;
+                int targets = 0;
+                for (Arc outgoing : outgoingArcs) {
+                    if (outgoing.to != u) {
+                        maxDist = Math.max(maxDist, incoming.weight + outgoing.weight);
+                        targetStamp[outgoing.to] = witnessEpoch;
+                        targets += 1;
+                    }
+                }
+                if (targets == 0) {
+                    continue;
+                }
+                witnessSearch(u, v, maxDist, targets);
+                for (Arc outgoing : outgoingArcs) {
+                    int w = outgoing.to;
+                    double viaV = incoming.weight + outgoing.weight;
+                    if (w != u && witness(w) > viaV) {
+                        count += 1;
+                        if (add) {
+                            addArc(u, w, viaV, v);
+                        }
+                    }
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Runs a bounded Dijkstra search from the source over uncontracted vertices other than the excluded vertex,
+         * stopping early once every target vertex marked with the current epoch is settled.
+         */
+        private void witnessSearch(int source, int excluded, double maxDist, int targets) {
+            witnessPQ.clear();
+            witnessStamp[source] = witnessEpoch;
+            witnessDist[source] = 0;
+            witnessPQ.add(source, 0);
+            int settled = 0;
+            while (!witnessPQ.isEmpty() && settled < WITNESS_SETTLE_LIMIT) {
+                double d = witnessPQ.peekMinPriority();
+                if (d > maxDist) {
+                    return;
+                }
+                int from = witnessPQ.removeMin();
+                settled += 1;
+                if (targetStamp[from] == witnessEpoch) {
+                    targets -= 1;
+                    if (targets == 0) {
+                        return;
+                    }
+                }
+                for (Arc arc : out.get(from)) {
+                    int to = arc.to;
+                    if (to != excluded && !contracted[to]) {
+                        double newDist = d + arc.weight;
+                        if (newDist < witness(to)) {
+                            witnessStamp[to] = witnessEpoch;
+                            witnessDist[to] = newDist;
+                            witnessPQ.addOrChangePriority(to, newDist);
+                        }
+                    }
+                }
+            }
+        }
+
+        private double witness(int v) {
+            return witnessStamp[v] == witnessEpoch ? witnessDist[v] : Double.POSITIVE_INFINITY;
+        }
+
+        /**
+         * Adds an edge, or lowers the weight of the existing edge between the same vertices.
+         */
+        private void addArc(int from, int to, double weight, int middle) {
+            for (Arc arc : out.get(from)) {
+                if (arc.to == to) {
+                    if (weight < arc.weight) {
+                        arc.weight = weight;
+                        arc.middle = middle;
+                    }
+                    return;
+                }
+            }
+            Arc arc = new Arc(from, to, weight, middle);
+            out.get(from).add(arc);
+            in.get(to).add(arc);
+        }
+    }
+}
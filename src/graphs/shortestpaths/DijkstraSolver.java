@@ -1,6 +1,6 @@
 package graphs.shortestpaths;
 
-import graphs.Edge;
+import graphs.EdgeConsumer;
 import graphs.Graph;
 import minpq.DoubleMapMinPQ;
 import minpq.ExtrinsicMinPQ;
@@ -14,7 +14,10 @@ import java.util.*;
  * @see ShortestPathSolver
  */
 public class DijkstraSolver<V> implements ShortestPathSolver<V> {
-    private final Map<V, Edge<V>> edgeTo;
+    /**
+     * The vertex preceding each reached vertex on its shortest path, or null for the start.
+     */
+    private final Map<V, V> edgeTo;
     private final Map<V, Double> distTo;
 
     /**
@@ -30,22 +33,21 @@ public class DijkstraSolver<V> implements ShortestPathSolver<V> {
         pq.add(start, 0.0);
         edgeTo.put(start, null);
         distTo.put(start, 0.0);
-        while (!pq.isEmpty()) {
-            V from = pq.removeMin();
-            for (Edge<V> e : graph.neighbors(from)) {
-                V to = e.to;
-                double oldDist = distTo.getOrDefault(to, Double.POSITIVE_INFINITY);
-                double newDist = distTo.get(from) + e.weight;
-                if (newDist < oldDist) {
-                    edgeTo.put(to, e);
-                    distTo.put(to, newDist);
-                    if (pq.contains(to)) {
-                        pq.changePriority(to, newDist);
-                    } else {
-                        pq.add(to, newDist);
-                    }
+        EdgeConsumer<V> relax = (from, to, weight) -> {
+            double oldDist = distTo.getOrDefault(to, Double.POSITIVE_INFINITY);
+            double newDist = distTo.get(from) + weight;
+            if (newDist < oldDist) {
+                edgeTo.put(to, from);
+                distTo.put(to, newDist);
+                if (pq.contains(to)) {
+                    pq.changePriority(to, newDist);
+                } else {
+                    pq.add(to, newDist);
                 }
             }
+        };
+        while (!pq.isEmpty()) {
+            graph.forEachNeighbor(pq.removeMin(), relax);
         }
     }
 
@@ -55,7 +57,7 @@ public class DijkstraSolver<V> implements ShortestPathSolver<V> {
         V curr = goal;
         path.add(curr);
         while (edgeTo.get(curr) != null) {
-            curr = edgeTo.get(curr).from;
+            curr = edgeTo.get(curr);
             path.add(curr);
         }
         Collections.reverse(path);
@@ -0,0 +1,128 @@
+package graphs.shortestpaths;
+
+import graphs.IntGraph;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Many-to-many shortest path distances in an {@link IntGraph}. Rather than a single-pair search for each of the
+ * {@code N * M} pairs, runs one bounded one-to-many Dijkstra search per source that stops as soon as every target is
+ * settled, so each search settles only the vertices closer to its source than its farthest target. Sources are
+ * independent, so their searches can run in parallel, each in its own thread's {@link SearchWorkspace}.
+ *
+ * @see IntDijkstraSolver
+ * @see StopPolicy
+ */
+public class DistanceMatrix {
+    private final double[][] distances;
+    private final boolean complete;
+    private final long settled;
+
+    /**
+     * Constructs a new instance by running one search per source on the current thread.
+     *
+     * @param graph   the input graph.
+     * @param sources the ids of the source vertices.
+     * @param targets the ids of the target vertices.
+     */
+    public DistanceMatrix(IntGraph graph, int[] sources, int[] targets) {
+        this(graph, sources, targets, StopPolicy.exhaustive(), null);
+    }
+
+    /**
+     * Constructs a new instance by running one search per source on the executor, or on the current thread if the
+     * executor is null, waiting for every search to finish. Each search stops once all targets are settled or the stop
+     * policy is met, whichever comes first.
+     *
+     * @param graph    the input graph.
+     * @param sources  the ids of the source vertices.
+     * @param targets  the ids of the target vertices.
+     * @param policy   the policy deciding when to give up each search, such as a deadline.
+     * @param executor the executor for running searches in parallel, or null to run them on the current thread.
+     */
+    public DistanceMatrix(IntGraph graph, int[] sources, int[] targets, StopPolicy policy, Executor executor) {
+        int[] distinct = Arrays.stream(targets).sorted().distinct().toArray();
+        this.distances = new double[sources.length][];
+        long[] settled = new long[sources.length];
+        boolean[] complete = new boolean[sources.length];
+        CompletableFuture<?>[] rows = new CompletableFuture<?>[sources.length];
+        for (int i = 0; i < sources.length; i += 1) {
+            int row = i;
+            rows[i] = CompletableFuture.runAsync(() -> {
+                SearchWorkspace workspace = SearchWorkspace.forThread(graph.vertexCount());
+                SearchStats stats = new SearchStats();
+                int found = workspace.searchTargets(graph, sources[row], distinct, distinct.length, policy, stats);
+                double[] result = new double[targets.length];
+                for (int j = 0; j < targets.length; j += 1) {
+                    result[j] = workspace.settled(targets[j]) ? workspace.dist(targets[j]) : Double.POSITIVE_INFINITY;
+                }
+                distances[row] = result;
+                settled[row] = stats.settled();
+                // A search that ran out of reachable vertices is complete even if some targets are unreachable.
+                complete[row] = found == distinct.length || workspace.exhausted();
+            }, executor == null ? Runnable::run : executor);
+        }
+        try {
+            CompletableFuture.allOf(rows).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        boolean all = true;
+        long total = 0;
+        for (int i = 0; i < sources.length; i += 1) {
+            all &= complete[i];
+            total += settled[i];
+        }
+        this.complete = all;
+        this.settled = total;
+    }
+
+    /**
+     * Returns the shortest path distance from each source (row) to each target (column), or infinity for targets
+     * unreachable from the source or not settled before the stop policy ended its search.
+     *
+     * @return a new array of the shortest path distances from each source to each target.
+     */
+    public double[][] distances() {
+        double[][] result = new double[distances.length][];
+        for (int i = 0; i < distances.length; i += 1) {
+            result[i] = distances[i].clone();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the shortest path distance from the source at the given index to the target at the given index.
+     *
+     * @param source the index of the source in the sources array.
+     * @param target the index of the target in the targets array.
+     * @return the shortest path distance from the source to the target.
+     */
+    public double distance(int source, int target) {
+        return distances[source][target];
+    }
+
+    /**
+     * Returns true if no search was ended by the stop policy, so every distance is exact.
+     *
+     * @return true if every distance is exact.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Returns the total number of vertices settled across all searches.
+     *
+     * @return the total number of vertices settled.
+     */
+    public long settled() {
+        return settled;
+    }
+}
@@ -0,0 +1,174 @@
+package graphs.shortestpaths;
+
+import graphs.EdgePoint;
+import graphs.IntAStarGraph;
+import graphs.IntGraph;
+
+/**
+ * A* search implementation for single-pair shortest paths in an {@link IntAStarGraph}. The primitive counterpart of
+ * {@link AStarSolver}: distances and parents are kept in the current thread's reusable {@link SearchWorkspace} rather
+ * than in maps, and the solution is copied out before the constructor returns.
+ * <p>
+ * The start and goal may also be {@link EdgePoint locations partway along edges}, such as the points on the nearest
+ * street segments to clicks on a map, so that routes do not detour through the vertex nearest to each click. The search
+ * then starts from both ends of the start edge at the distances to reach them and finishes through either end of the
+ * goal edge, with a direct path along a shared edge when the start and goal lie on the same one.
+ *
+ * @see IntAStarGraph
+ * @see AStarSolver
+ * @see IntDijkstraSolver
+ */
+public class IntAStarSolver {
+    private final int[] solution;
+    private final double distance;
+    private final boolean solved;
+    private final SearchStats stats;
+
+    /**
+     * Constructs a new instance by executing A* search on the graph from the start until the goal is settled.
+     *
+     * @param graph the input graph.
+     * @param start the id of the start vertex.
+     * @param goal  the id of the goal vertex.
+     */
+    public IntAStarSolver(IntAStarGraph graph, int start, int goal) {
+        this(graph, start, goal, StopPolicy.goalSettled());
+    }
+
+    /**
+     * Constructs a new instance by executing A* search on the graph from the start until the stop policy is met or
+     * every reachable vertex is settled.
+     *
+     * @param graph  the input graph.
+     * @param start  the id of the start vertex.
+     * @param goal   the id of the goal vertex.
+     * @param policy the policy deciding when to stop the search.
+     */
+    public IntAStarSolver(IntAStarGraph graph, int start, int goal, StopPolicy policy) {
+        SearchWorkspace workspace = SearchWorkspace.forThread(graph.vertexCount());
+        this.stats = new SearchStats();
+        this.solved = workspace.search(graph, start, goal, v -> graph.estimatedDistance(v, goal), policy, stats);
+        this.solution = workspace.path(goal);
+        this.distance = workspace.dist(goal);
+    }
+
+    /**
+     * Constructs a new instance by executing A* search on the graph from the start location until the shortest path
+     * to the goal location is found.
+     *
+     * @param graph the input graph.
+     * @param start the start location.
+     * @param goal  the goal location.
+     */
+    public IntAStarSolver(IntAStarGraph graph, EdgePoint start, EdgePoint goal) {
+        this(graph, start, goal, StopPolicy.exhaustive());
+    }
+
+    /**
+     * Constructs a new instance by executing A* search on the graph from the start location until the shortest path
+     * to the goal location is found, the stop policy is met, or every reachable vertex is settled. The solution is the
+     * vertices passed along the way, which is empty if the path runs directly along the edge shared by the start and
+     * the goal.
+     *
+     * @param graph  the input graph.
+     * @param start  the start location.
+     * @param goal   the goal location.
+     * @param policy the policy deciding when to give up the search.
+     */
+    public IntAStarSolver(IntAStarGraph graph, EdgePoint start, EdgePoint goal, StopPolicy policy) {
+        if (goal.from == start.to && goal.to == start.from && start.from != start.to) {
+            // Locations on opposite directions of the same edge are compared in the direction of the start.
+            goal = new EdgePoint(start.from, start.to, 1 - goal.fraction);
+        }
+        double direct = Double.POSITIVE_INFINITY;
+        if (goal.from == start.from && goal.to == start.to) {
+            direct = goal.fraction >= start.fraction
+                    ? partial(graph, start.from, start.to, goal.fraction - start.fraction)
+                    : partial(graph, start.to, start.from, start.fraction - goal.fraction);
+        }
+        int[] sources = {start.to, start.from};
+        double[] sourceDists = {
+                partial(graph, start.from, start.to, 1 - start.fraction),
+                partial(graph, start.to, start.from, start.fraction)
+        };
+        int[] goals = {goal.from, goal.to};
+        double[] goalDists = {
+                partial(graph, goal.from, goal.to, goal.fraction),
+                partial(graph, goal.to, goal.from, 1 - goal.fraction)
+        };
+        SearchWorkspace workspace = SearchWorkspace.forThread(graph.vertexCount());
+        this.stats = new SearchStats();
+        boolean complete = workspace.searchBetween(graph, sources, sourceDists, goals, goalDists, direct, v -> Math.min(
+                graph.estimatedDistance(v, goals[0]) + goalDists[0], graph.estimatedDistance(v, goals[1]) + goalDists[1]
+        ), policy, stats);
+        int best = workspace.dist(goals[0]) + goalDists[0] <= workspace.dist(goals[1]) + goalDists[1] ? 0 : 1;
+        double finish = workspace.dist(goals[best]) + goalDists[best];
+        if (direct <= finish) {
+            this.solution = new int[0];
+            this.distance = direct;
+        } else if (finish < Double.POSITIVE_INFINITY) {
+            this.solution = workspace.path(goals[best]);
+            this.distance = finish;
+        } else {
+            this.solution = new int[0];
+            this.distance = Double.POSITIVE_INFINITY;
+        }
+        this.solved = complete && distance < Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the weight of the given fraction of the lightest edge from and to the given vertices, which is 0 for no
+     * part of an edge and infinity if there is no such edge.
+     */
+    private static double partial(IntGraph graph, int from, int to, double fraction) {
+        if (fraction == 0) {
+            return 0;
+        }
+        double[] weight = {Double.POSITIVE_INFINITY};
+        graph.forEachNeighbor(from, (v, w, edgeWeight) -> {
+            if (w == to) {
+                weight[0] = Math.min(weight[0], edgeWeight);
+            }
+        });
+        return fraction * weight[0];
+    }
+
+    /**
+     * Returns the vertex ids on the single-pair shortest path from the start to the goal. If the search stopped before
+     * settling the goal, returns the best path found so far, or an array containing only the goal if none was found.
+     * Between locations partway along edges, returns the vertices passed along the way, or an empty array if none.
+     *
+     * @return the vertex ids on the shortest path.
+     */
+    public int[] solution() {
+        return solution.clone();
+    }
+
+    /**
+     * Returns the length of the path returned by {@link #solution()}, or infinity if the goal was not reached.
+     *
+     * @return the length of the path returned by {@link #solution()}.
+     */
+    public double distance() {
+        return distance;
+    }
+
+    /**
+     * Returns true if the search settled the goal, or found the shortest path to a goal location partway along an
+     * edge, in which case {@link #solution()} is a shortest path.
+     *
+     * @return true if the search settled the goal.
+     */
+    public boolean isSolved() {
+        return solved;
+    }
+
+    /**
+     * Returns the effort spent by the search.
+     *
+     * @return the effort spent by the search.
+     */
+    public SearchStats stats() {
+        return stats;
+    }
+}
@@ -0,0 +1,85 @@
+package graphs.shortestpaths;
+
+import graphs.IntGraph;
+
+/**
+ * Dijkstra's algorithm implementation for single-pair shortest paths in an {@link IntGraph}. The primitive
+ * counterpart of {@link DijkstraSolver}: distances and parents are kept in the current thread's reusable
+ * {@link SearchWorkspace} rather than in maps, and the solution is copied out before the constructor returns.
+ *
+ * @see IntGraph
+ * @see DijkstraSolver
+ * @see IntAStarSolver
+ */
+public class IntDijkstraSolver {
+    private final int[] solution;
+    private final double distance;
+    private final boolean solved;
+    private final SearchStats stats;
+
+    /**
+     * Constructs a new instance by executing Dijkstra's algorithm on the graph from the start until the goal is
+     * settled.
+     *
+     * @param graph the input graph.
+     * @param start the id of the start vertex.
+     * @param goal  the id of the goal vertex.
+     */
+    public IntDijkstraSolver(IntGraph graph, int start, int goal) {
+        this(graph, start, goal, StopPolicy.goalSettled());
+    }
+
+    /**
+     * Constructs a new instance by executing Dijkstra's algorithm on the graph from the start until the stop policy is
+     * met or every reachable vertex is settled.
+     *
+     * @param graph  the input graph.
+     * @param start  the id of the start vertex.
+     * @param goal   the id of the goal vertex.
+     * @param policy the policy deciding when to stop the search.
+     */
+    public IntDijkstraSolver(IntGraph graph, int start, int goal, StopPolicy policy) {
+        SearchWorkspace workspace = SearchWorkspace.forThread(graph.vertexCount());
+        this.stats = new SearchStats();
+        this.solved = workspace.search(graph, start, goal, null, policy, stats);
+        this.solution = workspace.path(goal);
+        this.distance = workspace.dist(goal);
+    }
+
+    /**
+     * Returns the vertex ids on the single-pair shortest path from the start to the goal. If the search stopped before
+     * settling the goal, returns the best path found so far, or an array containing only the goal if none was found.
+     *
+     * @return the vertex ids on the shortest path.
+     */
+    public int[] solution() {
+        return solution.clone();
+    }
+
+    /**
+     * Returns the length of the path returned by {@link #solution()}, or infinity if the goal was not reached.
+     *
+     * @return the length of the path returned by {@link #solution()}.
+     */
+    public double distance() {
+        return distance;
+    }
+
+    /**
+     * Returns true if the search settled the goal, in which case {@link #solution()} is a shortest path.
+     *
+     * @return true if the search settled the goal.
+     */
+    public boolean isSolved() {
+        return solved;
+    }
+
+    /**
+     * Returns the effort spent by the search.
+     *
+     * @return the effort spent by the search.
+     */
+    public SearchStats stats() {
+        return stats;
+    }
+}
@@ -0,0 +1,365 @@
+package graphs.shortestpaths;
+
+import graphs.EdgePoint;
+import graphs.IntEdgeConsumer;
+import graphs.IntGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * The part of an {@link IntGraph} within a distance budget of a start vertex: every vertex whose shortest path distance
+ * from the start is at most the budget, and the frontier edges that leave this set partway along. The primitive,
+ * bounded counterpart of {@link DijkstraSolver}: the search runs in the current thread's reusable
+ * {@link SearchWorkspace} and stops at the budget instead of settling every reachable vertex.
+ *
+ * @see IntGraph
+ * @see DijkstraSolver
+ * @see StopPolicy
+ */
+public class Isochrone {
+    private final double budget;
+    private final int[] vertices;
+    private final double[] distances;
+    private final int[] frontierFrom;
+    private final int[] frontierTo;
+    private final double[] frontierReach;
+    private final boolean complete;
+    private final SearchStats stats;
+
+    /**
+     * Constructs a new instance by executing Dijkstra's algorithm on the graph from the start until every vertex
+     * within the budget is settled.
+     *
+     * @param graph  the input graph.
+     * @param start  the id of the start vertex.
+     * @param budget the maximum shortest path distance from the start.
+     */
+    public Isochrone(IntGraph graph, int start, double budget) {
+        this(graph, start, budget, StopPolicy.exhaustive());
+    }
+
+    /**
+     * Constructs a new instance by executing Dijkstra's algorithm on the graph from the start until every vertex
+     * within the budget is settled or the stop policy is met, such as at a deadline.
+     *
+     * @param graph  the input graph.
+     * @param start  the id of the start vertex.
+     * @param budget the maximum shortest path distance from the start.
+     * @param policy the policy deciding when to give up the search.
+     * @throws IllegalArgumentException if the budget is negative or not a number.
+     */
+    public Isochrone(IntGraph graph, int start, double budget, StopPolicy policy) {
+        if (!(budget >= 0)) {
+            throw new IllegalArgumentException("Budget must not be negative: " + budget);
+        }
+        this.budget = budget;
+        SearchWorkspace workspace = SearchWorkspace.forThread(graph.vertexCount());
+        this.stats = new SearchStats();
+        Vertices settled = new Vertices();
+        this.complete = workspace.searchWithin(graph, start, budget, policy, stats, settled);
+        this.vertices = Arrays.copyOf(settled.ids, settled.size);
+        this.distances = new double[vertices.length];
+        // Collect the frontier while the workspace still holds this search.
+        Frontier frontier = new Frontier(workspace);
+        for (int i = 0; i < vertices.length; i += 1) {
+            distances[i] = workspace.dist(vertices[i]);
+            graph.forEachNeighbor(vertices[i], frontier);
+        }
+        this.frontierFrom = Arrays.copyOf(frontier.from, frontier.size);
+        this.frontierTo = Arrays.copyOf(frontier.to, frontier.size);
+        this.frontierReach = Arrays.copyOf(frontier.reach, frontier.size);
+    }
+
+    /**
+     * Returns the ids of the vertices within the budget in order of increasing distance from the start.
+     *
+     * @return the ids of the vertices within the budget.
+     */
+    public int[] vertices() {
+        return vertices.clone();
+    }
+
+    /**
+     * Returns the shortest path distances from the start to each vertex returned by {@link #vertices()}.
+     *
+     * @return the shortest path distances from the start to each vertex within the budget.
+     */
+    public double[] distances() {
+        return distances.clone();
+    }
+
+    /**
+     * Performs the action on each frontier edge: an edge from a vertex within the budget to a vertex beyond it. The
+     * weight passed to the action is the part of the edge weight within the budget, which is less than the weight of
+     * the edge unless the stop policy ended the search early.
+     *
+     * @param action the action to perform on each frontier edge.
+     */
+    public void forEachFrontierEdge(IntEdgeConsumer action) {
+        for (int i = 0; i < frontierFrom.length; i += 1) {
+            action.accept(frontierFrom[i], frontierTo[i], frontierReach[i]);
+        }
+    }
+
+    /**
+     * Returns the maximum shortest path distance from the start.
+     *
+     * @return the maximum shortest path distance from the start.
+     */
+    public double budget() {
+        return budget;
+    }
+
+    /**
+     * Returns true if every vertex within the budget was found, or false if the stop policy ended the search first.
+     *
+     * @return true if every vertex within the budget was found.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Returns the effort spent by the search.
+     *
+     * @return the effort spent by the search.
+     */
+    public SearchStats stats() {
+        return stats;
+    }
+
+    /**
+     * Returns the part of the graph within the budget as lines, each a sequence of locations that are either vertices
+     * within the budget or points partway along an edge where the budget runs out. An edge between two vertices within
+     * the budget is covered as far as the budget reaches from either end in the direction of travel, and each frontier
+     * edge up to the point where the budget runs out. Both directions of an edge are covered once, and pieces are
+     * joined end to end through every location shared by exactly two of them, so an unbranched street is one line.
+     *
+     * @param graph the graph that this isochrone was found in.
+     * @return the lines covering the part of the graph within the budget.
+     */
+    public List<EdgePoint[]> lines(IntGraph graph) {
+        Pieces pieces = new Pieces(graph);
+        for (int i = 0; i < pieces.ids.length; i += 1) {
+            pieces.position = i;
+            graph.forEachNeighbor(pieces.ids[i], pieces);
+        }
+        for (int i = 0; i < frontierFrom.length; i += 1) {
+            pieces.addPartial(
+                    pieces.find(frontierFrom[i]), frontierFrom[i], frontierTo[i],
+                    fraction(frontierReach[i], graph.weight(frontierFrom[i], frontierTo[i]))
+            );
+        }
+        return pieces.join();
+    }
+
+    /**
+     * Returns the fraction of an edge with the given weight covered by the given distance.
+     */
+    private static double fraction(double reach, double weight) {
+        return reach >= weight ? 1 : reach / weight;
+    }
+
+    /**
+     * Growable list of the vertices settled by the search, in the order they were settled.
+     */
+    private static class Vertices implements IntConsumer {
+        private int[] ids = new int[16];
+        private int size;
+
+        @Override
+        public void accept(int vertex) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, 2 * size);
+            }
+            ids[size] = vertex;
+            size += 1;
+        }
+    }
+
+    /**
+     * Growable list of the frontier edges, given each outgoing edge of the vertices within the budget.
+     */
+    private class Frontier implements IntEdgeConsumer {
+        private final SearchWorkspace workspace;
+        private int[] from = new int[16];
+        private int[] to = new int[16];
+        private double[] reach = new double[16];
+        private int size;
+
+        Frontier(SearchWorkspace workspace) {
+            this.workspace = workspace;
+        }
+
+        @Override
+        public void accept(int from, int to, double weight) {
+            if (workspace.settled(to)) {
+                return;
+            }
+            if (size == this.from.length) {
+                this.from = Arrays.copyOf(this.from, 2 * size);
+                this.to = Arrays.copyOf(this.to, 2 * size);
+                this.reach = Arrays.copyOf(this.reach, 2 * size);
+            }
+            this.from[size] = from;
+            this.to[size] = to;
+            this.reach[size] = Math.min(budget - workspace.dist(from), weight);
+            size += 1;
+        }
+    }
+
+    /**
+     * Growable list of the pieces of edges within the budget, given each outgoing edge of the vertices within the
+     * budget. Pieces join locations numbered by the position of each vertex among the vertices sorted by id, followed
+     * by the points partway along an edge.
+     */
+    private class Pieces implements IntEdgeConsumer {
+        private final IntGraph graph;
+        /**
+         * The ids of the vertices within the budget in increasing order, and the distance to each.
+         */
+        private final int[] ids;
+        private final double[] dist;
+        private final List<EdgePoint> partial = new ArrayList<>();
+        private int[] from = new int[16];
+        private int[] to = new int[16];
+        private int size;
+        /**
+         * The position of the vertex whose outgoing edges are being added.
+         */
+        private int position;
+
+        Pieces(IntGraph graph) {
+            this.graph = graph;
+            // Sort the vertices by id along with their positions so that distances can be found by binary search.
+            long[] order = new long[vertices.length];
+            for (int i = 0; i < vertices.length; i += 1) {
+                order[i] = (long) vertices[i] << 32 | i;
+            }
+            Arrays.sort(order);
+            this.ids = new int[order.length];
+            this.dist = new double[order.length];
+            for (int i = 0; i < order.length; i += 1) {
+                ids[i] = (int) (order[i] >>> 32);
+                dist[i] = distances[(int) order[i]];
+            }
+        }
+
+        @Override
+        public void accept(int from, int to, double weight) {
+            int other = find(to);
+            if (other < 0 || from == to) {
+                // Edges leaving the budget are frontier edges.
+                return;
+            }
+            double back = graph.weight(to, from);
+            if (from > to && back < Double.POSITIVE_INFINITY) {
+                // Two-way edges are added once, from their lower id end.
+                return;
+            }
+            double forward = fraction(budget - dist[position], weight);
+            double backward = back < Double.POSITIVE_INFINITY ? fraction(budget - dist[other], back) : 0;
+            if (forward + backward >= 1) {
+                add(position, other);
+            } else {
+                addPartial(position, from, to, forward);
+                addPartial(other, to, from, backward);
+            }
+        }
+
+        /**
+         * Returns the position of the vertex among the vertices within the budget, or -1 if it is beyond the budget.
+         */
+        int find(int vertex) {
+            int i = Arrays.binarySearch(ids, vertex);
+            return i >= 0 ? i : -1;
+        }
+
+        /**
+         * Adds the piece from the vertex at the given position to the point the fraction of the way along the edge,
+         * unless the fraction is zero.
+         */
+        void addPartial(int position, int from, int to, double fraction) {
+            if (fraction > 0) {
+                add(position, ids.length + partial.size());
+                partial.add(new EdgePoint(from, to, fraction));
+            }
+        }
+
+        /**
+         * Adds the piece between the given locations.
+         */
+        void add(int a, int b) {
+            if (size == from.length) {
+                from = Arrays.copyOf(from, 2 * size);
+                to = Arrays.copyOf(to, 2 * size);
+            }
+            from[size] = a;
+            to[size] = b;
+            size += 1;
+        }
+
+        /**
+         * Returns lines covering each piece exactly once, joined end to end through every location shared by exactly
+         * two pieces. Lines start at dead ends and branches first so that only closed loops are left to start anywhere.
+         */
+        List<EdgePoint[]> join() {
+            int locations = ids.length + partial.size();
+            int[] offsets = new int[locations + 1];
+            for (int i = 0; i < size; i += 1) {
+                offsets[from[i] + 1] += 1;
+                offsets[to[i] + 1] += 1;
+            }
+            for (int v = 0; v < locations; v += 1) {
+                offsets[v + 1] += offsets[v];
+            }
+            int[] incident = new int[2 * size];
+            int[] next = Arrays.copyOf(offsets, locations);
+            for (int i = 0; i < size; i += 1) {
+                incident[next[from[i]]] = i;
+                next[from[i]] += 1;
+                incident[next[to[i]]] = i;
+                next[to[i]] += 1;
+            }
+            boolean[] used = new boolean[size];
+            List<EdgePoint[]> lines = new ArrayList<>();
+            for (int pass = 0; pass < 2; pass += 1) {
+                for (int i = 0; i < size; i += 1) {
+                    int start = offsets[from[i] + 1] - offsets[from[i]] != 2 ? from[i] : to[i];
+                    if (used[i] || pass == 0 && offsets[start + 1] - offsets[start] == 2) {
+                        continue;
+                    }
+                    List<EdgePoint> line = new ArrayList<>();
+                    line.add(location(start));
+                    int at = start;
+                    int piece = i;
+                    while (piece >= 0) {
+                        used[piece] = true;
+                        at = from[piece] == at ? to[piece] : from[piece];
+                        line.add(location(at));
+                        piece = -1;
+                        if (offsets[at + 1] - offsets[at] == 2) {
+                            for (int j = offsets[at]; j < offsets[at + 1]; j += 1) {
+                                if (!used[incident[j]]) {
+                                    piece = incident[j];
+                                }
+                            }
+                        }
+                    }
+                    lines.add(line.toArray(new EdgePoint[0]));
+                }
+            }
+            return lines;
+        }
+
+        /**
+         * Returns the location with the given number.
+         */
+        private EdgePoint location(int number) {
+            return number < ids.length ? EdgePoint.at(ids[number]) : partial.get(number - ids.length);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package graphs.shortestpaths;
+
+import graphs.AStarGraph;
+import graphs.Edge;
+import graphs.EdgeConsumer;
+import graphs.IntAStarGraph;
+import graphs.IntEdgeConsumer;
+import graphs.IntGraph;
+import minpq.IndexedIntMinPQ;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * ALT (A*, landmarks, and triangle inequality) heuristic for an {@link IntGraph}. For a small set of landmark vertices
+ * L, stores the shortest distances from each landmark to every vertex and from every vertex to each landmark. By the
+ * triangle inequality, both {@code d(L, t) - d(L, v)} and {@code d(v, L) - d(t, L)} are lower bounds on the distance
+ * from v to t, and the best of these bounds is usually much tighter than a straight-line estimate when the shortest
+ * path must detour around obstacles such as lakes.
+ * <p>
+ * Landmarks are selected greedily: each new landmark is the reachable vertex farthest from the landmarks selected so
+ * far, which spreads landmarks toward the edges of the graph where their bounds are most useful.
+ *
+ * @see AStarSolver
+ * @see IntGraph
+ */
+public class Landmarks {
+    /**
+     * The landmark vertex ids.
+     */
+    private final int[] landmarks;
+    /**
+     * {@code from[v * k + i]} is the shortest distance from landmark i to vertex v.
+     */
+    private final double[] from;
+    /**
+     * {@code to[v * k + i]} is the shortest distance from vertex v to landmark i.
+     */
+    private final double[] to;
+
+    private Landmarks(int[] landmarks, double[] from, double[] to) {
+        this.landmarks = landmarks;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Returns landmarks for the given graph, selecting up to the given number of landmark vertices and precomputing
+     * shortest distances from and to each of them.
+     *
+     * @param graph the input graph.
+     * @param count the maximum number of landmarks; more landmarks give tighter bounds but use more memory.
+     * @return landmarks for the given graph.
+     * @throws IllegalArgumentException if count is not positive.
+     */
+    public static Landmarks select(IntGraph graph, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Landmark count must be positive: " + count);
+        }
+        int n = graph.vertexCount();
+        int k = Math.min(count, n);
+        Sweep forward = new Sweep(Csr.of(graph, false));
+        Sweep backward = new Sweep(Csr.of(graph, true));
+        int[] landmarks = new int[k];
+        double[] from = new double[n * k];
+        double[] to = new double[n * k];
+        // The smallest distance from any selected landmark to each vertex.
+        double[] nearest = new double[n];
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+        // Seed the selection with the vertex farthest from an arbitrary vertex.
+        int next = n == 0 ? -1 : farthest(forward.run(0), nearest);
+        int selected = 0;
+        while (selected < k && next >= 0) {
+            landmarks[selected] = next;
+            double[] fromLandmark = forward.run(next);
+            double[] toLandmark = backward.run(next);
+            for (int v = 0; v < n; v += 1) {
+                from[v * k + selected] = fromLandmark[v];
+                to[v * k + selected] = toLandmark[v];
+                nearest[v] = Math.min(nearest[v], fromLandmark[v]);
+            }
+            selected += 1;
+            next = farthest(nearest, nearest);
+        }
+        if (selected < k) {
+            // Fewer distinct reachable vertices than requested landmarks: repeat the last landmark's columns.
+            for (int v = 0; v < n; v += 1) {
+                for (int i = selected; i < k; i += 1) {
+                    from[v * k + i] = from[v * k + selected - 1];
+                    to[v * k + i] = to[v * k + selected - 1];
+                }
+            }
+            Arrays.fill(landmarks, selected, k, landmarks[selected - 1]);
+        }
+        return new Landmarks(landmarks, from, to);
+    }
+
+    /**
+     * Returns the vertex with the largest finite distance that is not already a landmark (distance 0 in the exclusion
+     * array), or -1 if there is no such vertex.
+     */
+    private static int farthest(double[] dist, double[] nearest) {
+        int result = -1;
+        for (int v = 0; v < dist.length; v += 1) {
+            if (Double.isFinite(dist[v]) && nearest[v] > 0 && (result < 0 || dist[v] > dist[result])) {
+                result = v;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of landmarks.
+     *
+     * @return the number of landmarks.
+     */
+    public int size() {
+        return landmarks.length;
+    }
+
+    /**
+     * Returns the landmark vertex ids.
+     *
+     * @return the landmark vertex ids.
+     */
+    public int[] landmarks() {
+        return landmarks.clone();
+    }
+
+    /**
+     * Returns a lower bound on the shortest distance from the start to the end. The bound is 0 if no landmark gives
+     * any information, and infinity if the landmarks prove that the end is unreachable from the start.
+     *
+     * @param start the id of the start vertex.
+     * @param end   the id of the end vertex.
+     * @return a lower bound on the shortest distance from the start to the end.
+     */
+    public double estimatedDistance(int start, int end) {
+        int k = landmarks.length;
+        int s = start * k;
+        int t = end * k;
+        double result = 0;
+        for (int i = 0; i < k; i += 1) {
+            // Differences of two infinities are NaN and carry no information, so they fail both comparisons.
+            double viaFrom = from[t + i] - from[s + i];
+            if (viaFrom > result) {
+                result = viaFrom;
+            }
+            double viaTo = to[s + i] - to[t + i];
+            if (viaTo > result) {
+                result = viaTo;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a view of the given graph whose {@link AStarGraph#estimatedDistance} is the larger of the graph's own
+     * estimate and the landmark bound. The larger of two consistent heuristics is also consistent, so A* search on the
+     * view still finds shortest paths.
+     *
+     * @param graph the graph these landmarks were selected for, with vertices of type V.
+     * @param id    function returning the int id of each vertex, or a negative number if it is not in the graph.
+     * @param <V>   the type of vertices.
+     * @return a view of the given graph using these landmarks for estimates.
+     */
+    public <V> AStarGraph<V> heuristic(AStarGraph<V> graph, ToIntFunction<V> id) {
+        return new AStarGraph<>() {
+            @Override
+            public List<Edge<V>> neighbors(V vertex) {
+                return graph.neighbors(vertex);
+            }
+
+            @Override
+            public void forEachNeighbor(V vertex, EdgeConsumer<V> action) {
+                graph.forEachNeighbor(vertex, action);
+            }
+
+            @Override
+            public double estimatedDistance(V start, V end) {
+                double estimate = graph.estimatedDistance(start, end);
+                int s = id.applyAsInt(start);
+                int t = id.applyAsInt(end);
+                if (s < 0 || t < 0) {
+                    return estimate;
+                }
+                return Math.max(estimate, Landmarks.this.estimatedDistance(s, t));
+            }
+        };
+    }
+
+    /**
+     * Returns a view of the given graph whose {@link IntAStarGraph#estimatedDistance} is the larger of the graph's own
+     * estimate and the landmark bound.
+     *
+     * @param graph the graph these landmarks were selected for.
+     * @return a view of the given graph using these landmarks for estimates.
+     */
+    public IntAStarGraph heuristic(IntAStarGraph graph) {
+        return new IntAStarGraph() {
+            @Override
+            public int vertexCount() {
+                return graph.vertexCount();
+            }
+
+            @Override
+            public void forEachNeighbor(int vertex, IntEdgeConsumer action) {
+                graph.forEachNeighbor(vertex, action);
+            }
+
+            @Override
+            public double estimatedDistance(int start, int end) {
+                return Math.max(graph.estimatedDistance(start, end), Landmarks.this.estimatedDistance(start, end));
+            }
+        };
+    }
+
+    /**
+     * Compressed sparse row adjacency of a graph or its reverse.
+     */
+    private static class Csr {
+        private final int[] offsets;
+        private final int[] targets;
+        private final double[] weights;
+
+        private Csr(int[] offsets, int[] targets, double[] weights) {
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+        }
+
+        static Csr of(IntGraph graph, boolean reverse) {
+            int n = graph.vertexCount();
+            int[] offsets = new int[n + 1];
+            for (int v = 0; v < n; v += 1) {
+                graph.forEachNeighbor(v, (from, to, weight) -> offsets[(reverse ? to : from) + 1] += 1);
+            }
+            for (int v = 0; v < n; v += 1) {
+                offsets[v + 1] += offsets[v];
+            }
+            int[] targets = new int[offsets[n]];
+            double[] weights = new double[offsets[n]];
+            int[] next = Arrays.copyOf(offsets, n);
+            for (int v = 0; v < n; v += 1) {
+                graph.forEachNeighbor(v, (from, to, weight) -> {
+                    int source = reverse ? to : from;
+                    targets[next[source]] = reverse ? from : to;
+                    weights[next[source]] = weight;
+                    next[source] += 1;
+                });
+            }
+            return new Csr(offsets, targets, weights);
+        }
+    }
+
+    /**
+     * Reusable single-source Dijkstra search over all vertices.
+     */
+    private static class Sweep {
+        private final Csr graph;
+        private final IndexedIntMinPQ pq;
+
+        Sweep(Csr graph) {
+            this.graph = graph;
+            this.pq = new IndexedIntMinPQ(graph.offsets.length - 1);
+        }
+
+        /**
+         * Returns the shortest distance from the source to every vertex, or infinity for unreachable vertices.
+         */
+        double[] run(int source) {
+            double[] dist = new double[graph.offsets.length - 1];
+            Arrays.fill(dist, Double.POSITIVE_INFINITY);
+            dist[source] = 0;
+            pq.add(source, 0);
+            while (!pq.isEmpty()) {
+                int v = pq.removeMin();
+                for (int i = graph.offsets[v]; i < graph.offsets[v + 1]; i += 1) {
+                    int to = graph.targets[i];
+                    double newDist = dist[v] + graph.weights[i];
+                    if (newDist < dist[to]) {
+                        dist[to] = newDist;
+                        pq.addOrChangePriority(to, newDist);
+                    }
+                }
+            }
+            return dist;
+        }
+    }
+}
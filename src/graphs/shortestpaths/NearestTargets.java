@@ -0,0 +1,114 @@
+package graphs.shortestpaths;
+
+import graphs.IntGraph;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * The targets nearest to a start vertex by shortest path distance in an {@link IntGraph}. Rather than a single-pair
+ * search for each target or a straight-line ranking, runs one Dijkstra search from the start that stops as soon as the
+ * k nearest distinct target vertices are settled, so its cost depends on how far away those targets are rather than on
+ * the number of targets.
+ * <p>
+ * Targets may repeat, such as several places that are closest to the same street vertex: results refer to targets by
+ * their index in the targets array, and every index of a settled vertex is ranked.
+ *
+ * @see DistanceMatrix
+ * @see IntDijkstraSolver
+ */
+public class NearestTargets {
+    private final int[] nearest;
+    private final double[] distances;
+    private final boolean complete;
+    private final SearchStats stats;
+
+    /**
+     * Constructs a new instance by executing Dijkstra's algorithm on the graph from the start until the k nearest
+     * targets are settled.
+     *
+     * @param graph   the input graph.
+     * @param start   the id of the start vertex.
+     * @param targets the ids of the target vertices.
+     * @param k       the maximum number of targets to return.
+     */
+    public NearestTargets(IntGraph graph, int start, int[] targets, int k) {
+        this(graph, start, targets, k, StopPolicy.exhaustive());
+    }
+
+    /**
+     * Constructs a new instance by executing Dijkstra's algorithm on the graph from the start until the k nearest
+     * targets are settled or the stop policy is met, such as at a deadline.
+     *
+     * @param graph   the input graph.
+     * @param start   the id of the start vertex.
+     * @param targets the ids of the target vertices.
+     * @param k       the maximum number of targets to return.
+     * @param policy  the policy deciding when to give up the search.
+     * @throws IllegalArgumentException if k is negative.
+     */
+    public NearestTargets(IntGraph graph, int start, int[] targets, int k, StopPolicy policy) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+        int[] distinct = Arrays.stream(targets).sorted().distinct().toArray();
+        SearchWorkspace workspace = SearchWorkspace.forThread(graph.vertexCount());
+        this.stats = new SearchStats();
+        // Settling k distinct vertices settles at least k targets, even if some targets share a vertex.
+        int found = workspace.searchTargets(graph, start, distinct, k, policy, stats);
+        this.complete = found == Math.min(k, distinct.length) || workspace.exhausted();
+        Integer[] order = new Integer[targets.length];
+        int size = 0;
+        for (int i = 0; i < targets.length; i += 1) {
+            if (workspace.settled(targets[i])) {
+                order[size] = i;
+                size += 1;
+            }
+        }
+        Arrays.sort(order, 0, size, Comparator.comparingDouble(i -> workspace.dist(targets[i])));
+        this.nearest = new int[Math.min(k, size)];
+        this.distances = new double[nearest.length];
+        for (int i = 0; i < nearest.length; i += 1) {
+            nearest[i] = order[i];
+            distances[i] = workspace.dist(targets[order[i]]);
+        }
+    }
+
+    /**
+     * Returns the indices in the targets array of the at most k nearest targets reachable from the start, ordered from
+     * nearest to farthest. Fewer than k are returned if fewer targets are reachable or the stop policy ended the
+     * search first.
+     *
+     * @return the indices of the nearest targets, ordered from nearest to farthest.
+     */
+    public int[] nearest() {
+        return nearest.clone();
+    }
+
+    /**
+     * Returns the shortest path distances from the start to each target returned by {@link #nearest()}.
+     *
+     * @return the shortest path distances from the start to each of the nearest targets.
+     */
+    public double[] distances() {
+        return distances.clone();
+    }
+
+    /**
+     * Returns true if the nearest targets are exact, or false if the stop policy ended the search first.
+     *
+     * @return true if the nearest targets are exact.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Returns the effort spent by the search.
+     *
+     * @return the effort spent by the search.
+     */
+    public SearchStats stats() {
+        return stats;
+    }
+}
@@ -0,0 +1,67 @@
+package graphs.shortestpaths;
+
+/**
+ * Counters describing the effort spent by a single shortest paths search.
+ *
+ * @see StopPolicy
+ * @see AStarSolver
+ */
+public class SearchStats {
+    private long settled;
+    private long relaxed;
+    private long pqOperations;
+
+    /**
+     * Returns the number of vertices removed from the priority queue and expanded.
+     *
+     * @return the number of vertices settled.
+     */
+    public long settled() {
+        return settled;
+    }
+
+    /**
+     * Returns the number of edges examined while expanding settled vertices.
+     *
+     * @return the number of edges relaxed.
+     */
+    public long relaxed() {
+        return relaxed;
+    }
+
+    /**
+     * Returns the number of priority queue additions, removals, and priority changes.
+     *
+     * @return the number of priority queue operations.
+     */
+    public long pqOperations() {
+        return pqOperations;
+    }
+
+    /**
+     * Records that a vertex was settled, which includes one priority queue removal.
+     */
+    void settle() {
+        settled += 1;
+        pqOperations += 1;
+    }
+
+    /**
+     * Records that an edge was relaxed.
+     */
+    void relax() {
+        relaxed += 1;
+    }
+
+    /**
+     * Records a priority queue addition or priority change.
+     */
+    void pqOperation() {
+        pqOperations += 1;
+    }
+
+    @Override
+    public String toString() {
+        return "settled=" + settled + ", relaxed=" + relaxed + ", pqOperations=" + pqOperations;
+    }
+}
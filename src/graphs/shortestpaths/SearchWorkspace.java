@@ -0,0 +1,313 @@
+package graphs.shortestpaths;
+
+import graphs.IntEdgeConsumer;
+import graphs.IntGraph;
+import minpq.IndexedIntMinPQ;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Reusable search state for shortest paths searches over graphs with dense int vertex ids: distances and parents in
+ * primitive arrays and an {@link IndexedIntMinPQ}. Each thread has its own workspace, and starting a new search resets
+ * the workspace in constant time by advancing an epoch rather than clearing the arrays: an array entry is only valid if
+ * its stamp equals the current epoch.
+ * <p>
+ * A workspace holds the state of one search at a time, so results must be copied out before the next search on the
+ * same thread begins.
+ *
+ * @see IntDijkstraSolver
+ * @see IntAStarSolver
+ * @see DistanceMatrix
+ * @see Isochrone
+ * @see NearestTargets
+ */
+final class SearchWorkspace implements IntEdgeConsumer {
+    private static final ThreadLocal<SearchWorkspace> WORKSPACES =
+            ThreadLocal.withInitial(() -> new SearchWorkspace(0));
+
+    private final double[] dist;
+    private final int[] parent;
+    private final int[] stamp;
+    private final IndexedIntMinPQ pq;
+    private int epoch;
+    /**
+     * Heuristic estimate from each vertex to the goal of the current search, or null for no heuristic.
+     */
+    private IntToDoubleFunction heuristic;
+    private SearchStats stats;
+
+    private SearchWorkspace(int capacity) {
+        this.dist = new double[capacity];
+        this.parent = new int[capacity];
+        this.stamp = new int[capacity];
+        this.pq = new IndexedIntMinPQ(capacity);
+    }
+
+    /**
+     * Returns the workspace for the current thread, reset and able to hold vertex ids from 0 (inclusive) to the given
+     * capacity (exclusive).
+     *
+     * @param capacity the number of vertices in the graph to search.
+     * @return the reset workspace for the current thread.
+     */
+    static SearchWorkspace forThread(int capacity) {
+        SearchWorkspace workspace = WORKSPACES.get();
+        if (workspace.dist.length < capacity) {
+            workspace = new SearchWorkspace(capacity);
+            WORKSPACES.set(workspace);
+        }
+        workspace.reset();
+        return workspace;
+    }
+
+    /**
+     * Invalidates every array entry and empties the priority queue.
+     */
+    private void reset() {
+        pq.clear();
+        heuristic = null;
+        stats = null;
+        epoch += 1;
+        if (epoch == Integer.MAX_VALUE) {
+            // Stamps from previous epochs could collide after wrapping around, so clear them once.
+            Arrays.fill(stamp, 0);
+            epoch = 1;
+        }
+    }
+
+    /**
+     * Returns true if the vertex has been reached by the current search.
+     */
+    boolean reached(int v) {
+        return stamp[v] == epoch;
+    }
+
+    /**
+     * Returns the shortest known distance to the vertex, or infinity if it has not been reached.
+     */
+    double dist(int v) {
+        return reached(v) ? dist[v] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the vertex preceding the given vertex on its shortest known path, or -1 if there is none.
+     */
+    int parent(int v) {
+        return reached(v) ? parent[v] : -1;
+    }
+
+    /**
+     * Runs a best-first search from the start, settling vertices in order of distance plus heuristic estimate, until
+     * the stop policy is met or every reachable vertex is settled.
+     *
+     * @param graph     the input graph.
+     * @param start     the start vertex.
+     * @param goal      the goal vertex, or -1 if there is no goal.
+     * @param heuristic estimate from each vertex to the goal, or null for Dijkstra's algorithm.
+     * @param policy    the policy deciding when to stop the search.
+     * @param stats     the destination for recording the effort spent by the search.
+     * @return true if the search settled the goal.
+     */
+    boolean search(IntGraph graph, int start, int goal, IntToDoubleFunction heuristic, StopPolicy policy,
+                   SearchStats stats) {
+        begin(start, heuristic, stats);
+        boolean solved = false;
+        while (!pq.isEmpty()) {
+            int from = pq.removeMin();
+            stats.settle();
+            boolean isGoal = from == goal;
+            solved |= isGoal;
+            if (policy.shouldStop(stats, dist[from], isGoal)) {
+                break;
+            }
+            graph.forEachNeighbor(from, this);
+        }
+        end();
+        return solved;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from the start until the given number of targets are settled, the stop policy is met,
+     * or every reachable vertex is settled. The policy is told that the vertex just settled is a goal if it is a
+     * target.
+     *
+     * @param graph   the input graph.
+     * @param start   the start vertex.
+     * @param targets the target vertices in increasing order without duplicates.
+     * @param limit   the number of targets to settle, such as all of them or only the nearest few.
+     * @param policy  the policy deciding when to stop the search.
+     * @param stats   the destination for recording the effort spent by the search.
+     * @return the number of targets settled.
+     */
+    int searchTargets(IntGraph graph, int start, int[] targets, int limit, StopPolicy policy, SearchStats stats) {
+        begin(start, null, stats);
+        int remaining = Math.min(limit, targets.length);
+        while (!pq.isEmpty() && remaining > 0) {
+            int from = pq.removeMin();
+            stats.settle();
+            boolean isTarget = Arrays.binarySearch(targets, from) >= 0;
+            if (isTarget) {
+                remaining -= 1;
+            }
+            if (policy.shouldStop(stats, dist[from], isTarget)) {
+                break;
+            }
+            graph.forEachNeighbor(from, this);
+        }
+        end();
+        return Math.min(limit, targets.length) - remaining;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from the start, passing each vertex to the action as it is settled, until the nearest
+     * unsettled vertex is farther than the budget, the stop policy is met, or every reachable vertex is settled.
+     * Vertices farther than the budget are left unsettled.
+     *
+     * @param graph  the input graph.
+     * @param start  the start vertex.
+     * @param budget the maximum distance from the start to settle.
+     * @param policy the policy deciding when to give up the search.
+     * @param stats  the destination for recording the effort spent by the search.
+     * @param action the action to perform on each vertex within the budget as it is settled.
+     * @return true if every vertex within the budget was settled, or false if the stop policy ended the search first.
+     */
+    boolean searchWithin(IntGraph graph, int start, double budget, StopPolicy policy, SearchStats stats,
+                         IntConsumer action) {
+        begin(start, null, stats);
+        boolean complete = true;
+        while (!pq.isEmpty() && pq.peekMinPriority() <= budget) {
+            int from = pq.removeMin();
+            stats.settle();
+            action.accept(from);
+            if (policy.shouldStop(stats, dist[from], false)) {
+                complete = false;
+                break;
+            }
+            graph.forEachNeighbor(from, this);
+        }
+        end();
+        return complete;
+    }
+
+    /**
+     * Runs a best-first search from several sources, each starting at its own distance, toward several goals, each
+     * adding its own distance to finish, such as from and to points partway along edges. Vertices are settled in
+     * order of distance plus heuristic estimate until no unsettled vertex can lead to a shorter finish than the best
+     * found so far or the bound, the stop policy is met, or every reachable vertex is settled. The heuristic must not
+     * overestimate the distance to finish through any goal.
+     *
+     * @param graph       the input graph.
+     * @param sources     the source vertices.
+     * @param sourceDists the distance at which the search starts from each source, or infinity to leave it out.
+     * @param goals       the goal vertices.
+     * @param goalDists   the distance to finish from each goal, or infinity to leave it out.
+     * @param bound       the length of a path already known without the graph, or infinity if there is none.
+     * @param heuristic   estimate from each vertex to finish through the nearest goal.
+     * @param policy      the policy deciding when to give up the search.
+     * @param stats       the destination for recording the effort spent by the search.
+     * @return true if the shortest finish was found, or false if the stop policy ended the search first.
+     */
+    boolean searchBetween(IntGraph graph, int[] sources, double[] sourceDists, int[] goals, double[] goalDists,
+                          double bound, IntToDoubleFunction heuristic, StopPolicy policy, SearchStats stats) {
+        this.heuristic = heuristic;
+        this.stats = stats;
+        for (int i = 0; i < sources.length; i += 1) {
+            if (sourceDists[i] < dist(sources[i])) {
+                stamp[sources[i]] = epoch;
+                dist[sources[i]] = sourceDists[i];
+                parent[sources[i]] = -1;
+                pq.addOrChangePriority(sources[i], sourceDists[i] + heuristic.applyAsDouble(sources[i]));
+                stats.pqOperation();
+            }
+        }
+        double best = bound;
+        boolean complete = true;
+        while (!pq.isEmpty() && pq.peekMinPriority() < best) {
+            int from = pq.removeMin();
+            stats.settle();
+            for (int i = 0; i < goals.length; i += 1) {
+                if (goals[i] == from) {
+                    best = Math.min(best, dist[from] + goalDists[i]);
+                }
+            }
+            if (policy.shouldStop(stats, dist[from], false)) {
+                complete = false;
+                break;
+            }
+            graph.forEachNeighbor(from, this);
+        }
+        end();
+        return complete;
+    }
+
+    /**
+     * Returns true if the vertex has been settled by the current search, so its distance is final.
+     */
+    boolean settled(int v) {
+        return reached(v) && !pq.contains(v);
+    }
+
+    /**
+     * Returns true if the last search settled every vertex reachable from its start.
+     */
+    boolean exhausted() {
+        return pq.isEmpty();
+    }
+
+    /**
+     * Prepares the reset workspace for a search from the start.
+     */
+    private void begin(int start, IntToDoubleFunction heuristic, SearchStats stats) {
+        this.heuristic = heuristic;
+        this.stats = stats;
+        stamp[start] = epoch;
+        dist[start] = 0;
+        parent[start] = -1;
+        pq.add(start, 0);
+        stats.pqOperation();
+    }
+
+    /**
+     * Releases the references held for the current search.
+     */
+    private void end() {
+        this.heuristic = null;
+        this.stats = null;
+    }
+
+    /**
+     * Relaxes an edge for the current search.
+     */
+    @Override
+    public void accept(int from, int to, double weight) {
+        stats.relax();
+        double newDist = dist[from] + weight;
+        if (newDist < dist(to)) {
+            stamp[to] = epoch;
+            dist[to] = newDist;
+            parent[to] = from;
+            pq.addOrChangePriority(to, heuristic == null ? newDist : newDist + heuristic.applyAsDouble(to));
+            stats.pqOperation();
+        }
+    }
+
+    /**
+     * Returns the vertices on the shortest known path to the goal, or an array containing only the goal if it has not
+     * been reached.
+     */
+    int[] path(int goal) {
+        int length = 1;
+        for (int v = parent(goal); v >= 0; v = parent[v]) {
+            length += 1;
+        }
+        int[] result = new int[length];
+        int v = goal;
+        for (int i = length - 1; i >= 0; i -= 1) {
+            result[i] = v;
+            v = parent(v);
+        }
+        return result;
+    }
+}
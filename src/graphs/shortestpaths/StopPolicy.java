@@ -0,0 +1,101 @@
+package graphs.shortestpaths;
+
+import java.time.Duration;
+
+/**
+ * Decides when a shortest paths search should stop expanding vertices. Consulted each time a vertex is settled, before
+ * its outgoing edges are relaxed.
+ *
+ * @see SearchStats
+ * @see AStarSolver
+ */
+@FunctionalInterface
+public interface StopPolicy {
+    /**
+     * Returns true if the search should stop after settling a vertex.
+     *
+     * @param stats    the effort spent by the search so far, including the vertex just settled.
+     * @param distance the shortest distance from the start to the vertex just settled.
+     * @param goal     true if the vertex just settled is the goal.
+     * @return true if the search should stop.
+     */
+    boolean shouldStop(SearchStats stats, double distance, boolean goal);
+
+    /**
+     * Returns a policy that stops once either this policy or the other policy would stop.
+     *
+     * @param other the other policy.
+     * @return a policy that stops once either policy would stop.
+     */
+    default StopPolicy or(StopPolicy other) {
+        return (stats, distance, goal) -> shouldStop(stats, distance, goal) || other.shouldStop(stats, distance, goal);
+    }
+
+    /**
+     * Returns a policy that never stops, so the search settles every reachable vertex.
+     *
+     * @return a policy that never stops.
+     */
+    static StopPolicy exhaustive() {
+        return (stats, distance, goal) -> false;
+    }
+
+    /**
+     * Returns a policy that stops once the goal is settled, at which point its shortest path is known.
+     *
+     * @return a policy that stops once the goal is settled.
+     */
+    static StopPolicy goalSettled() {
+        return (stats, distance, goal) -> goal;
+    }
+
+    /**
+     * Returns a policy that stops once the given number of vertices have been settled.
+     *
+     * @param limit the maximum number of vertices to settle.
+     * @return a policy that stops once the given number of vertices have been settled.
+     */
+    static StopPolicy maxSettled(long limit) {
+        return (stats, distance, goal) -> stats.settled() >= limit;
+    }
+
+    /**
+     * Returns a policy that stops once a vertex farther than the given distance from the start is settled.
+     *
+     * @param limit the maximum distance from the start to expand.
+     * @return a policy that stops once a vertex farther than the given distance is settled.
+     */
+    static StopPolicy maxDistance(double limit) {
+        return (stats, distance, goal) -> distance > limit;
+    }
+
+    /**
+     * Returns a policy that stops once {@link System#nanoTime()} passes the given deadline.
+     *
+     * @param deadlineNanos the deadline as a {@link System#nanoTime()} value.
+     * @return a policy that stops once the deadline has passed.
+     */
+    static StopPolicy deadline(long deadlineNanos) {
+        return (stats, distance, goal) -> System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    /**
+     * Returns a policy that stops once the searching thread is interrupted, such as by cancelling the
+     * {@link java.util.concurrent.Future} running the search. The interrupt status is left set.
+     *
+     * @return a policy that stops once the searching thread is interrupted.
+     */
+    static StopPolicy interrupted() {
+        return (stats, distance, goal) -> Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Returns a policy that stops once the given duration has elapsed from now.
+     *
+     * @param timeout the maximum duration of the search.
+     * @return a policy that stops once the given duration has elapsed.
+     */
+    static StopPolicy timeout(Duration timeout) {
+        return deadline(System.nanoTime() + timeout.toNanos());
+    }
+}
@@ -1,6 +1,6 @@
 package graphs.shortestpaths;
 
-import graphs.Edge;
+import graphs.EdgeConsumer;
 import graphs.Graph;
 import minpq.DoubleMapMinPQ;
 import minpq.ExtrinsicMinPQ;
@@ -14,7 +14,10 @@ import java.util.*;
  * @see ShortestPathSolver
  */
 public class ToposortDAGSolver<V> implements ShortestPathSolver<V> {
-    private final Map<V, Edge<V>> edgeTo;
+    /**
+     * The vertex preceding each reached vertex on its shortest path, or null for the start.
+     */
+    private final Map<V, V> edgeTo;
     private final Map<V, Double> distTo;
 
     /**
@@ -31,17 +34,16 @@ public class ToposortDAGSolver<V> implements ShortestPathSolver<V> {
         Set<V> visited = new HashSet<>();
         List<V> result = new ArrayList<>();
         dfsPostOrder(graph, start, visited, result);
-        for (int i = result.size()-1; i >= 0; i--) {
-            V from = result.get(i);
-            for (Edge<V> e : graph.neighbors(from)) {
-                V to = e.to;
-                double prevDistance = distTo.getOrDefault(to, Double.POSITIVE_INFINITY);
-                double newDistance = distTo.get(from) + e.weight;
-                if (newDistance < prevDistance) {
-                    edgeTo.put(to, e);
-                    distTo.put(to, newDistance);
-                }
+        EdgeConsumer<V> relax = (from, to, weight) -> {
+            double prevDistance = distTo.getOrDefault(to, Double.POSITIVE_INFINITY);
+            double newDistance = distTo.get(from) + weight;
+            if (newDistance < prevDistance) {
+                edgeTo.put(to, from);
+                distTo.put(to, newDistance);
             }
+        };
+        for (int i = result.size()-1; i >= 0; i--) {
+            graph.forEachNeighbor(result.get(i), relax);
         }
 //        ExtrinsicMinPQ<V> perimeter = new DoubleMapMinPQ<>();
 //        Set<V> visited = new HashSet<>();
@@ -68,10 +70,7 @@ public class ToposortDAGSolver<V> implements ShortestPathSolver<V> {
             return;
         }
         visited.add(start);
-        for (Edge<V> e : graph.neighbors(start)) {
-            V to = e.to;
-            dfsPostOrder(graph, to, visited, result);
-        }
+        graph.forEachNeighbor(start, (from, to, weight) -> dfsPostOrder(graph, to, visited, result));
         result.add(start);
 //        if(!graph.neighbors(start).isEmpty()) {
 //            for(Edge<V> edge: graph.neighbors(start)) {
@@ -100,7 +99,7 @@ public class ToposortDAGSolver<V> implements ShortestPathSolver<V> {
         V curr = goal;
         path.add(curr);
         while (edgeTo.get(curr) != null) {
-            curr = edgeTo.get(curr).from;
+            curr = edgeTo.get(curr);
             path.add(curr);
         }
         Collections.reverse(path);
@@ -0,0 +1,208 @@
+package minpq;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Binary heap priority queue of int items from 0 (inclusive) to a fixed capacity (exclusive) with extrinsic
+ * {@code double} priorities. The primitive counterpart of {@link ExtrinsicMinPQ} for clients such as shortest paths
+ * solvers over graphs with dense int vertex ids: items and priorities are stored in arrays, and each item's heap index
+ * is stored in an array indexed by the item, so no operation allocates.
+ *
+ * @see ExtrinsicMinPQ
+ * @see OptimizedHeapMinPQ
+ */
+public class IndexedIntMinPQ {
+    /**
+     * The heap of items, 1-indexed.
+     */
+    private final int[] items;
+    /**
+     * The priority of the item at each heap index, 1-indexed.
+     */
+    private final double[] priorities;
+    /**
+     * The heap index of each item, or 0 if the item is not present.
+     */
+    private final int[] itemToIndex;
+    private int size;
+
+    /**
+     * Constructs an empty instance that can hold items from 0 (inclusive) to the given capacity (exclusive).
+     *
+     * @param capacity the number of distinct items.
+     */
+    public IndexedIntMinPQ(int capacity) {
+        items = new int[capacity + 1];
+        priorities = new double[capacity + 1];
+        itemToIndex = new int[capacity];
+    }
+
+    /**
+     * Returns the number of distinct items this priority queue can hold.
+     *
+     * @return the number of distinct items this priority queue can hold.
+     */
+    public int capacity() {
+        return itemToIndex.length;
+    }
+
+    /**
+     * Adds an item with the given priority value.
+     *
+     * @param item     the element to add.
+     * @param priority the priority value for the item.
+     * @throws IllegalArgumentException if item is already present.
+     */
+    public void add(int item, double priority) {
+        if (contains(item)) {
+            throw new IllegalArgumentException("Already contains " + item);
+        }
+        size += 1;
+        items[size] = item;
+        priorities[size] = priority;
+        itemToIndex[item] = size;
+        swim(size);
+    }
+
+    /**
+     * Returns true if the given item is in this priority queue.
+     *
+     * @param item element to be checked for containment.
+     * @return true if the given item is in this priority queue.
+     */
+    public boolean contains(int item) {
+        return itemToIndex[item] != 0;
+    }
+
+    /**
+     * Returns the item with the minimum priority value.
+     *
+     * @return the item with the minimum priority value.
+     * @throws NoSuchElementException if this priority queue is empty.
+     */
+    public int peekMin() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        return items[1];
+    }
+
+    /**
+     * Returns the minimum priority value.
+     *
+     * @return the minimum priority value.
+     * @throws NoSuchElementException if this priority queue is empty.
+     */
+    public double peekMinPriority() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        return priorities[1];
+    }
+
+    /**
+     * Returns and removes the item with the minimum priority value.
+     *
+     * @return the item with the minimum priority value.
+     * @throws NoSuchElementException if this priority queue is empty.
+     */
+    public int removeMin() {
+        int min = peekMin();
+        swap(1, size);
+        size -= 1;
+        itemToIndex[min] = 0;
+        sink(1);
+        return min;
+    }
+
+    /**
+     * Updates the given item's associated priority value, or adds the item if it is not present.
+     *
+     * @param item     the element whose associated priority value should be modified.
+     * @param priority the updated priority value.
+     */
+    public void addOrChangePriority(int item, double priority) {
+        if (contains(item)) {
+            changePriority(item, priority);
+        } else {
+            add(item, priority);
+        }
+    }
+
+    /**
+     * Updates the given item's associated priority value.
+     *
+     * @param item     the element whose associated priority value should be modified.
+     * @param priority the updated priority value.
+     * @throws NoSuchElementException if the item is not present.
+     */
+    public void changePriority(int item, double priority) {
+        if (!contains(item)) {
+            throw new NoSuchElementException("PQ does not contain " + item);
+        }
+        int index = itemToIndex[item];
+        priorities[index] = priority;
+        swim(index);
+        sink(itemToIndex[item]);
+    }
+
+    /**
+     * Removes all items. Takes time proportional to the number of items remaining, not to the capacity.
+     */
+    public void clear() {
+        for (int i = 1; i <= size; i += 1) {
+            itemToIndex[items[i]] = 0;
+        }
+        size = 0;
+    }
+
+    /**
+     * Returns the number of items in this priority queue.
+     *
+     * @return the number of elements in this priority queue.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if this priority queue contains no items.
+     *
+     * @return true if this priority queue contains no items.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void swim(int index) {
+        while (index > 1 && priorities[index] < priorities[index / 2]) {
+            swap(index, index / 2);
+            index /= 2;
+        }
+    }
+
+    private void sink(int index) {
+        while (2 * index <= size) {
+            int child = 2 * index;
+            if (child < size && priorities[child + 1] < priorities[child]) {
+                child += 1;
+            }
+            if (priorities[index] <= priorities[child]) {
+                return;
+            }
+            swap(index, child);
+            index = child;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int item = items[i];
+        items[i] = items[j];
+        items[j] = item;
+        double priority = priorities[i];
+        priorities[i] = priorities[j];
+        priorities[j] = priority;
+        itemToIndex[items[i]] = i;
+        itemToIndex[items[j]] = j;
+    }
+}
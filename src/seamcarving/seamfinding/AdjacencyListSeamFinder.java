@@ -1,7 +1,11 @@
 package seamcarving.seamfinding;
 
 import graphs.Edge;
+import graphs.EdgeConsumer;
 import graphs.Graph;
+import graphs.IntEdgeConsumer;
+import graphs.IntGraph;
+import graphs.shortestpaths.IntDijkstraSolver;
 import graphs.shortestpaths.ShortestPathSolver;
 import seamcarving.Picture;
 import seamcarving.SeamCarver;
@@ -10,20 +14,22 @@ import seamcarving.energy.EnergyFunction;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Function;
 
 /**
  * Adjacency list graph single-source {@link ShortestPathSolver} implementation of the {@link SeamFinder} interface.
  *
  * @see Graph
  * @see ShortestPathSolver
+ * @see IntDijkstraSolver
  * @see SeamFinder
  * @see SeamCarver
  */
 public class AdjacencyListSeamFinder implements SeamFinder {
     /**
-     * The constructor for the {@link ShortestPathSolver} implementation.
+     * Finds the int ids along a lowest-energy path from the source to the sink of a {@link PixelGraph}.
      */
-    private final ShortestPathSolver.Constructor<Node> sps;
+    private final Function<PixelGraph, int[]> solver;
 
     /**
      * Constructs an instance with the given {@link ShortestPathSolver} implementation.
@@ -31,21 +37,20 @@ public class AdjacencyListSeamFinder implements SeamFinder {
      * @param sps the {@link ShortestPathSolver} implementation.
      */
     public AdjacencyListSeamFinder(ShortestPathSolver.Constructor<Node> sps) {
-        this.sps = sps;
+        this.solver = graph -> graph.ids(sps.run(graph, graph.source).solution(graph.sink));
+    }
+
+    /**
+     * Constructs an instance that runs {@link IntDijkstraSolver} on the int vertex ids of the graph, avoiding the
+     * per-vertex hashing and allocation of the {@link ShortestPathSolver} implementations.
+     */
+    public AdjacencyListSeamFinder() {
+        this.solver = graph -> new IntDijkstraSolver(graph, graph.sourceId(), graph.sinkId()).solution();
     }
 
     @Override
     public List<Integer> findHorizontal(Picture picture, EnergyFunction f) {
-        PixelGraph graph = new PixelGraph(picture, f);
-        List<Node> seam = sps.run(graph, graph.source).solution(graph.sink);
-        seam = seam.subList(1, seam.size() - 1); // Skip the source and sink nodes
-        List<Integer> result = new ArrayList<>(seam.size());
-        for (Node node : seam) {
-            // All remaining nodes must be Pixels
-            PixelGraph.Pixel pixel = (PixelGraph.Pixel) node;
-            result.add(pixel.y);
-        }
-        return result;
+        return Seams.rows(solver.apply(new PixelGraph(picture, f)), picture.height());
     }
 
     /**
@@ -54,7 +59,7 @@ public class AdjacencyListSeamFinder implements SeamFinder {
      * @see Pixel
      * @see EnergyFunction
      */
-    private static class PixelGraph implements Graph<Node> {
+    private static class PixelGraph implements Graph<Node>, IntGraph {
         /**
          * The {@link Pixel} vertices in the {@link Picture}.
          */
@@ -80,6 +85,13 @@ public class AdjacencyListSeamFinder implements SeamFinder {
                 }
                 return result;
             }
+
+            @Override
+            public void forEachNeighbor(Picture picture, EnergyFunction f, EdgeConsumer<Node> action) {
+                for (int j = 0; j < picture.height(); j += 1) {
+                    action.accept(this, pixels[0][j], f.apply(picture, 0, j));
+                }
+            }
         };
         /**
          * Sink {@link Node} for the adjacency list graph.
@@ -130,6 +142,65 @@ public class AdjacencyListSeamFinder implements SeamFinder {
             return node.neighbors(picture, f);
         }
 
+        @Override
+        public void forEachNeighbor(Node node, EdgeConsumer<Node> action) {
+            node.forEachNeighbor(picture, f, action);
+        }
+
+        /**
+         * Returns the int id of the source node. Pixel (<i>x</i>, <i>y</i>) has id {@code x * height + y}, followed by
+         * the source and then the sink.
+         */
+        private int sourceId() {
+            return picture.width() * picture.height();
+        }
+
+        private int sinkId() {
+            return sourceId() + 1;
+        }
+
+        /**
+         * Returns the int ids of the nodes along the path.
+         */
+        private int[] ids(List<Node> path) {
+            int[] result = new int[path.size()];
+            for (int i = 0; i < result.length; i += 1) {
+                Node node = path.get(i);
+                if (node == source) {
+                    result[i] = sourceId();
+                } else if (node == sink) {
+                    result[i] = sinkId();
+                } else {
+                    Pixel pixel = (Pixel) node;
+                    result[i] = pixel.x * picture.height() + pixel.y;
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public int vertexCount() {
+            return sinkId() + 1;
+        }
+
+        @Override
+        public void forEachNeighbor(int id, IntEdgeConsumer action) {
+            int height = picture.height();
+            if (id == sourceId()) {
+                for (int j = 0; j < height; j += 1) {
+                    action.accept(id, j, f.apply(picture, 0, j));
+                }
+            } else if (id != sinkId()) {
+                List<Edge<Node>> edges = pixels[id / height][id % height].neighbors;
+                for (int i = 0; i < edges.size(); i += 1) {
+                    Edge<Node> e = edges.get(i);
+                    // The only non-pixel neighbor is the sink.
+                    int to = e.to instanceof Pixel ? ((Pixel) e.to).x * height + ((Pixel) e.to).y : sinkId();
+                    action.accept(id, to, e.weight);
+                }
+            }
+        }
+
         /**
          * A pixel in the {@link PixelGraph} representation of the {@link Picture} with {@link EnergyFunction}-weighted
          * edges to neighbors.
@@ -160,6 +231,14 @@ public class AdjacencyListSeamFinder implements SeamFinder {
                 return neighbors;
             }
 
+            @Override
+            public void forEachNeighbor(Picture picture, EnergyFunction f, EdgeConsumer<Node> action) {
+                for (int i = 0; i < neighbors.size(); i += 1) {
+                    Edge<Node> e = neighbors.get(i);
+                    action.accept(this, e.to, e.weight);
+                }
+            }
+
             @Override
             public String toString() {
                 return "(" + x + ", " + y + ")";
@@ -1,6 +1,7 @@
 package seamcarving.seamfinding;
 
 import graphs.Edge;
+import graphs.EdgeConsumer;
 import seamcarving.Picture;
 import seamcarving.energy.EnergyFunction;
 
@@ -22,4 +23,18 @@ public interface Node {
      * @return the {@link List} of right-up, right-middle, and right-down neighbors (if they exist) for this node.
      */
     List<Edge<Node>> neighbors(Picture picture, EnergyFunction f);
+
+    /**
+     * Performs the given action on each of the right-up, right-middle, and right-down neighbors (if they exist) for
+     * this node. By default, iterates over {@link #neighbors(Picture, EnergyFunction)}.
+     *
+     * @param picture the input picture.
+     * @param f       the input energy function.
+     * @param action  the action to perform on each outgoing edge.
+     */
+    default void forEachNeighbor(Picture picture, EnergyFunction f, EdgeConsumer<Node> action) {
+        for (Edge<Node> e : neighbors(picture, f)) {
+            action.accept(e.from, e.to, e.weight);
+        }
+    }
 }
@@ -0,0 +1,31 @@
+package seamcarving.seamfinding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Conversions shared by the graph-based {@link SeamFinder} implementations, whose pixel graphs number pixel
+ * (<i>x</i>, <i>y</i>) as {@code x * height + y}, followed by the source and then the sink.
+ *
+ * @see AdjacencyListSeamFinder
+ * @see GenerativeSeamFinder
+ */
+final class Seams {
+    private Seams() {
+    }
+
+    /**
+     * Returns the vertical index of each pixel along the path of int ids from the source through the sink.
+     *
+     * @param path   the int ids along the path, starting with the source and ending with the sink.
+     * @param height the height of the picture.
+     * @return the vertical index of each pixel along the path.
+     */
+    static List<Integer> rows(int[] path, int height) {
+        List<Integer> result = new ArrayList<>(path.length);
+        for (int i = 1; i < path.length - 1; i += 1) { // Skip the source and sink nodes
+            result.add(path[i] % height);
+        }
+        return result;
+    }
+}
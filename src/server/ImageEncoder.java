@@ -0,0 +1,118 @@
+package server;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+/**
+ * Encodes images in a chosen format directly into an output stream, such as a response body, without first buffering
+ * the whole encoded image.
+ */
+public final class ImageEncoder {
+    /**
+     * Default JPEG quality from 0 (smallest) to 100 (best).
+     */
+    private static final int DEFAULT_JPEG_QUALITY = 85;
+
+    private final String format;
+    private final String contentType;
+    /**
+     * PNG deflate level from 0 to 9 or JPEG quality from 0 to 100, or -1 for the writer's default.
+     */
+    private final int level;
+
+    private ImageEncoder(String format, String contentType, int level) {
+        this.format = format;
+        this.contentType = contentType;
+        this.level = level;
+    }
+
+    /**
+     * Returns an encoder for the given format and level.
+     *
+     * @param format the format name, either "png" or "jpeg".
+     * @param level  for PNG, the compression level from 0 (fastest) to 9 (smallest); for JPEG, the quality from 0
+     *               (smallest) to 100 (best); or null for the default.
+     * @return an encoder for the given format and level.
+     * @throws IllegalArgumentException if the format is unknown or the level is out of range.
+     */
+    public static ImageEncoder of(String format, Integer level) {
+        if ("png".equals(format)) {
+            if (level != null && (level < 0 || level > 9)) {
+                throw new IllegalArgumentException("PNG compression level must be from 0 to 9: " + level);
+            }
+            return new ImageEncoder("png", "image/png", level == null ? -1 : level);
+        } else if ("jpeg".equals(format) || "jpg".equals(format)) {
+            if (level != null && (level < 0 || level > 100)) {
+                throw new IllegalArgumentException("JPEG quality must be from 0 to 100: " + level);
+            }
+            return new ImageEncoder("jpeg", "image/jpeg", level == null ? DEFAULT_JPEG_QUALITY : level);
+        }
+        throw new IllegalArgumentException("Unknown image format: " + format);
+    }
+
+    /**
+     * Returns the MIME type of the encoded images.
+     *
+     * @return the MIME type of the encoded images.
+     */
+    public String contentType() {
+        return contentType;
+    }
+
+    /**
+     * Encodes the image into the output stream. The output stream is flushed but not closed.
+     *
+     * @param image the image to encode.
+     * @param out   the destination for the encoded image.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void write(BufferedImage image, OutputStream out) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) {
+            throw new IOException("No image writer for " + format);
+        }
+        ImageWriter writer = writers.next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        if (level >= 0 && param.canWriteCompressed()) {
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            // PNG writers map quality q to deflate level 9 * (1 - q); JPEG quality is a fraction of the best quality.
+            param.setCompressionQuality("png".equals(format) ? 1 - level / 9f : level / 100f);
+        }
+        if ("jpeg".equals(format) && image.getColorModel().hasAlpha()) {
+            image = withoutAlpha(image);
+        }
+        // Use a memory cache explicitly: the default ImageIO stream may cache the whole image in a temporary file.
+        ImageOutputStream stream = new MemoryCacheImageOutputStream(out);
+        try {
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), param);
+            stream.flush();
+        } finally {
+            writer.dispose();
+            stream.close();
+        }
+        out.flush();
+    }
+
+    /**
+     * Returns a copy of the image drawn over an opaque white background, since JPEG does not support transparency.
+     */
+    private static BufferedImage withoutAlpha(BufferedImage image) {
+        BufferedImage result = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = result.createGraphics();
+        g2d.setColor(Color.WHITE);
+        g2d.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g2d.drawImage(image, 0, 0, null);
+        g2d.dispose();
+        return result;
+    }
+}
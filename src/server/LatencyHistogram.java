@@ -0,0 +1,167 @@
+package server;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations in nanoseconds with logarithmically sized buckets. Each power of two from
+ * {@value #MIN_EXPONENT} to {@value #MAX_EXPONENT} nanoseconds (about 1 microsecond to 69 seconds) is split into
+ * {@value #SUB_BUCKETS} equal buckets, so every bucket spans at most a quarter of its lower bound and percentiles
+ * estimated from the buckets are within about 12% of the recorded values. Recording only increments adders, so many
+ * request threads can record at once without contending on a lock.
+ *
+ * @see Metrics
+ */
+public class LatencyHistogram {
+    /**
+     * Durations up to 2 to this power nanoseconds fall in the first bucket.
+     */
+    static final int MIN_EXPONENT = 10;
+    /**
+     * Durations over 2 to this power nanoseconds fall in the overflow bucket.
+     */
+    static final int MAX_EXPONENT = 36;
+    /**
+     * Number of bits after the leading bit that select the bucket within a power of two.
+     */
+    private static final int SUB_BITS = 2;
+    /**
+     * Number of buckets per power of two.
+     */
+    static final int SUB_BUCKETS = 1 << SUB_BITS;
+    /**
+     * Number of buckets, including the first bucket and the overflow bucket.
+     */
+    static final int BUCKETS = 2 + (MAX_EXPONENT - MIN_EXPONENT) * SUB_BUCKETS;
+
+    private final LongAdder[] counts;
+    private final LongAdder sum;
+
+    /**
+     * Constructs an empty histogram.
+     */
+    public LatencyHistogram() {
+        counts = new LongAdder[BUCKETS];
+        for (int i = 0; i < BUCKETS; i += 1) {
+            counts[i] = new LongAdder();
+        }
+        sum = new LongAdder();
+    }
+
+    /**
+     * Records a duration, treating negative durations as 0.
+     *
+     * @param nanos the duration in nanoseconds.
+     */
+    public void record(long nanos) {
+        nanos = Math.max(0, nanos);
+        counts[bucket(nanos)].increment();
+        sum.add(nanos);
+    }
+
+    /**
+     * Records the duration from the given start time until now.
+     *
+     * @param startNanos the start time returned by {@link System#nanoTime()}.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Returns the number of recorded durations.
+     *
+     * @return the number of recorded durations.
+     */
+    public long count() {
+        long count = 0;
+        for (LongAdder bucket : counts) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the sum of the recorded durations in nanoseconds.
+     *
+     * @return the sum of the recorded durations in nanoseconds.
+     */
+    public long sum() {
+        return sum.sum();
+    }
+
+    /**
+     * Returns an estimate of the duration in nanoseconds that the given fraction of recorded durations do not exceed,
+     * interpolated within the bucket containing it, or 0 if nothing has been recorded.
+     *
+     * @param quantile the fraction of recorded durations, such as 0.99 for the 99th percentile.
+     * @return an estimate of the duration in nanoseconds at the given quantile.
+     * @throws IllegalArgumentException if the quantile is not between 0 and 1.
+     */
+    public double quantile(double quantile) {
+        if (!(quantile >= 0 && quantile <= 1)) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1: " + quantile);
+        }
+        long[] snapshot = snapshot();
+        long total = 0;
+        for (long count : snapshot) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        double rank = quantile * total;
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i += 1) {
+            if (snapshot[i] > 0 && seen + snapshot[i] >= rank) {
+                double lower = i == 0 ? 0 : upperBound(i - 1);
+                // The overflow bucket has no upper bound, so report its lower bound.
+                double upper = i == BUCKETS - 1 ? lower : upperBound(i);
+                return lower + (upper - lower) * Math.max(0, rank - seen) / snapshot[i];
+            }
+            seen += snapshot[i];
+        }
+        return upperBound(BUCKETS - 2);
+    }
+
+    /**
+     * Returns the current count in each bucket. Counts recorded while taking the snapshot may or may not be included.
+     *
+     * @return the current count in each bucket.
+     */
+    long[] snapshot() {
+        long[] result = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i += 1) {
+            result[i] = counts[i].sum();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the index of the bucket for the duration.
+     */
+    static int bucket(long nanos) {
+        if (nanos <= 1L << MIN_EXPONENT) {
+            return 0;
+        }
+        // Values exactly on a boundary belong to the bucket below, matching Prometheus "less than or equal" buckets.
+        long value = nanos - 1;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent >= MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return 1 + (exponent - MIN_EXPONENT) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Returns the inclusive upper bound in nanoseconds of every bucket except the overflow bucket.
+     */
+    static long upperBound(int bucket) {
+        if (bucket == 0) {
+            return 1L << MIN_EXPONENT;
+        }
+        int exponent = MIN_EXPONENT + (bucket - 1) / SUB_BUCKETS;
+        int sub = (bucket - 1) % SUB_BUCKETS;
+        return (1L << exponent) + (sub + 1) * (1L << (exponent - SUB_BITS));
+    }
+}
@@ -0,0 +1,304 @@
+package server;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * In-process registry of counters, gauges and latency histograms, written in the
+ * <a href="https://prometheus.io/docs/instrumenting/exposition_formats/">Prometheus text format</a>. Each metric is
+ * identified by its name and its label names and values. Looking up a metric that already exists does not lock, so
+ * request handlers can look up metrics labeled by request properties on every request.
+ * <p>
+ * Histograms are written with a bucket for each power of two and, as a family of gauges with the {@code _quantile}
+ * suffix, the median, 90th and 99th percentiles estimated from their buckets.
+ *
+ * @see LatencyHistogram
+ */
+public class Metrics {
+    /**
+     * Quantiles written for each histogram.
+     */
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+    /**
+     * Metric families by name.
+     */
+    private final ConcurrentHashMap<String, Family> families;
+
+    /**
+     * Constructs an empty registry.
+     */
+    public Metrics() {
+        families = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the counter with the given name and labels, registering it if it does not exist.
+     *
+     * @param name   the metric name.
+     * @param help   the description of the metric.
+     * @param labels alternating label names and values.
+     * @return the counter with the given name and labels.
+     * @throws IllegalArgumentException if the name is registered as a different type or the labels are unpaired.
+     */
+    public LongAdder counter(String name, String help, String... labels) {
+        return series(name, help, Type.COUNTER, labels, LongAdder.class, LongAdder::new);
+    }
+
+    /**
+     * Registers a counter whose value is read from the supplier, such as the hit count of a cache.
+     *
+     * @param name   the metric name.
+     * @param help   the description of the metric.
+     * @param value  the supplier of the current count.
+     * @param labels alternating label names and values.
+     * @throws IllegalArgumentException if the name is registered as a different type, the labels are unpaired, or a
+     *                                  metric with the same labels already exists.
+     */
+    public void counter(String name, String help, LongSupplier value, String... labels) {
+        register(name, help, Type.COUNTER, labels, value);
+    }
+
+    /**
+     * Registers a gauge whose value is read from the supplier.
+     *
+     * @param name   the metric name.
+     * @param help   the description of the metric.
+     * @param value  the supplier of the current value.
+     * @param labels alternating label names and values.
+     * @throws IllegalArgumentException if the name is registered as a different type, the labels are unpaired, or a
+     *                                  metric with the same labels already exists.
+     */
+    public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        register(name, help, Type.GAUGE, labels, value);
+    }
+
+    /**
+     * Returns the histogram of durations with the given name and labels, registering it if it does not exist. By
+     * convention, the name ends with {@code _seconds}: durations are recorded in nanoseconds but written in seconds.
+     *
+     * @param name   the metric name.
+     * @param help   the description of the metric.
+     * @param labels alternating label names and values.
+     * @return the histogram with the given name and labels.
+     * @throws IllegalArgumentException if the name is registered as a different type or the labels are unpaired.
+     */
+    public LatencyHistogram histogram(String name, String help, String... labels) {
+        return series(name, help, Type.HISTOGRAM, labels, LatencyHistogram.class, LatencyHistogram::new);
+    }
+
+    /**
+     * Writes every metric in the Prometheus text format, ordered by name and then by labels.
+     *
+     * @param out the destination for the metrics.
+     * @throws IOException if the destination cannot be written.
+     */
+    public void write(Appendable out) throws IOException {
+        for (Family family : new TreeMap<>(families).values()) {
+            out.append("# HELP ").append(family.name).append(' ').append(escapeHelp(family.help)).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type.text).append('\n');
+            Map<String, Object> series = new TreeMap<>(family.series);
+            for (Map.Entry<String, Object> entry : series.entrySet()) {
+                String labels = entry.getKey();
+                Object value = entry.getValue();
+                if (value instanceof LongAdder) {
+                    sample(out, family.name, labels, null, Long.toString(((LongAdder) value).sum()));
+                } else if (value instanceof LongSupplier) {
+                    sample(out, family.name, labels, null, Long.toString(((LongSupplier) value).getAsLong()));
+                } else if (value instanceof DoubleSupplier) {
+                    sample(out, family.name, labels, null, number(((DoubleSupplier) value).getAsDouble()));
+                } else {
+                    writeHistogram(out, family.name, labels, (LatencyHistogram) value);
+                }
+            }
+            if (family.type == Type.HISTOGRAM) {
+                String quantiles = family.name + "_quantile";
+                out.append("# HELP ").append(quantiles).append(" Percentiles of ").append(family.name)
+                        .append(" estimated from its buckets.\n");
+                out.append("# TYPE ").append(quantiles).append(" gauge\n");
+                for (Map.Entry<String, Object> entry : series.entrySet()) {
+                    LatencyHistogram histogram = (LatencyHistogram) entry.getValue();
+                    for (double quantile : QUANTILES) {
+                        sample(out, quantiles, entry.getKey(), "quantile=\"" + quantile + '"',
+                                number(histogram.quantile(quantile) / 1e9));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns every metric in the Prometheus text format.
+     *
+     * @return every metric in the Prometheus text format.
+     */
+    public String scrape() {
+        StringBuilder result = new StringBuilder();
+        try {
+            write(result);
+        } catch (IOException e) {
+            // StringBuilder does not throw.
+            throw new UncheckedIOException(e);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns the existing metric with the given name and labels, or a new one from the factory.
+     */
+    private <T> T series(String name, String help, Type type, String[] labels, Class<T> kind,
+                         Supplier<T> factory) {
+        Object value = family(name, help, type).series.computeIfAbsent(labels(labels), key -> factory.get());
+        if (!kind.isInstance(value)) {
+            throw new IllegalArgumentException("Metric " + name + " is registered with a value supplier");
+        }
+        return kind.cast(value);
+    }
+
+    /**
+     * Registers a metric whose value is read from the supplier.
+     */
+    private void register(String name, String help, Type type, String[] labels, Object value) {
+        String key = labels(labels);
+        if (family(name, help, type).series.putIfAbsent(key, value) != null) {
+            throw new IllegalArgumentException("Metric " + name + key + " is already registered");
+        }
+    }
+
+    /**
+     * Returns the family with the given name, registering it if it does not exist.
+     */
+    private Family family(String name, String help, Type type) {
+        Family family = families.computeIfAbsent(name, key -> new Family(name, help, type));
+        if (family.type != type) {
+            throw new IllegalArgumentException("Metric " + name + " is registered as a " + family.type.text);
+        }
+        return family;
+    }
+
+    /**
+     * Writes the histogram as cumulative buckets at each power of two, followed by the sum and count, in seconds.
+     */
+    private static void writeHistogram(Appendable out, String name, String labels, LatencyHistogram histogram)
+            throws IOException {
+        long[] counts = histogram.snapshot();
+        long cumulative = 0;
+        for (int i = 0; i < counts.length - 1; i += 1) {
+            cumulative += counts[i];
+            // Writing only the buckets ending at powers of two keeps the output short; quantiles use every bucket.
+            if (i % LatencyHistogram.SUB_BUCKETS == 0) {
+                String le = "le=\"" + number(LatencyHistogram.upperBound(i) / 1e9) + '"';
+                sample(out, name + "_bucket", labels, le, Long.toString(cumulative));
+            }
+        }
+        cumulative += counts[counts.length - 1];
+        sample(out, name + "_bucket", labels, "le=\"+Inf\"", Long.toString(cumulative));
+        sample(out, name + "_sum", labels, null, number(histogram.sum() / 1e9));
+        sample(out, name + "_count", labels, null, Long.toString(cumulative));
+    }
+
+    /**
+     * Writes one sample line, adding the extra label to the rendered labels if it is not null.
+     */
+    private static void sample(Appendable out, String name, String labels, String extra, String value)
+            throws IOException {
+        out.append(name);
+        if (extra != null) {
+            if (labels.isEmpty()) {
+                out.append('{').append(extra).append('}');
+            } else {
+                out.append(labels, 0, labels.length() - 1).append(',').append(extra).append('}');
+            }
+        } else {
+            out.append(labels);
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    /**
+     * Returns the labels rendered as they appear in the Prometheus text format, or the empty string for no labels.
+     */
+    private static String labels(String[] labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be pairs of names and values");
+        }
+        if (labels.length == 0) {
+            return "";
+        }
+        StringBuilder result = new StringBuilder("{");
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                result.append(',');
+            }
+            result.append(labels[i]).append("=\"");
+            String value = labels[i + 1];
+            for (int j = 0; j < value.length(); j += 1) {
+                char c = value.charAt(j);
+                if (c == '\\' || c == '"') {
+                    result.append('\\').append(c);
+                } else if (c == '\n') {
+                    result.append("\\n");
+                } else {
+                    result.append(c);
+                }
+            }
+            result.append('"');
+        }
+        return result.append('}').toString();
+    }
+
+    /**
+     * Returns the help text with backslashes and line breaks escaped.
+     */
+    private static String escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    /**
+     * Returns the number formatted for the Prometheus text format.
+     */
+    private static String number(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        } else if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        return Double.toString(value);
+    }
+
+    /**
+     * Metric types in the Prometheus text format.
+     */
+    private enum Type {
+        COUNTER("counter"), GAUGE("gauge"), HISTOGRAM("histogram");
+
+        private final String text;
+
+        Type(String text) {
+            this.text = text;
+        }
+    }
+
+    /**
+     * Metrics sharing a name, type and description, keyed by their rendered labels.
+     */
+    private static class Family {
+        private final String name;
+        private final String help;
+        private final Type type;
+        private final ConcurrentHashMap<String, Object> series;
+
+        Family(String name, String help, Type type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+            this.series = new ConcurrentHashMap<>();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package server;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Precomputed search responses for every short prefix, serialized as JSON bytes. The first few keystrokes of a search
+ * match the most names and so are the slowest to answer, yet there are few distinct short prefixes, so their answers
+ * can all be computed once at startup and then served without searching or serializing.
+ * <p>
+ * Each prefix of up to {@value #MAX_LENGTH} characters is packed into a long key, and answers are stored in an
+ * open-addressing hash table with linear probing over parallel arrays.
+ */
+public class PrefixAnswers {
+    /**
+     * The maximum supported prefix length: three 16-bit characters and the length fit in a long key.
+     */
+    public static final int MAX_LENGTH = 3;
+    /**
+     * Response for prefixes that match no names.
+     */
+    private static final byte[] EMPTY = {'[', ']'};
+
+    private final int maxLength;
+    /**
+     * Packed prefix keys, or 0 for empty slots. Every packed key is nonzero because it includes the prefix length.
+     */
+    private final long[] keys;
+    private final byte[][] answers;
+    private final int size;
+
+    private PrefixAnswers(int maxLength, long[] keys, byte[][] answers, int size) {
+        this.maxLength = maxLength;
+        this.keys = keys;
+        this.answers = answers;
+        this.size = size;
+    }
+
+    /**
+     * Returns precomputed answers for every prefix of the names up to the given length.
+     *
+     * @param names     the names that searches can match.
+     * @param maxLength the maximum length of precomputed prefixes, from 0 to {@value #MAX_LENGTH}.
+     * @param search    function returning the answer to a search for the given prefix.
+     * @return precomputed answers for every prefix of the names up to the given length.
+     * @throws IllegalArgumentException if maxLength is out of range.
+     */
+    public static PrefixAnswers build(Collection<? extends CharSequence> names, int maxLength,
+                                      Function<String, List<? extends CharSequence>> search) {
+        if (maxLength < 0 || maxLength > MAX_LENGTH) {
+            throw new IllegalArgumentException("Prefix length must be from 0 to " + MAX_LENGTH + ": " + maxLength);
+        }
+        // Collect every prefix of every name, then sort to count the distinct prefixes before sizing the table.
+        long[] prefixes = new long[16];
+        int count = 0;
+        for (CharSequence name : names) {
+            for (int length = 1; length <= Math.min(maxLength, name.length()); length += 1) {
+                prefixes = grow(prefixes, count);
+                prefixes[count] = key(name, length);
+                count += 1;
+            }
+        }
+        Arrays.sort(prefixes, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i += 1) {
+            if (i == 0 || prefixes[i] != prefixes[i - 1]) {
+                distinct += 1;
+            }
+        }
+        // Keep the table at most half full so that probe sequences stay short.
+        int capacity = Integer.highestOneBit(Math.max(1, distinct) * 2 - 1) * 2;
+        long[] keys = new long[capacity];
+        byte[][] answers = new byte[capacity][];
+        ObjectMapper mapper = new ObjectMapper();
+        int size = 0;
+        for (int i = 0; i < count; i += 1) {
+            if (i > 0 && prefixes[i] == prefixes[i - 1]) {
+                continue;
+            }
+            long key = prefixes[i];
+            int slot = slot(keys, key);
+            keys[slot] = key;
+            try {
+                answers[slot] = mapper.writeValueAsBytes(search.apply(prefix(key)));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Names must be serializable as JSON strings", e);
+            }
+            size += 1;
+        }
+        return new PrefixAnswers(maxLength, keys, answers, size);
+    }
+
+    /**
+     * Returns the JSON answer for the prefix, or null if the prefix is empty or longer than the precomputed prefixes.
+     * The returned array must not be modified.
+     *
+     * @param prefix the search prefix.
+     * @return the JSON answer for the prefix, or null if it was not precomputed.
+     */
+    public byte[] get(CharSequence prefix) {
+        if (prefix == null || prefix.length() == 0 || prefix.length() > maxLength) {
+            return null;
+        }
+        int slot = slot(keys, key(prefix, prefix.length()));
+        // Every prefix of a name was precomputed, so any other short prefix matches no names.
+        return keys[slot] == 0 ? EMPTY : answers[slot];
+    }
+
+    /**
+     * Returns the maximum length of precomputed prefixes.
+     *
+     * @return the maximum length of precomputed prefixes.
+     */
+    public int maxLength() {
+        return maxLength;
+    }
+
+    /**
+     * Returns the number of precomputed prefixes.
+     *
+     * @return the number of precomputed prefixes.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the packed key for the first length characters: the length in bits 48 and up, then 16 bits per
+     * character.
+     */
+    private static long key(CharSequence s, int length) {
+        long key = (long) length << 48;
+        for (int i = 0; i < length; i += 1) {
+            key |= (long) s.charAt(i) << (16 * i);
+        }
+        return key;
+    }
+
+    /**
+     * Returns the prefix packed into the key.
+     */
+    private static String prefix(long key) {
+        int length = (int) (key >>> 48);
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i += 1) {
+            chars[i] = (char) (key >>> (16 * i));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Returns the slot holding the key, or the empty slot where it would be inserted.
+     */
+    private static int slot(long[] keys, long key) {
+        int mask = keys.length - 1;
+        // Multiply by the golden ratio to spread the packed characters across the low bits.
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the array, doubled in length if it has no room at the given index.
+     */
+    private static long[] grow(long[] array, int index) {
+        return index < array.length ? array : Arrays.copyOf(array, array.length * 2);
+    }
+}
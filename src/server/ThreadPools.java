@@ -0,0 +1,98 @@
+package server;
+
+import org.eclipse.jetty.util.VirtualThreads;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread pools for serving requests. Request handlers mostly wait on I/O, such as fetching map images, so they can run
+ * on virtual threads where the JDK supports them. CPU-heavy work such as route searches instead runs on a small
+ * bounded pool of platform threads so that it is scheduled separately from blocking I/O and cannot oversubscribe the
+ * CPU however many requests are in flight.
+ */
+public final class ThreadPools {
+    private ThreadPools() {
+    }
+
+    /**
+     * Returns true if the running JDK supports virtual threads.
+     *
+     * @return true if the running JDK supports virtual threads.
+     */
+    public static boolean virtualThreadsSupported() {
+        return VirtualThreads.areSupported();
+    }
+
+    /**
+     * Returns a Jetty thread pool for accepting connections and running request handlers. With virtual threads, Jetty
+     * keeps its selectors and acceptors on the platform threads of the pool and runs each blocking request handler on
+     * a new virtual thread, so the maximum number of threads no longer bounds the number of requests in flight.
+     *
+     * @param virtual    true to run request handlers on virtual threads.
+     * @param maxThreads the maximum number of platform threads.
+     * @return a Jetty thread pool for accepting connections and running request handlers.
+     * @throws IllegalStateException if virtual threads are requested but not supported by the running JDK.
+     */
+    public static QueuedThreadPool requestPool(boolean virtual, int maxThreads) {
+        QueuedThreadPool pool = new QueuedThreadPool(maxThreads, Math.min(8, maxThreads), 60_000);
+        pool.setName("JettyServerThreadPool");
+        if (virtual) {
+            if (!virtualThreadsSupported()) {
+                throw new IllegalStateException("Virtual threads require JDK 21 or newer, but this is JDK "
+                        + Runtime.version());
+            }
+            pool.setUseVirtualThreads(true);
+        }
+        return pool;
+    }
+
+    /**
+     * Returns a fork-join pool for many independent CPU-heavy tasks submitted together, such as a batch of route
+     * searches. Tasks run in first-in first-out order and idle workers steal queued tasks from busy ones. Like the
+     * threads of {@link #computePool}, each worker thread is reused across tasks and keeps its own per-thread state.
+     *
+     * @param name        the prefix for the names of the threads.
+     * @param parallelism the target number of running threads.
+     * @return a fork-join pool for many independent CPU-heavy tasks.
+     */
+    public static ForkJoinPool batchPool(String name, int parallelism) {
+        AtomicInteger count = new AtomicInteger();
+        ForkJoinPool.ForkJoinWorkerThreadFactory factory = pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName(name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ForkJoinPool(parallelism, factory, null, true);
+    }
+
+    /**
+     * Returns an executor for CPU-heavy tasks with a fixed number of daemon threads and a bounded queue. Tasks
+     * submitted while the queue is full are rejected with a {@link java.util.concurrent.RejectedExecutionException}.
+     * Because the threads are reused, per-thread state such as search workspaces is reused across tasks, which would
+     * not be the case if each task ran on its own virtual thread.
+     *
+     * @param name          the prefix for the names of the threads.
+     * @param threads       the number of threads.
+     * @param queueCapacity the maximum number of tasks waiting for a thread.
+     * @return an executor for CPU-heavy tasks.
+     */
+    public static ThreadPoolExecutor computePool(String name, int threads, int queueCapacity) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = task -> {
+            Thread thread = new Thread(task, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(
+                threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), factory
+        );
+    }
+}
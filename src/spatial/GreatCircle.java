@@ -0,0 +1,51 @@
+package spatial;
+
+import org.locationtech.spatial4j.context.SpatialContext;
+import org.locationtech.spatial4j.distance.DistanceUtils;
+import org.locationtech.spatial4j.shape.Point;
+
+/**
+ * Great-circle distances between latitude-longitude coordinates, measured in degrees of arc. Matches
+ * {@link SpatialContext#calcDistance(Point, Point)} for {@link SpatialContext#GEO} without creating {@link Point}
+ * objects.
+ *
+ * @see KdTree
+ */
+public final class GreatCircle {
+    private GreatCircle() {
+    }
+
+    /**
+     * Returns the great-circle distance in degrees between the two coordinates using the haversine formula.
+     *
+     * @param lat1 the latitude of the first coordinate.
+     * @param lon1 the longitude of the first coordinate.
+     * @param lat2 the latitude of the second coordinate.
+     * @param lon2 the longitude of the second coordinate.
+     * @return the great-circle distance in degrees between the two coordinates.
+     */
+    public static double distance(double lat1, double lon1, double lat2, double lon2) {
+        return DistanceUtils.toDegrees(DistanceUtils.distHaversineRAD(
+                DistanceUtils.toRadians(lat1), DistanceUtils.toRadians(lon1),
+                DistanceUtils.toRadians(lat2), DistanceUtils.toRadians(lon2)
+        ));
+    }
+
+    /**
+     * Returns a lower bound on the great-circle distance in degrees from the coordinate to any coordinate on the other
+     * side of the meridian at the given longitude: the distance to the great circle through that meridian.
+     *
+     * @param lat      the latitude of the coordinate.
+     * @param lon      the longitude of the coordinate.
+     * @param meridian the longitude of the meridian.
+     * @return a lower bound on the distance to any coordinate across the meridian.
+     */
+    public static double distanceToMeridian(double lat, double lon, double meridian) {
+        double delta = Math.abs(lon - meridian);
+        if (delta >= 90) {
+            return 0;
+        }
+        double sin = Math.sin(DistanceUtils.toRadians(delta)) * Math.cos(DistanceUtils.toRadians(lat));
+        return DistanceUtils.toDegrees(Math.asin(Math.min(1, sin)));
+    }
+}
@@ -0,0 +1,301 @@
+package spatial;
+
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Static packed Hilbert R-tree over line segments between latitude-longitude coordinates, identified by int ids. The
+ * tree is bulk-loaded in one pass rather than by repeated insertion: segments are sorted by the Hilbert curve index of
+ * their centers so that nearby segments are adjacent, packed into leaves of consecutive segments, and each level of
+ * nodes is packed the same way over the level below. Nodes are stored in flat arrays, so the tree holds no objects
+ * beyond its arrays. Nearest-segment queries are exact with respect to an equirectangular projection centered on the
+ * query latitude, which is accurate enough for segments the length of a street.
+ *
+ * @see KdTree
+ */
+public class HilbertRTree {
+    /**
+     * Maximum number of children of each node.
+     */
+    private static final int NODE_SIZE = 16;
+    /**
+     * Number of bits in each coordinate of the grid that the Hilbert curve passes through.
+     */
+    private static final int HILBERT_BITS = 16;
+
+    private final double[] lats1;
+    private final double[] lons1;
+    private final double[] lats2;
+    private final double[] lons2;
+    /**
+     * The bounding box of each node: the segments in Hilbert order, followed by each level of parent nodes, ending
+     * with the root.
+     */
+    private final double[] minLats;
+    private final double[] minLons;
+    private final double[] maxLats;
+    private final double[] maxLons;
+    /**
+     * The id of each segment node, or the index of the first child of each parent node.
+     */
+    private final int[] refs;
+    /**
+     * The index one past the last node of each level, starting with the level of segments.
+     */
+    private final int[] levels;
+
+    /**
+     * Constructs an R-tree over the segments with ids from 0 (inclusive) to n (exclusive).
+     *
+     * @param n    the number of segments.
+     * @param lat1 the latitude of the first endpoint of each id.
+     * @param lon1 the longitude of the first endpoint of each id.
+     * @param lat2 the latitude of the second endpoint of each id.
+     * @param lon2 the longitude of the second endpoint of each id.
+     */
+    public HilbertRTree(int n, IntToDoubleFunction lat1, IntToDoubleFunction lon1, IntToDoubleFunction lat2,
+                        IntToDoubleFunction lon2) {
+        this.lats1 = new double[n];
+        this.lons1 = new double[n];
+        this.lats2 = new double[n];
+        this.lons2 = new double[n];
+        double minLat = Double.POSITIVE_INFINITY;
+        double minLon = Double.POSITIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY;
+        double maxLon = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i += 1) {
+            lats1[i] = lat1.applyAsDouble(i);
+            lons1[i] = lon1.applyAsDouble(i);
+            lats2[i] = lat2.applyAsDouble(i);
+            lons2[i] = lon2.applyAsDouble(i);
+            minLat = Math.min(minLat, Math.min(lats1[i], lats2[i]));
+            minLon = Math.min(minLon, Math.min(lons1[i], lons2[i]));
+            maxLat = Math.max(maxLat, Math.max(lats1[i], lats2[i]));
+            maxLon = Math.max(maxLon, Math.max(lons1[i], lons2[i]));
+        }
+        // Sort by Hilbert index, keeping the id in the low bits: the index takes 32 bits and the id 31.
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i += 1) {
+            int x = grid((lons1[i] + lons2[i]) / 2, minLon, maxLon);
+            int y = grid((lats1[i] + lats2[i]) / 2, minLat, maxLat);
+            keys[i] = (hilbert(x, y) << 31) | i;
+        }
+        Arrays.sort(keys);
+        int[] ends = new int[32];
+        int depth = 1;
+        ends[0] = n;
+        for (int count = n; count > 1; depth += 1) {
+            count = (count + NODE_SIZE - 1) / NODE_SIZE;
+            ends[depth] = ends[depth - 1] + count;
+        }
+        this.levels = Arrays.copyOf(ends, depth);
+        int total = levels[depth - 1];
+        this.minLats = new double[total];
+        this.minLons = new double[total];
+        this.maxLats = new double[total];
+        this.maxLons = new double[total];
+        this.refs = new int[total];
+        for (int node = 0; node < n; node += 1) {
+            int id = (int) (keys[node] & Integer.MAX_VALUE);
+            refs[node] = id;
+            minLats[node] = Math.min(lats1[id], lats2[id]);
+            minLons[node] = Math.min(lons1[id], lons2[id]);
+            maxLats[node] = Math.max(lats1[id], lats2[id]);
+            maxLons[node] = Math.max(lons1[id], lons2[id]);
+        }
+        int node = n;
+        for (int level = 1; level < depth; level += 1) {
+            int end = levels[level - 1];
+            for (int first = level == 1 ? 0 : levels[level - 2]; first < end; first += NODE_SIZE) {
+                refs[node] = first;
+                minLats[node] = Double.POSITIVE_INFINITY;
+                minLons[node] = Double.POSITIVE_INFINITY;
+                maxLats[node] = Double.NEGATIVE_INFINITY;
+                maxLons[node] = Double.NEGATIVE_INFINITY;
+                for (int child = first; child < Math.min(first + NODE_SIZE, end); child += 1) {
+                    minLats[node] = Math.min(minLats[node], minLats[child]);
+                    minLons[node] = Math.min(minLons[node], minLons[child]);
+                    maxLats[node] = Math.max(maxLats[node], maxLats[child]);
+                    maxLons[node] = Math.max(maxLons[node], maxLons[child]);
+                }
+                node += 1;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of segments in this tree.
+     *
+     * @return the number of segments in this tree.
+     */
+    public int size() {
+        return lats1.length;
+    }
+
+    /**
+     * Returns the id of the segment nearest to the target, or -1 if this tree is empty. Nodes are visited in order of
+     * the distance from the target to their bounding boxes, so the search ends at the first segment reached.
+     *
+     * @param lat the latitude of the target.
+     * @param lon the longitude of the target.
+     * @return the id of the segment nearest to the target, or -1 if this tree is empty.
+     */
+    public int nearest(double lat, double lon) {
+        if (refs.length == 0) {
+            return -1;
+        }
+        double scale = Math.cos(Math.toRadians(lat));
+        int segments = levels[0];
+        NodeQueue queue = new NodeQueue();
+        int root = refs.length - 1;
+        queue.add(root, root < segments ? 0 : boxDistance(root, lat, lon, scale));
+        while (true) {
+            int node = queue.removeMin();
+            if (node < segments) {
+                // Segment distances are exact and no less than the box distances of their ancestors.
+                return refs[node];
+            }
+            int level = 1;
+            while (node >= levels[level]) {
+                level += 1;
+            }
+            int first = refs[node];
+            int end = Math.min(first + NODE_SIZE, levels[level - 1]);
+            for (int child = first; child < end; child += 1) {
+                if (child < segments) {
+                    queue.add(child, segmentDistance(refs[child], lat, lon, scale));
+                } else {
+                    queue.add(child, boxDistance(child, lat, lon, scale));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the fraction of the way from the first to the second endpoint of the segment of the point on the
+     * segment closest to the target, between 0 and 1.
+     *
+     * @param id  the id of the segment.
+     * @param lat the latitude of the target.
+     * @param lon the longitude of the target.
+     * @return the fraction of the way along the segment of the point closest to the target.
+     */
+    public double fraction(int id, double lat, double lon) {
+        return fraction(id, lat, lon, Math.cos(Math.toRadians(lat)));
+    }
+
+    /**
+     * Returns the fraction of the way along the segment of the point closest to the target, where longitude
+     * differences are multiplied by the given scale.
+     */
+    private double fraction(int id, double lat, double lon, double scale) {
+        double dx = (lons2[id] - lons1[id]) * scale;
+        double dy = lats2[id] - lats1[id];
+        double lengthSquared = dx * dx + dy * dy;
+        if (lengthSquared == 0) {
+            return 0;
+        }
+        double dot = (lon - lons1[id]) * scale * dx + (lat - lats1[id]) * dy;
+        return Math.max(0, Math.min(1, dot / lengthSquared));
+    }
+
+    /**
+     * Returns the squared projected distance from the target to the closest point on the segment.
+     */
+    private double segmentDistance(int id, double lat, double lon, double scale) {
+        double t = fraction(id, lat, lon, scale);
+        double dx = (lons1[id] + t * (lons2[id] - lons1[id]) - lon) * scale;
+        double dy = lats1[id] + t * (lats2[id] - lats1[id]) - lat;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Returns the squared projected distance from the target to the bounding box of the node, or 0 if it is inside.
+     */
+    private double boxDistance(int node, double lat, double lon, double scale) {
+        double dx = Math.max(0, Math.max(minLons[node] - lon, lon - maxLons[node])) * scale;
+        double dy = Math.max(0, Math.max(minLats[node] - lat, lat - maxLats[node]));
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Returns the cell of the coordinate in a grid of 2^{@link #HILBERT_BITS} cells spanning the range.
+     */
+    private static int grid(double value, double min, double max) {
+        if (max <= min) {
+            return 0;
+        }
+        return (int) (((1 << HILBERT_BITS) - 1) * ((value - min) / (max - min)));
+    }
+
+    /**
+     * Returns the distance along the Hilbert curve to the grid cell, rotating the remaining bits of the cell into the
+     * orientation of each quadrant in turn.
+     */
+    private static long hilbert(int x, int y) {
+        long d = 0;
+        for (int s = 1 << (HILBERT_BITS - 1); s > 0; s >>= 1) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            d += (long) s * s * ((3 * rx) ^ ry);
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = (1 << HILBERT_BITS) - 1 - x;
+                    y = (1 << HILBERT_BITS) - 1 - y;
+                }
+                int t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return d;
+    }
+
+    /**
+     * Binary min-heap of node indices keyed by their squared distances from the target of a query.
+     */
+    private static class NodeQueue {
+        private int[] nodes = new int[NODE_SIZE * 4];
+        private double[] keys = new double[NODE_SIZE * 4];
+        private int size;
+
+        void add(int node, double key) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, 2 * size);
+                keys = Arrays.copyOf(keys, 2 * size);
+            }
+            int i = size;
+            size += 1;
+            while (i > 0 && keys[(i - 1) / 2] > key) {
+                nodes[i] = nodes[(i - 1) / 2];
+                keys[i] = keys[(i - 1) / 2];
+                i = (i - 1) / 2;
+            }
+            nodes[i] = node;
+            keys[i] = key;
+        }
+
+        int removeMin() {
+            int min = nodes[0];
+            size -= 1;
+            int last = nodes[size];
+            double key = keys[size];
+            int i = 0;
+            while (2 * i + 1 < size) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child += 1;
+                }
+                if (keys[child] >= key) {
+                    break;
+                }
+                nodes[i] = nodes[child];
+                keys[i] = keys[child];
+                i = child;
+            }
+            nodes[i] = last;
+            keys[i] = key;
+            return min;
+        }
+    }
+}
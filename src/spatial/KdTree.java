@@ -0,0 +1,384 @@
+package spatial;
+
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Static two-dimensional k-d tree over latitude-longitude coordinates identified by int ids. The tree is built once by
+ * recursively splitting on the median latitude or longitude and stored implicitly in arrays, so queries allocate
+ * nothing beyond their results. Nearest-neighbor queries are exact with respect to {@link GreatCircle#distance}.
+ *
+ * @see GreatCircle
+ */
+public class KdTree {
+    private static final byte LAT = 0;
+    private static final byte LON = 1;
+
+    /**
+     * The ids of the coordinates in tree order: the median of each range {@code [low, high)} is the node splitting
+     * that range.
+     */
+    private final int[] ids;
+    private final double[] lats;
+    private final double[] lons;
+    /**
+     * The splitting axis of the node at each index.
+     */
+    private final byte[] axes;
+    /**
+     * Whether the coordinates span less than half the globe in longitude, so that meridian distances are valid bounds.
+     */
+    private final boolean pruneLongitude;
+
+    /**
+     * Constructs a k-d tree over the coordinates with ids from 0 (inclusive) to n (exclusive).
+     *
+     * @param n   the number of coordinates.
+     * @param lat the latitude of each id.
+     * @param lon the longitude of each id.
+     */
+    public KdTree(int n, IntToDoubleFunction lat, IntToDoubleFunction lon) {
+        this.ids = new int[n];
+        this.lats = new double[n];
+        this.lons = new double[n];
+        this.axes = new byte[n];
+        double minLon = Double.POSITIVE_INFINITY;
+        double maxLon = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i += 1) {
+            ids[i] = i;
+            lats[i] = lat.applyAsDouble(i);
+            lons[i] = lon.applyAsDouble(i);
+            minLon = Math.min(minLon, lons[i]);
+            maxLon = Math.max(maxLon, lons[i]);
+        }
+        this.pruneLongitude = maxLon - minLon < 180;
+        build(0, n);
+    }
+
+    /**
+     * Returns the number of coordinates in this tree.
+     *
+     * @return the number of coordinates in this tree.
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Returns the id of the coordinate nearest to the target, or -1 if this tree is empty.
+     *
+     * @param lat the latitude of the target.
+     * @param lon the longitude of the target.
+     * @return the id of the coordinate nearest to the target, or -1 if this tree is empty.
+     */
+    public int nearest(double lat, double lon) {
+        int[] result = nearest(lat, lon, 1);
+        return result.length == 0 ? -1 : result[0];
+    }
+
+    /**
+     * Returns the ids of the k coordinates nearest to the target, ordered from nearest to farthest. Returns fewer than
+     * k ids if this tree contains fewer than k coordinates.
+     *
+     * @param lat the latitude of the target.
+     * @param lon the longitude of the target.
+     * @param k   the maximum number of ids to return.
+     * @return the ids of the k coordinates nearest to the target, ordered from nearest to farthest.
+     * @throws IllegalArgumentException if k is negative.
+     */
+    public int[] nearest(double lat, double lon, int k) {
+        return nearest(lat, lon, k, null);
+    }
+
+    /**
+     * Returns the ids of the k coordinates inside the bounding box nearest to the target, ordered from nearest to
+     * farthest, such as the places visible in a map viewport that are closest to its center. Subtrees outside the box
+     * are skipped, so the query visits about as many nodes as an unrestricted query for k neighbors. Returns fewer than
+     * k ids if the box contains fewer than k coordinates.
+     *
+     * @param lat    the latitude of the target.
+     * @param lon    the longitude of the target.
+     * @param k      the maximum number of ids to return.
+     * @param minLat the southern edge of the box.
+     * @param minLon the western edge of the box.
+     * @param maxLat the northern edge of the box.
+     * @param maxLon the eastern edge of the box, not crossing the antimeridian from the western edge.
+     * @return the ids of the k coordinates inside the box nearest to the target, ordered from nearest to farthest.
+     * @throws IllegalArgumentException if k is negative.
+     */
+    public int[] nearest(double lat, double lon, int k, double minLat, double minLon, double maxLat, double maxLon) {
+        return nearest(lat, lon, k, new double[]{minLat, minLon, maxLat, maxLon});
+    }
+
+    /**
+     * Returns the ids of every coordinate inside the bounding box, in no particular order. Subtrees outside the box are
+     * skipped, so the query takes time proportional to the square root of the size of this tree plus the number of ids
+     * returned.
+     *
+     * @param minLat the southern edge of the box.
+     * @param minLon the western edge of the box.
+     * @param maxLat the northern edge of the box.
+     * @param maxLon the eastern edge of the box, not crossing the antimeridian from the western edge.
+     * @return the ids of every coordinate inside the box.
+     */
+    public int[] within(double minLat, double minLon, double maxLat, double maxLon) {
+        double[] box = {minLat, minLon, maxLat, maxLon};
+        int[] result = new int[16];
+        int size = 0;
+        // Explicit stack of [low, high) ranges: each range popped pushes at most one more than it removes, so the stack
+        // never holds more ranges than the depth of the tree plus one.
+        int[] stack = new int[128];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = ids.length;
+        while (top > 0) {
+            int high = stack[--top];
+            int low = stack[--top];
+            if (low >= high) {
+                continue;
+            }
+            int mid = (low + high) >>> 1;
+            if (contains(box, mid)) {
+                if (size == result.length) {
+                    result = Arrays.copyOf(result, 2 * size);
+                }
+                result[size] = ids[mid];
+                size += 1;
+            }
+            if (lowOverlaps(box, mid)) {
+                stack[top++] = low;
+                stack[top++] = mid;
+            }
+            if (highOverlaps(box, mid)) {
+                stack[top++] = mid + 1;
+                stack[top++] = high;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Returns the ids of the k coordinates nearest to the target and inside the box, or anywhere if the box is null.
+     */
+    private int[] nearest(double lat, double lon, int k, double[] box) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+        Neighbors best = new Neighbors(Math.min(k, ids.length));
+        if (best.capacity > 0) {
+            nearest(0, ids.length, lat, lon, box, best);
+        }
+        return best.sorted();
+    }
+
+    private void nearest(int low, int high, double lat, double lon, double[] box, Neighbors best) {
+        if (low >= high) {
+            return;
+        }
+        int mid = (low + high) >>> 1;
+        if (box == null || contains(box, mid)) {
+            best.offer(ids[mid], GreatCircle.distance(lat, lon, lats[mid], lons[mid]));
+        }
+        double delta;
+        double bound;
+        if (axes[mid] == LAT) {
+            delta = lat - lats[mid];
+            bound = Math.abs(delta);
+        } else {
+            delta = lon - lons[mid];
+            bound = pruneLongitude ? GreatCircle.distanceToMeridian(lat, lon, lons[mid]) : 0;
+        }
+        boolean searchLow = box == null || lowOverlaps(box, mid);
+        boolean searchHigh = box == null || highOverlaps(box, mid);
+        // Search the side containing the target first so that the other side is more likely to be pruned.
+        if (delta < 0) {
+            if (searchLow) {
+                nearest(low, mid, lat, lon, box, best);
+            }
+            if (searchHigh && bound < best.worst()) {
+                nearest(mid + 1, high, lat, lon, box, best);
+            }
+        } else {
+            if (searchHigh) {
+                nearest(mid + 1, high, lat, lon, box, best);
+            }
+            if (searchLow && bound < best.worst()) {
+                nearest(low, mid, lat, lon, box, best);
+            }
+        }
+    }
+
+    /**
+     * Returns true if the coordinate at the tree index is inside the box.
+     */
+    private boolean contains(double[] box, int i) {
+        return lats[i] >= box[0] && lons[i] >= box[1] && lats[i] <= box[2] && lons[i] <= box[3];
+    }
+
+    /**
+     * Returns true if the box may contain coordinates before the node at the tree index, whose keys are at most the
+     * node's key along its splitting axis.
+     */
+    private boolean lowOverlaps(double[] box, int mid) {
+        return axes[mid] == LAT ? box[0] <= lats[mid] : box[1] <= lons[mid];
+    }
+
+    /**
+     * Returns true if the box may contain coordinates after the node at the tree index, whose keys are at least the
+     * node's key along its splitting axis.
+     */
+    private boolean highOverlaps(double[] box, int mid) {
+        return axes[mid] == LAT ? box[2] >= lats[mid] : box[3] >= lons[mid];
+    }
+
+    /**
+     * Arranges the coordinates in the range {@code [low, high)} into tree order.
+     */
+    private void build(int low, int high) {
+        if (high - low <= 1) {
+            return;
+        }
+        double minLat = Double.POSITIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY;
+        double minLon = Double.POSITIVE_INFINITY;
+        double maxLon = Double.NEGATIVE_INFINITY;
+        for (int i = low; i < high; i += 1) {
+            minLat = Math.min(minLat, lats[i]);
+            maxLat = Math.max(maxLat, lats[i]);
+            minLon = Math.min(minLon, lons[i]);
+            maxLon = Math.max(maxLon, lons[i]);
+        }
+        // Split along the wider side, scaling longitude by the convergence of meridians at this latitude.
+        double scale = Math.cos(Math.toRadians((minLat + maxLat) / 2));
+        byte axis = (maxLat - minLat) >= (maxLon - minLon) * scale ? LAT : LON;
+        int mid = (low + high) >>> 1;
+        select(low, high - 1, mid, axis == LAT ? lats : lons);
+        axes[mid] = axis;
+        build(low, mid);
+        build(mid + 1, high);
+    }
+
+    /**
+     * Partially sorts the range {@code [left, right]} by the given key so that index k holds the element that would be
+     * there if the range were sorted, with smaller keys before it and larger keys after it.
+     */
+    private void select(int left, int right, int k, double[] keys) {
+        while (left < right) {
+            double pivot = keys[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (keys[i] < pivot) {
+                    i += 1;
+                }
+                while (keys[j] > pivot) {
+                    j -= 1;
+                }
+                if (i <= j) {
+                    swap(i, j);
+                    i += 1;
+                    j -= 1;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        double lat = lats[i];
+        lats[i] = lats[j];
+        lats[j] = lat;
+        double lon = lons[i];
+        lons[i] = lons[j];
+        lons[j] = lon;
+    }
+
+    /**
+     * Bounded binary max-heap of the nearest ids found so far, keyed by distance.
+     */
+    private static class Neighbors {
+        private final int capacity;
+        private final int[] ids;
+        private final double[] distances;
+        private int size;
+
+        Neighbors(int capacity) {
+            this.capacity = capacity;
+            this.ids = new int[capacity];
+            this.distances = new double[capacity];
+        }
+
+        /**
+         * Returns the distance that a new id must beat to be kept.
+         */
+        double worst() {
+            return size < capacity ? Double.POSITIVE_INFINITY : distances[0];
+        }
+
+        void offer(int id, double distance) {
+            if (size < capacity) {
+                ids[size] = id;
+                distances[size] = distance;
+                size += 1;
+                swim(size - 1);
+            } else if (distance < distances[0]) {
+                ids[0] = id;
+                distances[0] = distance;
+                sink(0, size);
+            }
+        }
+
+        /**
+         * Empties the heap and returns its ids ordered from nearest to farthest.
+         */
+        int[] sorted() {
+            int[] result = new int[size];
+            for (int n = size; n > 0; n -= 1) {
+                result[n - 1] = ids[0];
+                swap(0, n - 1);
+                sink(0, n - 1);
+            }
+            size = 0;
+            return result;
+        }
+
+        private void swim(int i) {
+            while (i > 0 && distances[(i - 1) / 2] < distances[i]) {
+                swap(i, (i - 1) / 2);
+                i = (i - 1) / 2;
+            }
+        }
+
+        private void sink(int i, int n) {
+            while (2 * i + 1 < n) {
+                int child = 2 * i + 1;
+                if (child + 1 < n && distances[child + 1] > distances[child]) {
+                    child += 1;
+                }
+                if (distances[i] >= distances[child]) {
+                    return;
+                }
+                swap(i, child);
+                i = child;
+            }
+        }
+
+        private void swap(int i, int j) {
+            int id = ids[i];
+            ids[i] = ids[j];
+            ids[j] = id;
+            double distance = distances[i];
+            distances[i] = distances[j];
+            distances[j] = distance;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package spatial;
+
+import java.util.Arrays;
+
+/**
+ * Compact representations of paths of latitude-longitude coordinates: simplification with the Douglas-Peucker
+ * algorithm and the encoded polyline format used by web map libraries, which stores each coordinate as the difference
+ * from the previous coordinate rounded to 5 decimal places in variable-length base-64 text.
+ *
+ * @see <a href="https://developers.google.com/maps/documentation/utilities/polylinealgorithm">Encoded Polyline
+ * Algorithm Format</a>
+ */
+public final class Polylines {
+    /**
+     * Encoded coordinates are rounded to this many units per degree.
+     */
+    private static final double PRECISION = 1e5;
+
+    private Polylines() {
+    }
+
+    /**
+     * Returns the indices of the coordinates kept when simplifying the path with the Douglas-Peucker algorithm. Every
+     * removed coordinate lies within the tolerance of the simplified path, where the tolerances give the largest
+     * acceptable error along each axis, such as the size of half a pixel at the zoom level the path will be drawn at.
+     * The first and last coordinates are always kept.
+     *
+     * @param lats         the latitudes of the path.
+     * @param lons         the longitudes of the path.
+     * @param latTolerance the largest acceptable latitude error in degrees.
+     * @param lonTolerance the largest acceptable longitude error in degrees.
+     * @return the increasing indices of the coordinates kept in the simplified path.
+     * @throws IllegalArgumentException if the arrays differ in length or a tolerance is not positive.
+     */
+    public static int[] simplify(double[] lats, double[] lons, double latTolerance, double lonTolerance) {
+        if (lats.length != lons.length) {
+            throw new IllegalArgumentException("Path has " + lats.length + " latitudes and " + lons.length
+                    + " longitudes");
+        }
+        if (!(latTolerance > 0) || !(lonTolerance > 0)) {
+            throw new IllegalArgumentException("Tolerances must be positive: " + latTolerance + ", " + lonTolerance);
+        }
+        int n = lats.length;
+        if (n <= 2) {
+            int[] result = new int[n];
+            for (int i = 0; i < n; i += 1) {
+                result[i] = i;
+            }
+            return result;
+        }
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+        // Explicit stack of (first, last) index ranges to avoid deep recursion on long paths.
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            // Measure in units of the tolerance so that the error bound is 1 along both axes.
+            double x1 = lons[first] / lonTolerance;
+            double y1 = lats[first] / latTolerance;
+            double dx = lons[last] / lonTolerance - x1;
+            double dy = lats[last] / latTolerance - y1;
+            double lengthSquared = dx * dx + dy * dy;
+            int farthest = -1;
+            double farthestSquared = 1;
+            for (int i = first + 1; i < last; i += 1) {
+                double px = lons[i] / lonTolerance - x1;
+                double py = lats[i] / latTolerance - y1;
+                double distanceSquared;
+                double t = lengthSquared == 0 ? 0 : (px * dx + py * dy) / lengthSquared;
+                if (t <= 0) {
+                    distanceSquared = px * px + py * py;
+                } else if (t >= 1) {
+                    double ex = px - dx;
+                    double ey = py - dy;
+                    distanceSquared = ex * ex + ey * ey;
+                } else {
+                    double cross = px * dy - py * dx;
+                    distanceSquared = cross * cross / lengthSquared;
+                }
+                if (distanceSquared > farthestSquared) {
+                    farthestSquared = distanceSquared;
+                    farthest = i;
+                }
+            }
+            if (farthest >= 0) {
+                keep[farthest] = true;
+                if (top + 4 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[top++] = first;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = last;
+            }
+        }
+        int count = 0;
+        for (boolean k : keep) {
+            if (k) {
+                count += 1;
+            }
+        }
+        int[] result = new int[count];
+        int j = 0;
+        for (int i = 0; i < n; i += 1) {
+            if (keep[i]) {
+                result[j] = i;
+                j += 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the encoded polyline for the coordinates at the given indices of the path.
+     *
+     * @param lats    the latitudes of the path.
+     * @param lons    the longitudes of the path.
+     * @param indices the indices of the coordinates to encode, in path order.
+     * @return the encoded polyline.
+     */
+    public static String encode(double[] lats, double[] lons, int[] indices) {
+        StringBuilder result = new StringBuilder(indices.length * 8);
+        long prevLat = 0;
+        long prevLon = 0;
+        for (int i : indices) {
+            long lat = Math.round(lats[i] * PRECISION);
+            long lon = Math.round(lons[i] * PRECISION);
+            encodeValue(lat - prevLat, result);
+            encodeValue(lon - prevLon, result);
+            prevLat = lat;
+            prevLon = lon;
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns the encoded polyline for every coordinate of the path.
+     *
+     * @param lats the latitudes of the path.
+     * @param lons the longitudes of the path.
+     * @return the encoded polyline.
+     */
+    public static String encode(double[] lats, double[] lons) {
+        int[] indices = new int[lats.length];
+        for (int i = 0; i < indices.length; i += 1) {
+            indices[i] = i;
+        }
+        return encode(lats, lons, indices);
+    }
+
+    /**
+     * Returns the coordinates of the encoded polyline as an array of latitudes followed by an array of longitudes.
+     *
+     * @param polyline the encoded polyline.
+     * @return a two-element array holding the latitudes and the longitudes.
+     * @throws IllegalArgumentException if the polyline is malformed.
+     */
+    public static double[][] decode(String polyline) {
+        double[] lats = new double[polyline.length() / 2];
+        double[] lons = new double[polyline.length() / 2];
+        int n = 0;
+        long lat = 0;
+        long lon = 0;
+        int[] position = {0};
+        while (position[0] < polyline.length()) {
+            lat += decodeValue(polyline, position);
+            lon += decodeValue(polyline, position);
+            lats[n] = lat / PRECISION;
+            lons[n] = lon / PRECISION;
+            n += 1;
+        }
+        return new double[][]{Arrays.copyOf(lats, n), Arrays.copyOf(lons, n)};
+    }
+
+    /**
+     * Appends the signed value as 5-bit chunks, least significant first, each offset into printable characters.
+     */
+    private static void encodeValue(long value, StringBuilder result) {
+        long v = value < 0 ? ~(value << 1) : (value << 1);
+        while (v >= 0x20) {
+            result.append((char) ((0x20 | (v & 0x1F)) + 63));
+            v >>= 5;
+        }
+        result.append((char) (v + 63));
+    }
+
+    /**
+     * Returns the signed value starting at the position, advancing the position past it.
+     */
+    private static long decodeValue(String polyline, int[] position) {
+        long result = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (position[0] >= polyline.length() || shift > 60) {
+                throw new IllegalArgumentException("Malformed polyline at index " + position[0]);
+            }
+            b = polyline.charAt(position[0]) - 63;
+            if (b < 0 || b > 63) {
+                throw new IllegalArgumentException("Malformed polyline at index " + position[0]);
+            }
+            position[0] += 1;
+            result |= (long) (b & 0x1F) << shift;
+            shift += 5;
+        } while (b >= 0x20);
+        return (result & 1) != 0 ? ~(result >>> 1) : (result >>> 1);
+    }
+}
@@ -0,0 +1,185 @@
+import cache.ChecksummedFile;
+import graphs.Edge;
+import org.junit.jupiter.api.Test;
+import org.locationtech.spatial4j.context.SpatialContext;
+import org.locationtech.spatial4j.shape.Point;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link MapSnapshot} class.
+ *
+ * @see MapSnapshot
+ */
+public class MapSnapshotTests {
+    /**
+     * A tiny OpenStreetMap file with one named node on a three-node residential street.
+     */
+    private static final String OSM = "<osm>\n"
+            + "<node id=\"1\" lat=\"47.6\" lon=\"-122.3\"><tag k=\"name\" v=\"Cafe\"/></node>\n"
+            + "<node id=\"2\" lat=\"47.61\" lon=\"-122.3\"/>\n"
+            + "<node id=\"3\" lat=\"47.61\" lon=\"-122.31\"/>\n"
+            + "<way id=\"4\"><nd ref=\"1\"/><nd ref=\"2\"/><nd ref=\"3\"/>"
+            + "<tag k=\"highway\" v=\"residential\"/></way>\n"
+            + "</osm>\n";
+
+    @Test
+    void readWriteRoundTrip() throws IOException {
+        MapSnapshot snapshot = randomSnapshot(500, new Random(373));
+        Path path = Files.createTempFile("map", ".snapshot");
+        try {
+            snapshot.write(path, 373);
+            MapSnapshot copy = MapSnapshot.read(path, 373, SpatialContext.GEO);
+            assertSameStreets(snapshot.streets, copy.streets);
+            assertEquals(snapshot.locations, copy.locations);
+            assertEquals(snapshot.importance, copy.importance);
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void staleFingerprintRejected() throws IOException {
+        Path path = Files.createTempFile("map", ".snapshot");
+        try {
+            randomSnapshot(50, new Random(373)).write(path, 373);
+            assertThrows(IOException.class, () -> MapSnapshot.read(path, 374, SpatialContext.GEO));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void flippedPayloadByteRejected() throws IOException {
+        Path path = Files.createTempFile("map", ".snapshot");
+        try {
+            randomSnapshot(50, new Random(373)).write(path, 373);
+            byte[] bytes = Files.readAllBytes(path);
+            int header = ChecksummedFile.HEADER_BYTES;
+            bytes[header + (bytes.length - header) / 2] ^= 1;
+            Files.write(path, bytes);
+            assertThrows(IOException.class, () -> MapSnapshot.read(path, 373, SpatialContext.GEO));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void truncatedFileRejected() throws IOException {
+        Path path = Files.createTempFile("map", ".snapshot");
+        try {
+            randomSnapshot(50, new Random(373)).write(path, 373);
+            byte[] bytes = Files.readAllBytes(path);
+            int header = ChecksummedFile.HEADER_BYTES;
+            for (int length : new int[]{0, header / 2, header, bytes.length - 1}) {
+                Files.write(path, Arrays.copyOf(bytes, length));
+                assertThrows(IOException.class, () -> MapSnapshot.read(path, 373, SpatialContext.GEO));
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void mapGraphFallsBackToParsing() throws Exception {
+        Path directory = Files.createTempDirectory("map");
+        Path snapshot = directory.resolve("map.snapshot");
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        // MapGraph loads its data files as resources of the context class loader.
+        try (URLClassLoader data = new URLClassLoader(new URL[]{directory.toUri().toURL()}, null)) {
+            gzip(directory.resolve("map.osm.gz"), OSM);
+            gzip(directory.resolve("places.tsv.gz"), "Cafe\t5\n");
+            Thread.currentThread().setContextClassLoader(data);
+            MapGraph parsed = new MapGraph("map.osm.gz", "places.tsv.gz", snapshot.toString(), SpatialContext.GEO);
+            assertEquals(3, parsed.streets().vertexCount());
+            byte[] valid = Files.readAllBytes(snapshot);
+
+            byte[] corrupt = valid.clone();
+            corrupt[valid.length - 1] ^= 1;
+            for (byte[] bytes : List.of(corrupt, Arrays.copyOf(valid, valid.length - 1))) {
+                Files.write(snapshot, bytes);
+                MapGraph map = new MapGraph("map.osm.gz", "places.tsv.gz", snapshot.toString(), SpatialContext.GEO);
+                assertSameStreets(parsed.streets(), map.streets());
+                assertEquals(1, map.getLocations("Cafe").size());
+                // Parsing again replaces the bad snapshot with a valid one.
+                assertArrayEquals(valid, Files.readAllBytes(snapshot));
+            }
+        } finally {
+            Thread.currentThread().setContextClassLoader(loader);
+            for (String file : List.of("map.osm.gz", "places.tsv.gz", "map.snapshot")) {
+                Files.deleteIfExists(directory.resolve(file));
+            }
+            Files.delete(directory);
+        }
+    }
+
+    /**
+     * Asserts that the street graphs have the same vertices and the same edges out of each vertex.
+     */
+    private static void assertSameStreets(StreetGraph expected, StreetGraph actual) {
+        assertEquals(expected.vertexCount(), actual.vertexCount());
+        for (int v = 0; v < expected.vertexCount(); v += 1) {
+            assertEquals(expected.lat(v), actual.lat(v));
+            assertEquals(expected.lon(v), actual.lon(v));
+            assertEquals(edges(expected, v), edges(actual, v));
+        }
+    }
+
+    /**
+     * Returns the targets and weights of the edges out of the vertex as strings.
+     */
+    private static List<String> edges(StreetGraph streets, int vertex) {
+        List<String> result = new ArrayList<>();
+        streets.forEachNeighbor(vertex, (from, to, weight) -> result.add(to + ":" + weight));
+        return result;
+    }
+
+    /**
+     * Returns a snapshot of a chain of n random street vertices near Seattle, each joined to the next in both
+     * directions, with every tenth vertex named, two to a name, and an importance for every name.
+     */
+    private static MapSnapshot randomSnapshot(int n, Random random) {
+        SpatialContext context = SpatialContext.GEO;
+        List<Point> points = new ArrayList<>(n);
+        for (int i = 0; i < n; i += 1) {
+            points.add(context.getShapeFactory().pointLatLon(
+                    47.5 + random.nextDouble() * 0.2, -122.4 + random.nextDouble() * 0.2
+            ));
+        }
+        Map<Point, Set<Edge<Point>>> neighbors = new HashMap<>();
+        for (int i = 0; i + 1 < n; i += 1) {
+            Point from = points.get(i);
+            Point to = points.get(i + 1);
+            double weight = context.getDistCalc().distance(from, to);
+            neighbors.computeIfAbsent(from, p -> new HashSet<>()).add(new Edge<>(from, to, weight));
+            neighbors.computeIfAbsent(to, p -> new HashSet<>()).add(new Edge<>(to, from, weight));
+        }
+        Map<String, List<Point>> locations = new HashMap<>();
+        Map<CharSequence, Integer> importance = new HashMap<>();
+        for (int i = 0; i < n; i += 10) {
+            String name = "Place " + (i / 20);
+            locations.computeIfAbsent(name, key -> new ArrayList<>()).add(points.get(i));
+            importance.put(name, random.nextInt(1000));
+        }
+        return new MapSnapshot(StreetGraph.of(neighbors, context), locations, importance);
+    }
+
+    /**
+     * Writes the text to the path compressed with gzip.
+     */
+    private static void gzip(Path path, String text) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(path))) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,247 @@
+import cache.CacheStats;
+import graphs.EdgePoint;
+import graphs.IntAStarGraph;
+import graphs.IntEdgeConsumer;
+import graphs.shortestpaths.IntAStarSolver;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link RouteCache} class.
+ *
+ * @see RouteCache
+ */
+public class RouteCacheTests {
+    /**
+     * Tolerance for comparing route lengths summed in different orders.
+     */
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void nearbyClicksOnSameSegmentsHit() {
+        TestGraph graph = grid(5, new Random(373));
+        RouteCache cache = new RouteCache(100, 1 << 20);
+        EdgePoint start = new EdgePoint(0, 1, 0.3);
+        EdgePoint goal = new EdgePoint(23, 24, 0.6);
+        assertNull(cache.get(graph, start, goal));
+        IntAStarSolver solver = new IntAStarSolver(graph, start, goal);
+        cache.put(start, goal, solver.solution(), solver.distance());
+
+        // The same locations get back the length of the search.
+        RouteCache.Route same = cache.get(graph, start, goal);
+        assertNotNull(same);
+        assertArrayEquals(solver.solution(), same.path);
+        assertEquals(solver.distance(), same.distance, EPSILON);
+
+        // A few pixels toward the segment ends that the route passes through, the cached vertices are joined to the
+        // new locations.
+        int[] path = solver.solution();
+        EdgePoint nearStart = new EdgePoint(0, 1, path[0] == 1 ? 0.35 : 0.25);
+        EdgePoint nearGoal = new EdgePoint(23, 24, path[path.length - 1] == 23 ? 0.55 : 0.65);
+        RouteCache.Route near = cache.get(graph, nearStart, nearGoal);
+        assertNotNull(near);
+        assertArrayEquals(solver.solution(), near.path);
+        assertEquals(new IntAStarSolver(graph, nearStart, nearGoal).distance(), near.distance, EPSILON);
+
+        CacheStats stats = cache.stats();
+        assertEquals(2, stats.hits());
+        assertEquals(1, stats.misses());
+    }
+
+    @Test
+    void otherSegmentsMiss() {
+        TestGraph graph = grid(5, new Random(373));
+        RouteCache cache = new RouteCache(100, 1 << 20);
+        EdgePoint start = new EdgePoint(0, 1, 0.3);
+        EdgePoint goal = new EdgePoint(23, 24, 0.6);
+        IntAStarSolver solver = new IntAStarSolver(graph, start, goal);
+        cache.put(start, goal, solver.solution(), solver.distance());
+        assertNull(cache.get(graph, new EdgePoint(1, 2, 0.3), goal));
+        // The opposite direction of a segment is a different segment.
+        assertNull(cache.get(graph, start, new EdgePoint(24, 23, 0.4)));
+        assertEquals(0, cache.stats().hits());
+    }
+
+    @Test
+    void directRouteAlongSharedSegment() {
+        TestGraph graph = grid(3, new Random(373));
+        RouteCache cache = new RouteCache(100, 1 << 20);
+        EdgePoint start = new EdgePoint(0, 1, 0.2);
+        EdgePoint goal = new EdgePoint(0, 1, 0.7);
+        IntAStarSolver solver = new IntAStarSolver(graph, start, goal);
+        assertEquals(0, solver.solution().length);
+        cache.put(start, goal, solver.solution(), solver.distance());
+
+        RouteCache.Route near = cache.get(graph, new EdgePoint(0, 1, 0.3), new EdgePoint(0, 1, 0.8));
+        assertNotNull(near);
+        assertEquals(0, near.path.length);
+        assertEquals(0.5 * graph.weight(0, 1), near.distance, EPSILON);
+        // Passing the goal reverses the direction, and the cached search says nothing about routes that way.
+        assertNull(cache.get(graph, new EdgePoint(0, 1, 0.8), new EdgePoint(0, 1, 0.3)));
+    }
+
+    @Test
+    void oneWaySegmentRejectsReversedLocations() {
+        TestGraph graph = grid(3, new Random(373));
+        graph.remove(1, 0);
+        RouteCache cache = new RouteCache(100, 1 << 20);
+        EdgePoint start = new EdgePoint(0, 1, 0.2);
+        EdgePoint goal = new EdgePoint(0, 1, 0.7);
+        IntAStarSolver solver = new IntAStarSolver(graph, start, goal);
+        cache.put(start, goal, solver.solution(), solver.distance());
+
+        // The goal is now behind the start on a one-way segment, so the direct route cannot be reused.
+        assertNull(cache.get(graph, new EdgePoint(0, 1, 0.8), new EdgePoint(0, 1, 0.3)));
+        CacheStats stats = cache.stats();
+        assertEquals(0, stats.hits());
+        assertEquals(1, stats.misses());
+    }
+
+    @Test
+    void loopAroundOneWaySegmentNotReusedForDirectRoute() {
+        TestGraph graph = grid(3, new Random(373));
+        graph.remove(1, 0);
+        RouteCache cache = new RouteCache(100, 1 << 20);
+        // Going back along the one-way segment means leaving by its end and looping around the block.
+        EdgePoint start = new EdgePoint(0, 1, 0.8);
+        EdgePoint goal = new EdgePoint(0, 1, 0.2);
+        IntAStarSolver solver = new IntAStarSolver(graph, start, goal);
+        assertTrue(solver.solution().length > 0);
+        cache.put(start, goal, solver.solution(), solver.distance());
+
+        // Going forward along the same segment is direct, not around the cached loop.
+        RouteCache.Route forward = cache.get(graph, goal, start);
+        assertNotNull(forward);
+        assertEquals(0, forward.path.length);
+        assertEquals(0.6 * graph.weight(0, 1), forward.distance, EPSILON);
+    }
+
+    @Test
+    void reusedRoutesAreShortest() {
+        Random random = new Random(373);
+        TestGraph graph = grid(6, random);
+        graph.remove(7, 8);
+        graph.remove(21, 15);
+        int[][] segments = {{0, 1}, {7, 8}, {8, 7}, {14, 15}, {15, 21}, {28, 29}, {34, 35}};
+        int hits = 0;
+        for (int trial = 0; trial < 1000; trial += 1) {
+            int[] from = segments[random.nextInt(segments.length)];
+            int[] to = segments[random.nextInt(segments.length)];
+            RouteCache cache = new RouteCache(100, 1 << 20);
+            EdgePoint start = new EdgePoint(from[0], from[1], random.nextDouble());
+            EdgePoint goal = new EdgePoint(to[0], to[1], random.nextDouble());
+            IntAStarSolver solver = new IntAStarSolver(graph, start, goal);
+            cache.put(start, goal, solver.solution(), solver.distance());
+
+            // Whichever locations were cached first, a hit is as short as a fresh search.
+            EdgePoint nextStart = new EdgePoint(from[0], from[1], random.nextDouble());
+            EdgePoint nextGoal = new EdgePoint(to[0], to[1], random.nextDouble());
+            RouteCache.Route route = cache.get(graph, nextStart, nextGoal);
+            if (route != null) {
+                hits += 1;
+                IntAStarSolver fresh = new IntAStarSolver(graph, nextStart, nextGoal);
+                assertEquals(fresh.distance(), route.distance, EPSILON);
+            }
+        }
+        assertTrue(hits > 0);
+    }
+
+    @Test
+    void unreachableOnlyReusedForSameLocations() {
+        TestGraph graph = grid(3, new Random(373));
+        graph.isolate(8);
+        graph.isolate(7);
+        RouteCache cache = new RouteCache(100, 1 << 20);
+        EdgePoint start = new EdgePoint(0, 1, 0.5);
+        EdgePoint goal = new EdgePoint(7, 8, 0.5);
+        IntAStarSolver solver = new IntAStarSolver(graph, start, goal);
+        assertEquals(Double.POSITIVE_INFINITY, solver.distance());
+        cache.put(start, goal, solver.solution(), solver.distance());
+
+        RouteCache.Route same = cache.get(graph, start, goal);
+        assertNotNull(same);
+        assertEquals(Double.POSITIVE_INFINITY, same.distance);
+        assertNull(cache.get(graph, start, new EdgePoint(7, 8, 0.6)));
+    }
+
+    /**
+     * Returns a square grid graph with edges between adjacent cells in both directions weighing from 1 to 5.
+     */
+    private static TestGraph grid(int side, Random random) {
+        TestGraph graph = new TestGraph(side * side);
+        for (int r = 0; r < side; r += 1) {
+            for (int c = 0; c < side; c += 1) {
+                int v = r * side + c;
+                if (c + 1 < side) {
+                    graph.add(v, v + 1, 1 + random.nextInt(5));
+                    graph.add(v + 1, v, 1 + random.nextInt(5));
+                }
+                if (r + 1 < side) {
+                    graph.add(v, v + side, 1 + random.nextInt(5));
+                    graph.add(v + side, v, 1 + random.nextInt(5));
+                }
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Directed graph of int ids with no distance estimates.
+     */
+    private static class TestGraph implements IntAStarGraph {
+        private final List<List<double[]>> neighbors;
+
+        TestGraph(int n) {
+            this.neighbors = new ArrayList<>(n);
+            for (int v = 0; v < n; v += 1) {
+                neighbors.add(new ArrayList<>());
+            }
+        }
+
+        void add(int from, int to, double weight) {
+            neighbors.get(from).add(new double[]{to, weight});
+        }
+
+        void remove(int from, int to) {
+            neighbors.get(from).removeIf(edge -> edge[0] == to);
+        }
+
+        void isolate(int vertex) {
+            for (List<double[]> edges : neighbors) {
+                edges.removeIf(edge -> edge[0] == vertex);
+            }
+        }
+
+        @Override
+        public double weight(int from, int to) {
+            for (double[] edge : neighbors.get(from)) {
+                if (edge[0] == to) {
+                    return edge[1];
+                }
+            }
+            return Double.POSITIVE_INFINITY;
+        }
+
+        @Override
+        public int vertexCount() {
+            return neighbors.size();
+        }
+
+        @Override
+        public void forEachNeighbor(int vertex, IntEdgeConsumer action) {
+            for (double[] edge : neighbors.get(vertex)) {
+                action.accept(vertex, (int) edge[0], edge[1]);
+            }
+        }
+
+        @Override
+        public double estimatedDistance(int start, int end) {
+            return 0;
+        }
+    }
+}
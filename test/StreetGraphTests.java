@@ -0,0 +1,230 @@
+import graphs.Edge;
+import org.junit.jupiter.api.Test;
+import org.locationtech.spatial4j.context.SpatialContext;
+import org.locationtech.spatial4j.shape.Point;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link StreetGraph} class.
+ *
+ * @see StreetGraph
+ */
+public class StreetGraphTests {
+
+    @Test
+    void ofMatchesAdjacency() {
+        Map<Point, Set<Edge<Point>>> neighbors = randomStreets(20, new Random(373));
+        StreetGraph streets = StreetGraph.of(neighbors, SpatialContext.GEO);
+        Set<Point> vertices = new HashSet<>(neighbors.keySet());
+        for (Set<Edge<Point>> edges : neighbors.values()) {
+            for (Edge<Point> edge : edges) {
+                vertices.add(edge.to);
+            }
+        }
+        assertEquals(vertices.size(), streets.vertexCount());
+        for (int v = 1; v < streets.vertexCount(); v += 1) {
+            // Vertex ids are in latitude and then longitude order.
+            assertTrue(streets.lat(v - 1) < streets.lat(v)
+                    || streets.lat(v - 1) == streets.lat(v) && streets.lon(v - 1) < streets.lon(v));
+        }
+        for (Point vertex : vertices) {
+            Map<Point, Double> expected = new HashMap<>();
+            for (Edge<Point> edge : neighbors.getOrDefault(vertex, Set.of())) {
+                expected.put(edge.to, edge.weight);
+            }
+            Map<Point, Double> actual = new HashMap<>();
+            for (Edge<Point> edge : streets.neighbors(vertex)) {
+                assertEquals(vertex, edge.from);
+                actual.put(edge.to, edge.weight);
+            }
+            assertEquals(expected.keySet(), actual.keySet());
+            for (Point to : expected.keySet()) {
+                assertEquals(roundUp(expected.get(to)), actual.get(to));
+            }
+        }
+    }
+
+    @Test
+    void weightsRoundUpToFloat() {
+        SpatialContext context = SpatialContext.GEO;
+        Point a = context.getShapeFactory().pointLatLon(47.6, -122.3);
+        Point b = context.getShapeFactory().pointLatLon(47.61, -122.3);
+        Random random = new Random(373);
+        for (int trial = 0; trial < 1000; trial += 1) {
+            double weight = random.nextDouble() * 0.01;
+            Map<Point, Set<Edge<Point>>> neighbors = Map.of(a, Set.of(new Edge<>(a, b, weight)));
+            double stored = StreetGraph.of(neighbors, context).neighbors(a).get(0).weight;
+            // The stored weight is the smallest float no less than the exact weight.
+            assertEquals(stored, (float) stored);
+            assertTrue(stored >= weight);
+            assertTrue(Math.nextDown((float) stored) < weight);
+        }
+        // 0.7 is just above its nearest float, so it is rounded up to the next one.
+        Map<Point, Set<Edge<Point>>> neighbors = Map.of(a, Set.of(new Edge<>(a, b, 0.7)));
+        assertEquals(Math.nextUp(0.7f), StreetGraph.of(neighbors, context).neighbors(a).get(0).weight);
+    }
+
+    @Test
+    void reverseFlipsEveryEdge() {
+        StreetGraph streets = StreetGraph.of(randomStreets(20, new Random(373)), SpatialContext.GEO);
+        StreetGraph reverse = streets.reverse();
+        assertEquals(streets.vertexCount(), reverse.vertexCount());
+        List<String> forward = new ArrayList<>();
+        List<String> backward = new ArrayList<>();
+        for (int v = 0; v < streets.vertexCount(); v += 1) {
+            assertEquals(streets.lat(v), reverse.lat(v));
+            assertEquals(streets.lon(v), reverse.lon(v));
+            streets.forEachNeighbor(v, (from, to, weight) -> forward.add(from + "->" + to + ":" + weight));
+            reverse.forEachNeighbor(v, (from, to, weight) -> backward.add(to + "->" + from + ":" + weight));
+        }
+        Collections.sort(forward);
+        Collections.sort(backward);
+        assertEquals(forward, backward);
+
+        StreetGraph twice = reverse.reverse();
+        for (int v = 0; v < streets.vertexCount(); v += 1) {
+            assertEquals(sortedEdges(streets, v), sortedEdges(twice, v));
+        }
+    }
+
+    @Test
+    void idFindsVertices() {
+        StreetGraph streets = StreetGraph.of(randomStreets(20, new Random(373)), SpatialContext.GEO);
+        for (int v = 0; v < streets.vertexCount(); v += 1) {
+            assertEquals(v, streets.id(streets.point(v)));
+        }
+        SpatialContext context = SpatialContext.GEO;
+        Point first = streets.point(0);
+        Point last = streets.point(streets.vertexCount() - 1);
+        assertEquals(-1, streets.id(context.getShapeFactory().pointLatLon(first.getLat() - 1, first.getLon())));
+        assertEquals(-1, streets.id(context.getShapeFactory().pointLatLon(last.getLat() + 1, last.getLon())));
+        // The same latitude as a vertex but a different longitude.
+        assertEquals(-1, streets.id(context.getShapeFactory().pointLatLon(first.getLat(), first.getLon() + 1e-9)));
+        StreetGraph empty = StreetGraph.of(Map.of(), context);
+        assertEquals(-1, empty.id(first));
+    }
+
+    @Test
+    void lengthSumsEdgeWeights() {
+        StreetGraph streets = StreetGraph.of(randomStreets(20, new Random(373)), SpatialContext.GEO);
+        // Follow the first edge out of each vertex for a few steps.
+        int[] path = new int[10];
+        int size = 1;
+        double expected = 0;
+        while (size < path.length) {
+            double[] next = {-1, 0};
+            streets.forEachNeighbor(path[size - 1], (v, w, weight) -> {
+                if (next[0] < 0) {
+                    next[0] = w;
+                    next[1] = weight;
+                }
+            });
+            if (next[0] < 0) {
+                break;
+            }
+            path[size] = (int) next[0];
+            expected += next[1];
+            size += 1;
+        }
+        assertTrue(size > 1);
+        assertEquals(expected, streets.length(Arrays.copyOf(path, size)));
+        assertEquals(0, streets.length(new int[]{3}));
+        assertEquals(0, streets.length(new int[0]));
+        // Vertices 0 and the last vertex lie at opposite corners of the grid, so they are not joined by an edge.
+        assertEquals(Double.POSITIVE_INFINITY, streets.length(new int[]{0, streets.vertexCount() - 1}));
+    }
+
+    @Test
+    void writeReadRoundTrip() throws IOException {
+        StreetGraph streets = StreetGraph.of(randomStreets(20, new Random(373)), SpatialContext.GEO);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        streets.write(out);
+        out.writeInt(373);
+        out.flush();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        StreetGraph copy = StreetGraph.read(buffer, SpatialContext.GEO);
+        // Reading leaves the buffer positioned just after the graph.
+        assertEquals(373, buffer.getInt());
+        assertFalse(buffer.hasRemaining());
+        assertEquals(streets.vertexCount(), copy.vertexCount());
+        for (int v = 0; v < streets.vertexCount(); v += 1) {
+            assertEquals(streets.lat(v), copy.lat(v));
+            assertEquals(streets.lon(v), copy.lon(v));
+            assertEquals(edges(streets, v), edges(copy, v));
+        }
+    }
+
+    /**
+     * Returns the smallest float no less than the weight.
+     */
+    private static double roundUp(double weight) {
+        float rounded = (float) weight;
+        return rounded < weight ? Math.nextUp(rounded) : rounded;
+    }
+
+    /**
+     * Returns the targets and weights of the edges out of the vertex in storage order.
+     */
+    private static List<String> edges(StreetGraph streets, int vertex) {
+        List<String> result = new ArrayList<>();
+        streets.forEachNeighbor(vertex, (from, to, weight) -> result.add(to + ":" + weight));
+        return result;
+    }
+
+    /**
+     * Returns the targets and weights of the edges out of the vertex in sorted order.
+     */
+    private static List<String> sortedEdges(StreetGraph streets, int vertex) {
+        List<String> result = edges(streets, vertex);
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Returns the adjacency of a jittered grid of intersections near Seattle with the given number of intersections on
+     * each side, where each pair of adjacent intersections is joined in both directions or, one time in five, in one
+     * direction. Edge weights are great-circle distances in degrees.
+     */
+    private static Map<Point, Set<Edge<Point>>> randomStreets(int side, Random random) {
+        SpatialContext context = SpatialContext.GEO;
+        Point[][] grid = new Point[side][side];
+        for (int r = 0; r < side; r += 1) {
+            for (int c = 0; c < side; c += 1) {
+                grid[r][c] = context.getShapeFactory().pointLatLon(
+                        47.5 + 0.001 * r + random.nextDouble() * 1e-4, -122.4 + 0.001 * c + random.nextDouble() * 1e-4
+                );
+            }
+        }
+        Map<Point, Set<Edge<Point>>> neighbors = new HashMap<>();
+        for (int r = 0; r < side; r += 1) {
+            for (int c = 0; c < side; c += 1) {
+                if (c + 1 < side) {
+                    join(neighbors, grid[r][c], grid[r][c + 1], random);
+                }
+                if (r + 1 < side) {
+                    join(neighbors, grid[r][c], grid[r + 1][c], random);
+                }
+            }
+        }
+        return neighbors;
+    }
+
+    /**
+     * Adds an edge from a to b and, unless the street is randomly one-way, from b to a.
+     */
+    private static void join(Map<Point, Set<Edge<Point>>> neighbors, Point a, Point b, Random random) {
+        double weight = SpatialContext.GEO.calcDistance(a, b);
+        neighbors.computeIfAbsent(a, p -> new HashSet<>()).add(new Edge<>(a, b, weight));
+        if (random.nextInt(5) != 0) {
+            neighbors.computeIfAbsent(b, p -> new HashSet<>()).add(new Edge<>(b, a, weight));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package autocomplete.cities;
+
+import autocomplete.Autocomplete;
+import autocomplete.WeightedAutocomplete;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link WeightedAutocomplete} class.
+ *
+ * @see WeightedAutocomplete
+ */
+public class WeightedAutocompleteTests extends AutocompleteTests {
+    /**
+     * Arbitrary but deterministic weight for each term, with many ties.
+     */
+    private static final ToIntFunction<CharSequence> WEIGHT = term -> Math.floorMod(term.toString().hashCode(), 100);
+
+    @Override
+    public Autocomplete createAutocomplete() {
+        return new WeightedAutocomplete(WEIGHT);
+    }
+
+    @Test
+    void topMatchesSortedAllMatches() {
+        WeightedAutocomplete autocomplete = (WeightedAutocomplete) createAutocomplete();
+        autocomplete.addAll(List.of("Sea", "Seattle", "Seaside", "Sebastopol", "Seabrook", "Seal Beach", "Sedona",
+                "Portland", "Seattle", "Searcy", "Seaford", "Sealy"));
+        for (String prefix : List.of("S", "Se", "Sea", "Seal", "Seattle", "P", "X")) {
+            for (int k = 0; k <= 12; k += 1) {
+                List<CharSequence> expected = autocomplete.allMatches(prefix);
+                expected.sort(Comparator.comparingInt(WEIGHT).reversed().thenComparing(CharSequence::compare));
+                expected = expected.subList(0, Math.min(k, expected.size()));
+                assertEquals(expected, autocomplete.topMatches(prefix, k));
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link ChecksummedFile} class.
+ *
+ * @see ChecksummedFile
+ */
+public class ChecksummedFileTests {
+    /**
+     * Magic number of the test files ("TEST").
+     */
+    private static final int MAGIC = 0x54455354;
+
+    @Test
+    void readWriteRoundTrip() throws IOException {
+        long[] values = new Random(373).longs(1000).toArray();
+        Path path = Files.createTempFile("checksummed", ".bin");
+        try {
+            write(path, values);
+            assertEquals(ChecksummedFile.HEADER_BYTES + Long.BYTES * values.length, Files.size(path));
+            assertArrayEquals(values, read(path, MAGIC, 1, 373));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void mismatchedHeaderRejected() throws IOException {
+        Path path = Files.createTempFile("checksummed", ".bin");
+        try {
+            write(path, new long[]{1, 2, 3});
+            assertThrows(IOException.class, () -> read(path, MAGIC + 1, 1, 373));
+            assertThrows(IOException.class, () -> read(path, MAGIC, 2, 373));
+            assertThrows(IOException.class, () -> read(path, MAGIC, 1, 374));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void corruptOrTruncatedPayloadRejected() throws IOException {
+        Path path = Files.createTempFile("checksummed", ".bin");
+        try {
+            write(path, new long[]{1, 2, 3});
+            byte[] bytes = Files.readAllBytes(path);
+            byte[] flipped = bytes.clone();
+            flipped[ChecksummedFile.HEADER_BYTES + 4] ^= 1;
+            Files.write(path, flipped);
+            assertThrows(IOException.class, () -> read(path, MAGIC, 1, 373));
+            for (int length : new int[]{0, ChecksummedFile.HEADER_BYTES - 1, bytes.length - 1}) {
+                Files.write(path, Arrays.copyOf(bytes, length));
+                assertThrows(IOException.class, () -> read(path, MAGIC, 1, 373));
+            }
+            Files.write(path, Arrays.copyOf(bytes, bytes.length + 1));
+            assertThrows(IOException.class, () -> read(path, MAGIC, 1, 373));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void decodingFailureRejected() throws IOException {
+        Path path = Files.createTempFile("checksummed", ".bin");
+        try {
+            write(path, new long[]{1, 2, 3});
+            // Reading past the end of the payload is reported as an I/O failure rather than an unchecked exception.
+            IOException e = assertThrows(IOException.class, () -> ChecksummedFile.read(
+                    path, MAGIC, 1, 373, buffer -> buffer.position(buffer.limit()).getLong()
+            ));
+            assertNotNull(e.getCause());
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void failedWriteKeepsExistingFile() throws IOException {
+        Path path = Files.createTempFile("checksummed", ".bin");
+        try {
+            write(path, new long[]{1, 2, 3});
+            assertThrows(IOException.class, () -> ChecksummedFile.write(path, MAGIC, 1, 373, out -> {
+                out.writeLong(4);
+                throw new IOException("Payload failed");
+            }));
+            assertArrayEquals(new long[]{1, 2, 3}, read(path, MAGIC, 1, 373));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * Writes the values as the payload of a test file with version 1 and fingerprint 373.
+     */
+    private static void write(Path path, long[] values) throws IOException {
+        ChecksummedFile.write(path, MAGIC, 1, 373, out -> {
+            for (long value : values) {
+                out.writeLong(value);
+            }
+        });
+    }
+
+    /**
+     * Returns the values in the payload of the test file with the given header fields.
+     */
+    private static long[] read(Path path, int magic, int version, long fingerprint) throws IOException {
+        return ChecksummedFile.read(path, magic, version, fingerprint, buffer -> {
+            long[] values = new long[buffer.remaining() / Long.BYTES];
+            buffer.asLongBuffer().get(values);
+            return values;
+        });
+    }
+}
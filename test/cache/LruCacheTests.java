@@ -0,0 +1,97 @@
+package cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link LruCache} class.
+ *
+ * @see LruCache
+ */
+public class LruCacheTests {
+    @Test
+    void evictsLeastRecentlyUsed() {
+        LruCache<String, Integer> cache = new LruCache<>(1, 3, 3, value -> 1);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        assertEquals(1, cache.get("a"));
+        cache.put("d", 4);
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.get("a"));
+        assertEquals(3, cache.get("c"));
+        assertEquals(4, cache.get("d"));
+        assertEquals(3, cache.size());
+        CacheStats stats = cache.stats();
+        assertEquals(4, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.evictions());
+    }
+
+    @Test
+    void boundedByWeight() {
+        LruCache<Integer, int[]> cache = new LruCache<>(1, 100, 10, value -> value.length);
+        cache.put(1, new int[4]);
+        cache.put(2, new int[4]);
+        cache.put(3, new int[4]);
+        assertNull(cache.get(1));
+        assertEquals(8, cache.weight());
+        // Replacing a value releases the weight of the old value.
+        cache.put(2, new int[1]);
+        assertEquals(5, cache.weight());
+        // A value heavier than the whole cache is never stored.
+        cache.put(4, new int[11]);
+        assertNull(cache.get(4));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void stripesStayWithinBounds() {
+        Random random = new Random(373);
+        LruCache<Integer, Integer> cache = new LruCache<>(8, 100, 1000, value -> value);
+        for (int i = 0; i < 10_000; i += 1) {
+            cache.put(random.nextInt(1000), 1 + random.nextInt(20));
+            assertTrue(cache.size() <= 100);
+            assertTrue(cache.weight() <= 1000);
+        }
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.weight());
+    }
+
+    @Test
+    void concurrentAccess() throws Exception {
+        LruCache<Integer, Integer> cache = new LruCache<>(64);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t += 1) {
+            int seed = t;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 100_000; i += 1) {
+                    int key = random.nextInt(256);
+                    Integer value = cache.get(key);
+                    if (value == null) {
+                        cache.put(key, key);
+                    } else {
+                        assertEquals(key, value);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(cache.size() <= 64);
+        assertEquals(800_000, cache.stats().hits() + cache.stats().misses());
+    }
+}
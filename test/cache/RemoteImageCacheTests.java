@@ -0,0 +1,165 @@
+package cache;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link RemoteImageCache} class, using a local HTTP server that stands in for the map image API.
+ *
+ * @see RemoteImageCache
+ */
+public class RemoteImageCacheTests {
+    /**
+     * Color of every pixel in the images served by the stub server.
+     */
+    private static final int COLOR = 0xFF336699;
+
+    private HttpServer server;
+    private AtomicInteger requests;
+    /**
+     * Released to let the stub server respond to requests for {@code /slow}.
+     */
+    private CountDownLatch release;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        byte[] png = png();
+        requests = new AtomicInteger();
+        release = new CountDownLatch(1);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            String path = exchange.getRequestURI().getPath();
+            try {
+                if (path.startsWith("/slow")) {
+                    release.await(10, TimeUnit.SECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (path.startsWith("/missing")) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                exchange.getResponseHeaders().add("Content-Type", "image/png");
+                exchange.sendResponseHeaders(200, png.length);
+                try (OutputStream body = exchange.getResponseBody()) {
+                    body.write(png);
+                }
+            }
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        release.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    void repeatedRequestsFetchOnce() throws IOException {
+        RemoteImageCache cache = new RemoteImageCache(16, 1 << 20, null, Duration.ofSeconds(5));
+        for (int i = 0; i < 5; i += 1) {
+            BufferedImage image = cache.get(uri("/a"));
+            assertEquals(COLOR, image.getRGB(3, 4));
+        }
+        cache.get(uri("/b"));
+        assertEquals(2, requests.get());
+        assertEquals(2, cache.fetches());
+        assertEquals(4, cache.stats().hits());
+    }
+
+    @Test
+    void returnsIndependentCopies() throws IOException {
+        RemoteImageCache cache = new RemoteImageCache(16, 1 << 20, null, Duration.ofSeconds(5));
+        BufferedImage first = cache.get(uri("/a"));
+        first.setRGB(0, 0, 0xFFFFFFFF);
+        assertEquals(COLOR, cache.get(uri("/a")).getRGB(0, 0));
+    }
+
+    @Test
+    void concurrentRequestsShareOneFetch() throws Exception {
+        RemoteImageCache cache = new RemoteImageCache(16, 1 << 20, null, Duration.ofSeconds(5));
+        List<CompletableFuture<BufferedImage>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i += 1) {
+            futures.add(cache.getAsync(uri("/slow")));
+        }
+        release.countDown();
+        for (CompletableFuture<BufferedImage> future : futures) {
+            assertEquals(COLOR, future.get(10, TimeUnit.SECONDS).getRGB(1, 1));
+        }
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void diskTierSurvivesRestart() throws IOException {
+        Path directory = Files.createTempDirectory("images");
+        new RemoteImageCache(16, 1 << 20, directory, Duration.ofSeconds(5)).get(uri("/a"));
+        RemoteImageCache restarted = new RemoteImageCache(16, 1 << 20, directory, Duration.ofSeconds(5));
+        assertEquals(COLOR, restarted.get(uri("/a")).getRGB(2, 2));
+        assertEquals(1, requests.get());
+        assertEquals(0, restarted.fetches());
+    }
+
+    @Test
+    void errorsAreNotCached() throws IOException {
+        RemoteImageCache cache = new RemoteImageCache(16, 1 << 20, null, Duration.ofSeconds(5));
+        assertThrows(IOException.class, () -> cache.get(uri("/missing")));
+        assertThrows(IOException.class, () -> cache.get(uri("/missing")));
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void slowResponsesTimeOut() throws IOException {
+        RemoteImageCache cache = new RemoteImageCache(16, 1 << 20, null, Duration.ofMillis(200));
+        long start = System.nanoTime();
+        assertThrows(IOException.class, () -> cache.get(uri("/slow")));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+    }
+
+    /**
+     * Returns the URI for the path on the stub server.
+     */
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+
+    /**
+     * Returns a small single-color PNG image.
+     */
+    private static byte[] png() throws IOException {
+        BufferedImage image = new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < 8; x += 1) {
+            for (int y = 0; y < 8; y += 1) {
+                image.setRGB(x, y, COLOR);
+            }
+        }
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", os);
+        return os.toByteArray();
+    }
+}
@@ -0,0 +1,116 @@
+package graphs.shortestpaths;
+
+import graphs.AStarGraph;
+import graphs.Edge;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link AStarSolver} class and the {@link StopPolicy} and {@link SearchStats} it reports to.
+ *
+ * @see AStarSolver
+ */
+public class AStarSolverTests {
+
+    @Test
+    void countsOnSmallGraph() {
+        AStarSolver<Integer> solver = new AStarSolver<>(smallGraph(), 0, 3);
+        assertTrue(solver.isSolved());
+        assertEquals(List.of(0, 1, 2, 3), solver.solution());
+        SearchStats stats = solver.stats();
+        // Every vertex is settled, the goal without relaxing its edges.
+        assertEquals(4, stats.settled());
+        // Two edges each out of 0 and 1, and one out of 2.
+        assertEquals(5, stats.relaxed());
+        // One add for the start, one remove per settle, and one add or decrease for 1, 2, 3, 2 and 3.
+        assertEquals(10, stats.pqOperations());
+    }
+
+    @Test
+    void goalSettledSettlesFewerThanExhaustive() {
+        GridGraph graph = new GridGraph(20, new Random(373));
+        AStarSolver<Integer> early = new AStarSolver<>(graph, 0, 21, StopPolicy.goalSettled());
+        AStarSolver<Integer> exhaustive = new AStarSolver<>(graph, 0, 21, StopPolicy.exhaustive());
+        assertTrue(early.isSolved());
+        assertTrue(exhaustive.isSolved());
+        assertEquals(graph.weight(exhaustive.solution()), graph.weight(early.solution()));
+        assertEquals(graph.vertexCount(), exhaustive.stats().settled());
+        assertTrue(early.stats().settled() < exhaustive.stats().settled());
+    }
+
+    @Test
+    void maxSettledLeavesGoalUnsolved() {
+        AStarSolver<Integer> solver = new AStarSolver<>(smallGraph(), 0, 3, StopPolicy.maxSettled(3));
+        assertFalse(solver.isSolved());
+        assertEquals(3, solver.stats().settled());
+        // The edge from 2 to 3 was never relaxed, so the best path so far is the direct edge from 1.
+        assertEquals(List.of(0, 1, 3), solver.solution());
+    }
+
+    @Test
+    void maxDistanceLeavesGoalUnsolved() {
+        AStarSolver<Integer> solver = new AStarSolver<>(smallGraph(), 0, 3, StopPolicy.maxDistance(2));
+        assertFalse(solver.isSolved());
+        // Vertex 2 is the first settled beyond distance 2.
+        assertEquals(3, solver.stats().settled());
+        assertEquals(List.of(0, 1, 3), solver.solution());
+
+        AStarSolver<Integer> unreached = new AStarSolver<>(smallGraph(), 0, 3, StopPolicy.maxDistance(0.5));
+        assertFalse(unreached.isSolved());
+        // Vertex 1 is settled beyond the limit before any edge into the goal is relaxed.
+        assertEquals(2, unreached.stats().settled());
+        assertEquals(List.of(3), unreached.solution());
+    }
+
+    @Test
+    void orStopsAtFirstPolicy() {
+        AStarSolver<Integer> distance = new AStarSolver<>(
+                smallGraph(), 0, 3, StopPolicy.maxSettled(100).or(StopPolicy.maxDistance(2))
+        );
+        assertFalse(distance.isSolved());
+        assertEquals(3, distance.stats().settled());
+
+        AStarSolver<Integer> settled = new AStarSolver<>(
+                smallGraph(), 0, 3, StopPolicy.maxDistance(100).or(StopPolicy.maxSettled(2))
+        );
+        assertFalse(settled.isSolved());
+        assertEquals(2, settled.stats().settled());
+
+        AStarSolver<Integer> goal = new AStarSolver<>(
+                smallGraph(), 0, 3, StopPolicy.goalSettled().or(StopPolicy.maxSettled(100))
+        );
+        assertTrue(goal.isSolved());
+        assertEquals(4, goal.stats().settled());
+    }
+
+    /**
+     * Returns a graph with edges 0-1 (1), 0-2 (4), 1-2 (2), 1-3 (6) and 2-3 (3) and no distance estimates, so that
+     * the search settles 0, 1, 2 and 3 in order, improving the distances to 2 and 3 along the way.
+     */
+    private static AStarGraph<Integer> smallGraph() {
+        List<List<Edge<Integer>>> neighbors = new ArrayList<>();
+        for (int v = 0; v < 4; v += 1) {
+            neighbors.add(new ArrayList<>());
+        }
+        int[][] edges = {{0, 1, 1}, {0, 2, 4}, {1, 2, 2}, {1, 3, 6}, {2, 3, 3}};
+        for (int[] edge : edges) {
+            neighbors.get(edge[0]).add(new Edge<>(edge[0], edge[1], edge[2]));
+        }
+        return new AStarGraph<>() {
+            @Override
+            public List<Edge<Integer>> neighbors(Integer vertex) {
+                return neighbors.get(vertex);
+            }
+
+            @Override
+            public double estimatedDistance(Integer start, Integer end) {
+                return 0;
+            }
+        };
+    }
+}
@@ -0,0 +1,169 @@
+package graphs.shortestpaths;
+
+import graphs.AStarGraph;
+import graphs.Edge;
+import graphs.Graph;
+import org.junit.jupiter.api.Test;
+import spatial.GreatCircle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link BidirectionalAStarSolver} class.
+ *
+ * @see BidirectionalAStarSolver
+ */
+public class BidirectionalAStarSolverTests {
+    /**
+     * Tolerance for comparing path weights summed in different orders.
+     */
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void matchesDijkstra() {
+        Random random = new Random(373);
+        StreetGrid graph = new StreetGrid(40, random);
+        for (int trial = 0; trial < 300; trial += 1) {
+            int start = random.nextInt(graph.size());
+            int goal = random.nextInt(graph.size());
+            List<Integer> expected = new DijkstraSolver<>(graph, start).solution(goal);
+            BidirectionalAStarSolver<Integer> solver = new BidirectionalAStarSolver<>(
+                    graph, graph.reverse(), start, goal
+            );
+            List<Integer> actual = solver.solution();
+            assertEquals(expected.get(0), actual.get(0));
+            assertEquals(goal, actual.get(actual.size() - 1));
+            assertEquals(graph.weight(expected), graph.weight(actual), EPSILON);
+            assertEquals(expected.get(0) == start, solver.isSolved());
+        }
+    }
+
+    @Test
+    void unreachableGoal() {
+        StreetGrid graph = new StreetGrid(3, new Random(373));
+        // Make the last vertex unreachable by removing its incoming edges.
+        graph.isolate(8);
+        BidirectionalAStarSolver<Integer> solver = new BidirectionalAStarSolver<>(graph, graph.reverse(), 0, 8);
+        assertFalse(solver.isSolved());
+        assertEquals(List.of(8), solver.solution());
+        assertEquals(List.of(4), new BidirectionalAStarSolver<>(graph, graph.reverse(), 4, 4).solution());
+    }
+
+    @Test
+    void stopPolicyLeavesGoalUnsolved() {
+        StreetGrid graph = new StreetGrid(10, new Random(373));
+        BidirectionalAStarSolver<Integer> solver = new BidirectionalAStarSolver<>(
+                graph, graph.reverse(), 0, 99, StopPolicy.maxSettled(3)
+        );
+        assertFalse(solver.isSolved());
+        assertEquals(3, solver.stats().settled());
+        BidirectionalAStarSolver<Integer> unlimited = new BidirectionalAStarSolver<>(
+                graph, graph.reverse(), 0, 99, StopPolicy.maxSettled(Long.MAX_VALUE)
+        );
+        assertTrue(unlimited.isSolved());
+    }
+
+    /**
+     * Square grid of coordinates around Seattle with one-way streets, where each edge is weighted by the great-circle
+     * distance between its endpoints times a random detour factor of at least 1.
+     */
+    private static class StreetGrid implements AStarGraph<Integer> {
+        private static final double MIN_LAT = 47.6;
+        private static final double MIN_LON = -122.35;
+        private static final double STEP = 0.001;
+        private final int side;
+        private final List<List<Edge<Integer>>> neighbors;
+        private final List<List<Edge<Integer>>> reverse;
+
+        StreetGrid(int side, Random random) {
+            this.side = side;
+            this.neighbors = new ArrayList<>(side * side);
+            this.reverse = new ArrayList<>(side * side);
+            for (int v = 0; v < side * side; v += 1) {
+                neighbors.add(new ArrayList<>());
+                reverse.add(new ArrayList<>());
+            }
+            for (int r = 0; r < side; r += 1) {
+                for (int c = 0; c < side; c += 1) {
+                    int v = r * side + c;
+                    if (c + 1 < side) {
+                        connect(v, v + 1, random);
+                    }
+                    if (r + 1 < side) {
+                        connect(v, v + side, random);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Adds edges between the vertices in one or both directions.
+         */
+        private void connect(int v, int w, Random random) {
+            int direction = random.nextInt(4);
+            if (direction != 0) {
+                add(v, w, estimatedDistance(v, w) * (1 + random.nextDouble()));
+            }
+            if (direction != 1) {
+                add(w, v, estimatedDistance(w, v) * (1 + random.nextDouble()));
+            }
+        }
+
+        private void add(int from, int to, double weight) {
+            neighbors.get(from).add(new Edge<>(from, to, weight));
+            reverse.get(to).add(new Edge<>(to, from, weight));
+        }
+
+        /**
+         * Removes every edge into the vertex.
+         */
+        void isolate(int vertex) {
+            for (Edge<Integer> edge : reverse.get(vertex)) {
+                neighbors.get(edge.to).removeIf(e -> e.to == vertex);
+            }
+            reverse.get(vertex).clear();
+        }
+
+        int size() {
+            return neighbors.size();
+        }
+
+        Graph<Integer> reverse() {
+            return reverse::get;
+        }
+
+        /**
+         * Returns the total weight of the lightest edges along the path.
+         */
+        double weight(List<Integer> path) {
+            double result = 0;
+            for (int i = 1; i < path.size(); i += 1) {
+                double lightest = Double.POSITIVE_INFINITY;
+                for (Edge<Integer> edge : neighbors.get(path.get(i - 1))) {
+                    if (edge.to.equals(path.get(i))) {
+                        lightest = Math.min(lightest, edge.weight);
+                    }
+                }
+                result += lightest;
+            }
+            return result;
+        }
+
+        @Override
+        public List<Edge<Integer>> neighbors(Integer vertex) {
+            return neighbors.get(vertex);
+        }
+
+        @Override
+        public double estimatedDistance(Integer start, Integer end) {
+            return GreatCircle.distance(
+                    MIN_LAT + (start / side) * STEP, MIN_LON + (start % side) * STEP,
+                    MIN_LAT + (end / side) * STEP, MIN_LON + (end % side) * STEP
+            );
+        }
+    }
+}
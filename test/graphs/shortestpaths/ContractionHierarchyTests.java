@@ -0,0 +1,162 @@
+package graphs.shortestpaths;
+
+import graphs.Edge;
+import graphs.Graph;
+import graphs.IntEdgeConsumer;
+import graphs.IntGraph;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link ContractionHierarchy} class.
+ *
+ * @see ContractionHierarchy
+ */
+public class ContractionHierarchyTests {
+    /**
+     * Tolerance for comparing path weights summed in different orders.
+     */
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void distancesMatchDijkstra() {
+        Random random = new Random(373);
+        RandomGraph graph = new RandomGraph(40, 40, random);
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+        for (int trial = 0; trial < 200; trial += 1) {
+            int start = random.nextInt(graph.vertexCount());
+            int goal = random.nextInt(graph.vertexCount());
+            List<Integer> expected = new DijkstraSolver<>(graph, start).solution(goal);
+            int[] actual = hierarchy.path(start, goal);
+            assertEquals(graph.weight(expected), hierarchy.distance(start, goal), EPSILON);
+            assertEquals(start, actual[0]);
+            assertEquals(goal, actual[actual.length - 1]);
+            assertEquals(hierarchy.distance(start, goal), graph.weight(actual), EPSILON);
+        }
+    }
+
+    @Test
+    void unreachableGoal() {
+        // Two disconnected components: vertices 0 and 1, and vertex 2 alone.
+        RandomGraph graph = new RandomGraph(3);
+        graph.add(0, 1, 1.0);
+        graph.add(1, 0, 1.0);
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+        assertEquals(Double.POSITIVE_INFINITY, hierarchy.distance(0, 2));
+        assertArrayEquals(new int[]{2}, hierarchy.path(0, 2));
+        assertArrayEquals(new int[]{0}, hierarchy.path(0, 0));
+        assertEquals(List.of("1", "0"), hierarchy.solution(1, 0, String::valueOf));
+    }
+
+    @Test
+    void readWriteRoundTrip() throws IOException {
+        Random random = new Random(373);
+        RandomGraph graph = new RandomGraph(20, 20, random);
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+        Path path = Files.createTempFile("hierarchy", ".ch");
+        try {
+            hierarchy.write(path, 373);
+            assertThrows(IOException.class, () -> ContractionHierarchy.read(path, 374));
+            ContractionHierarchy copy = ContractionHierarchy.read(path, 373);
+            for (int trial = 0; trial < 100; trial += 1) {
+                int start = random.nextInt(graph.vertexCount());
+                int goal = random.nextInt(graph.vertexCount());
+                assertArrayEquals(hierarchy.path(start, goal), copy.path(start, goal));
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * Directed graph stored as adjacency lists, viewable both as a {@link Graph} and an {@link IntGraph}.
+     */
+    private static class RandomGraph implements Graph<Integer>, IntGraph {
+        private final List<List<Edge<Integer>>> neighbors;
+
+        RandomGraph(int n) {
+            neighbors = new ArrayList<>(n);
+            for (int i = 0; i < n; i += 1) {
+                neighbors.add(new ArrayList<>());
+            }
+        }
+
+        /**
+         * Constructs a grid graph with the given dimensions, randomly weighted edges to adjacent cells, and a few
+         * random one-way edges.
+         */
+        RandomGraph(int rows, int cols, Random random) {
+            this(rows * cols);
+            for (int r = 0; r < rows; r += 1) {
+                for (int c = 0; c < cols; c += 1) {
+                    int v = r * cols + c;
+                    if (c + 1 < cols) {
+                        add(v, v + 1, 1 + random.nextInt(10));
+                        add(v + 1, v, 1 + random.nextInt(10));
+                    }
+                    if (r + 1 < rows) {
+                        add(v, v + cols, 1 + random.nextInt(10));
+                        add(v + cols, v, 1 + random.nextInt(10));
+                    }
+                    if (random.nextInt(10) == 0) {
+                        add(v, random.nextInt(rows * cols), 1 + random.nextInt(50));
+                    }
+                }
+            }
+        }
+
+        void add(int from, int to, double weight) {
+            neighbors.get(from).add(new Edge<>(from, to, weight));
+        }
+
+        /**
+         * Returns the total weight of the lightest edges along the path.
+         */
+        double weight(List<Integer> path) {
+            int[] ids = new int[path.size()];
+            for (int i = 0; i < ids.length; i += 1) {
+                ids[i] = path.get(i);
+            }
+            return weight(ids);
+        }
+
+        double weight(int[] path) {
+            double result = 0;
+            for (int i = 1; i < path.length; i += 1) {
+                double lightest = Double.POSITIVE_INFINITY;
+                for (Edge<Integer> edge : neighbors.get(path[i - 1])) {
+                    if (edge.to == path[i]) {
+                        lightest = Math.min(lightest, edge.weight);
+                    }
+                }
+                result += lightest;
+            }
+            return result;
+        }
+
+        @Override
+        public List<Edge<Integer>> neighbors(Integer vertex) {
+            return neighbors.get(vertex);
+        }
+
+        @Override
+        public int vertexCount() {
+            return neighbors.size();
+        }
+
+        @Override
+        public void forEachNeighbor(int vertex, IntEdgeConsumer action) {
+            for (Edge<Integer> edge : neighbors.get(vertex)) {
+                action.accept(edge.from, edge.to, edge.weight);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package graphs.shortestpaths;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link DistanceMatrix} class.
+ *
+ * @see DistanceMatrix
+ */
+public class DistanceMatrixTests {
+    /**
+     * Tolerance for comparing path weights summed in different orders.
+     */
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void matchesDijkstra() {
+        Random random = new Random(373);
+        GridGraph graph = new GridGraph(30, random);
+        int[] sources = random.ints(10, 0, graph.vertexCount()).toArray();
+        int[] targets = random.ints(15, 0, graph.vertexCount()).toArray();
+        // Repeated targets and a source that is also a target.
+        targets[3] = targets[7];
+        targets[0] = sources[0];
+        DistanceMatrix matrix = new DistanceMatrix(graph, sources, targets);
+        assertTrue(matrix.isComplete());
+        double[][] distances = matrix.distances();
+        for (int i = 0; i < sources.length; i += 1) {
+            for (int j = 0; j < targets.length; j += 1) {
+                double expected = new IntDijkstraSolver(graph, sources[i], targets[j]).distance();
+                assertEquals(expected, matrix.distance(i, j), EPSILON);
+                assertEquals(expected, distances[i][j], EPSILON);
+            }
+        }
+        assertEquals(0, matrix.distance(0, 0));
+    }
+
+    @Test
+    void parallelMatchesSequential() {
+        Random random = new Random(373);
+        GridGraph graph = new GridGraph(40, random);
+        int[] points = random.ints(30, 0, graph.vertexCount()).toArray();
+        DistanceMatrix sequential = new DistanceMatrix(graph, points, points);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            DistanceMatrix parallel = new DistanceMatrix(graph, points, points, StopPolicy.exhaustive(), pool);
+            assertTrue(parallel.isComplete());
+            assertArrayEquals(sequential.distances(), parallel.distances());
+            assertEquals(sequential.settled(), parallel.settled());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void stopsOnceTargetsAreSettled() {
+        GridGraph graph = new GridGraph(30, new Random(373));
+        // The target next to the source is settled long before the rest of the grid.
+        DistanceMatrix matrix = new DistanceMatrix(graph, new int[]{0}, new int[]{1});
+        assertTrue(matrix.settled() < graph.vertexCount() / 10);
+    }
+
+    @Test
+    void unreachableTargetIsInfinite() {
+        GridGraph graph = new GridGraph(3, new Random(373));
+        graph.isolate(8);
+        DistanceMatrix matrix = new DistanceMatrix(graph, new int[]{0, 8}, new int[]{8, 4});
+        assertTrue(matrix.isComplete());
+        assertEquals(Double.POSITIVE_INFINITY, matrix.distance(0, 0));
+        assertEquals(0, matrix.distance(1, 0));
+        // Only the edges into the isolated vertex are removed, so it still reaches the rest of the grid.
+        assertEquals(new IntDijkstraSolver(graph, 8, 4).distance(), matrix.distance(1, 1), EPSILON);
+    }
+
+    @Test
+    void stopPolicyLeavesMatrixIncomplete() {
+        GridGraph graph = new GridGraph(10, new Random(373));
+        DistanceMatrix matrix = new DistanceMatrix(
+                graph, new int[]{0, 50}, new int[]{0, 99}, StopPolicy.maxSettled(5), null
+        );
+        assertFalse(matrix.isComplete());
+        assertEquals(0, matrix.distance(0, 0));
+        assertEquals(Double.POSITIVE_INFINITY, matrix.distance(0, 1));
+        assertEquals(10, matrix.settled());
+    }
+}
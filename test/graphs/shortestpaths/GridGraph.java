@@ -0,0 +1,122 @@
+package graphs.shortestpaths;
+
+import graphs.AStarGraph;
+import graphs.Edge;
+import graphs.IntAStarGraph;
+import graphs.IntEdgeConsumer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Square grid graph with randomly weighted edges between adjacent cells in both directions, shared by the tests of the
+ * int-indexed solvers. The graph is viewable both as an {@link AStarGraph} of boxed ids and as an
+ * {@link IntAStarGraph}. The estimated distance is the Manhattan distance, which is a lower bound because every edge
+ * weighs at least 1.
+ */
+class GridGraph implements AStarGraph<Integer>, IntAStarGraph {
+    private final int side;
+    private final List<List<Edge<Integer>>> neighbors;
+
+    /**
+     * Constructs a grid with the given number of cells on each side and edge weights from 1 to 5.
+     */
+    GridGraph(int side, Random random) {
+        this.side = side;
+        this.neighbors = new ArrayList<>(side * side);
+        for (int v = 0; v < side * side; v += 1) {
+            neighbors.add(new ArrayList<>(4));
+        }
+        for (int r = 0; r < side; r += 1) {
+            for (int c = 0; c < side; c += 1) {
+                int v = r * side + c;
+                if (c + 1 < side) {
+                    add(v, v + 1, 1 + random.nextInt(5));
+                    add(v + 1, v, 1 + random.nextInt(5));
+                }
+                if (r + 1 < side) {
+                    add(v, v + side, 1 + random.nextInt(5));
+                    add(v + side, v, 1 + random.nextInt(5));
+                }
+            }
+        }
+    }
+
+    private void add(int from, int to, double weight) {
+        neighbors.get(from).add(new Edge<>(from, to, weight));
+    }
+
+    /**
+     * Removes every edge into the vertex so that it is unreachable from the rest of the grid.
+     */
+    void isolate(int vertex) {
+        for (List<Edge<Integer>> edges : neighbors) {
+            edges.removeIf(edge -> edge.to == vertex);
+        }
+    }
+
+    /**
+     * Removes the edge from and to the given vertices, leaving the edge in the other direction one-way.
+     */
+    void remove(int from, int to) {
+        neighbors.get(from).removeIf(edge -> edge.to == to);
+    }
+
+    @Override
+    public double weight(int from, int to) {
+        for (Edge<Integer> edge : neighbors.get(from)) {
+            if (edge.to == to) {
+                return edge.weight;
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the total weight of the edges between consecutive vertices of the path.
+     */
+    double weight(int[] path) {
+        double result = 0;
+        for (int i = 1; i < path.length; i += 1) {
+            result += weight(path[i - 1], path[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the total weight of the edges between consecutive vertices of the path.
+     */
+    double weight(List<Integer> path) {
+        return weight(path.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    @Override
+    public List<Edge<Integer>> neighbors(Integer vertex) {
+        return neighbors.get(vertex);
+    }
+
+    @Override
+    public double estimatedDistance(Integer start, Integer end) {
+        return estimatedDistance(start.intValue(), end.intValue());
+    }
+
+    @Override
+    public int vertexCount() {
+        return neighbors.size();
+    }
+
+    @Override
+    public void forEachNeighbor(int vertex, IntEdgeConsumer action) {
+        List<Edge<Integer>> edges = neighbors.get(vertex);
+        for (int i = 0; i < edges.size(); i += 1) {
+            Edge<Integer> edge = edges.get(i);
+            action.accept(vertex, edge.to, edge.weight);
+        }
+    }
+
+    @Override
+    public double estimatedDistance(int start, int end) {
+        return Math.abs(start / side - end / side) + Math.abs(start % side - end % side);
+    }
+}
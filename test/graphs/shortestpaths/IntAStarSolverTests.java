@@ -0,0 +1,192 @@
+package graphs.shortestpaths;
+
+import graphs.Edge;
+import graphs.EdgePoint;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link IntAStarSolver} and {@link IntDijkstraSolver} classes.
+ *
+ * @see IntAStarSolver
+ * @see IntDijkstraSolver
+ */
+public class IntAStarSolverTests {
+    /**
+     * Tolerance for comparing path weights summed in different orders.
+     */
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void matchesGenericSolvers() {
+        Random random = new Random(373);
+        GridGraph graph = new GridGraph(30, random);
+        for (int trial = 0; trial < 300; trial += 1) {
+            int start = random.nextInt(graph.vertexCount());
+            int goal = random.nextInt(graph.vertexCount());
+            double expected = graph.weight(new DijkstraSolver<>(graph, start).solution(goal));
+            IntAStarSolver aStar = new IntAStarSolver(graph, start, goal);
+            IntDijkstraSolver dijkstra = new IntDijkstraSolver(graph, start, goal);
+            assertEquals(expected, graph.weight(aStar.solution()), EPSILON);
+            assertEquals(expected, aStar.distance(), EPSILON);
+            assertEquals(expected, graph.weight(dijkstra.solution()), EPSILON);
+            assertTrue(aStar.isSolved());
+            assertTrue(aStar.stats().settled() <= dijkstra.stats().settled());
+        }
+    }
+
+    @Test
+    void workspaceReusedAcrossGraphs() {
+        Random random = new Random(373);
+        GridGraph large = new GridGraph(20, random);
+        GridGraph small = new GridGraph(3, random);
+        int[] expected = new IntDijkstraSolver(small, 0, 8).solution();
+        new IntDijkstraSolver(large, 0, large.vertexCount() - 1);
+        // Results from the search on the larger graph must not leak into the next search on this thread.
+        assertArrayEquals(expected, new IntDijkstraSolver(small, 0, 8).solution());
+        assertArrayEquals(new int[]{0}, new IntDijkstraSolver(small, 0, 0).solution());
+    }
+
+    @Test
+    void stopPolicyLeavesGoalUnsolved() {
+        GridGraph graph = new GridGraph(10, new Random(373));
+        IntDijkstraSolver solver = new IntDijkstraSolver(graph, 0, 99, StopPolicy.maxSettled(5));
+        assertFalse(solver.isSolved());
+        assertEquals(5, solver.stats().settled());
+        assertArrayEquals(new int[]{99}, solver.solution());
+        assertEquals(Double.POSITIVE_INFINITY, solver.distance());
+    }
+
+    @Test
+    void interruptStopsSearch() {
+        GridGraph graph = new GridGraph(10, new Random(373));
+        Thread.currentThread().interrupt();
+        try {
+            IntAStarSolver solver = new IntAStarSolver(
+                    graph, 0, 99, StopPolicy.goalSettled().or(StopPolicy.interrupted())
+            );
+            assertFalse(solver.isSolved());
+            assertEquals(1, solver.stats().settled());
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+        IntAStarSolver expired = new IntAStarSolver(
+                graph, 0, 99, StopPolicy.goalSettled().or(StopPolicy.deadline(System.nanoTime()))
+        );
+        assertFalse(expired.isSolved());
+    }
+
+    @Test
+    void edgePointsMatchBruteForce() {
+        Random random = new Random(373);
+        GridGraph graph = new GridGraph(20, random);
+        for (int trial = 0; trial < 300; trial += 1) {
+            EdgePoint start = randomEdgePoint(graph, random);
+            // Every third goal shares the edge of the start, in either direction.
+            EdgePoint goal = randomEdgePoint(graph, random);
+            if (trial % 3 == 0) {
+                goal = random.nextBoolean() ? new EdgePoint(start.from, start.to, random.nextDouble())
+                        : new EdgePoint(start.to, start.from, random.nextDouble());
+            }
+            IntAStarSolver solver = new IntAStarSolver(graph, start, goal);
+            assertTrue(solver.isSolved());
+            assertEquals(bruteForce(graph, start, goal), solver.distance(), EPSILON);
+            int[] path = solver.solution();
+            if (path.length > 0) {
+                // The path runs from an end of the start edge to an end of the goal edge.
+                double startPart = path[0] == start.to ? (1 - start.fraction) * graph.weight(start.from, start.to)
+                        : start.fraction * graph.weight(start.to, start.from);
+                double goalPart = path[path.length - 1] == goal.from
+                        ? goal.fraction * graph.weight(goal.from, goal.to)
+                        : (1 - goal.fraction) * graph.weight(goal.to, goal.from);
+                assertEquals(solver.distance(), startPart + graph.weight(path) + goalPart, EPSILON);
+            }
+        }
+    }
+
+    @Test
+    void edgePointsAlongSameEdge() {
+        GridGraph graph = new GridGraph(10, new Random(373));
+        IntAStarSolver ahead = new IntAStarSolver(graph, new EdgePoint(0, 1, 0.25), new EdgePoint(1, 0, 0.25));
+        assertEquals(0.5 * graph.weight(0, 1), ahead.distance(), EPSILON);
+        assertArrayEquals(new int[0], ahead.solution());
+        IntAStarSolver same = new IntAStarSolver(graph, new EdgePoint(0, 1, 0.5), new EdgePoint(0, 1, 0.5));
+        assertEquals(0, same.distance());
+        // Vertices are locations at the start of an edge to themselves.
+        IntAStarSolver vertices = new IntAStarSolver(graph, EdgePoint.at(0), EdgePoint.at(99));
+        assertEquals(new IntAStarSolver(graph, 0, 99).distance(), vertices.distance(), EPSILON);
+        assertEquals(0, vertices.solution()[0]);
+        assertEquals(99, vertices.solution()[vertices.solution().length - 1]);
+    }
+
+    @Test
+    void edgePointsOnOneWayEdge() {
+        GridGraph graph = new GridGraph(10, new Random(373));
+        graph.remove(1, 0);
+        // Going back along a one-way edge means leaving forward and looping around the block.
+        IntAStarSolver solver = new IntAStarSolver(graph, new EdgePoint(0, 1, 0.75), new EdgePoint(0, 1, 0.25));
+        assertTrue(solver.isSolved());
+        assertEquals(bruteForce(graph, new EdgePoint(0, 1, 0.75), new EdgePoint(0, 1, 0.25)), solver.distance(),
+                EPSILON);
+        assertEquals(1, solver.solution()[0]);
+        assertEquals(0, solver.solution()[solver.solution().length - 1]);
+    }
+
+    @Test
+    void edgePointsStopPolicyLeavesGoalUnsolved() {
+        GridGraph graph = new GridGraph(10, new Random(373));
+        IntAStarSolver solver = new IntAStarSolver(
+                graph, new EdgePoint(0, 1, 0.5), new EdgePoint(98, 99, 0.5), StopPolicy.maxSettled(5)
+        );
+        assertFalse(solver.isSolved());
+        assertEquals(5, solver.stats().settled());
+    }
+
+    /**
+     * Returns a random location partway along a random edge of the graph.
+     */
+    private static EdgePoint randomEdgePoint(GridGraph graph, Random random) {
+        int from = random.nextInt(graph.vertexCount());
+        List<Edge<Integer>> edges = graph.neighbors(from);
+        return new EdgePoint(from, edges.get(random.nextInt(edges.size())).to, random.nextDouble());
+    }
+
+    /**
+     * Returns the shortest distance between the locations by trying each end of the start edge and each end of the
+     * goal edge, as well as the direct path along a shared edge.
+     */
+    private static double bruteForce(GridGraph graph, EdgePoint start, EdgePoint goal) {
+        double best = Double.POSITIVE_INFINITY;
+        if (start.from == goal.from && start.to == goal.to) {
+            best = goal.fraction >= start.fraction
+                    ? (goal.fraction - start.fraction) * graph.weight(start.from, start.to)
+                    : (start.fraction - goal.fraction) * graph.weight(start.to, start.from);
+        } else if (start.from == goal.to && start.to == goal.from) {
+            best = 1 - goal.fraction >= start.fraction
+                    ? (1 - goal.fraction - start.fraction) * graph.weight(start.from, start.to)
+                    : (start.fraction - 1 + goal.fraction) * graph.weight(start.to, start.from);
+        }
+        int[] sources = {start.to, start.from};
+        double[] sourceDists = {
+                (1 - start.fraction) * graph.weight(start.from, start.to),
+                start.fraction * graph.weight(start.to, start.from)
+        };
+        int[] goals = {goal.from, goal.to};
+        double[] goalDists = {
+                goal.fraction * graph.weight(goal.from, goal.to),
+                (1 - goal.fraction) * graph.weight(goal.to, goal.from)
+        };
+        for (int i = 0; i < 2; i += 1) {
+            for (int j = 0; j < 2; j += 1) {
+                double between = new IntDijkstraSolver(graph, sources[i], goals[j]).distance();
+                best = Math.min(best, sourceDists[i] + between + goalDists[j]);
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,199 @@
+package graphs.shortestpaths;
+
+import graphs.Edge;
+import graphs.EdgePoint;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link Isochrone} class.
+ *
+ * @see Isochrone
+ */
+public class IsochroneTests {
+    /**
+     * Tolerance for comparing path weights summed in different orders.
+     */
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void matchesDijkstra() {
+        Random random = new Random(373);
+        GridGraph graph = new GridGraph(20, random);
+        for (int trial = 0; trial < 20; trial += 1) {
+            int start = random.nextInt(graph.vertexCount());
+            double budget = random.nextInt(40);
+            Isochrone isochrone = new Isochrone(graph, start, budget);
+            assertTrue(isochrone.isComplete());
+            int[] vertices = isochrone.vertices();
+            double[] distances = isochrone.distances();
+            boolean[] within = new boolean[graph.vertexCount()];
+            for (int i = 0; i < vertices.length; i += 1) {
+                within[vertices[i]] = true;
+                assertEquals(new IntDijkstraSolver(graph, start, vertices[i]).distance(), distances[i], EPSILON);
+                assertTrue(distances[i] <= budget);
+                assertTrue(i == 0 || distances[i - 1] <= distances[i]);
+            }
+            for (int v = 0; v < graph.vertexCount(); v += 1) {
+                assertEquals(new IntDijkstraSolver(graph, start, v).distance() <= budget, within[v]);
+            }
+        }
+    }
+
+    @Test
+    void frontierEdgesLeaveTheBudget() {
+        GridGraph graph = new GridGraph(20, new Random(373));
+        double budget = 12.5;
+        Isochrone isochrone = new Isochrone(graph, 210, budget);
+        boolean[] within = new boolean[graph.vertexCount()];
+        double[] distance = new double[graph.vertexCount()];
+        int[] vertices = isochrone.vertices();
+        for (int i = 0; i < vertices.length; i += 1) {
+            within[vertices[i]] = true;
+            distance[vertices[i]] = isochrone.distances()[i];
+        }
+        List<int[]> edges = new ArrayList<>();
+        isochrone.forEachFrontierEdge((from, to, reach) -> {
+            assertTrue(within[from]);
+            assertFalse(within[to]);
+            assertEquals(budget - distance[from], reach, EPSILON);
+            assertTrue(reach < graph.weight(from, to));
+            edges.add(new int[]{from, to});
+        });
+        // Every edge leaving the budget is on the frontier.
+        int expected = 0;
+        for (int v : vertices) {
+            for (Edge<Integer> edge : graph.neighbors(v)) {
+                expected += within[edge.to] ? 0 : 1;
+            }
+        }
+        assertEquals(expected, edges.size());
+        assertTrue(expected > 0);
+    }
+
+    @Test
+    void budgetBoundsTheSearch() {
+        GridGraph graph = new GridGraph(30, new Random(373));
+        Isochrone isochrone = new Isochrone(graph, 0, 0);
+        assertArrayEquals(new int[]{0}, isochrone.vertices());
+        assertEquals(1, isochrone.stats().settled());
+        assertThrows(IllegalArgumentException.class, () -> new Isochrone(graph, 0, -1));
+        assertThrows(IllegalArgumentException.class, () -> new Isochrone(graph, 0, Double.NaN));
+        Isochrone everything = new Isochrone(graph, 0, Double.POSITIVE_INFINITY);
+        assertEquals(graph.vertexCount(), everything.vertices().length);
+        assertTrue(everything.isComplete());
+    }
+
+    @Test
+    void stopPolicyLeavesIsochroneIncomplete() {
+        GridGraph graph = new GridGraph(10, new Random(373));
+        Isochrone isochrone = new Isochrone(graph, 0, 100, StopPolicy.maxSettled(3));
+        assertFalse(isochrone.isComplete());
+        assertEquals(3, isochrone.vertices().length);
+        assertEquals(3, isochrone.stats().settled());
+    }
+
+    @Test
+    void linesCoverReachableEdgesOnce() {
+        Random random = new Random(373);
+        GridGraph graph = new GridGraph(20, random);
+        graph.remove(190, 210);
+        graph.remove(211, 210);
+        for (int trial = 0; trial < 20; trial += 1) {
+            int start = trial == 0 ? 210 : random.nextInt(graph.vertexCount());
+            double budget = 0.5 + random.nextInt(20);
+            Isochrone isochrone = new Isochrone(graph, start, budget);
+            double[] distance = new double[graph.vertexCount()];
+            for (int v = 0; v < graph.vertexCount(); v += 1) {
+                distance[v] = new IntDijkstraSolver(graph, start, v).distance();
+            }
+            // Fractions of each edge covered by the lines, keyed by the lower id end of the edge.
+            Map<List<Integer>, Double> covered = new HashMap<>();
+            for (EdgePoint[] line : isochrone.lines(graph)) {
+                assertTrue(line.length >= 2);
+                for (int i = 0; i + 1 < line.length; i += 1) {
+                    EdgePoint a = line[i];
+                    EdgePoint b = line[i + 1];
+                    // Every piece starts at a vertex within the budget.
+                    EdgePoint vertex = a.from == a.to ? a : b;
+                    EdgePoint other = vertex == a ? b : a;
+                    assertEquals(vertex.from, vertex.to);
+                    assertTrue(distance[vertex.from] <= budget);
+                    double fraction = other.from == other.to ? 1 : other.fraction;
+                    int end = other.from == other.to ? other.from : other.to;
+                    if (other.from != other.to) {
+                        assertEquals(vertex.from, other.from);
+                        assertEquals(budget, distance[other.from] + fraction * graph.weight(other.from, end), EPSILON);
+                    }
+                    List<Integer> key = List.of(Math.min(vertex.from, end), Math.max(vertex.from, end));
+                    covered.merge(key, fraction, Double::sum);
+                }
+            }
+            for (int u = 0; u < graph.vertexCount(); u += 1) {
+                for (Edge<Integer> edge : graph.neighbors(u)) {
+                    int v = edge.to;
+                    double expected = reach(graph, distance, budget, u, v) + reach(graph, distance, budget, v, u);
+                    List<Integer> key = List.of(Math.min(u, v), Math.max(u, v));
+                    assertEquals(Math.min(1, expected), covered.getOrDefault(key, 0.0), EPSILON);
+                }
+            }
+        }
+    }
+
+    @Test
+    void linesJoinThroughUnbranchedLocations() {
+        GridGraph graph = new GridGraph(20, new Random(373));
+        Isochrone isochrone = new Isochrone(graph, 210, 15.5);
+        List<EdgePoint[]> lines = isochrone.lines(graph);
+        Map<EdgePoint, Integer> pieces = new HashMap<>();
+        Map<EdgePoint, Integer> ends = new HashMap<>();
+        for (EdgePoint[] line : lines) {
+            for (int i = 0; i < line.length; i += 1) {
+                int count = i == 0 || i == line.length - 1 ? 1 : 2;
+                pieces.merge(line[i], count, Integer::sum);
+            }
+            if (!line[0].equals(line[line.length - 1])) {
+                ends.merge(line[0], 1, Integer::sum);
+                ends.merge(line[line.length - 1], 1, Integer::sum);
+            }
+        }
+        // A line only ends where the pieces branch or stop, never where exactly two pieces meet.
+        for (Map.Entry<EdgePoint, Integer> end : ends.entrySet()) {
+            assertNotEquals(2, pieces.get(end.getKey()));
+        }
+        assertTrue(new Isochrone(graph, 210, 0).lines(graph).isEmpty());
+
+        // Cutting the first row off from the rest of the grid leaves a street without branches, which is one line.
+        for (int c = 0; c < 20; c += 1) {
+            graph.remove(c, c + 20);
+            graph.remove(c + 20, c);
+        }
+        List<EdgePoint[]> street = new Isochrone(graph, 0, 15.5).lines(graph);
+        assertEquals(1, street.size());
+        EdgePoint[] line = street.get(0);
+        assertEquals(EdgePoint.at(0), line[0]);
+        for (int i = 1; i + 1 < line.length; i += 1) {
+            assertEquals(EdgePoint.at(i), line[i]);
+        }
+        assertNotEquals(line[line.length - 1].from, line[line.length - 1].to);
+    }
+
+    /**
+     * Returns the fraction of the edge from u to v within the budget when starting at u, or 0 if there is no such
+     * edge or u is beyond the budget.
+     */
+    private static double reach(GridGraph graph, double[] distance, double budget, int u, int v) {
+        double weight = graph.weight(u, v);
+        if (weight == Double.POSITIVE_INFINITY || distance[u] > budget) {
+            return 0;
+        }
+        return Math.min(1, (budget - distance[u]) / weight);
+    }
+}
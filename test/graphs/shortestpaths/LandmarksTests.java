@@ -0,0 +1,205 @@
+package graphs.shortestpaths;
+
+import graphs.AStarGraph;
+import graphs.Edge;
+import graphs.IntEdgeConsumer;
+import graphs.IntGraph;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import spatial.GreatCircle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link Landmarks} class.
+ *
+ * @see Landmarks
+ */
+public class LandmarksTests {
+    /**
+     * Tolerance for comparing path weights summed in different orders.
+     */
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void boundsAreAdmissible() {
+        Random random = new Random(373);
+        LakeGraph graph = new LakeGraph(40);
+        Landmarks landmarks = Landmarks.select(graph, 8);
+        assertEquals(8, landmarks.size());
+        for (int trial = 0; trial < 200; trial += 1) {
+            int start = graph.randomVertex(random);
+            int goal = graph.randomVertex(random);
+            double actual = graph.weight(new DijkstraSolver<>(graph, start).solution(goal));
+            assertTrue(landmarks.estimatedDistance(start, goal) <= actual + EPSILON);
+        }
+        assertEquals(0, landmarks.estimatedDistance(0, 0));
+    }
+
+    @Test
+    void aStarFindsShortestPaths() {
+        Random random = new Random(373);
+        LakeGraph graph = new LakeGraph(40);
+        AStarGraph<Integer> heuristic = Landmarks.select(graph, 4).heuristic(graph, Integer::intValue);
+        for (int trial = 0; trial < 200; trial += 1) {
+            int start = graph.randomVertex(random);
+            int goal = graph.randomVertex(random);
+            double expected = graph.weight(new DijkstraSolver<>(graph, start).solution(goal));
+            double actual = graph.weight(new AStarSolver<>(heuristic, start, goal).solution());
+            assertEquals(expected, actual, EPSILON);
+        }
+    }
+
+    @Test
+    void moreLandmarksThanVertices() {
+        LakeGraph graph = new LakeGraph(2);
+        Landmarks landmarks = Landmarks.select(graph, 10);
+        assertEquals(4, landmarks.size());
+        assertThrows(IllegalArgumentException.class, () -> Landmarks.select(graph, 0));
+    }
+
+    /**
+     * Square grid of coordinates around Seattle with a lake in the middle, where edges between adjacent cells are
+     * weighted by their great-circle distance and no edge touches a lake cell.
+     */
+    private static class LakeGraph implements AStarGraph<Integer>, IntGraph {
+        private static final double MIN_LAT = 47.6;
+        private static final double MIN_LON = -122.35;
+        private static final double STEP = 0.001;
+        private final int side;
+        private final List<List<Edge<Integer>>> neighbors;
+
+        LakeGraph(int side) {
+            this.side = side;
+            this.neighbors = new ArrayList<>(side * side);
+            for (int v = 0; v < side * side; v += 1) {
+                neighbors.add(new ArrayList<>());
+            }
+            for (int r = 0; r < side; r += 1) {
+                for (int c = 0; c < side; c += 1) {
+                    if (c + 1 < side) {
+                        connect(r * side + c, r * side + c + 1);
+                    }
+                    if (r + 1 < side) {
+                        connect(r * side + c, (r + 1) * side + c);
+                    }
+                }
+            }
+        }
+
+        private void connect(int v, int w) {
+            if (!isLake(v) && !isLake(w)) {
+                double weight = estimatedDistance(v, w);
+                neighbors.get(v).add(new Edge<>(v, w, weight));
+                neighbors.get(w).add(new Edge<>(w, v, weight));
+            }
+        }
+
+        /**
+         * Returns true if the vertex is in the lake: a wide band across the middle rows, leaving a gap on one side.
+         */
+        private boolean isLake(int v) {
+            int r = v / side;
+            int c = v % side;
+            return r > side / 3 && r < 2 * side / 3 && c > side / 8;
+        }
+
+        /**
+         * Returns a random vertex that is not in the lake.
+         */
+        int randomVertex(Random random) {
+            int v = random.nextInt(vertexCount());
+            while (isLake(v)) {
+                v = random.nextInt(vertexCount());
+            }
+            return v;
+        }
+
+        double weight(List<Integer> path) {
+            double result = 0;
+            for (int i = 1; i < path.size(); i += 1) {
+                result += estimatedDistance(path.get(i - 1), path.get(i));
+            }
+            return result;
+        }
+
+        private double lat(int v) {
+            return MIN_LAT + (v / side) * STEP;
+        }
+
+        private double lon(int v) {
+            return MIN_LON + (v % side) * STEP;
+        }
+
+        @Override
+        public List<Edge<Integer>> neighbors(Integer vertex) {
+            return neighbors.get(vertex);
+        }
+
+        @Override
+        public double estimatedDistance(Integer start, Integer end) {
+            return GreatCircle.distance(lat(start), lon(start), lat(end), lon(end));
+        }
+
+        @Override
+        public int vertexCount() {
+            return neighbors.size();
+        }
+
+        @Override
+        public void forEachNeighbor(int vertex, IntEdgeConsumer action) {
+            for (Edge<Integer> edge : neighbors.get(vertex)) {
+                action.accept(edge.from, edge.to, edge.weight);
+            }
+        }
+    }
+
+    @Nested
+    class RuntimeExperiments {
+        /**
+         * Number of searches per landmark count. Making this smaller means experiments run faster.
+         */
+        private static final int NUM_TRIALS = 200;
+        /**
+         * Side length of the grid.
+         */
+        private static final int SIDE = 200;
+        /**
+         * Maximum number of landmarks.
+         */
+        private static final int MAX_LANDMARKS = 32;
+
+        @Test
+        void settledVertices() {
+            LakeGraph graph = new LakeGraph(SIDE);
+            for (int count = 1; count <= MAX_LANDMARKS; count *= 2) {
+                System.out.print(count);
+                System.out.print(',');
+
+                AStarGraph<Integer> heuristic = Landmarks.select(graph, count).heuristic(graph, Integer::intValue);
+                Random random = new Random(373);
+
+                // Record the total vertices settled across all trials
+                long totalLandmarkSettled = 0;
+                long totalGeodesicSettled = 0;
+
+                for (int i = 0; i < NUM_TRIALS; i += 1) {
+                    int start = graph.randomVertex(random);
+                    int goal = graph.randomVertex(random);
+                    totalLandmarkSettled += new AStarSolver<>(heuristic, start, goal).stats().settled();
+                    totalGeodesicSettled += new AStarSolver<>(graph, start, goal).stats().settled();
+                }
+
+                // Output the average number of settled vertices.
+                System.out.printf("%.1f", (double) totalLandmarkSettled / NUM_TRIALS);
+                System.out.print(',');
+                System.out.printf("%.1f", (double) totalGeodesicSettled / NUM_TRIALS);
+                System.out.println();
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package graphs.shortestpaths;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link NearestTargets} class.
+ *
+ * @see NearestTargets
+ */
+public class NearestTargetsTests {
+    /**
+     * Tolerance for comparing path weights summed in different orders.
+     */
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void matchesSortedDijkstraDistances() {
+        Random random = new Random(373);
+        GridGraph graph = new GridGraph(30, random);
+        for (int trial = 0; trial < 50; trial += 1) {
+            int start = random.nextInt(graph.vertexCount());
+            int[] targets = random.ints(1 + random.nextInt(30), 0, graph.vertexCount()).toArray();
+            int k = 1 + random.nextInt(10);
+            double[] expected = Arrays.stream(targets)
+                    .mapToDouble(target -> new IntDijkstraSolver(graph, start, target).distance())
+                    .sorted()
+                    .limit(k)
+                    .toArray();
+            NearestTargets nearest = new NearestTargets(graph, start, targets, k);
+            assertTrue(nearest.isComplete());
+            assertArrayEquals(expected, nearest.distances(), EPSILON);
+            int[] indices = nearest.nearest();
+            assertEquals(indices.length, Arrays.stream(indices).distinct().count());
+            for (int i = 0; i < indices.length; i += 1) {
+                assertEquals(new IntDijkstraSolver(graph, start, targets[indices[i]]).distance(),
+                        nearest.distances()[i], EPSILON);
+            }
+        }
+    }
+
+    @Test
+    void repeatedTargetsAreEachRanked() {
+        GridGraph graph = new GridGraph(10, new Random(373));
+        NearestTargets nearest = new NearestTargets(graph, 0, new int[]{99, 1, 1, 0}, 3);
+        assertArrayEquals(new int[]{3, 1, 2}, nearest.nearest());
+        assertEquals(0, nearest.distances()[0]);
+        assertEquals(nearest.distances()[1], nearest.distances()[2]);
+    }
+
+    @Test
+    void stopsOnceNearestAreSettled() {
+        GridGraph graph = new GridGraph(30, new Random(373));
+        // The far corner is never settled because the target next to the start is enough.
+        NearestTargets nearest = new NearestTargets(graph, 0, new int[]{899, 1}, 1);
+        assertArrayEquals(new int[]{1}, nearest.nearest());
+        assertTrue(nearest.stats().settled() < graph.vertexCount() / 10);
+        assertEquals(0, new NearestTargets(graph, 0, new int[]{1}, 0).nearest().length);
+        assertThrows(IllegalArgumentException.class, () -> new NearestTargets(graph, 0, new int[]{1}, -1));
+    }
+
+    @Test
+    void unreachableTargetsAreLeftOut() {
+        GridGraph graph = new GridGraph(3, new Random(373));
+        graph.isolate(8);
+        NearestTargets nearest = new NearestTargets(graph, 0, new int[]{8, 4}, 2);
+        assertTrue(nearest.isComplete());
+        assertArrayEquals(new int[]{1}, nearest.nearest());
+    }
+
+    @Test
+    void stopPolicyLeavesResultIncomplete() {
+        GridGraph graph = new GridGraph(10, new Random(373));
+        NearestTargets nearest = new NearestTargets(graph, 0, new int[]{0, 99}, 2, StopPolicy.maxSettled(5));
+        assertFalse(nearest.isComplete());
+        assertArrayEquals(new int[]{0}, nearest.nearest());
+    }
+}
@@ -1,6 +1,7 @@
 package seamcarving.seamfinding;
 
 import graphs.shortestpaths.DijkstraSolver;
+import graphs.shortestpaths.IntDijkstraSolver;
 import graphs.shortestpaths.ToposortDAGSolver;
 import org.junit.jupiter.api.Nested;
 
@@ -32,4 +33,15 @@ public class AdjacencyListSeamFinderTests {
             return new AdjacencyListSeamFinder(ToposortDAGSolver::new);
         }
     }
+
+    /**
+     * Tests using the {@link IntDijkstraSolver} implementation.
+     */
+    @Nested
+    public class UsingIntDijkstraSolver extends SeamFinderTests {
+        @Override
+        public SeamFinder createSeamFinder() {
+            return new AdjacencyListSeamFinder();
+        }
+    }
 }
@@ -0,0 +1,114 @@
+package server;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link ImageEncoder} class.
+ *
+ * @see ImageEncoder
+ */
+public class ImageEncoderTests {
+    @Test
+    void pngIsLossless() throws IOException {
+        BufferedImage image = randomImage(64, 48, new Random(373));
+        for (int level = 0; level <= 9; level += 1) {
+            BufferedImage decoded = decode(encode(ImageEncoder.of("png", level), image));
+            assertEquals(image.getWidth(), decoded.getWidth());
+            for (int x = 0; x < image.getWidth(); x += 1) {
+                for (int y = 0; y < image.getHeight(); y += 1) {
+                    assertEquals(image.getRGB(x, y), decoded.getRGB(x, y));
+                }
+            }
+        }
+    }
+
+    @Test
+    void higherCompressionLevelsAreSmaller() throws IOException {
+        BufferedImage image = stripedImage(256, 256);
+        int fastest = encode(ImageEncoder.of("png", 0), image).length;
+        int smallest = encode(ImageEncoder.of("png", 9), image).length;
+        assertTrue(smallest < fastest, smallest + " >= " + fastest);
+    }
+
+    @Test
+    void jpegDropsTransparency() throws IOException {
+        BufferedImage image = randomImage(32, 32, new Random(373));
+        ImageEncoder encoder = ImageEncoder.of("jpeg", 90);
+        assertEquals("image/jpeg", encoder.contentType());
+        BufferedImage decoded = decode(encode(encoder, image));
+        assertEquals(32, decoded.getHeight());
+        assertFalse(decoded.getColorModel().hasAlpha());
+    }
+
+    @Test
+    void streamingBase64MatchesBufferedBase64() throws IOException {
+        BufferedImage image = randomImage(40, 30, new Random(373));
+        ImageEncoder encoder = ImageEncoder.of("png", null);
+        String expected = Base64.getEncoder().encodeToString(encode(encoder, image));
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        OutputStream base64 = Base64.getEncoder().wrap(os);
+        encoder.write(image, base64);
+        base64.close();
+        assertEquals(expected, os.toString("US-ASCII"));
+    }
+
+    @Test
+    void rejectsUnknownFormatsAndLevels() {
+        assertThrows(IllegalArgumentException.class, () -> ImageEncoder.of("gif", null));
+        assertThrows(IllegalArgumentException.class, () -> ImageEncoder.of("png", 10));
+        assertThrows(IllegalArgumentException.class, () -> ImageEncoder.of("jpeg", -1));
+    }
+
+    /**
+     * Returns the image encoded into a byte array.
+     */
+    private static byte[] encode(ImageEncoder encoder, BufferedImage image) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        encoder.write(image, os);
+        return os.toByteArray();
+    }
+
+    /**
+     * Returns the image decoded from the byte array.
+     */
+    private static BufferedImage decode(byte[] bytes) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(bytes));
+    }
+
+    /**
+     * Returns an image with random colors and transparency.
+     */
+    private static BufferedImage randomImage(int width, int height, Random random) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < width; x += 1) {
+            for (int y = 0; y < height; y += 1) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Returns an image of repeating color stripes, which compresses well.
+     */
+    private static BufferedImage stripedImage(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < width; x += 1) {
+            for (int y = 0; y < height; y += 1) {
+                image.setRGB(x, y, 0xFF000000 | ((x * 7 + y * 3) % 64) * 0x030201);
+            }
+        }
+        return image;
+    }
+}
@@ -0,0 +1,83 @@
+package server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link LatencyHistogram} class.
+ *
+ * @see LatencyHistogram
+ */
+public class LatencyHistogramTests {
+    @Test
+    void bucketsCoverTheirBounds() {
+        assertEquals(0, LatencyHistogram.bucket(0));
+        assertEquals(0, LatencyHistogram.bucket(1024));
+        assertEquals(1, LatencyHistogram.bucket(1025));
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucket(Long.MAX_VALUE));
+        for (int i = 0; i < LatencyHistogram.BUCKETS - 1; i += 1) {
+            long upper = LatencyHistogram.upperBound(i);
+            assertEquals(i, LatencyHistogram.bucket(upper), "upper bound of bucket " + i);
+            assertEquals(i + 1, LatencyHistogram.bucket(upper + 1), "past upper bound of bucket " + i);
+        }
+    }
+
+    @Test
+    void quantilesAreCloseToExactPercentiles() {
+        Random random = new Random(373);
+        LatencyHistogram histogram = new LatencyHistogram();
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i += 1) {
+            // Log-normal durations around 1 millisecond with a long tail, like request latencies.
+            values[i] = (long) (1e6 * Math.exp(random.nextGaussian()));
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        assertEquals(values.length, histogram.count());
+        assertEquals(Arrays.stream(values).sum(), histogram.sum());
+        for (double quantile : new double[]{0.5, 0.9, 0.99, 0.999}) {
+            double expected = values[(int) Math.ceil(quantile * values.length) - 1];
+            double actual = histogram.quantile(quantile);
+            assertEquals(expected, actual, expected * 0.125, "quantile " + quantile);
+        }
+    }
+
+    @Test
+    void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.quantile(0.99));
+        assertThrows(IllegalArgumentException.class, () -> histogram.quantile(1.5));
+        histogram.record(-5);
+        assertEquals(0, histogram.sum());
+        assertEquals(1, histogram.count());
+    }
+
+    @Test
+    void concurrentRecordsAreAllCounted() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t += 1) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < 10_000; i += 1) {
+                    histogram.record(i * 1000L);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+        assertEquals(80_000, histogram.count());
+    }
+}
@@ -0,0 +1,78 @@
+package server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link Metrics} class.
+ *
+ * @see Metrics
+ */
+public class MetricsTests {
+    @Test
+    void writesCountersAndGauges() {
+        Metrics metrics = new Metrics();
+        metrics.counter("requests_total", "Requests.", "route", "/map").add(3);
+        metrics.counter("requests_total", "Requests.", "route", "/map").increment();
+        metrics.counter("requests_total", "Requests.", "route", "/search").increment();
+        AtomicLong hits = new AtomicLong(7);
+        metrics.counter("hits_total", "Hits.", hits::get);
+        metrics.gauge("queue_length", "Queued \"tasks\"\nnow.", () -> 2.5, "pool", "a\"b");
+        hits.set(8);
+        assertEquals(""
+                        + "# HELP hits_total Hits.\n"
+                        + "# TYPE hits_total counter\n"
+                        + "hits_total 8\n"
+                        + "# HELP queue_length Queued \"tasks\"\\nnow.\n"
+                        + "# TYPE queue_length gauge\n"
+                        + "queue_length{pool=\"a\\\"b\"} 2.5\n"
+                        + "# HELP requests_total Requests.\n"
+                        + "# TYPE requests_total counter\n"
+                        + "requests_total{route=\"/map\"} 4\n"
+                        + "requests_total{route=\"/search\"} 1\n",
+                metrics.scrape());
+    }
+
+    @Test
+    void writesCumulativeHistogramBuckets() {
+        Metrics metrics = new Metrics();
+        LatencyHistogram histogram = metrics.histogram("phase_seconds", "Phases.", "phase", "fetch");
+        assertSame(histogram, metrics.histogram("phase_seconds", "Phases.", "phase", "fetch"));
+        histogram.record(1_000);
+        histogram.record(3_000_000);
+        histogram.record(3_000_000);
+        String text = metrics.scrape();
+        assertTrue(text.contains("# TYPE phase_seconds histogram\n"), text);
+        assertTrue(text.contains("phase_seconds_bucket{phase=\"fetch\",le=\"1.024E-6\"} 1\n"), text);
+        assertTrue(text.contains("phase_seconds_bucket{phase=\"fetch\",le=\"0.002097152\"} 1\n"), text);
+        assertTrue(text.contains("phase_seconds_bucket{phase=\"fetch\",le=\"0.004194304\"} 3\n"), text);
+        assertTrue(text.contains("phase_seconds_bucket{phase=\"fetch\",le=\"+Inf\"} 3\n"), text);
+        assertTrue(text.contains("phase_seconds_sum{phase=\"fetch\"} 0.006001\n"), text);
+        assertTrue(text.contains("phase_seconds_count{phase=\"fetch\"} 3\n"), text);
+        assertTrue(text.contains("# TYPE phase_seconds_quantile gauge\n"), text);
+        assertTrue(text.contains("phase_seconds_quantile{phase=\"fetch\",quantile=\"0.99\"}"), text);
+        // Cumulative counts never decrease.
+        long previous = 0;
+        for (String line : text.split("\n")) {
+            if (line.startsWith("phase_seconds_bucket")) {
+                long count = Long.parseLong(line.substring(line.lastIndexOf(' ') + 1));
+                assertTrue(count >= previous, line);
+                previous = count;
+            }
+        }
+    }
+
+    @Test
+    void rejectsConflictingRegistrations() {
+        Metrics metrics = new Metrics();
+        metrics.counter("a_total", "A.");
+        assertThrows(IllegalArgumentException.class, () -> metrics.histogram("a_total", "A."));
+        assertThrows(IllegalArgumentException.class, () -> metrics.counter("a_total", "A.", () -> 1));
+        assertThrows(IllegalArgumentException.class, () -> metrics.counter("b_total", "B.", "unpaired"));
+        metrics.gauge("c", "C.", () -> 1);
+        assertThrows(IllegalArgumentException.class, () -> metrics.gauge("c", "C.", () -> 2));
+    }
+}
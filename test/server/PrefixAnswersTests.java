@@ -0,0 +1,93 @@
+package server;
+
+import autocomplete.WeightedAutocomplete;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToIntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link PrefixAnswers} class.
+ *
+ * @see PrefixAnswers
+ */
+public class PrefixAnswersTests {
+    /**
+     * Maximum number of results per search.
+     */
+    private static final int MAX_MATCHES = 10;
+    /**
+     * Arbitrary but deterministic weight for each name, with many ties.
+     */
+    private static final ToIntFunction<CharSequence> WEIGHT = name -> Math.floorMod(name.toString().hashCode(), 100);
+
+    @Test
+    void matchesSearchForEveryShortPrefix() throws IOException {
+        List<String> names = randomNames(2000, new Random(373));
+        WeightedAutocomplete autocomplete = new WeightedAutocomplete(WEIGHT);
+        autocomplete.addAll(names);
+        PrefixAnswers answers = PrefixAnswers.build(names, 3, prefix -> autocomplete.topMatches(prefix, MAX_MATCHES));
+        ObjectMapper mapper = new ObjectMapper();
+        String alphabet = "abcdeé ";
+        for (char a : alphabet.toCharArray()) {
+            assertJsonEquals(mapper, autocomplete.topMatches("" + a, MAX_MATCHES), answers.get("" + a));
+            for (char b : alphabet.toCharArray()) {
+                assertJsonEquals(mapper, autocomplete.topMatches("" + a + b, MAX_MATCHES), answers.get("" + a + b));
+                for (char c : alphabet.toCharArray()) {
+                    String prefix = "" + a + b + c;
+                    assertJsonEquals(mapper, autocomplete.topMatches(prefix, MAX_MATCHES), answers.get(prefix));
+                }
+            }
+        }
+        assertNull(answers.get("abcd"));
+        assertNull(answers.get(""));
+        assertNull(answers.get(null));
+    }
+
+    @Test
+    void lengthZeroPrecomputesNothing() {
+        PrefixAnswers answers = PrefixAnswers.build(List.of("Seattle"), 0, prefix -> List.of(prefix));
+        assertEquals(0, answers.size());
+        assertNull(answers.get("S"));
+        assertThrows(IllegalArgumentException.class, () -> PrefixAnswers.build(List.of(), 4, prefix -> List.of()));
+    }
+
+    @Test
+    void distinctPrefixesAreCountedOnce() {
+        PrefixAnswers answers = PrefixAnswers.build(List.of("Sea", "Seattle", "Seal", "S"), 2, prefix -> List.of());
+        // "S" and "Se"
+        assertEquals(2, answers.size());
+    }
+
+    /**
+     * Asserts that the JSON bytes encode the expected list of names.
+     */
+    private static void assertJsonEquals(ObjectMapper mapper, List<CharSequence> expected, byte[] actual)
+            throws IOException {
+        assertNotNull(actual);
+        assertEquals(mapper.writeValueAsString(expected), new String(actual, "UTF-8"));
+    }
+
+    /**
+     * Returns random names over a small alphabet so that short prefixes have many matches.
+     */
+    private static List<String> randomNames(int count, Random random) {
+        String alphabet = "abcdeé ";
+        List<String> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i += 1) {
+            StringBuilder name = new StringBuilder();
+            int length = 1 + random.nextInt(8);
+            for (int j = 0; j < length; j += 1) {
+                name.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            result.add(name.toString());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,59 @@
+package server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link ThreadPools} class.
+ *
+ * @see ThreadPools
+ */
+public class ThreadPoolsTests {
+    @Test
+    void computePoolRejectsWhenSaturated() throws InterruptedException {
+        ExecutorService pool = ThreadPools.computePool("test", 2, 3);
+        CountDownLatch release = new CountDownLatch(1);
+        // 2 running tasks and 3 queued tasks fill the pool.
+        for (int i = 0; i < 5; i += 1) {
+            pool.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        assertThrows(RejectedExecutionException.class, () -> pool.execute(() -> {
+        }));
+        release.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void batchPoolRunsTasksOnNamedDaemonWorkers() throws Exception {
+        ForkJoinPool pool = ThreadPools.batchPool("batch", 2);
+        assertEquals(2, pool.getParallelism());
+        Thread worker = pool.submit(Thread::currentThread).get();
+        assertTrue(worker.getName().startsWith("batch-"), worker.getName());
+        assertTrue(worker.isDaemon());
+        pool.shutdown();
+    }
+
+    @Test
+    void requestPoolUsesVirtualThreadsOnlyWhenAsked() {
+        assertFalse(ThreadPools.requestPool(false, 16).isUseVirtualThreads());
+        if (ThreadPools.virtualThreadsSupported()) {
+            assertTrue(ThreadPools.requestPool(true, 16).isUseVirtualThreads());
+        } else {
+            assertThrows(IllegalStateException.class, () -> ThreadPools.requestPool(true, 16));
+        }
+    }
+}
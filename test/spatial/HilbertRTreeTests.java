@@ -0,0 +1,145 @@
+package spatial;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link HilbertRTree} class.
+ *
+ * @see HilbertRTree
+ */
+public class HilbertRTreeTests {
+    /**
+     * Latitude of the southwest corner of the sampled region around Seattle.
+     */
+    private static final double MIN_LAT = 47.45;
+    /**
+     * Longitude of the southwest corner of the sampled region around Seattle.
+     */
+    private static final double MIN_LON = -122.45;
+    /**
+     * Size of the sampled region in degrees.
+     */
+    private static final double SPAN = 0.3;
+    /**
+     * Maximum length of a sampled segment in degrees of latitude and of longitude, about a city block.
+     */
+    private static final double SEGMENT_SPAN = 0.002;
+
+    @Test
+    void nearestMatchesLinearScan() {
+        Random random = new Random(373);
+        double[][] segments = randomSegments(5000, random);
+        HilbertRTree tree = tree(segments);
+        assertEquals(5000, tree.size());
+        for (int trial = 0; trial < 1000; trial += 1) {
+            double lat = MIN_LAT + random.nextDouble() * SPAN;
+            double lon = MIN_LON + random.nextDouble() * SPAN;
+            int expected = linearNearest(segments, lat, lon);
+            int actual = tree.nearest(lat, lon);
+            assertEquals(distance(segments, expected, lat, lon), distance(segments, actual, lat, lon), 1e-15);
+        }
+    }
+
+    @Test
+    void nearestFarOutsideSegments() {
+        Random random = new Random(373);
+        double[][] segments = randomSegments(1000, random);
+        HilbertRTree tree = tree(segments);
+        double[][] targets = {{MIN_LAT - 1, MIN_LON - 1}, {MIN_LAT + 2, MIN_LON + SPAN / 2}, {0, 0}};
+        for (double[] target : targets) {
+            int expected = linearNearest(segments, target[0], target[1]);
+            int actual = tree.nearest(target[0], target[1]);
+            assertEquals(distance(segments, expected, target[0], target[1]),
+                    distance(segments, actual, target[0], target[1]), 1e-12);
+        }
+    }
+
+    @Test
+    void fractionProjectsOntoSegment() {
+        double[][] segments = {{47.6}, {-122.4}, {47.6}, {-122.3}};
+        HilbertRTree tree = tree(segments);
+        assertEquals(0, tree.nearest(47.7, -122.375));
+        assertEquals(0.25, tree.fraction(0, 47.7, -122.375), 1e-12);
+        // Targets beyond either end project onto the nearest endpoint.
+        assertEquals(0, tree.fraction(0, 47.6, -122.5));
+        assertEquals(1, tree.fraction(0, 47.5, -122.2));
+    }
+
+    @Test
+    void zeroLengthSegmentsActLikePoints() {
+        double[][] segments = {{47.6, 47.61}, {-122.4, -122.41}, {47.6, 47.61}, {-122.4, -122.41}};
+        HilbertRTree tree = tree(segments);
+        assertEquals(0, tree.nearest(47.601, -122.401));
+        assertEquals(1, tree.nearest(47.609, -122.409));
+        assertEquals(0, tree.fraction(1, 47.609, -122.409));
+    }
+
+    @Test
+    void emptyAndSingleSegment() {
+        HilbertRTree empty = tree(new double[4][0]);
+        assertEquals(0, empty.size());
+        assertEquals(-1, empty.nearest(47.6, -122.3));
+        HilbertRTree single = tree(new double[][]{{47.6}, {-122.4}, {47.7}, {-122.4}});
+        assertEquals(0, single.nearest(0, 0));
+    }
+
+    /**
+     * Returns an R-tree over the segments.
+     */
+    private static HilbertRTree tree(double[][] segments) {
+        return new HilbertRTree(
+                segments[0].length, i -> segments[0][i], i -> segments[1][i], i -> segments[2][i], i -> segments[3][i]
+        );
+    }
+
+    /**
+     * Returns the first latitudes, first longitudes, second latitudes and second longitudes of n random short
+     * segments in the sampled region.
+     */
+    private static double[][] randomSegments(int n, Random random) {
+        double[][] segments = new double[4][n];
+        for (int i = 0; i < n; i += 1) {
+            segments[0][i] = MIN_LAT + random.nextDouble() * SPAN;
+            segments[1][i] = MIN_LON + random.nextDouble() * SPAN;
+            segments[2][i] = segments[0][i] + (random.nextDouble() - 0.5) * SEGMENT_SPAN;
+            segments[3][i] = segments[1][i] + (random.nextDouble() - 0.5) * SEGMENT_SPAN;
+        }
+        return segments;
+    }
+
+    /**
+     * Returns the id of the segment nearest to the target by checking every segment.
+     */
+    private static int linearNearest(double[][] segments, double lat, double lon) {
+        int best = -1;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        for (int id = 0; id < segments[0].length; id += 1) {
+            double d = distance(segments, id, lat, lon);
+            if (d < bestDistance) {
+                best = id;
+                bestDistance = d;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the distance from the target to the segment with longitudes scaled by the cosine of the target latitude.
+     */
+    private static double distance(double[][] segments, int id, double lat, double lon) {
+        double scale = Math.cos(Math.toRadians(lat));
+        double ax = segments[1][id] * scale;
+        double ay = segments[0][id];
+        double dx = segments[3][id] * scale - ax;
+        double dy = segments[2][id] - ay;
+        double px = lon * scale - ax;
+        double py = lat - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, (px * dx + py * dy) / lengthSquared));
+        return Math.hypot(px - t * dx, py - t * dy);
+    }
+}
@@ -0,0 +1,278 @@
+package spatial;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link KdTree} class.
+ *
+ * @see KdTree
+ */
+public class KdTreeTests {
+    /**
+     * Latitude of the southwest corner of the sampled region around Seattle.
+     */
+    private static final double MIN_LAT = 47.45;
+    /**
+     * Longitude of the southwest corner of the sampled region around Seattle.
+     */
+    private static final double MIN_LON = -122.45;
+    /**
+     * Size of the sampled region in degrees.
+     */
+    private static final double SPAN = 0.3;
+
+    @Test
+    void nearestMatchesLinearScan() {
+        Random random = new Random(373);
+        double[][] points = randomPoints(5000, random);
+        KdTree tree = new KdTree(points[0].length, i -> points[0][i], i -> points[1][i]);
+        for (int trial = 0; trial < 1000; trial += 1) {
+            double lat = MIN_LAT + random.nextDouble() * SPAN;
+            double lon = MIN_LON + random.nextDouble() * SPAN;
+            int expected = linearNearest(points, lat, lon);
+            int actual = tree.nearest(lat, lon);
+            assertEquals(distance(points, expected, lat, lon), distance(points, actual, lat, lon));
+        }
+    }
+
+    @Test
+    void kNearestOrderedByDistance() {
+        Random random = new Random(373);
+        double[][] points = randomPoints(2000, random);
+        KdTree tree = new KdTree(points[0].length, i -> points[0][i], i -> points[1][i]);
+        for (int trial = 0; trial < 200; trial += 1) {
+            double lat = MIN_LAT + random.nextDouble() * SPAN;
+            double lon = MIN_LON + random.nextDouble() * SPAN;
+            int[] actual = tree.nearest(lat, lon, 10);
+            assertEquals(10, actual.length);
+            for (int i = 1; i < actual.length; i += 1) {
+                assertTrue(distance(points, actual[i - 1], lat, lon) <= distance(points, actual[i], lat, lon));
+            }
+            // No point outside the result may be closer than the farthest point in the result.
+            double farthest = distance(points, actual[actual.length - 1], lat, lon);
+            int closer = 0;
+            for (int id = 0; id < points[0].length; id += 1) {
+                if (distance(points, id, lat, lon) < farthest) {
+                    closer += 1;
+                }
+            }
+            assertTrue(closer < actual.length);
+        }
+    }
+
+    @Test
+    void withinMatchesLinearScan() {
+        Random random = new Random(373);
+        double[][] points = randomPoints(3000, random);
+        // Repeat coordinates so that some equal the splitting keys.
+        for (int i = 0; i < 300; i += 1) {
+            points[0][i] = points[0][i + 300];
+            points[1][i + 600] = points[1][i + 900];
+        }
+        KdTree tree = new KdTree(points[0].length, i -> points[0][i], i -> points[1][i]);
+        for (int trial = 0; trial < 200; trial += 1) {
+            double minLat = MIN_LAT + random.nextDouble() * SPAN;
+            double minLon = MIN_LON + random.nextDouble() * SPAN;
+            double maxLat = minLat + random.nextDouble() * SPAN / 4;
+            double maxLon = minLon + random.nextDouble() * SPAN / 4;
+            boolean[] expected = new boolean[points[0].length];
+            int count = 0;
+            for (int id = 0; id < expected.length; id += 1) {
+                expected[id] = points[0][id] >= minLat && points[0][id] <= maxLat
+                        && points[1][id] >= minLon && points[1][id] <= maxLon;
+                count += expected[id] ? 1 : 0;
+            }
+            int[] actual = tree.within(minLat, minLon, maxLat, maxLon);
+            assertEquals(count, actual.length);
+            for (int id : actual) {
+                assertTrue(expected[id]);
+            }
+            // The box edges are inclusive.
+            int id = random.nextInt(expected.length);
+            int[] exact = tree.within(points[0][id], points[1][id], points[0][id], points[1][id]);
+            assertTrue(Arrays.stream(exact).anyMatch(found -> found == id));
+        }
+    }
+
+    @Test
+    void nearestWithinBoxMatchesLinearScan() {
+        Random random = new Random(373);
+        double[][] points = randomPoints(3000, random);
+        KdTree tree = new KdTree(points[0].length, i -> points[0][i], i -> points[1][i]);
+        for (int trial = 0; trial < 200; trial += 1) {
+            double minLat = MIN_LAT + random.nextDouble() * SPAN / 2;
+            double minLon = MIN_LON + random.nextDouble() * SPAN / 2;
+            double maxLat = minLat + random.nextDouble() * SPAN / 4;
+            double maxLon = minLon + random.nextDouble() * SPAN / 4;
+            // Centers both inside and outside the box.
+            double lat = MIN_LAT + random.nextDouble() * SPAN;
+            double lon = MIN_LON + random.nextDouble() * SPAN;
+            int[] inside = tree.within(minLat, minLon, maxLat, maxLon);
+            double[] expected = Arrays.stream(inside)
+                    .mapToDouble(id -> distance(points, id, lat, lon))
+                    .sorted()
+                    .limit(10)
+                    .toArray();
+            int[] actual = tree.nearest(lat, lon, 10, minLat, minLon, maxLat, maxLon);
+            assertArrayEquals(expected, Arrays.stream(actual).mapToDouble(id -> distance(points, id, lat, lon))
+                    .toArray());
+        }
+    }
+
+    @Test
+    void emptyAndSmallTrees() {
+        KdTree empty = new KdTree(0, i -> 0, i -> 0);
+        assertEquals(-1, empty.nearest(MIN_LAT, MIN_LON));
+        assertEquals(0, empty.nearest(MIN_LAT, MIN_LON, 5).length);
+        KdTree single = new KdTree(1, i -> MIN_LAT, i -> MIN_LON);
+        assertArrayEquals(new int[]{0}, single.nearest(0, 0, 5));
+        assertEquals(0, empty.within(-90, -180, 90, 180).length);
+        assertArrayEquals(new int[]{0}, single.within(MIN_LAT, MIN_LON, MIN_LAT, MIN_LON));
+        assertEquals(0, single.nearest(0, 0, 5, 0, 0, 1, 1).length);
+    }
+
+    @Test
+    void negativeKThrows() {
+        KdTree tree = new KdTree(10, i -> MIN_LAT + i * 0.01, i -> MIN_LON);
+        assertThrows(IllegalArgumentException.class, () -> tree.nearest(MIN_LAT, MIN_LON, -1));
+        assertThrows(IllegalArgumentException.class,
+                () -> tree.nearest(MIN_LAT, MIN_LON, -1, MIN_LAT, MIN_LON, MIN_LAT + 1, MIN_LON + 1));
+        assertEquals(0, tree.nearest(MIN_LAT, MIN_LON, 0).length);
+    }
+
+    /**
+     * Returns {@code n} random coordinates as an array of latitudes and an array of longitudes.
+     */
+    private static double[][] randomPoints(int n, Random random) {
+        double[][] points = new double[2][n];
+        for (int i = 0; i < n; i += 1) {
+            points[0][i] = MIN_LAT + random.nextDouble() * SPAN;
+            points[1][i] = MIN_LON + random.nextDouble() * SPAN;
+        }
+        return points;
+    }
+
+    private static int linearNearest(double[][] points, double lat, double lon) {
+        int best = -1;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        for (int id = 0; id < points[0].length; id += 1) {
+            double d = distance(points, id, lat, lon);
+            if (d < bestDistance) {
+                best = id;
+                bestDistance = d;
+            }
+        }
+        return best;
+    }
+
+    private static double distance(double[][] points, int id, double lat, double lon) {
+        return GreatCircle.distance(lat, lon, points[0][id], points[1][id]);
+    }
+
+    @Nested
+    class RuntimeExperiments {
+        /**
+         * Number of snapping queries per size. Making this smaller means experiments run faster.
+         */
+        private static final int NUM_TRIALS = 1000;
+        /**
+         * Maximum number of vertices to index.
+         */
+        private static final int MAX_SIZE = 200000;
+        /**
+         * Step size increment. Making this smaller means experiments run slower.
+         */
+        private static final int STEP = 20000;
+
+        @Test
+        void snappingLatency() {
+            Random random = new Random(373);
+            for (int size = STEP; size <= MAX_SIZE; size += STEP) {
+                System.out.print(size);
+                System.out.print(',');
+
+                double[][] points = randomPoints(size, random);
+                KdTree tree = new KdTree(size, i -> points[0][i], i -> points[1][i]);
+
+                // Record the total runtimes accumulated across all trials
+                double totalTreeTime = 0.0;
+                double totalLinearTime = 0.0;
+
+                for (int i = 0; i < NUM_TRIALS; i += 1) {
+                    double lat = MIN_LAT + random.nextDouble() * SPAN;
+                    double lon = MIN_LON + random.nextDouble() * SPAN;
+
+                    // Measure the time to snap using the tree
+                    long treeStart = System.nanoTime();
+                    tree.nearest(lat, lon);
+                    totalTreeTime += (double) (System.nanoTime() - treeStart) / 1_000_000_000;
+
+                    // Measure the time to snap by scanning every vertex
+                    long linearStart = System.nanoTime();
+                    linearNearest(points, lat, lon);
+                    totalLinearTime += (double) (System.nanoTime() - linearStart) / 1_000_000_000;
+                }
+
+                // Output the averages to 10 decimal places.
+                System.out.printf("%.10f", totalTreeTime / NUM_TRIALS);
+                System.out.print(',');
+                System.out.printf("%.10f", totalLinearTime / NUM_TRIALS);
+                System.out.println();
+            }
+        }
+
+        @Test
+        void viewportLatency() {
+            Random random = new Random(373);
+            // Columns: size, seconds to choose the markers nearest the center of a viewport with the tree, by sorting.
+            // Places sharing a name number far fewer than street vertices, so use smaller sizes.
+            for (int size = STEP / 10; size <= MAX_SIZE / 10; size += STEP / 10) {
+                System.out.print(size);
+                System.out.print(',');
+
+                double[][] points = randomPoints(size, random);
+                KdTree tree = new KdTree(size, i -> points[0][i], i -> points[1][i]);
+                double totalTreeTime = 0.0;
+                double totalSortTime = 0.0;
+
+                for (int i = 0; i < NUM_TRIALS; i += 1) {
+                    double lat = MIN_LAT + random.nextDouble() * SPAN;
+                    double lon = MIN_LON + random.nextDouble() * SPAN;
+                    double half = SPAN / 20;
+
+                    long treeStart = System.nanoTime();
+                    tree.nearest(lat, lon, 100, lat - half, lon - half, lat + half, lon + half);
+                    totalTreeTime += (double) (System.nanoTime() - treeStart) / 1_000_000_000;
+
+                    // Measure the time to sort every point by distance and keep the first 100 inside the viewport
+                    long sortStart = System.nanoTime();
+                    Integer[] order = new Integer[size];
+                    for (int id = 0; id < size; id += 1) {
+                        order[id] = id;
+                    }
+                    Arrays.sort(order, (a, b) -> Double.compare(distance(points, a, lat, lon),
+                            distance(points, b, lat, lon)));
+                    int kept = 0;
+                    for (int id = 0; id < size && kept < 100; id += 1) {
+                        int point = order[id];
+                        if (Math.abs(points[0][point] - lat) <= half && Math.abs(points[1][point] - lon) <= half) {
+                            kept += 1;
+                        }
+                    }
+                    totalSortTime += (double) (System.nanoTime() - sortStart) / 1_000_000_000;
+                }
+
+                System.out.printf("%.10f", totalTreeTime / NUM_TRIALS);
+                System.out.print(',');
+                System.out.printf("%.10f", totalSortTime / NUM_TRIALS);
+                System.out.println();
+            }
+        }
+    }
+}
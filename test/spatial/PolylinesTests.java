@@ -0,0 +1,90 @@
+package spatial;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link Polylines} class.
+ *
+ * @see Polylines
+ */
+public class PolylinesTests {
+    @Test
+    void encodeMatchesReferenceExample() {
+        double[] lats = {38.5, 40.7, 43.252};
+        double[] lons = {-120.2, -120.95, -126.453};
+        assertEquals("_p~iF~ps|U_ulLnnqC_mqNvxq`@", Polylines.encode(lats, lons));
+    }
+
+    @Test
+    void decodeInvertsEncode() {
+        Random random = new Random(373);
+        double[] lats = new double[500];
+        double[] lons = new double[500];
+        for (int i = 0; i < lats.length; i += 1) {
+            lats[i] = 47.5 + random.nextDouble() * 0.2;
+            lons[i] = -122.4 + random.nextDouble() * 0.2;
+        }
+        double[][] decoded = Polylines.decode(Polylines.encode(lats, lons));
+        assertEquals(lats.length, decoded[0].length);
+        for (int i = 0; i < lats.length; i += 1) {
+            assertEquals(lats[i], decoded[0][i], 0.5e-5);
+            assertEquals(lons[i], decoded[1][i], 0.5e-5);
+        }
+        assertEquals(0, Polylines.decode("")[0].length);
+        assertThrows(IllegalArgumentException.class, () -> Polylines.decode("_p~iF~ps|U_"));
+    }
+
+    @Test
+    void simplifyCollapsesStraightLines() {
+        double[] lats = {47.0, 47.1, 47.2, 47.3, 47.4};
+        double[] lons = {-122.0, -122.1, -122.2, -122.3, -122.4};
+        assertArrayEquals(new int[]{0, 4}, Polylines.simplify(lats, lons, 1e-4, 1e-4));
+        assertArrayEquals(new int[]{0}, Polylines.simplify(new double[]{47}, new double[]{-122}, 1e-4, 1e-4));
+    }
+
+    @Test
+    void simplifyStaysWithinTolerance() {
+        Random random = new Random(373);
+        double[] lats = new double[2000];
+        double[] lons = new double[2000];
+        for (int i = 1; i < lats.length; i += 1) {
+            lats[i] = lats[i - 1] + random.nextGaussian() * 1e-4;
+            lons[i] = lons[i - 1] + random.nextGaussian() * 1e-4;
+        }
+        double latTolerance = 2e-4;
+        double lonTolerance = 3e-4;
+        int[] kept = Polylines.simplify(lats, lons, latTolerance, lonTolerance);
+        assertEquals(0, kept[0]);
+        assertEquals(lats.length - 1, kept[kept.length - 1]);
+        assertTrue(kept.length < lats.length / 2);
+        for (int k = 1; k < kept.length; k += 1) {
+            int first = kept[k - 1];
+            int last = kept[k];
+            assertTrue(first < last);
+            for (int i = first + 1; i < last; i += 1) {
+                double distance = segmentDistance(
+                        lons[i] / lonTolerance, lats[i] / latTolerance,
+                        lons[first] / lonTolerance, lats[first] / latTolerance,
+                        lons[last] / lonTolerance, lats[last] / latTolerance
+                );
+                assertTrue(distance <= 1 + 1e-9, "Point " + i + " is " + distance + " tolerances away");
+            }
+        }
+    }
+
+    /**
+     * Returns the distance from point p to the segment from a to b.
+     */
+    private static double segmentDistance(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        return Math.hypot(px - (ax + t * dx), py - (ay + t * dy));
+    }
+}